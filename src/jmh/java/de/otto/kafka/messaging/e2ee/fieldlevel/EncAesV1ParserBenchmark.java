@@ -0,0 +1,53 @@
+package de.otto.kafka.messaging.e2ee.fieldlevel;
+
+import de.otto.kafka.messaging.e2ee.AesEncryptedPayload;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the index based encAesV1 parser with the former {@link String#split(String)} based
+ * parsing. Run it with {@code ./gradlew jmh} and compare the {@code gc.alloc.rate.norm} values,
+ * i.e. the allocated bytes per field.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncAesV1ParserBenchmark {
+
+  private final String encryptedField =
+      "encAesV1.3.y1rGSsCWGnhEMXPr.wpMBv+YxFQqMb2k0cGHhZPSd9KZdHh9xxDOiQg==";
+
+  @Benchmark
+  public AesEncryptedPayload indexBased() {
+    AesEncryptedPayload payload = EncAesV1Parser.parse(encryptedField);
+    payload.initializationVector();
+    return payload;
+  }
+
+  @Benchmark
+  public AesEncryptedPayload splitBased() {
+    String[] cryptoParts = encryptedField.split(Pattern.quote("."));
+    if (cryptoParts.length != 4) {
+      throw new IllegalArgumentException("encrypted string format is invalid");
+    }
+    int keyVersion = Integer.parseInt(cryptoParts[1]);
+    byte[] encryptedPayload = Base64.getDecoder().decode(cryptoParts[3]);
+    AesEncryptedPayload payload = new AesEncryptedPayload(encryptedPayload, cryptoParts[2],
+        keyVersion);
+    payload.initializationVector();
+    return payload;
+  }
+}
@@ -1,21 +1,34 @@
 package de.otto.kafka.messaging.e2ee;
 
 import de.otto.kafka.messaging.e2ee.EncryptionKeyProvider.KeyVersion;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Objects;
 
 /**
  * record to hold all the data needed for an encrypted payload. But it can also hold an unencrypted
  * payload.
+ * <p>
+ * An initialization vector given in base64 encoding or as part of a kafka header value is decoded
+ * on first use only. So filtering records with {@link #isEncrypted()} is cheap. The public
+ * constructors still check the base64 encoding of the initialization vector.
  *
  * @see #isEncrypted()
  */
 public final class AesEncryptedPayload {
 
   private final byte[] encryptedPayload;
-  private final byte[] initializationVector;
+  // source of the initialization vector until it has been decoded
+  private final String initializationVectorText;
+  private final byte[] initializationVectorSource;
+  private final int initializationVectorOffset;
+  private final int initializationVectorLength;
+  private final boolean initializationVectorSourceIsBase64;
+  private volatile byte[] initializationVector;
   private final int keyVersion;
   private final String encryptionKeyAttributeName;
+  private final CipherHeaderValues cipherHeaderValues;
 
   /**
    * Constructor for a not encrypted payload
@@ -23,10 +36,7 @@ public final class AesEncryptedPayload {
    * @param plainPayload the plain text as byte array.
    */
   public AesEncryptedPayload(byte[] plainPayload) {
-    this.encryptedPayload = plainPayload;
-    this.initializationVector = null;
-    this.keyVersion = 0;
-    this.encryptionKeyAttributeName = null;
+    this(plainPayload, null, null, 0, 0, false, 0, null, null);
   }
 
   /**
@@ -51,12 +61,25 @@ public final class AesEncryptedPayload {
    */
   public AesEncryptedPayload(byte[] encryptedPayload, byte[] initializationVector, int keyVersion,
       String encryptionKeyAttributeName) {
-    Objects.requireNonNull(encryptedPayload, "encryptedPayload must not be null");
-    Objects.requireNonNull(initializationVector, "initializationVector must not be null");
-    this.encryptedPayload = encryptedPayload;
-    this.initializationVector = initializationVector;
-    this.keyVersion = keyVersion;
-    this.encryptionKeyAttributeName = encryptionKeyAttributeName;
+    this(encryptedPayload, initializationVector, keyVersion, encryptionKeyAttributeName, null);
+  }
+
+  /**
+   * Constructor for an encrypted payload with precomputed kafka header values.
+   *
+   * @param encryptedPayload           an encrypted payload as byte array
+   * @param initializationVector       the raw initialization vector
+   * @param keyVersion                 the vault version of the encryption key entry
+   * @param encryptionKeyAttributeName JSON property name of the key within Vault. Can be
+   *                                   <code>null</code> for Field-Level-Encryption.
+   * @param cipherHeaderValues         the encoded header values of the key or <code>null</code>
+   */
+  AesEncryptedPayload(byte[] encryptedPayload, byte[] initializationVector, int keyVersion,
+      String encryptionKeyAttributeName, CipherHeaderValues cipherHeaderValues) {
+    this(Objects.requireNonNull(encryptedPayload, "encryptedPayload must not be null"), null,
+        Objects.requireNonNull(initializationVector, "initializationVector must not be null"),
+        0, initializationVector.length, false, keyVersion, encryptionKeyAttributeName,
+        cipherHeaderValues);
   }
 
   /**
@@ -65,6 +88,7 @@ public final class AesEncryptedPayload {
    * @param encryptedPayload           an encrypted payload as byte array
    * @param initializationVectorBase64 the initialization vector base64 encoded
    * @param keyVersion                 the vault version of the encryption key entry
+   * @throws IllegalArgumentException when the initialization vector is not base64 encoded
    */
   public AesEncryptedPayload(byte[] encryptedPayload, String initializationVectorBase64,
       int keyVersion) {
@@ -79,16 +103,75 @@ public final class AesEncryptedPayload {
    * @param keyVersion                 the vault version of the encryption key entry
    * @param encryptionKeyAttributeName JSON property name of the key within Vault. Can be
    *                                   <code>null</code> for Field-Level-Encryption.
+   * @throws IllegalArgumentException when the initialization vector is not base64 encoded
    */
   public AesEncryptedPayload(byte[] encryptedPayload, String initializationVectorBase64,
       int keyVersion, String encryptionKeyAttributeName) {
-    Objects.requireNonNull(encryptedPayload, "encryptedPayload must not be null");
-    Objects.requireNonNull(initializationVectorBase64,
-        "initializationVectorBase64 must not be null");
+    this(Objects.requireNonNull(encryptedPayload, "encryptedPayload must not be null"),
+        requireBase64(Objects.requireNonNull(initializationVectorBase64,
+            "initializationVectorBase64 must not be null")),
+        null, 0, initializationVectorBase64.length(), true, keyVersion,
+        encryptionKeyAttributeName, null);
+  }
+
+  private AesEncryptedPayload(byte[] encryptedPayload, String initializationVectorText,
+      byte[] initializationVectorSource, int initializationVectorOffset,
+      int initializationVectorLength, boolean initializationVectorSourceIsBase64, int keyVersion,
+      String encryptionKeyAttributeName, CipherHeaderValues cipherHeaderValues) {
     this.encryptedPayload = encryptedPayload;
-    this.initializationVector = Base64.getDecoder().decode(initializationVectorBase64);
+    this.initializationVectorText = initializationVectorText;
+    this.initializationVectorSource = initializationVectorSource;
+    this.initializationVectorOffset = initializationVectorOffset;
+    this.initializationVectorLength = initializationVectorLength;
+    this.initializationVectorSourceIsBase64 = initializationVectorSourceIsBase64;
+    if (initializationVectorSource != null && !initializationVectorSourceIsBase64
+        && initializationVectorOffset == 0
+        && initializationVectorLength == initializationVectorSource.length) {
+      // a raw initialization vector needs no decoding
+      this.initializationVector = initializationVectorSource;
+    }
     this.keyVersion = keyVersion;
     this.encryptionKeyAttributeName = encryptionKeyAttributeName;
+    this.cipherHeaderValues = cipherHeaderValues;
+  }
+
+  /**
+   * Static constructor for an encrypted payload whose initialization vector is the base64 text of
+   * a kafka header value. The initialization vector is decoded on first use.
+   *
+   * @param encryptedPayload           an encrypted payload as byte array
+   * @param initializationVectorBase64 the initialization vector base64 encoded as UTF-8 bytes
+   * @param keyVersion                 the vault version of the encryption key entry
+   * @param encryptionKeyAttributeName JSON property name of the key within Vault
+   * @return an AesEncryptedPayload of an encrypted payload
+   */
+  static AesEncryptedPayload ofBase64InitializationVectorBytes(byte[] encryptedPayload,
+      byte[] initializationVectorBase64, int keyVersion, String encryptionKeyAttributeName) {
+    Objects.requireNonNull(encryptedPayload, "encryptedPayload must not be null");
+    Objects.requireNonNull(initializationVectorBase64,
+        "initializationVectorBase64 must not be null");
+    return new AesEncryptedPayload(encryptedPayload, null, initializationVectorBase64, 0,
+        initializationVectorBase64.length, true, keyVersion, encryptionKeyAttributeName, null);
+  }
+
+  /**
+   * Static constructor for an encrypted payload whose raw initialization vector is a part of a
+   * kafka header value. The initialization vector is copied on first use.
+   *
+   * @param encryptedPayload           an encrypted payload as byte array
+   * @param source                     the bytes containing the raw initialization vector
+   * @param offset                     start of the initialization vector within the source
+   * @param length                     length of the initialization vector
+   * @param keyVersion                 the vault version of the encryption key entry
+   * @param encryptionKeyAttributeName JSON property name of the key within Vault
+   * @return an AesEncryptedPayload of an encrypted payload
+   */
+  static AesEncryptedPayload ofInitializationVectorView(byte[] encryptedPayload, byte[] source,
+      int offset, int length, int keyVersion, String encryptionKeyAttributeName) {
+    Objects.requireNonNull(encryptedPayload, "encryptedPayload must not be null");
+    Objects.checkFromIndexSize(offset, length, source.length);
+    return new AesEncryptedPayload(encryptedPayload, null, source, offset, length, false,
+        keyVersion, encryptionKeyAttributeName, null);
   }
 
   /**
@@ -195,8 +278,8 @@ public final class AesEncryptedPayload {
    * this object hold an unencrypted value.
    */
   public boolean isEncrypted() {
-    return initializationVector != null
-        && initializationVector.length > 0
+    // the length of the source is enough, no need to decode the initialization vector
+    return initializationVectorLength > 0
         && keyVersion > 0;
   }
 
@@ -217,7 +300,50 @@ public final class AesEncryptedPayload {
    * @see #isEncrypted()
    */
   public byte[] initializationVector() {
-    return initializationVector;
+    byte[] result = initializationVector;
+    if (result == null && initializationVectorLength > 0) {
+      result = decodeInitializationVector();
+      initializationVector = result;
+    }
+    return result;
+  }
+
+  /**
+   * Checks the alphabet, the padding and the length like the base64 decoder, but without decoding.
+   */
+  private static String requireBase64(String text) {
+    int length = text.length();
+    int dataLength = length;
+    while (dataLength > 0 && length - dataLength < 2 && text.charAt(dataLength - 1) == '=') {
+      dataLength--;
+    }
+    for (int i = 0; i < dataLength; i++) {
+      char c = text.charAt(i);
+      if (!((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+          || c == '+' || c == '/')) {
+        throw notBase64();
+      }
+    }
+    // with padding the length is a multiple of 4. A single character of a group is never valid.
+    if (length != dataLength ? length % 4 != 0 : length % 4 == 1) {
+      throw notBase64();
+    }
+    return text;
+  }
+
+  private static IllegalArgumentException notBase64() {
+    return new IllegalArgumentException("initializationVectorBase64 is not base64 encoded");
+  }
+
+  private byte[] decodeInitializationVector() {
+    if (initializationVectorText != null) {
+      return Base64.getDecoder().decode(initializationVectorText);
+    }
+    if (initializationVectorSourceIsBase64) {
+      return Base64.getDecoder().decode(initializationVectorSource);
+    }
+    return Arrays.copyOfRange(initializationVectorSource, initializationVectorOffset,
+        initializationVectorOffset + initializationVectorLength);
   }
 
   /**
@@ -228,10 +354,17 @@ public final class AesEncryptedPayload {
    * @see #isEncrypted()
    */
   public String initializationVectorBase64() {
-    if (initializationVector == null) {
+    if (initializationVectorText != null) {
+      return initializationVectorText;
+    }
+    if (initializationVectorSourceIsBase64) {
+      return new String(initializationVectorSource, StandardCharsets.US_ASCII);
+    }
+    byte[] iv = initializationVector();
+    if (iv == null) {
       return null;
     }
-    return Base64.getEncoder().encodeToString(initializationVector);
+    return Base64.getEncoder().encodeToString(iv);
   }
 
   /**
@@ -253,12 +386,21 @@ public final class AesEncryptedPayload {
     return encryptionKeyAttributeName;
   }
 
+  /**
+   * Gets the precomputed kafka header values of the encryption key.
+   *
+   * @return the header values or <code>null</code> when they have to be computed
+   */
+  CipherHeaderValues cipherHeaderValues() {
+    return cipherHeaderValues;
+  }
+
   @Override
   public String toString() {
     if (isEncrypted()) {
       return "AesEncryptedPayload{" +
           "encryptedPayload=" + Base64.getEncoder().encodeToString(encryptedPayload) +
-          ", initializationVector=" + Base64.getEncoder().encodeToString(initializationVector) +
+          ", initializationVector=" + initializationVectorBase64() +
           ", keyVersion=" + keyVersion +
           ", encryptionKeyAttributeName=" + encryptionKeyAttributeName +
           '}';
@@ -0,0 +1,163 @@
+package de.otto.kafka.messaging.e2ee;
+
+import de.otto.kafka.messaging.e2ee.vault.VaultEncryptionKeyProviderConfig;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads and writes the header values of {@link KafkaHeaderEncoding#BINARY} and
+ * {@link KafkaHeaderEncoding#COMPACT}.
+ * <p>
+ * The binary cipher name header starts with a byte below {@code 0x20}, which never starts a text
+ * cipher name. That's how the encoding of a record is detected.
+ * <p>
+ * Layout of the compact header value:
+ * <pre>
+ * [format 0x01][key version, 4 bytes big-endian][IV length, 1 byte][IV][cipher name]
+ * </pre>
+ * The cipher name is encoded like the binary cipher name header.
+ */
+final class BinaryKafkaHeaders {
+
+  /**
+   * Marks a cipher name without an id. The UTF-8 name follows.
+   */
+  static final byte INLINE_CIPHER_NAME = 0;
+  /**
+   * Cipher names by id. The id of a name must never change.
+   */
+  private static final String[] CIPHER_NAMES = {
+      null,
+      VaultEncryptionKeyProviderConfig.DEFAULT_ENCRYPTION_KEY_ATTRIBUTE_NAME
+  };
+  private static final byte FIRST_TEXT_BYTE = 0x20;
+  private static final byte COMPACT_FORMAT_VERSION = 1;
+
+  private BinaryKafkaHeaders() {
+  }
+
+  static boolean isBinaryCipherName(byte[] cipherNameHeaderValue) {
+    return cipherNameHeaderValue.length > 0 && cipherNameHeaderValue[0] >= 0
+        && cipherNameHeaderValue[0] < FIRST_TEXT_BYTE;
+  }
+
+  static byte[] encodeKeyVersion(int keyVersion) {
+    return new byte[]{
+        (byte) (keyVersion >>> 24),
+        (byte) (keyVersion >>> 16),
+        (byte) (keyVersion >>> 8),
+        (byte) keyVersion
+    };
+  }
+
+  static int decodeKeyVersion(byte[] keyVersionHeaderValue) {
+    if (keyVersionHeaderValue.length != 4) {
+      throw new IllegalArgumentException(
+          "Binary key version header must have 4 bytes but has " + keyVersionHeaderValue.length);
+    }
+    return (keyVersionHeaderValue[0] & 0xff) << 24
+        | (keyVersionHeaderValue[1] & 0xff) << 16
+        | (keyVersionHeaderValue[2] & 0xff) << 8
+        | (keyVersionHeaderValue[3] & 0xff);
+  }
+
+  /**
+   * @param cipherName the cipher name
+   * @return the id of the cipher name or {@link #INLINE_CIPHER_NAME} when it has none
+   */
+  static byte cipherId(String cipherName) {
+    for (int id = 1; id < CIPHER_NAMES.length; id++) {
+      if (CIPHER_NAMES[id].equals(cipherName)) {
+        return (byte) id;
+      }
+    }
+    return INLINE_CIPHER_NAME;
+  }
+
+  /**
+   * @param cipherId the id of a cipher name
+   * @return the interned cipher name
+   * @throws IllegalArgumentException when the id is unknown
+   */
+  static String cipherName(int cipherId) {
+    if (cipherId < 1 || cipherId >= CIPHER_NAMES.length) {
+      throw new IllegalArgumentException("Unknown cipher name id " + cipherId);
+    }
+    return CIPHER_NAMES[cipherId];
+  }
+
+  static byte[] encodeCipherName(String cipherName) {
+    byte cipherId = cipherId(cipherName);
+    if (cipherId != INLINE_CIPHER_NAME) {
+      return new byte[]{cipherId};
+    }
+    byte[] name = cipherName.getBytes(StandardCharsets.UTF_8);
+    byte[] value = new byte[name.length + 1];
+    value[0] = INLINE_CIPHER_NAME;
+    System.arraycopy(name, 0, value, 1, name.length);
+    return value;
+  }
+
+  static String decodeCipherName(byte[] cipherNameHeaderValue) {
+    if (cipherNameHeaderValue[0] == INLINE_CIPHER_NAME) {
+      return new String(cipherNameHeaderValue, 1, cipherNameHeaderValue.length - 1,
+          StandardCharsets.UTF_8);
+    }
+    return cipherName(cipherNameHeaderValue[0]);
+  }
+
+  static byte[] encodeCompact(AesEncryptedPayload encryptedPayload, String cipherName) {
+    byte[] iv = encryptedPayload.initializationVector();
+    if (iv.length > 0xff) {
+      throw new IllegalArgumentException("Initialization vector is too long: " + iv.length);
+    }
+    byte cipherId = cipherId(cipherName);
+    byte[] inlineName = cipherId == INLINE_CIPHER_NAME
+        ? cipherName.getBytes(StandardCharsets.UTF_8)
+        : new byte[0];
+
+    byte[] value = new byte[1 + 4 + 1 + iv.length + 1 + inlineName.length];
+    int keyVersion = encryptedPayload.keyVersion();
+    value[0] = COMPACT_FORMAT_VERSION;
+    value[1] = (byte) (keyVersion >>> 24);
+    value[2] = (byte) (keyVersion >>> 16);
+    value[3] = (byte) (keyVersion >>> 8);
+    value[4] = (byte) keyVersion;
+    value[5] = (byte) iv.length;
+    System.arraycopy(iv, 0, value, 6, iv.length);
+    int cipherIndex = 6 + iv.length;
+    value[cipherIndex] = cipherId;
+    System.arraycopy(inlineName, 0, value, cipherIndex + 1, inlineName.length);
+    return value;
+  }
+
+  static AesEncryptedPayload decodeCompact(byte[] encryptedPayload, byte[] compactHeaderValue) {
+    if (compactHeaderValue.length < 7) {
+      throw new IllegalArgumentException(
+          "Compact e2ee header is too short: " + compactHeaderValue.length);
+    }
+    if (compactHeaderValue[0] != COMPACT_FORMAT_VERSION) {
+      throw new IllegalArgumentException(
+          "Unknown format of compact e2ee header: " + compactHeaderValue[0]);
+    }
+    int keyVersion = (compactHeaderValue[1] & 0xff) << 24
+        | (compactHeaderValue[2] & 0xff) << 16
+        | (compactHeaderValue[3] & 0xff) << 8
+        | (compactHeaderValue[4] & 0xff);
+    int ivLength = compactHeaderValue[5] & 0xff;
+    int cipherIndex = 6 + ivLength;
+    if (compactHeaderValue.length <= cipherIndex) {
+      throw new IllegalArgumentException(
+          "Compact e2ee header is too short: " + compactHeaderValue.length);
+    }
+    String cipherName;
+    if (compactHeaderValue[cipherIndex] == INLINE_CIPHER_NAME) {
+      cipherName = new String(compactHeaderValue, cipherIndex + 1,
+          compactHeaderValue.length - cipherIndex - 1, StandardCharsets.UTF_8);
+    } else {
+      cipherName = cipherName(compactHeaderValue[cipherIndex]);
+    }
+    // the initialization vector is copied out of the header value on first use
+    return AesEncryptedPayload.ofInitializationVectorView(encryptedPayload, compactHeaderValue, 6,
+        ivLength, keyVersion, cipherName);
+  }
+}
@@ -2,17 +2,20 @@ package de.otto.kafka.messaging.e2ee;
 
 import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * A simple cache. It removes the cache entry one hour (it's the "cachingDuration") after it has
- * been created (added to the cache).
+ * been created (added to the cache). When the keys are temporarily unavailable (e.g. the vault
+ * circuit breaker is open), expired cache entries are still used.
  *
  * @param <K> type of the cache key
  * @param <V> type of the cache entries
@@ -20,6 +23,8 @@ import org.slf4j.LoggerFactory;
 class Cache<K, V> {
 
   private static final Logger log = LoggerFactory.getLogger(Cache.class);
+  // validity extension of an expired entry when the retry time is unknown or already passed
+  private static final Duration MIN_EXTENSION = Duration.ofSeconds(10);
 
   private final ConcurrentHashMap<K, CacheEntry<V>> cacheEntries;
   private final Duration cachingDuration;
@@ -46,7 +51,10 @@ class Cache<K, V> {
 
   /**
    * tries to get the cache entry with the given key. If it is not present or the caching duration
-   * was exceeded, the "cacheMissValueFunction" will be called to create a new cache entry.
+   * was exceeded, the "cacheMissValueFunction" will be called to create a new cache entry. When
+   * that function fails with an {@link EncryptionKeyTemporarilyUnavailable} exception, the expired
+   * value is returned and its validity is extended until the retry time of the exception. So the
+   * function isn't called (and the warning isn't logged) for each value until then.
    *
    * @param key                    the cache key
    * @param cacheMissValueFunction callback function to somehow retrieve a value that will be
@@ -57,12 +65,54 @@ class Cache<K, V> {
     CacheEntry<V> cacheEntry = cacheEntries.computeIfAbsent(key,
         k -> createCacheEntry(k, cacheMissValueFunction));
     if (cacheEntry.validUntil().isBefore(LocalDateTime.now(clock))) {
-      cacheEntry = createCacheEntry(key, cacheMissValueFunction);
+      try {
+        cacheEntry = createCacheEntry(key, cacheMissValueFunction);
+      } catch (RuntimeException ex) {
+        if (!(ex instanceof EncryptionKeyTemporarilyUnavailable unavailable)) {
+          throw ex;
+        }
+        CacheEntry<V> extendedEntry = new CacheEntry<>(cacheEntry.value(),
+            extendedValidity(unavailable.retryAt()));
+        cacheEntries.put(key, extendedEntry);
+        log.warn("Keys are temporarily unavailable. Use expired 1st-level cache entry for key={}"
+            + " until {}", key, extendedEntry.validUntil());
+        return extendedEntry.value();
+      }
       cacheEntries.put(key, cacheEntry);
     }
     return cacheEntry.value();
   }
 
+  /**
+   * Checks whether there is a cache entry with the given key whose caching duration has not been
+   * exceeded, so {@link #getOrRetrieve(Object, Function)} won't call the cache miss function.
+   *
+   * @param key the cache key
+   * @return <code>true</code> when there is a valid cache entry
+   */
+  public boolean contains(K key) {
+    CacheEntry<V> cacheEntry = cacheEntries.get(key);
+    return cacheEntry != null && !cacheEntry.validUntil().isBefore(LocalDateTime.now(clock));
+  }
+
+  /**
+   * Removes all cache entries whose key matches the given predicate.
+   *
+   * @param keyPredicate returns <code>true</code> for the keys to remove
+   */
+  public void invalidate(Predicate<K> keyPredicate) {
+    cacheEntries.keySet().removeIf(keyPredicate);
+  }
+
+  private LocalDateTime extendedValidity(Instant retryAt) {
+    LocalDateTime minValidUntil = LocalDateTime.now(clock).plus(MIN_EXTENSION);
+    if (retryAt == null) {
+      return minValidUntil;
+    }
+    LocalDateTime retryTime = LocalDateTime.ofInstant(retryAt, clock.getZone());
+    return retryTime.isAfter(minValidUntil) ? retryTime : minValidUntil;
+  }
+
   private CacheEntry<V> createCacheEntry(K key, Function<K, V> cacheMissValueFunction) {
     V value = cacheMissValueFunction.apply(key);
     LocalDateTime validUntil = LocalDateTime.now(clock)
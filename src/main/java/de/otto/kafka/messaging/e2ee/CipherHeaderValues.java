@@ -0,0 +1,49 @@
+package de.otto.kafka.messaging.e2ee;
+
+import de.otto.kafka.messaging.e2ee.vault.VaultEncryptionKeyProviderConfig;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The encoded kafka header values of the key version and cipher name of an encryption key. They
+ * only change on key rotation, so they are computed once per key and shared by all payloads
+ * encrypted with it.
+ * <p>
+ * The byte arrays are shared and must not be modified.
+ */
+final class CipherHeaderValues {
+
+  private final byte[] textKeyVersion;
+  private final byte[] textCipherName;
+  private final byte[] binaryKeyVersion;
+  private final byte[] binaryCipherName;
+
+  private CipherHeaderValues(int keyVersion, String cipherName) {
+    this.textKeyVersion = Integer.toString(keyVersion).getBytes(StandardCharsets.UTF_8);
+    this.textCipherName = cipherName.getBytes(StandardCharsets.UTF_8);
+    this.binaryKeyVersion = BinaryKafkaHeaders.encodeKeyVersion(keyVersion);
+    this.binaryCipherName = BinaryKafkaHeaders.encodeCipherName(cipherName);
+  }
+
+  /**
+   * Encodes the header values of an encryption key.
+   *
+   * @param keyVersion                 the vault version of the encryption key entry
+   * @param encryptionKeyAttributeName JSON property name of the key within Vault or
+   *                                   <code>null</code> for the default name
+   * @return the encoded header values
+   */
+  static CipherHeaderValues of(int keyVersion, String encryptionKeyAttributeName) {
+    String cipherName = encryptionKeyAttributeName != null
+        ? encryptionKeyAttributeName
+        : VaultEncryptionKeyProviderConfig.DEFAULT_ENCRYPTION_KEY_ATTRIBUTE_NAME;
+    return new CipherHeaderValues(keyVersion, cipherName);
+  }
+
+  byte[] keyVersion(KafkaHeaderEncoding headerEncoding) {
+    return headerEncoding == KafkaHeaderEncoding.BINARY ? binaryKeyVersion : textKeyVersion;
+  }
+
+  byte[] cipherName(KafkaHeaderEncoding headerEncoding) {
+    return headerEncoding == KafkaHeaderEncoding.BINARY ? binaryCipherName : textCipherName;
+  }
+}
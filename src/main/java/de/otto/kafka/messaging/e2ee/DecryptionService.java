@@ -1,12 +1,20 @@
 package de.otto.kafka.messaging.e2ee;
 
 import static de.otto.kafka.messaging.e2ee.DefaultAesEncryptionConfiguration.CACHING_DURATION;
+import static de.otto.kafka.messaging.e2ee.DefaultAesEncryptionConfiguration.createCipher;
 import static de.otto.kafka.messaging.e2ee.DefaultAesEncryptionConfiguration.decrypt;
 import static de.otto.kafka.messaging.e2ee.vault.VaultHelper.decodeBase64Key;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import javax.crypto.Cipher;
 import javax.crypto.spec.SecretKeySpec;
 
 /**
@@ -57,6 +65,46 @@ public final class DecryptionService {
     return decrypt(encryptedData, aesKey, iv);
   }
 
+  /**
+   * decrypts the given payloads (depending on the content), e.g. all records of a topic partition
+   * from one poll. The keys are looked up once per key version and one cipher instance is used for
+   * all payloads.
+   *
+   * @param kafkaTopicName    name of the Kafka Topic the payloads are from.
+   * @param encryptedPayloads the (potentially) encrypted payloads.
+   * @return The plain text payloads in the same order
+   */
+  public List<byte[]> decryptToByteArray(String kafkaTopicName,
+      List<AesEncryptedPayload> encryptedPayloads) {
+    Objects.requireNonNull(kafkaTopicName, "kafkaTopicName must not be null");
+    Objects.requireNonNull(encryptedPayloads, "encryptedPayloads must not be null");
+
+    List<byte[]> result = new ArrayList<>(encryptedPayloads.size());
+    Map<TopicKeyVersion, Key> batchKeys = new HashMap<>();
+    Cipher cipher = null;
+    for (AesEncryptedPayload encryptedPayload : encryptedPayloads) {
+      if (!encryptedPayload.isEncrypted()) {
+        // payload is not encrypted
+        result.add(encryptedPayload.encryptedPayload());
+        continue;
+      }
+
+      // retrieve AES key once per key version of the batch
+      TopicKeyVersion topicKeyVersion = new TopicKeyVersion(kafkaTopicName,
+          encryptedPayload.keyVersion(), encryptedPayload.encryptionKeyAttributeName());
+      Key aesKey = batchKeys.computeIfAbsent(topicKeyVersion,
+          key -> aesKeyCache.getOrRetrieve(key, this::createAesKey));
+
+      // run decryption
+      if (cipher == null) {
+        cipher = createCipher();
+      }
+      result.add(decrypt(cipher, encryptedPayload.encryptedPayload(), aesKey,
+          encryptedPayload.initializationVector()));
+    }
+    return result;
+  }
+
   /**
    * decrypts the given payload (depending on the content).
    *
@@ -68,6 +116,23 @@ public final class DecryptionService {
     return new String(decryptToByteArray(kafkaTopicName, encryptedPayload), StandardCharsets.UTF_8);
   }
 
+  /**
+   * Checks whether the given payload can be decrypted without retrieving a key from the key
+   * provider, i.e. it is not encrypted or its key is already cached. Use it to move the
+   * decryption of the other payloads to a thread which may block.
+   *
+   * @param kafkaTopicName   name of the Kafka Topic the payload is from.
+   * @param encryptedPayload the (potentially) encrypted payload.
+   * @return <code>true</code> when the decryption won't call the key provider
+   */
+  public boolean isKeyCached(String kafkaTopicName, AesEncryptedPayload encryptedPayload) {
+    if (!encryptedPayload.isEncrypted()) {
+      return true;
+    }
+    return aesKeyCache.contains(new TopicKeyVersion(kafkaTopicName, encryptedPayload.keyVersion(),
+        encryptedPayload.encryptionKeyAttributeName()));
+  }
+
   /**
    * This method checks if the encryption "flag" of the kafka topic matches the payload. This method
    * can be used by a kafka topic consumer the control the kafka producer.
@@ -83,6 +148,17 @@ public final class DecryptionService {
   }
 
 
+  /**
+   * Removes the cached decryption keys of the given topics, e.g. after their configuration has
+   * been reloaded. The cached keys of all other topics are kept.
+   *
+   * @param kafkaTopicNames the names of the affected topics
+   */
+  public void invalidateTopics(Collection<String> kafkaTopicNames) {
+    Set<String> topics = Set.copyOf(kafkaTopicNames);
+    aesKeyCache.invalidate(topicKeyVersion -> topics.contains(topicKeyVersion.topic()));
+  }
+
   private Key createAesKey(TopicKeyVersion topicKeyVersion) {
     String topic = topicKeyVersion.topic();
     int keyVersionNumber = topicKeyVersion.keyVersionNumber();
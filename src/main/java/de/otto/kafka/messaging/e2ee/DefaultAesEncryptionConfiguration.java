@@ -33,8 +33,18 @@ interface DefaultAesEncryptionConfiguration {
    * @return the encrypted value
    */
   static byte[] encrypt(byte[] plainValue, Key aesKey, byte[] iv) {
+    return encrypt(createCipher(), plainValue, aesKey, iv);
+  }
+
+  /**
+   * @param cipher     a cipher of {@link #createCipher()}, which is re-initialized
+   * @param plainValue an unencrypted value
+   * @param aesKey     an AES key
+   * @param iv         an initialization vector. It must not be reused for the same key.
+   * @return the encrypted value
+   */
+  static byte[] encrypt(Cipher cipher, byte[] plainValue, Key aesKey, byte[] iv) {
     try {
-      var cipher = Cipher.getInstance(CIPHER_TYPE);
       cipher.init(Cipher.ENCRYPT_MODE, aesKey, new GCMParameterSpec(GCM_TAG_SIZE, iv));
       return cipher.doFinal(plainValue);
     } catch (GeneralSecurityException ex) {
@@ -49,8 +59,29 @@ interface DefaultAesEncryptionConfiguration {
    * @return the unencrypted value
    */
   static byte[] decrypt(byte[] encryptedValue, Key aesKey, byte[] iv) {
+    return decrypt(createCipher(), encryptedValue, aesKey, iv);
+  }
+
+  /**
+   * @return a new cipher instance which can be used for several decryptions
+   */
+  static Cipher createCipher() {
+    try {
+      return Cipher.getInstance(CIPHER_TYPE);
+    } catch (GeneralSecurityException ex) {
+      throw new IllegalArgumentException(ex);
+    }
+  }
+
+  /**
+   * @param cipher         a cipher of {@link #createCipher()}, which is re-initialized
+   * @param encryptedValue the encrypted value
+   * @param aesKey         the AES key used to encrypt the value
+   * @param iv             the initialization vector used to encrypt the value
+   * @return the unencrypted value
+   */
+  static byte[] decrypt(Cipher cipher, byte[] encryptedValue, Key aesKey, byte[] iv) {
     try {
-      var cipher = Cipher.getInstance(CIPHER_TYPE);
       cipher.init(Cipher.DECRYPT_MODE, aesKey, new GCMParameterSpec(GCM_TAG_SIZE, iv));
       return cipher.doFinal(encryptedValue);
     } catch (GeneralSecurityException ex) {
@@ -0,0 +1,17 @@
+package de.otto.kafka.messaging.e2ee;
+
+import java.time.Instant;
+
+/**
+ * Marks an exception of an {@link EncryptionKeyProvider} which signals that the keys are
+ * temporarily not available, e.g. because a circuit breaker is open. The key caches keep using
+ * their expired entries until {@link #retryAt()}.
+ */
+public interface EncryptionKeyTemporarilyUnavailable {
+
+  /**
+   * @return the earliest time at which the keys should be retrieved again. Can be
+   * <code>null</code> when it's unknown.
+   */
+  Instant retryAt();
+}
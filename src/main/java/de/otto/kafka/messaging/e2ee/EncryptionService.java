@@ -1,13 +1,19 @@
 package de.otto.kafka.messaging.e2ee;
 
 import static de.otto.kafka.messaging.e2ee.DefaultAesEncryptionConfiguration.CACHING_DURATION;
+import static de.otto.kafka.messaging.e2ee.DefaultAesEncryptionConfiguration.createCipher;
 import static de.otto.kafka.messaging.e2ee.DefaultAesEncryptionConfiguration.encrypt;
 import static de.otto.kafka.messaging.e2ee.vault.VaultHelper.decodeBase64Key;
 
 import de.otto.kafka.messaging.e2ee.EncryptionKeyProvider.KeyVersion;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import javax.crypto.Cipher;
 import javax.crypto.spec.SecretKeySpec;
 
 /**
@@ -73,8 +79,47 @@ public final class EncryptionService {
     // run encryption
     byte[] encryptedData = encrypt(plainPayload, aesKey, iv);
 
-    return AesEncryptedPayload.ofEncryptedPayload(encryptedData, iv,
-        encryptionKeyData.keyVersion());
+    KeyVersion keyVersion = encryptionKeyData.keyVersion();
+    return new AesEncryptedPayload(encryptedData, iv, keyVersion.version(),
+        keyVersion.encryptionKeyAttributeName(), encryptionKeyData.cipherHeaderValues());
+  }
+
+  /**
+   * encrypts the given payloads (depending on the topic related configuration), e.g. all fields of
+   * one message. The key is looked up once and one cipher instance is used for all payloads. Each
+   * payload gets its own initialization vector.
+   *
+   * @param kafkaTopicName name of the Kafka Topic the payloads are for.
+   * @param plainPayloads  the plain text payloads.
+   * @return The encrypted payloads in the same order
+   */
+  public List<AesEncryptedPayload> encryptPayloadsWithAes(String kafkaTopicName,
+      List<byte[]> plainPayloads) {
+    Objects.requireNonNull(kafkaTopicName, "kafkaTopicName must not be null");
+    Objects.requireNonNull(plainPayloads, "plainPayloads must not be null");
+
+    List<AesEncryptedPayload> result = new ArrayList<>(plainPayloads.size());
+    EncryptionKeyData encryptionKeyData = encryptionKeyDataCache.getOrRetrieve(kafkaTopicName,
+        this::retrieveKeyData);
+    if (encryptionKeyData == null) {
+      // skip encryption when no encryption key is given
+      for (byte[] plainPayload : plainPayloads) {
+        result.add(AesEncryptedPayload.ofUnencryptedPayload(plainPayload));
+      }
+      return result;
+    }
+
+    Key aesKey = encryptionKeyData.aesKey();
+    KeyVersion keyVersion = encryptionKeyData.keyVersion();
+    Cipher cipher = createCipher();
+    for (byte[] plainPayload : plainPayloads) {
+      Objects.requireNonNull(plainPayload, "plainPayload must not be null");
+      byte[] iv = initializationVectorFactory.generateInitializationVector();
+      byte[] encryptedData = encrypt(cipher, plainPayload, aesKey, iv);
+      result.add(new AesEncryptedPayload(encryptedData, iv, keyVersion.version(),
+          keyVersion.encryptionKeyAttributeName(), encryptionKeyData.cipherHeaderValues()));
+    }
+    return result;
   }
 
   /**
@@ -90,6 +135,17 @@ public final class EncryptionService {
     return encryptPayloadWithAes(kafkaTopicName, plainText.getBytes(StandardCharsets.UTF_8));
   }
 
+  /**
+   * Removes the cached encryption keys of the given topics, e.g. after their configuration has
+   * been reloaded. The cached keys of all other topics are kept.
+   *
+   * @param kafkaTopicNames the names of the affected topics
+   */
+  public void invalidateTopics(Collection<String> kafkaTopicNames) {
+    Set<String> topics = Set.copyOf(kafkaTopicNames);
+    encryptionKeyDataCache.invalidate(topics::contains);
+  }
+
   private EncryptionKeyData retrieveKeyData(String topic) {
     EncryptionKeyProvider.KeyVersion keyVersion = encryptionKeyProvider.retrieveKeyForEncryption(
         topic);
@@ -97,7 +153,9 @@ public final class EncryptionService {
       return null;
     }
     Key aesKey = createAesKey(keyVersion);
-    return new EncryptionKeyData(aesKey, keyVersion);
+    CipherHeaderValues cipherHeaderValues = CipherHeaderValues.of(keyVersion.version(),
+        keyVersion.encryptionKeyAttributeName());
+    return new EncryptionKeyData(aesKey, keyVersion, cipherHeaderValues);
   }
 
   private SecretKeySpec createAesKey(KeyVersion keyVersion) {
@@ -108,12 +166,14 @@ public final class EncryptionService {
 
   private record EncryptionKeyData(
       Key aesKey,
-      EncryptionKeyProvider.KeyVersion keyVersion
+      EncryptionKeyProvider.KeyVersion keyVersion,
+      CipherHeaderValues cipherHeaderValues
   ) {
 
     private EncryptionKeyData {
       Objects.requireNonNull(aesKey, "aesKey must not be null");
       Objects.requireNonNull(keyVersion, "keyVersion must not be null");
+      Objects.requireNonNull(cipherHeaderValues, "cipherHeaderValues must not be null");
     }
   }
 }
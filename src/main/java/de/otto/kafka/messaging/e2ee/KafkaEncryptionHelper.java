@@ -3,6 +3,7 @@ package de.otto.kafka.messaging.e2ee;
 import de.otto.kafka.messaging.e2ee.vault.VaultEncryptionKeyProviderConfig;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 /**
  * Helper class for dealing with the kafka library without using the kafka library in this project.
@@ -21,6 +22,11 @@ public interface KafkaEncryptionHelper {
    * Name of Kafka CloudEvent Header for the cipher name for the payload (or value)
    */
   String KAFKA_CE_HEADER_CIPHER_NAME_VALUE = "ce_e2eekeyname";
+  /**
+   * Name of the Kafka CloudEvent Header which holds initialization vector, cipher version and
+   * cipher name for the payload (or value) in {@link KafkaHeaderEncoding#COMPACT} encoding
+   */
+  String KAFKA_CE_HEADER_E2EE_VALUE = "ce_e2ee";
 
   /**
    * Create an AesEncryptedPayload using the kafka header values.
@@ -49,7 +55,9 @@ public interface KafkaEncryptionHelper {
   }
 
   /**
-   * Create an AesEncryptedPayload using the kafka header values.
+   * Create an AesEncryptedPayload using the kafka header values. The header encoding
+   * ({@link KafkaHeaderEncoding#TEXT} or {@link KafkaHeaderEncoding#BINARY}) is detected
+   * automatically.
    *
    * @param encryptedPayload                  the encrypted payload
    * @param kafkaCeHeaderInitializationVector value of kafka header of "ce_e2eeiv"
@@ -66,9 +74,15 @@ public interface KafkaEncryptionHelper {
     if (kafkaCeHeaderInitializationVector != null
         && kafkaCeHeaderCipherVersion != null
         && kafkaCeHeaderCipherName != null) {
+      if (BinaryKafkaHeaders.isBinaryCipherName(kafkaCeHeaderCipherName)) {
+        return new AesEncryptedPayload(encryptedPayload, kafkaCeHeaderInitializationVector,
+            BinaryKafkaHeaders.decodeKeyVersion(kafkaCeHeaderCipherVersion),
+            BinaryKafkaHeaders.decodeCipherName(kafkaCeHeaderCipherName));
+      }
       int cipherVersion = extractCipherVersion(kafkaCeHeaderCipherVersion);
-      return AesEncryptedPayload.ofEncryptedPayload(encryptedPayload,
-          byteArrayToUtf8String(kafkaCeHeaderInitializationVector),
+      // the initialization vector is decoded from the raw header bytes on first use
+      return AesEncryptedPayload.ofBase64InitializationVectorBytes(encryptedPayload,
+          kafkaCeHeaderInitializationVector,
           cipherVersion,
           byteArrayToUtf8String(kafkaCeHeaderCipherName));
     }
@@ -76,12 +90,30 @@ public interface KafkaEncryptionHelper {
     return AesEncryptedPayload.ofUnencryptedPayload(encryptedPayload);
   }
 
+  /**
+   * Create an AesEncryptedPayload using the compact kafka header value.
+   *
+   * @param encryptedPayload  the encrypted payload
+   * @param kafkaCeHeaderE2ee value of kafka header of "ce_e2ee" or <code>null</code>
+   * @return a AesEncryptedPayload instance with the given values
+   * @see KafkaHeaderEncoding#COMPACT
+   */
+  static AesEncryptedPayload aesEncryptedPayloadOfKafka(
+      byte[] encryptedPayload,
+      byte[] kafkaCeHeaderE2ee) {
+    if (kafkaCeHeaderE2ee != null) {
+      return BinaryKafkaHeaders.decodeCompact(encryptedPayload, kafkaCeHeaderE2ee);
+    }
+
+    return AesEncryptedPayload.ofUnencryptedPayload(encryptedPayload);
+  }
+
   /**
    * Creates AesEncryptedPayload for a potentially encrypted event.
    *
    * @param encryptedPayload the encrypted payload
-   * @param kafkaHeaders     all kafka headers including "ce_e2eeiv", "ce_e2eekeyversion" and
-   *                         "ce_e2eekeyname"
+   * @param kafkaHeaders     all kafka headers including either "ce_e2ee" or "ce_e2eeiv",
+   *                         "ce_e2eekeyversion" and "ce_e2eekeyname"
    * @return a AesEncryptedPayload instance with the given values to represent an encrypted kafka
    * value a.k.a. payload
    */
@@ -89,15 +121,27 @@ public interface KafkaEncryptionHelper {
       byte[] encryptedPayload,
       Map<String, ?> kafkaHeaders) {
     // read CloudEvent kafka headers
+    if (kafkaHeaders.get(KAFKA_CE_HEADER_E2EE_VALUE) instanceof byte[] kafkaCeHeaderE2ee) {
+      return aesEncryptedPayloadOfKafka(encryptedPayload, kafkaCeHeaderE2ee);
+    }
+    Object kafkaCeHeaderCipherName = kafkaHeaders.get(KAFKA_CE_HEADER_CIPHER_NAME_VALUE);
+    if (kafkaCeHeaderCipherName instanceof byte[] cipherNameBytes
+        && BinaryKafkaHeaders.isBinaryCipherName(cipherNameBytes)) {
+      // binary header values cannot be converted to text
+      return aesEncryptedPayloadOfKafka(encryptedPayload,
+          (byte[]) kafkaHeaders.get(KAFKA_CE_HEADER_IV_VALUE),
+          (byte[]) kafkaHeaders.get(KAFKA_CE_HEADER_CIPHER_VERSION_VALUE),
+          cipherNameBytes);
+    }
     String kafkaCeHeaderInitializationVector = extractKafkaHeaderValueText(kafkaHeaders,
         KAFKA_CE_HEADER_IV_VALUE);
     String kafkaCeHeaderCipherVersion = extractKafkaHeaderValueText(kafkaHeaders,
         KAFKA_CE_HEADER_CIPHER_VERSION_VALUE);
-    String kafkaCeHeaderCipherName = extractKafkaHeaderValueText(kafkaHeaders,
+    String kafkaCeHeaderCipherNameText = extractKafkaHeaderValueText(kafkaHeaders,
         KAFKA_CE_HEADER_CIPHER_NAME_VALUE);
 
     return aesEncryptedPayloadOfKafka(encryptedPayload, kafkaCeHeaderInitializationVector,
-        kafkaCeHeaderCipherVersion, kafkaCeHeaderCipherName);
+        kafkaCeHeaderCipherVersion, kafkaCeHeaderCipherNameText);
   }
 
   /**
@@ -133,7 +177,7 @@ public interface KafkaEncryptionHelper {
       // not encrypted
       return 0;
     }
-    return Integer.parseInt(byteArrayToUtf8String(cipherVersionCeHeaderValue));
+    return parseDecimal(cipherVersionCeHeaderValue);
   }
 
   /**
@@ -150,6 +194,38 @@ public interface KafkaEncryptionHelper {
     return Integer.parseInt(cipherVersionCeHeaderText);
   }
 
+  private static void requireSeparateHeaders(KafkaHeaderEncoding headerEncoding) {
+    if (headerEncoding == KafkaHeaderEncoding.COMPACT) {
+      throw new IllegalArgumentException(
+          "The COMPACT header encoding has no separate headers. Use 'mapToCompactHeaderValue'.");
+    }
+  }
+
+  /**
+   * Parses the ASCII digits of a kafka header value without creating a String.
+   *
+   * @param digits the raw header value
+   * @return the parsed number
+   * @throws NumberFormatException when the value is not a non-negative decimal int
+   */
+  private static int parseDecimal(byte[] digits) {
+    if (digits.length == 0 || digits.length > 10) {
+      return Integer.parseInt(byteArrayToUtf8String(digits));
+    }
+    long result = 0;
+    for (byte digit : digits) {
+      if (digit < '0' || digit > '9') {
+        // let Integer.parseInt create the usual exception (or handle a sign)
+        return Integer.parseInt(byteArrayToUtf8String(digits));
+      }
+      result = result * 10 + (digit - '0');
+    }
+    if (result > Integer.MAX_VALUE) {
+      return Integer.parseInt(byteArrayToUtf8String(digits));
+    }
+    return (int) result;
+  }
+
   /**
    * Converts a byte-array to a String assuming UTF-8 encoding.
    *
@@ -181,6 +257,147 @@ public interface KafkaEncryptionHelper {
     return Map.of();
   }
 
+  /**
+   * Builds a map containing all required encryption headers for an encrypted event.
+   *
+   * @param encryptedPayload a AesEncryptedPayload object for a Kafka value a.k.a. payload
+   * @param headerEncoding   the encoding of the header values
+   * @return the kafka headers needed for given AesEncryptedPayload
+   */
+  static Map<String, byte[]> mapToKafkaHeadersForValue(AesEncryptedPayload encryptedPayload,
+      KafkaHeaderEncoding headerEncoding) {
+    if (encryptedPayload.isEncrypted() && headerEncoding == KafkaHeaderEncoding.COMPACT) {
+      return Map.of(KAFKA_CE_HEADER_E2EE_VALUE, mapToCompactHeaderValue(encryptedPayload));
+    }
+    if (encryptedPayload.isEncrypted()) {
+      return Map.of(
+          KAFKA_CE_HEADER_IV_VALUE, mapToIvHeaderValue(encryptedPayload, headerEncoding),
+          KAFKA_CE_HEADER_CIPHER_VERSION_VALUE,
+          mapToCipherVersionHeaderValue(encryptedPayload, headerEncoding),
+          KAFKA_CE_HEADER_CIPHER_NAME_VALUE,
+          mapToCipherNameHeaderValue(encryptedPayload, headerEncoding)
+      );
+    }
+    return Map.of();
+  }
+
+  /**
+   * Passes all required encryption headers of an encrypted event to the given consumer, e.g.
+   * {@code headers::add} of the kafka record headers. Unlike
+   * {@link #mapToKafkaHeadersForValue(AesEncryptedPayload, KafkaHeaderEncoding)} no map is built.
+   * For payloads of the {@link EncryptionService} the key version and cipher name header values
+   * are computed once per encryption key, so only the initialization vector is encoded per record.
+   * Those header values are shared and must not be modified. The {@code mapTo...} methods return
+   * copies of them.
+   *
+   * @param encryptedPayload a AesEncryptedPayload object for a Kafka value a.k.a. payload
+   * @param headerEncoding   the encoding of the header values
+   * @param headerConsumer   receives header name and header value of each header
+   */
+  static void forEachKafkaHeaderForValue(AesEncryptedPayload encryptedPayload,
+      KafkaHeaderEncoding headerEncoding, BiConsumer<String, byte[]> headerConsumer) {
+    if (!encryptedPayload.isEncrypted()) {
+      return;
+    }
+    if (headerEncoding == KafkaHeaderEncoding.COMPACT) {
+      headerConsumer.accept(KAFKA_CE_HEADER_E2EE_VALUE,
+          mapToCompactHeaderValue(encryptedPayload));
+      return;
+    }
+    headerConsumer.accept(KAFKA_CE_HEADER_IV_VALUE,
+        mapToIvHeaderValue(encryptedPayload, headerEncoding));
+    CipherHeaderValues cipherHeaderValues = encryptedPayload.cipherHeaderValues();
+    if (cipherHeaderValues == null) {
+      headerConsumer.accept(KAFKA_CE_HEADER_CIPHER_VERSION_VALUE,
+          mapToCipherVersionHeaderValue(encryptedPayload, headerEncoding));
+      headerConsumer.accept(KAFKA_CE_HEADER_CIPHER_NAME_VALUE,
+          mapToCipherNameHeaderValue(encryptedPayload, headerEncoding));
+      return;
+    }
+    headerConsumer.accept(KAFKA_CE_HEADER_CIPHER_VERSION_VALUE,
+        cipherHeaderValues.keyVersion(headerEncoding));
+    headerConsumer.accept(KAFKA_CE_HEADER_CIPHER_NAME_VALUE,
+        cipherHeaderValues.cipherName(headerEncoding));
+  }
+
+  /**
+   * Builds the value of the {@code KAFKA_CE_HEADER_E2EE_VALUE} header.
+   *
+   * @param encryptedPayload the payload
+   * @return the value holding initialization vector, cipher version and cipher name. Note: you
+   * should check {@link AesEncryptedPayload#isEncrypted()} before calling this method.
+   * @see KafkaHeaderEncoding#COMPACT
+   */
+  static byte[] mapToCompactHeaderValue(AesEncryptedPayload encryptedPayload) {
+    if (encryptedPayload.isEncrypted()) {
+      return BinaryKafkaHeaders.encodeCompact(encryptedPayload,
+          mapToCipherNameHeaderText(encryptedPayload));
+    }
+    throw new IllegalArgumentException(
+        "Cannot call 'mapToCompactHeaderValue' for unencrypted payloads.");
+  }
+
+  /**
+   * Builds the value of the {@code KAFKA_CE_HEADER_IV_VALUE} header.
+   *
+   * @param encryptedPayload the payload
+   * @param headerEncoding   the encoding of the header value
+   * @return the value for the initialization vector. Note: you should check
+   * {@link AesEncryptedPayload#isEncrypted()} before calling this method.
+   */
+  static byte[] mapToIvHeaderValue(AesEncryptedPayload encryptedPayload,
+      KafkaHeaderEncoding headerEncoding) {
+    requireSeparateHeaders(headerEncoding);
+    if (headerEncoding == KafkaHeaderEncoding.BINARY && encryptedPayload.isEncrypted()) {
+      return encryptedPayload.initializationVector();
+    }
+    return mapToIvHeaderValue(encryptedPayload);
+  }
+
+  /**
+   * Builds the value of the {@code KAFKA_CE_HEADER_CIPHER_VERSION_VALUE} header.
+   *
+   * @param encryptedPayload the payload
+   * @param headerEncoding   the encoding of the header value
+   * @return the value for the cipher version. Note: you should check
+   * {@link AesEncryptedPayload#isEncrypted()} before calling this method.
+   */
+  static byte[] mapToCipherVersionHeaderValue(AesEncryptedPayload encryptedPayload,
+      KafkaHeaderEncoding headerEncoding) {
+    requireSeparateHeaders(headerEncoding);
+    CipherHeaderValues cipherHeaderValues = encryptedPayload.cipherHeaderValues();
+    if (cipherHeaderValues != null && encryptedPayload.isEncrypted()) {
+      return cipherHeaderValues.keyVersion(headerEncoding).clone();
+    }
+    if (headerEncoding == KafkaHeaderEncoding.BINARY && encryptedPayload.isEncrypted()) {
+      return BinaryKafkaHeaders.encodeKeyVersion(encryptedPayload.keyVersion());
+    }
+    return mapToCipherVersionHeaderText(encryptedPayload)
+        .getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Builds the value of the {@code KAFKA_CE_HEADER_CIPHER_NAME_VALUE} header.
+   *
+   * @param encryptedPayload the payload
+   * @param headerEncoding   the encoding of the header value
+   * @return the value for the cipher name. Note: you should check
+   * {@link AesEncryptedPayload#isEncrypted()} before calling this method.
+   */
+  static byte[] mapToCipherNameHeaderValue(AesEncryptedPayload encryptedPayload,
+      KafkaHeaderEncoding headerEncoding) {
+    requireSeparateHeaders(headerEncoding);
+    CipherHeaderValues cipherHeaderValues = encryptedPayload.cipherHeaderValues();
+    if (cipherHeaderValues != null && encryptedPayload.isEncrypted()) {
+      return cipherHeaderValues.cipherName(headerEncoding).clone();
+    }
+    if (headerEncoding == KafkaHeaderEncoding.BINARY) {
+      return BinaryKafkaHeaders.encodeCipherName(mapToCipherNameHeaderText(encryptedPayload));
+    }
+    return mapToCipherNameHeaderText(encryptedPayload)
+        .getBytes(StandardCharsets.UTF_8);
+  }
+
   /**
    * Extracts the initialization vector as byte-array to be used in
    * {@code KAFKA_CE_HEADER_IV_VALUE}
@@ -221,8 +438,7 @@ public interface KafkaEncryptionHelper {
    * @see #mapToCipherVersionHeaderText(AesEncryptedPayload)
    */
   static byte[] mapToCipherVersionHeaderValue(AesEncryptedPayload encryptedPayload) {
-    return mapToCipherVersionHeaderText(encryptedPayload)
-        .getBytes(StandardCharsets.UTF_8);
+    return mapToCipherVersionHeaderValue(encryptedPayload, KafkaHeaderEncoding.TEXT);
   }
 
   /**
@@ -251,8 +467,7 @@ public interface KafkaEncryptionHelper {
    * @see #mapToCipherNameHeaderText(AesEncryptedPayload)
    */
   static byte[] mapToCipherNameHeaderValue(AesEncryptedPayload encryptedPayload) {
-    return mapToCipherNameHeaderText(encryptedPayload)
-        .getBytes(StandardCharsets.UTF_8);
+    return mapToCipherNameHeaderValue(encryptedPayload, KafkaHeaderEncoding.TEXT);
   }
 
   /**
@@ -0,0 +1,28 @@
+package de.otto.kafka.messaging.e2ee;
+
+/**
+ * Encoding of the encryption related kafka headers. Readers detect the encoding automatically, so
+ * producers can switch the encoding while consumers still read older records.
+ *
+ * @see KafkaEncryptionHelper#mapToKafkaHeadersForValue(AesEncryptedPayload, KafkaHeaderEncoding)
+ */
+public enum KafkaHeaderEncoding {
+
+  /**
+   * The initialization vector as base64 text, the key version as decimal text and the cipher name
+   * as UTF-8 text. This is the default.
+   */
+  TEXT,
+  /**
+   * The raw initialization vector, the key version as 4 byte big-endian int and the cipher name as
+   * a one byte id. Cipher names without an id are written as a zero byte followed by the UTF-8
+   * name.
+   */
+  BINARY,
+  /**
+   * A single {@value KafkaEncryptionHelper#KAFKA_CE_HEADER_E2EE_VALUE} header instead of three
+   * headers. It holds the key version, the raw initialization vector and the cipher name in the
+   * same form as {@link #BINARY}. This saves two header keys per record.
+   */
+  COMPACT
+}
@@ -0,0 +1,86 @@
+package de.otto.kafka.messaging.e2ee.fieldlevel;
+
+import static de.otto.kafka.messaging.e2ee.fieldlevel.DefaultFieldLevelEncryptionConfiguration.AES_IV_SIZE;
+
+import de.otto.kafka.messaging.e2ee.AesEncryptedPayload;
+import java.util.Arrays;
+
+/**
+ * Packed binary form of an encrypted field value:
+ * {@code <varint keyVersion><raw initialization vector><encrypted payload>}.
+ * <p>
+ * The key version is written as unsigned LEB128 varint, so versions below 128 take a single byte.
+ * The initialization vector has a fixed length of 12 bytes and the encrypted payload takes the
+ * rest.
+ */
+final class AesEnvelope {
+
+  private AesEnvelope() {
+  }
+
+  /**
+   * @param aesEncryptedPayload an encrypted payload
+   * @param prefix              bytes to write in front of the envelope. Can be empty.
+   * @return the prefix followed by the envelope
+   */
+  static byte[] encode(AesEncryptedPayload aesEncryptedPayload, byte[] prefix) {
+    byte[] initializationVector = aesEncryptedPayload.initializationVector();
+    if (initializationVector.length != AES_IV_SIZE) {
+      throw new IllegalArgumentException(
+          "initialization vector must have " + AES_IV_SIZE + " bytes");
+    }
+    byte[] encryptedPayload = aesEncryptedPayload.encryptedPayload();
+    int keyVersion = aesEncryptedPayload.keyVersion();
+
+    byte[] result = new byte[prefix.length + varintLength(keyVersion) + AES_IV_SIZE
+        + encryptedPayload.length];
+    System.arraycopy(prefix, 0, result, 0, prefix.length);
+    int index = prefix.length;
+    int remaining = keyVersion;
+    while ((remaining & ~0x7F) != 0) {
+      result[index++] = (byte) ((remaining & 0x7F) | 0x80);
+      remaining >>>= 7;
+    }
+    result[index++] = (byte) remaining;
+    System.arraycopy(initializationVector, 0, result, index, AES_IV_SIZE);
+    System.arraycopy(encryptedPayload, 0, result, index + AES_IV_SIZE, encryptedPayload.length);
+    return result;
+  }
+
+  /**
+   * @param data   the bytes which contain the envelope
+   * @param offset index of the first byte of the envelope
+   * @return the encrypted payload
+   * @throws IllegalArgumentException when the envelope is truncated
+   */
+  static AesEncryptedPayload decode(byte[] data, int offset) {
+    int keyVersion = 0;
+    int index = offset;
+    for (int shift = 0; ; shift += 7) {
+      if (index >= data.length || shift > 28) {
+        throw new IllegalArgumentException("encrypted field format is invalid");
+      }
+      byte b = data[index++];
+      keyVersion |= (b & 0x7F) << shift;
+      if (b >= 0) {
+        break;
+      }
+    }
+    if (data.length - index < AES_IV_SIZE) {
+      throw new IllegalArgumentException("encrypted field format is invalid");
+    }
+    byte[] initializationVector = Arrays.copyOfRange(data, index, index + AES_IV_SIZE);
+    byte[] encryptedPayload = Arrays.copyOfRange(data, index + AES_IV_SIZE, data.length);
+    return new AesEncryptedPayload(encryptedPayload, initializationVector, keyVersion);
+  }
+
+  private static int varintLength(int value) {
+    int length = 1;
+    int remaining = value;
+    while ((remaining & ~0x7F) != 0) {
+      length++;
+      remaining >>>= 7;
+    }
+    return length;
+  }
+}
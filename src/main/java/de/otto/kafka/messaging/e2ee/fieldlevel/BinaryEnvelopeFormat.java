@@ -0,0 +1,52 @@
+package de.otto.kafka.messaging.e2ee.fieldlevel;
+
+import static de.otto.kafka.messaging.e2ee.fieldlevel.DefaultFieldLevelEncryptionConfiguration.AES_IV_SIZE;
+
+import de.otto.kafka.messaging.e2ee.AesEncryptedPayload;
+import java.util.Arrays;
+
+/**
+ * The binary field-level format {@code 0xE2 0xEE 0xB1 0x01 <envelope>} for <code>bytes</code>
+ * fields, see {@link AesEnvelope} for the envelope. The first three bytes mark an encrypted value,
+ * the fourth one is the id of the binary format.
+ * <p>
+ * Unlike the text formats, binary values have no alphabet which could exclude the marker. A plain
+ * value which starts with the four marker bytes and is long enough is taken for an encrypted value
+ * (about one in four billion random values). Its decryption then fails with an exception, because
+ * the GCM tag does not match, so it's never returned as wrong plain bytes.
+ */
+final class BinaryEnvelopeFormat {
+
+  private static final byte[] MAGIC = {(byte) 0xE2, (byte) 0xEE, (byte) 0xB1, 0x01};
+  // magic, 1 byte key version (at least), initialization vector, GCM tag
+  private static final int MIN_LENGTH = MAGIC.length + 1 + AES_IV_SIZE + 16;
+
+  private BinaryEnvelopeFormat() {
+  }
+
+  /**
+   * @param value a field value
+   * @return <code>true</code> when the value starts with the marker of the binary format and is
+   * long enough to be an encrypted value
+   */
+  static boolean isEncrypted(byte[] value) {
+    return value.length >= MIN_LENGTH
+        && Arrays.equals(value, 0, MAGIC.length, MAGIC, 0, MAGIC.length);
+  }
+
+  /**
+   * @param aesEncryptedPayload an encrypted payload
+   * @return the binary field value
+   */
+  static byte[] format(AesEncryptedPayload aesEncryptedPayload) {
+    return AesEnvelope.encode(aesEncryptedPayload, MAGIC);
+  }
+
+  /**
+   * @param value a field value which starts with the marker of the binary format
+   * @return the encrypted payload
+   */
+  static AesEncryptedPayload parse(byte[] value) {
+    return AesEnvelope.decode(value, MAGIC.length);
+  }
+}
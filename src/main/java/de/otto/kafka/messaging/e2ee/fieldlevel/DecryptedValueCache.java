@@ -0,0 +1,160 @@
+package de.otto.kafka.messaging.e2ee.fieldlevel;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of decrypted field values, keyed by the topic and the exact encrypted string.
+ * The topic is part of the key, so a value is never returned for a topic whose key has not
+ * authenticated it.
+ * <p>
+ * The cache is split into segments, each an access-ordered map with its own lock, so concurrent
+ * readers only contend when they hit the same segment. The least recently used value is evicted
+ * per segment, so the eviction order is only approximately LRU across the whole cache. Optionally,
+ * values expire a fixed time after they have been cached. An expired value is removed when it is
+ * looked up or when it is the least recently used value of its segment.
+ * <p>
+ * The cache holds plain text in memory. That's why it's opt-in.
+ */
+final class DecryptedValueCache {
+
+  private static final int MAX_SEGMENTS = 16;
+  private static final int MIN_SEGMENT_SIZE = 64;
+
+  private final int maxSize;
+  private final long timeToLiveMillis;
+  private final Clock clock;
+  private final Segment[] segments;
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+
+  /**
+   * @param maxSize the maximum number of cached values
+   */
+  DecryptedValueCache(int maxSize) {
+    this(maxSize, null, Clock.systemUTC());
+  }
+
+  /**
+   * @param maxSize    the maximum number of cached values
+   * @param timeToLive the time a value stays in the cache or <code>null</code> when values only
+   *                   leave the cache by eviction
+   * @param clock      a clock (used in unit tests)
+   */
+  DecryptedValueCache(int maxSize, Duration timeToLive, Clock clock) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize must be positive");
+    }
+    if (timeToLive != null && (timeToLive.isNegative() || timeToLive.isZero())) {
+      throw new IllegalArgumentException("timeToLive must be positive");
+    }
+    this.maxSize = maxSize;
+    this.timeToLiveMillis = timeToLive == null ? 0 : Math.max(1, timeToLive.toMillis());
+    this.clock = clock;
+    int segmentCount = 1;
+    while (segmentCount < MAX_SEGMENTS && maxSize / (segmentCount * 2) >= MIN_SEGMENT_SIZE) {
+      segmentCount *= 2;
+    }
+    this.segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      // the remainder is spread over the first segments, so the sizes add up to maxSize
+      segments[i] = new Segment(maxSize / segmentCount + (i < maxSize % segmentCount ? 1 : 0));
+    }
+  }
+
+  /**
+   * @param kafkaTopicName  name of the Kafka Topic the field value is from.
+   * @param encryptedString the encrypted text
+   * @return the cached plain text or <code>null</code> on a cache miss
+   */
+  String get(String kafkaTopicName, String encryptedString) {
+    CacheKey key = new CacheKey(kafkaTopicName, encryptedString);
+    String plainText = segmentFor(key).get(key, now());
+    if (plainText == null) {
+      missCount.increment();
+    } else {
+      hitCount.increment();
+    }
+    return plainText;
+  }
+
+  /**
+   * @param kafkaTopicName  name of the Kafka Topic the field value is from.
+   * @param encryptedString the encrypted text
+   * @param plainText       the decrypted text
+   */
+  void put(String kafkaTopicName, String encryptedString, String plainText) {
+    CacheKey key = new CacheKey(kafkaTopicName, encryptedString);
+    long expiresAt = timeToLiveMillis == 0 ? Long.MAX_VALUE : now() + timeToLiveMillis;
+    segmentFor(key).put(key, new CacheEntry(plainText, expiresAt));
+  }
+
+  DecryptedValueCacheStats stats() {
+    int size = 0;
+    for (Segment segment : segments) {
+      size += segment.currentSize();
+    }
+    return new DecryptedValueCacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(),
+        size, maxSize);
+  }
+
+  private long now() {
+    return timeToLiveMillis == 0 ? 0 : clock.millis();
+  }
+
+  private Segment segmentFor(CacheKey key) {
+    int hash = key.hashCode();
+    // spread the high bits, since the segment count is a power of two
+    return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+  }
+
+  private final class Segment {
+
+    private final int capacity;
+    private final LinkedHashMap<CacheKey, CacheEntry> entries;
+
+    Segment(int capacity) {
+      this.capacity = capacity;
+      this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    synchronized String get(CacheKey key, long now) {
+      CacheEntry entry = entries.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (entry.expiresAt() <= now) {
+        entries.remove(key);
+        evictionCount.increment();
+        return null;
+      }
+      return entry.plainText();
+    }
+
+    synchronized void put(CacheKey key, CacheEntry entry) {
+      entries.put(key, entry);
+      if (entries.size() > capacity) {
+        Iterator<CacheKey> eldest = entries.keySet().iterator();
+        eldest.next();
+        eldest.remove();
+        evictionCount.increment();
+      }
+    }
+
+    synchronized int currentSize() {
+      return entries.size();
+    }
+  }
+
+  private record CacheKey(String kafkaTopicName, String encryptedString) {
+
+  }
+
+  private record CacheEntry(String plainText, long expiresAt) {
+
+  }
+}
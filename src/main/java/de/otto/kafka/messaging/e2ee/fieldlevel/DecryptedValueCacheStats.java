@@ -0,0 +1,28 @@
+package de.otto.kafka.messaging.e2ee.fieldlevel;
+
+/**
+ * Statistics of the decrypted value cache of a {@link FieldLevelDecryptionService}.
+ *
+ * @param hitCount      number of values which have been taken from the cache
+ * @param missCount     number of values which had to be decrypted
+ * @param evictionCount number of values which have been removed because the cache was full or
+ *                      the values had expired
+ * @param size          current number of cached values
+ * @param maxSize       maximum number of cached values. It's 0 when the cache is disabled.
+ */
+public record DecryptedValueCacheStats(
+    long hitCount,
+    long missCount,
+    long evictionCount,
+    int size,
+    int maxSize
+) {
+
+  /**
+   * @return the ratio of cache hits to all lookups or 0 when there was no lookup yet
+   */
+  public double hitRatio() {
+    long requestCount = hitCount + missCount;
+    return requestCount == 0 ? 0.0 : (double) hitCount / requestCount;
+  }
+}
@@ -10,4 +10,12 @@ interface DefaultFieldLevelEncryptionConfiguration {
    * default prefix
    */
   String AES_V1_PREFIX = "encAesV1";
+  /**
+   * prefix of the compact format
+   */
+  String AES_V2_PREFIX = "encAesV2";
+  /**
+   * length of the AES initialization vector in bytes
+   */
+  int AES_IV_SIZE = 12;
 }
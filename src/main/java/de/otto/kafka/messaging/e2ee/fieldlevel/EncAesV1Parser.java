@@ -0,0 +1,145 @@
+package de.otto.kafka.messaging.e2ee.fieldlevel;
+
+import static de.otto.kafka.messaging.e2ee.fieldlevel.DefaultFieldLevelEncryptionConfiguration.AES_V1_PREFIX;
+import static de.otto.kafka.messaging.e2ee.fieldlevel.DefaultFieldLevelEncryptionConfiguration.FIELD_DELIMITER;
+
+import de.otto.kafka.messaging.e2ee.AesEncryptedPayload;
+import java.util.Arrays;
+
+/**
+ * Index based parser of the field-level format
+ * {@code encAesV1.<keyVersion>.<base64 initialization vector>.<base64 encrypted payload>}.
+ * <p>
+ * The parts are located by their delimiter indexes and decoded directly from the char sequence
+ * into the arrays of the resulting payload, so no intermediate strings or arrays are created.
+ */
+final class EncAesV1Parser {
+
+  private static final String PREFIX = AES_V1_PREFIX + FIELD_DELIMITER;
+  private static final char DELIMITER = FIELD_DELIMITER.charAt(0);
+  private static final int[] BASE64_VALUES = new int[128];
+
+  static {
+    Arrays.fill(BASE64_VALUES, -1);
+    String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+    for (int i = 0; i < alphabet.length(); i++) {
+      BASE64_VALUES[alphabet.charAt(i)] = i;
+    }
+  }
+
+  private EncAesV1Parser() {
+  }
+
+  /**
+   * @param value a field value
+   * @return <code>true</code> when the value starts with the encAesV1 prefix
+   */
+  static boolean isEncAesV1(CharSequence value) {
+    if (value.length() < PREFIX.length()) {
+      return false;
+    }
+    for (int i = 0; i < PREFIX.length(); i++) {
+      if (value.charAt(i) != PREFIX.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Parses an encAesV1 field value. Trailing delimiters are ignored like
+   * {@link String#split(String)} does.
+   *
+   * @param value a field value which starts with the encAesV1 prefix
+   * @return the encrypted payload
+   * @throws IllegalArgumentException when the value is not a valid encAesV1 value
+   */
+  static AesEncryptedPayload parse(CharSequence value) {
+    int end = value.length();
+    while (end > PREFIX.length() && value.charAt(end - 1) == DELIMITER) {
+      end--;
+    }
+    int versionStart = PREFIX.length();
+    int versionEnd = indexOfDelimiter(value, versionStart, end);
+    int ivEnd = versionEnd < 0 ? -1 : indexOfDelimiter(value, versionEnd + 1, end);
+    if (ivEnd < 0 || indexOfDelimiter(value, ivEnd + 1, end) >= 0) {
+      throw new IllegalArgumentException("encrypted string format is invalid");
+    }
+
+    int keyVersion;
+    try {
+      keyVersion = Integer.parseInt(value, versionStart, versionEnd, 10);
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException("keyVersion must be a number", ex);
+    }
+    byte[] initializationVector = decodeBase64(value, versionEnd + 1, ivEnd);
+    byte[] encryptedPayload = decodeBase64(value, ivEnd + 1, end);
+    return new AesEncryptedPayload(encryptedPayload, initializationVector, keyVersion);
+  }
+
+  private static int indexOfDelimiter(CharSequence value, int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (value.charAt(i) == DELIMITER) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Decodes a part of the char sequence like {@link java.util.Base64#getDecoder()} does.
+   *
+   * @param value the char sequence
+   * @param start index of the first char
+   * @param end   index after the last char
+   * @return the decoded bytes
+   * @throws IllegalArgumentException when the part is not valid base64
+   */
+  static byte[] decodeBase64(CharSequence value, int start, int end) {
+    int dataEnd = end;
+    if (dataEnd > start && value.charAt(dataEnd - 1) == '=') {
+      dataEnd--;
+      if (dataEnd > start && value.charAt(dataEnd - 1) == '=') {
+        dataEnd--;
+      }
+    }
+    int dataLength = dataEnd - start;
+    int remainder = dataLength % 4;
+    if (remainder == 1 || (dataEnd != end && (end - start) % 4 != 0)) {
+      throw new IllegalArgumentException("Invalid base64 length " + (end - start));
+    }
+
+    byte[] result = new byte[dataLength / 4 * 3 + (remainder == 0 ? 0 : remainder - 1)];
+    int resultIndex = 0;
+    int index = start;
+    int fullQuantumsEnd = dataEnd - remainder;
+    while (index < fullQuantumsEnd) {
+      int bits = base64Value(value, index) << 18
+          | base64Value(value, index + 1) << 12
+          | base64Value(value, index + 2) << 6
+          | base64Value(value, index + 3);
+      result[resultIndex++] = (byte) (bits >> 16);
+      result[resultIndex++] = (byte) (bits >> 8);
+      result[resultIndex++] = (byte) bits;
+      index += 4;
+    }
+    if (remainder > 0) {
+      int bits = base64Value(value, index) << 18 | base64Value(value, index + 1) << 12;
+      result[resultIndex++] = (byte) (bits >> 16);
+      if (remainder == 3) {
+        bits |= base64Value(value, index + 2) << 6;
+        result[resultIndex] = (byte) (bits >> 8);
+      }
+    }
+    return result;
+  }
+
+  private static int base64Value(CharSequence value, int index) {
+    char c = value.charAt(index);
+    int base64Value = c < 128 ? BASE64_VALUES[c] : -1;
+    if (base64Value < 0) {
+      throw new IllegalArgumentException("Illegal base64 character " + Integer.toHexString(c));
+    }
+    return base64Value;
+  }
+}
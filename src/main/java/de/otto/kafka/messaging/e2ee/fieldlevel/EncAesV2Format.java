@@ -0,0 +1,53 @@
+package de.otto.kafka.messaging.e2ee.fieldlevel;
+
+import static de.otto.kafka.messaging.e2ee.fieldlevel.DefaultFieldLevelEncryptionConfiguration.AES_V2_PREFIX;
+import static de.otto.kafka.messaging.e2ee.fieldlevel.DefaultFieldLevelEncryptionConfiguration.FIELD_DELIMITER;
+
+import de.otto.kafka.messaging.e2ee.AesEncryptedPayload;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * The compact field-level format {@code encAesV2.<unpadded base64url envelope>}, see
+ * {@link AesEnvelope} for the envelope.
+ */
+final class EncAesV2Format {
+
+  private static final String PREFIX = AES_V2_PREFIX + FIELD_DELIMITER;
+  private static final byte[] PREFIX_BYTES = PREFIX.getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] NO_PREFIX = new byte[0];
+
+  private EncAesV2Format() {
+  }
+
+  /**
+   * @param value a field value
+   * @return <code>true</code> when the value starts with the encAesV2 prefix
+   */
+  static boolean isEncAesV2(String value) {
+    return value.startsWith(PREFIX);
+  }
+
+  /**
+   * @param aesEncryptedPayload an encrypted payload
+   * @return the encAesV2 field value
+   */
+  static String format(AesEncryptedPayload aesEncryptedPayload) {
+    byte[] envelope = AesEnvelope.encode(aesEncryptedPayload, NO_PREFIX);
+    byte[] encoded = Base64.getUrlEncoder().withoutPadding().encode(envelope);
+    byte[] result = new byte[PREFIX_BYTES.length + encoded.length];
+    System.arraycopy(PREFIX_BYTES, 0, result, 0, PREFIX_BYTES.length);
+    System.arraycopy(encoded, 0, result, PREFIX_BYTES.length, encoded.length);
+    return new String(result, StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * @param value a field value which starts with the encAesV2 prefix
+   * @return the encrypted payload
+   * @throws IllegalArgumentException when the value is not a valid encAesV2 value
+   */
+  static AesEncryptedPayload parse(String value) {
+    byte[] envelope = Base64.getUrlDecoder().decode(value.substring(PREFIX.length()));
+    return AesEnvelope.decode(envelope, 0);
+  }
+}
@@ -1,21 +1,26 @@
 package de.otto.kafka.messaging.e2ee.fieldlevel;
 
-import static de.otto.kafka.messaging.e2ee.fieldlevel.DefaultFieldLevelEncryptionConfiguration.AES_V1_PREFIX;
-import static de.otto.kafka.messaging.e2ee.fieldlevel.DefaultFieldLevelEncryptionConfiguration.FIELD_DELIMITER;
-
 import de.otto.kafka.messaging.e2ee.AesEncryptedPayload;
 import de.otto.kafka.messaging.e2ee.DecryptionService;
 import de.otto.kafka.messaging.e2ee.EncryptionKeyProvider;
-import java.util.Base64;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.regex.Pattern;
 
 /**
- * Decryption service for field-level encrypted fields.
+ * Decryption service for field-level encrypted fields. It reads the encAesV1 and the encAesV2
+ * format.
  */
 public final class FieldLevelDecryptionService {
 
   private final DecryptionService decryptionService;
+  private final DecryptedValueCache decryptedValueCache;
 
   /**
    * Constructor for that class.
@@ -23,8 +28,48 @@ public final class FieldLevelDecryptionService {
    * @param decryptionService the DecryptionService
    */
   public FieldLevelDecryptionService(DecryptionService decryptionService) {
+    this(decryptionService, 0);
+  }
+
+  /**
+   * Constructor for that class with a cache of decrypted values. Repeated encrypted values, e.g.
+   * when a compacted topic is replayed, are then decrypted once only.
+   * <p>
+   * The cache holds up to <code>decryptedValueCacheSize</code> plain text values in memory. Only
+   * enable it when that is acceptable for the data.
+   *
+   * @param decryptionService       the DecryptionService
+   * @param decryptedValueCacheSize maximum number of cached values. 0 disables the cache.
+   */
+  public FieldLevelDecryptionService(DecryptionService decryptionService,
+      int decryptedValueCacheSize) {
+    this(decryptionService, decryptedValueCacheSize, null);
+  }
+
+  /**
+   * Constructor for that class with a cache of decrypted values whose values expire. Repeated
+   * encrypted values are then decrypted once per <code>decryptedValueTimeToLive</code> only.
+   * <p>
+   * The cache holds up to <code>decryptedValueCacheSize</code> plain text values in memory, each
+   * for at most <code>decryptedValueTimeToLive</code>. Only enable it when that is acceptable for
+   * the data.
+   *
+   * @param decryptionService        the DecryptionService
+   * @param decryptedValueCacheSize  maximum number of cached values. 0 disables the cache.
+   * @param decryptedValueTimeToLive the time a value stays in the cache or <code>null</code> when
+   *                                 values only leave the cache when it is full
+   */
+  public FieldLevelDecryptionService(DecryptionService decryptionService,
+      int decryptedValueCacheSize, Duration decryptedValueTimeToLive) {
     Objects.requireNonNull(decryptionService, "decryptionService");
+    if (decryptedValueCacheSize < 0) {
+      throw new IllegalArgumentException("decryptedValueCacheSize must not be negative");
+    }
     this.decryptionService = decryptionService;
+    this.decryptedValueCache = decryptedValueCacheSize == 0
+        ? null
+        : new DecryptedValueCache(decryptedValueCacheSize, decryptedValueTimeToLive,
+            Clock.systemUTC());
   }
 
   /**
@@ -49,28 +94,66 @@ public final class FieldLevelDecryptionService {
       return null;
     }
 
-    if (!encryptedString.startsWith(AES_V1_PREFIX + FIELD_DELIMITER)) {
+    if (!isEncrypted(encryptedString)) {
       return encryptedString;
     }
 
-    String[] cryptoParts = encryptedString.split(Pattern.quote(FIELD_DELIMITER));
-    if (cryptoParts.length != 4) {
-      throw new IllegalArgumentException("encrypted string format is invalid");
+    if (decryptedValueCache == null) {
+      return decryptionService.decryptToString(kafkaTopicName, parse(encryptedString));
     }
-
-    int keyVersion;
-    try {
-      keyVersion = Integer.parseInt(cryptoParts[1]);
-    } catch (NumberFormatException ex) {
-      throw new IllegalArgumentException("keyVersion must be a number", ex);
+    String plainText = decryptedValueCache.get(kafkaTopicName, encryptedString);
+    if (plainText == null) {
+      plainText = decryptionService.decryptToString(kafkaTopicName, parse(encryptedString));
+      decryptedValueCache.put(kafkaTopicName, encryptedString, plainText);
     }
-    String initializationVectorBase64 = cryptoParts[2];
-    byte[] encryptedPayload = Base64.getDecoder().decode(cryptoParts[3]);
+    return plainText;
+  }
 
-    AesEncryptedPayload aesEncryptedPayload = new AesEncryptedPayload(encryptedPayload,
-        initializationVectorBase64, keyVersion);
+  /**
+   * decrypts the given fields of one message (depending on the content). The keys are looked up
+   * once per key version and one cipher instance is used for all fields.
+   *
+   * @param kafkaTopicName  name of the Kafka Topic the field values are from.
+   * @param encryptedFields the (potentially) encrypted text values by field name. Values can be
+   *                        <code>null</code>.
+   * @return The plain text values by field name, in the iteration order of the given map
+   */
+  public Map<String, String> decryptFields(String kafkaTopicName,
+      Map<String, String> encryptedFields) {
+    Objects.requireNonNull(kafkaTopicName, "kafkaTopicName");
+    Objects.requireNonNull(encryptedFields, "encryptedFields");
 
-    return decryptionService.decryptToString(kafkaTopicName, aesEncryptedPayload);
+    Map<String, String> result = new LinkedHashMap<>();
+    List<String> pendingFieldNames = new ArrayList<>();
+    List<String> pendingEncryptedStrings = new ArrayList<>();
+    List<AesEncryptedPayload> encryptedPayloads = new ArrayList<>();
+    encryptedFields.forEach((fieldName, encryptedString) -> {
+      if (encryptedString == null || !isEncrypted(encryptedString)) {
+        result.put(fieldName, encryptedString);
+        return;
+      }
+      String plainText = decryptedValueCache == null
+          ? null
+          : decryptedValueCache.get(kafkaTopicName, encryptedString);
+      // a pending value keeps its position in the result map
+      result.put(fieldName, plainText);
+      if (plainText == null) {
+        pendingFieldNames.add(fieldName);
+        pendingEncryptedStrings.add(encryptedString);
+        encryptedPayloads.add(parse(encryptedString));
+      }
+    });
+
+    List<byte[]> plainPayloads = decryptionService.decryptToByteArray(kafkaTopicName,
+        encryptedPayloads);
+    for (int index = 0; index < plainPayloads.size(); index++) {
+      String plainText = new String(plainPayloads.get(index), StandardCharsets.UTF_8);
+      result.put(pendingFieldNames.get(index), plainText);
+      if (decryptedValueCache != null) {
+        decryptedValueCache.put(kafkaTopicName, pendingEncryptedStrings.get(index), plainText);
+      }
+    }
+    return result;
   }
 
   /**
@@ -86,4 +169,78 @@ public final class FieldLevelDecryptionService {
     }
     return decryptFieldValue(kafkaTopicName, encryptedString.value());
   }
+
+  /**
+   * decrypts the given bytes, e.g. of an Avro or Protobuf <code>bytes</code> field (depending on
+   * the content). Values which don't start with the marker of the binary envelope are returned as
+   * they are.
+   *
+   * @param kafkaTopicName name of the Kafka Topic the field value is from.
+   * @param encryptedValue the (potentially) encrypted value. Can be <code>null</code>.
+   * @return The plain bytes or <code>null</code>
+   */
+  public byte[] decryptBinaryFieldValue(String kafkaTopicName, byte[] encryptedValue) {
+    Objects.requireNonNull(kafkaTopicName, "kafkaTopicName");
+    if (encryptedValue == null) {
+      return null;
+    }
+
+    if (!BinaryEnvelopeFormat.isEncrypted(encryptedValue)) {
+      return encryptedValue;
+    }
+    return decryptionService.decryptToByteArray(kafkaTopicName,
+        BinaryEnvelopeFormat.parse(encryptedValue));
+  }
+
+  /**
+   * decrypts the remaining bytes of the given buffer (depending on the content). The position of
+   * the given buffer is not changed.
+   *
+   * @param kafkaTopicName name of the Kafka Topic the field value is from.
+   * @param encryptedValue the (potentially) encrypted value. Can be <code>null</code>.
+   * @return The plain bytes or <code>null</code>
+   * @see #decryptBinaryFieldValue(String, byte[])
+   */
+  public ByteBuffer decryptBinaryFieldValue(String kafkaTopicName, ByteBuffer encryptedValue) {
+    Objects.requireNonNull(kafkaTopicName, "kafkaTopicName");
+    if (encryptedValue == null) {
+      return null;
+    }
+    return ByteBuffer.wrap(decryptBinaryFieldValue(kafkaTopicName,
+        FieldLevelEncryptionService.toByteArray(encryptedValue)));
+  }
+
+  /**
+   * wraps the given text, so it's decrypted on first access only.
+   *
+   * @param kafkaTopicName  name of the Kafka Topic the field value is from.
+   * @param encryptedString the (potentially) encrypted text value. Can be <code>null</code>.
+   * @return The lazily decrypted text or <code>null</code>
+   */
+  public LazyDecryptedString decryptLazily(String kafkaTopicName,
+      EncryptedString encryptedString) {
+    return LazyDecryptedString.of(encryptedString, kafkaTopicName, this);
+  }
+
+  /**
+   * @return the statistics of the decrypted value cache. All values are 0 when the cache is
+   * disabled.
+   */
+  public DecryptedValueCacheStats decryptedValueCacheStats() {
+    if (decryptedValueCache == null) {
+      return new DecryptedValueCacheStats(0, 0, 0, 0, 0);
+    }
+    return decryptedValueCache.stats();
+  }
+
+  private static boolean isEncrypted(String value) {
+    return EncAesV1Parser.isEncAesV1(value) || EncAesV2Format.isEncAesV2(value);
+  }
+
+  private static AesEncryptedPayload parse(String encryptedString) {
+    if (EncAesV2Format.isEncAesV2(encryptedString)) {
+      return EncAesV2Format.parse(encryptedString);
+    }
+    return EncAesV1Parser.parse(encryptedString);
+  }
 }
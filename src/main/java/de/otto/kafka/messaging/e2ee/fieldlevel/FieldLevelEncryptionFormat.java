@@ -0,0 +1,19 @@
+package de.otto.kafka.messaging.e2ee.fieldlevel;
+
+/**
+ * The text format of encrypted field values. The {@link FieldLevelDecryptionService} reads all
+ * formats.
+ */
+public enum FieldLevelEncryptionFormat {
+  /**
+   * {@code encAesV1.<keyVersion>.<base64 initialization vector>.<base64 encrypted payload>}. It's
+   * the default format.
+   */
+  ENC_AES_V1,
+  /**
+   * {@code encAesV2.<base64url envelope>} with the unpadded envelope
+   * {@code <varint keyVersion><raw initialization vector><encrypted payload>}. It's shorter than
+   * encAesV1, but needs a library version which can decrypt it on the consumer side.
+   */
+  ENC_AES_V2
+}
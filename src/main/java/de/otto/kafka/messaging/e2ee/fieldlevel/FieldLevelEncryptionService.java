@@ -6,7 +6,14 @@ import static de.otto.kafka.messaging.e2ee.fieldlevel.DefaultFieldLevelEncryptio
 import de.otto.kafka.messaging.e2ee.AesEncryptedPayload;
 import de.otto.kafka.messaging.e2ee.EncryptionKeyProvider;
 import de.otto.kafka.messaging.e2ee.EncryptionService;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -15,19 +22,33 @@ import java.util.Objects;
 public final class FieldLevelEncryptionService {
 
   private final EncryptionService encryptionService;
+  private final FieldLevelEncryptionFormat encryptionFormat;
 
   /**
-   * Constructor for that class.
+   * Constructor for that class. The values are encrypted in the encAesV1 format.
    *
    * @param encryptionService the EncryptionService
    */
   public FieldLevelEncryptionService(EncryptionService encryptionService) {
+    this(encryptionService, FieldLevelEncryptionFormat.ENC_AES_V1);
+  }
+
+  /**
+   * Constructor for that class.
+   *
+   * @param encryptionService the EncryptionService
+   * @param encryptionFormat  the text format of the encrypted values
+   */
+  public FieldLevelEncryptionService(EncryptionService encryptionService,
+      FieldLevelEncryptionFormat encryptionFormat) {
     Objects.requireNonNull(encryptionService, "encryptionService");
+    Objects.requireNonNull(encryptionFormat, "encryptionFormat");
     this.encryptionService = encryptionService;
+    this.encryptionFormat = encryptionFormat;
   }
 
   /**
-   * Constructor for that class.
+   * Constructor for that class. The values are encrypted in the encAesV1 format.
    *
    * @param encryptionKeyProvider the EncryptionKeyProvider
    */
@@ -54,6 +75,95 @@ public final class FieldLevelEncryptionService {
       return plainText;
     }
 
+    return toEncryptedString(aesEncryptedPayload);
+  }
+
+  /**
+   * encrypts the given fields of one message (depending on the topic related configuration). The
+   * key is looked up once for all fields.
+   *
+   * @param kafkaTopicName name of the Kafka Topic the field values are for.
+   * @param plainFields    the plain text values by field name. Values can be <code>null</code>.
+   * @return The encrypted values by field name, in the iteration order of the given map
+   */
+  public Map<String, String> encryptFields(String kafkaTopicName, Map<String, String> plainFields) {
+    Objects.requireNonNull(kafkaTopicName, "kafkaTopicName");
+    Objects.requireNonNull(plainFields, "plainFields");
+
+    List<byte[]> plainPayloads = new ArrayList<>(plainFields.size());
+    for (String plainText : plainFields.values()) {
+      if (plainText != null) {
+        plainPayloads.add(plainText.getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    Iterator<AesEncryptedPayload> encryptedPayloads = encryptionService.encryptPayloadsWithAes(
+        kafkaTopicName, plainPayloads).iterator();
+
+    Map<String, String> result = new LinkedHashMap<>();
+    plainFields.forEach((fieldName, plainText) -> {
+      if (plainText == null) {
+        result.put(fieldName, null);
+        return;
+      }
+      AesEncryptedPayload aesEncryptedPayload = encryptedPayloads.next();
+      result.put(fieldName,
+          aesEncryptedPayload.isEncrypted() ? toEncryptedString(aesEncryptedPayload) : plainText);
+    });
+    return result;
+  }
+
+  /**
+   * encrypts the given bytes, e.g. of an Avro or Protobuf <code>bytes</code> field (depending on
+   * the topic related configuration). The result is a binary envelope without text encoding.
+   *
+   * @param kafkaTopicName name of the Kafka Topic the field value is for.
+   * @param plainValue     the plain value. Can be <code>null</code>.
+   * @return The encrypted bytes, the plain value when the topic is not encrypted or
+   * <code>null</code>
+   */
+  public byte[] encryptBinaryFieldValue(String kafkaTopicName, byte[] plainValue) {
+    Objects.requireNonNull(kafkaTopicName, "kafkaTopicName");
+    if (plainValue == null) {
+      return null;
+    }
+
+    AesEncryptedPayload aesEncryptedPayload = encryptionService.encryptPayloadWithAes(
+        kafkaTopicName, plainValue);
+    if (!aesEncryptedPayload.isEncrypted()) {
+      return plainValue;
+    }
+    return BinaryEnvelopeFormat.format(aesEncryptedPayload);
+  }
+
+  /**
+   * encrypts the remaining bytes of the given buffer (depending on the topic related
+   * configuration). The position of the given buffer is not changed.
+   *
+   * @param kafkaTopicName name of the Kafka Topic the field value is for.
+   * @param plainValue     the plain value. Can be <code>null</code>.
+   * @return The encrypted bytes, the plain value when the topic is not encrypted or
+   * <code>null</code>
+   * @see #encryptBinaryFieldValue(String, byte[])
+   */
+  public ByteBuffer encryptBinaryFieldValue(String kafkaTopicName, ByteBuffer plainValue) {
+    Objects.requireNonNull(kafkaTopicName, "kafkaTopicName");
+    if (plainValue == null) {
+      return null;
+    }
+    byte[] result = encryptBinaryFieldValue(kafkaTopicName, toByteArray(plainValue));
+    return ByteBuffer.wrap(result);
+  }
+
+  static byte[] toByteArray(ByteBuffer byteBuffer) {
+    byte[] result = new byte[byteBuffer.remaining()];
+    byteBuffer.duplicate().get(result);
+    return result;
+  }
+
+  private String toEncryptedString(AesEncryptedPayload aesEncryptedPayload) {
+    if (encryptionFormat == FieldLevelEncryptionFormat.ENC_AES_V2) {
+      return EncAesV2Format.format(aesEncryptedPayload);
+    }
     String encryptedPayloadBase64 = Base64.getEncoder()
         .encodeToString(aesEncryptedPayload.encryptedPayload());
     return AES_V1_PREFIX + FIELD_DELIMITER
@@ -0,0 +1,515 @@
+package de.otto.kafka.messaging.e2ee.fieldlevel;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+/**
+ * Encrypts or decrypts selected string values of a UTF-8 encoded JSON document without binding it
+ * to objects. The document is scanned token by token and copied unchanged, except for the selected
+ * string values, so no object tree is built.
+ * <p>
+ * The fields are selected by paths like {@code $.customer.email} or {@code $.items[*].iban}:
+ * <ul>
+ *   <li>{@code $} is the root value</li>
+ *   <li>{@code .name} selects the member of an object</li>
+ *   <li>{@code [*]} selects all elements of an array, {@code [2]} selects the third element</li>
+ * </ul>
+ * A field is transformed when any of the paths selects it, so {@code $.items[*].iban} and
+ * {@code $.items[0].name} transform both fields of the first element.
+ * Only string values are transformed. Other values at the selected paths are copied unchanged.
+ * Documents with objects and arrays nested deeper than {@value #MAX_NESTING_DEPTH} levels are
+ * rejected, so a hostile document can't exhaust the stack.
+ *
+ * <pre>{@code
+ * JsonFieldTransformer transformer = new JsonFieldTransformer(
+ *     List.of("$.customer.email", "$.items[*].iban"));
+ * byte[] encryptedJson = transformer.encryptFields("some-topic", json, encryptionService);
+ * byte[] plainJson = transformer.decryptFields("some-topic", encryptedJson, decryptionService);
+ * }</pre>
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ */
+public final class JsonFieldTransformer {
+
+  /**
+   * The maximum nesting depth of objects and arrays (the same as Jackson's default).
+   */
+  public static final int MAX_NESTING_DEPTH = 1000;
+
+  private final PathNode root;
+
+  /**
+   * Constructor for that class.
+   *
+   * @param jsonPaths the paths of the fields to transform
+   * @throws IllegalArgumentException when a path is invalid
+   */
+  public JsonFieldTransformer(Collection<String> jsonPaths) {
+    Objects.requireNonNull(jsonPaths, "jsonPaths is required");
+    this.root = new PathNode();
+    for (String jsonPath : jsonPaths) {
+      root.add(jsonPath);
+    }
+    root.mergeAnyElements();
+  }
+
+  /**
+   * encrypts the selected string values (depending on the topic related configuration).
+   *
+   * @param kafkaTopicName    name of the Kafka Topic the document is for.
+   * @param json              the UTF-8 encoded JSON document
+   * @param encryptionService the field level encryption service
+   * @return the JSON document with encrypted values
+   * @throws IllegalArgumentException when the document is not valid JSON
+   */
+  public byte[] encryptFields(String kafkaTopicName, byte[] json,
+      FieldLevelEncryptionService encryptionService) {
+    Objects.requireNonNull(kafkaTopicName, "kafkaTopicName is required");
+    Objects.requireNonNull(encryptionService, "encryptionService is required");
+    return transform(json,
+        plainText -> encryptionService.encryptFieldValueToString(kafkaTopicName, plainText));
+  }
+
+  /**
+   * decrypts the selected string values (depending on the content).
+   *
+   * @param kafkaTopicName    name of the Kafka Topic the document is from.
+   * @param json              the UTF-8 encoded JSON document
+   * @param decryptionService the field level decryption service
+   * @return the JSON document with plain text values
+   * @throws IllegalArgumentException when the document is not valid JSON
+   */
+  public byte[] decryptFields(String kafkaTopicName, byte[] json,
+      FieldLevelDecryptionService decryptionService) {
+    Objects.requireNonNull(kafkaTopicName, "kafkaTopicName is required");
+    Objects.requireNonNull(decryptionService, "decryptionService is required");
+    return transform(json,
+        encryptedString -> decryptionService.decryptFieldValue(kafkaTopicName, encryptedString));
+  }
+
+  /**
+   * Replaces the selected string values.
+   *
+   * @param json             the UTF-8 encoded JSON document
+   * @param valueTransformer maps a selected string value to its replacement
+   * @return the transformed JSON document
+   * @throws IllegalArgumentException when the document is not valid JSON
+   */
+  public byte[] transform(byte[] json, UnaryOperator<String> valueTransformer) {
+    Objects.requireNonNull(json, "json is required");
+    Objects.requireNonNull(valueTransformer, "valueTransformer is required");
+    return new Scanner(json, valueTransformer).transformDocument(root);
+  }
+
+  /**
+   * A node of the compiled paths.
+   */
+  private static final class PathNode {
+
+    private final Map<String, PathNode> members = new HashMap<>();
+    private final Map<Integer, PathNode> elements = new HashMap<>();
+    private PathNode anyElement;
+    private boolean selected;
+
+    void add(String jsonPath) {
+      if (jsonPath == null || !jsonPath.startsWith("$")) {
+        throw new IllegalArgumentException("JSON path must start with '$': " + jsonPath);
+      }
+      PathNode node = this;
+      int index = 1;
+      while (index < jsonPath.length()) {
+        char c = jsonPath.charAt(index);
+        if (c == '.') {
+          int end = index + 1;
+          while (end < jsonPath.length() && jsonPath.charAt(end) != '.'
+              && jsonPath.charAt(end) != '[') {
+            end++;
+          }
+          if (end == index + 1) {
+            throw new IllegalArgumentException("JSON path has an empty member name: " + jsonPath);
+          }
+          node = node.members.computeIfAbsent(jsonPath.substring(index + 1, end),
+              name -> new PathNode());
+          index = end;
+        } else if (c == '[') {
+          int end = jsonPath.indexOf(']', index);
+          if (end < 0) {
+            throw new IllegalArgumentException("JSON path has an unclosed '[': " + jsonPath);
+          }
+          String elementIndex = jsonPath.substring(index + 1, end);
+          if (elementIndex.equals("*")) {
+            if (node.anyElement == null) {
+              node.anyElement = new PathNode();
+            }
+            node = node.anyElement;
+          } else {
+            try {
+              node = node.elements.computeIfAbsent(Integer.parseInt(elementIndex),
+                  i -> new PathNode());
+            } catch (NumberFormatException ex) {
+              throw new IllegalArgumentException("JSON path has an invalid index: " + jsonPath,
+                  ex);
+            }
+          }
+          index = end + 1;
+        } else {
+          throw new IllegalArgumentException("JSON path is invalid at position " + index + ": "
+              + jsonPath);
+        }
+      }
+      node.selected = true;
+    }
+
+    /**
+     * Merges the {@code [*]} subtree into the nodes of the explicit indexes, so an element with an
+     * own path still gets all the fields selected for every element.
+     */
+    void mergeAnyElements() {
+      if (anyElement != null) {
+        for (PathNode element : elements.values()) {
+          element.mergeFrom(anyElement);
+        }
+        anyElement.mergeAnyElements();
+      }
+      for (PathNode element : elements.values()) {
+        element.mergeAnyElements();
+      }
+      for (PathNode member : members.values()) {
+        member.mergeAnyElements();
+      }
+    }
+
+    private void mergeFrom(PathNode other) {
+      selected |= other.selected;
+      other.members.forEach((name, child) ->
+          members.computeIfAbsent(name, n -> new PathNode()).mergeFrom(child));
+      other.elements.forEach((index, child) ->
+          elements.computeIfAbsent(index, i -> new PathNode()).mergeFrom(child));
+      if (other.anyElement != null) {
+        if (anyElement == null) {
+          anyElement = new PathNode();
+        }
+        anyElement.mergeFrom(other.anyElement);
+      }
+    }
+
+    PathNode member(String name) {
+      return members.isEmpty() ? null : members.get(name);
+    }
+
+    PathNode element(int index) {
+      PathNode node = elements.isEmpty() ? null : elements.get(index);
+      return node != null ? node : anyElement;
+    }
+
+    boolean hasMembers() {
+      return !members.isEmpty();
+    }
+  }
+
+  /**
+   * Scans one document. Unselected parts are copied in bulk from {@code copyFrom}.
+   */
+  private static final class Scanner {
+
+    private final byte[] in;
+    private final UnaryOperator<String> valueTransformer;
+    private final ByteArrayOutputStream out;
+    private int pos;
+    private int copyFrom;
+    private int depth;
+
+    Scanner(byte[] in, UnaryOperator<String> valueTransformer) {
+      this.in = in;
+      this.valueTransformer = valueTransformer;
+      this.out = new ByteArrayOutputStream(in.length + 256);
+    }
+
+    byte[] transformDocument(PathNode root) {
+      value(root);
+      skipWhitespace();
+      if (pos != in.length) {
+        throw invalid();
+      }
+      out.write(in, copyFrom, in.length - copyFrom);
+      return out.toByteArray();
+    }
+
+    private void value(PathNode node) {
+      skipWhitespace();
+      if (pos >= in.length) {
+        throw invalid();
+      }
+      switch (in[pos]) {
+        case '{' -> {
+          enterNesting();
+          object(node);
+          depth--;
+        }
+        case '[' -> {
+          enterNesting();
+          array(node);
+          depth--;
+        }
+        case '"' -> string(node != null && node.selected);
+        default -> literal();
+      }
+    }
+
+    private void enterNesting() {
+      if (++depth > MAX_NESTING_DEPTH) {
+        throw invalid();
+      }
+    }
+
+    private void object(PathNode node) {
+      pos++;
+      skipWhitespace();
+      if (peek() == '}') {
+        pos++;
+        return;
+      }
+      while (true) {
+        skipWhitespace();
+        if (peek() != '"') {
+          throw invalid();
+        }
+        int keyStart = pos;
+        skipString();
+        PathNode child = node != null && node.hasMembers()
+            ? node.member(decodeString(keyStart, pos))
+            : null;
+        skipWhitespace();
+        if (peek() != ':') {
+          throw invalid();
+        }
+        pos++;
+        value(child);
+        skipWhitespace();
+        byte b = peek();
+        pos++;
+        if (b == '}') {
+          return;
+        }
+        if (b != ',') {
+          throw invalid();
+        }
+      }
+    }
+
+    private void array(PathNode node) {
+      pos++;
+      skipWhitespace();
+      if (peek() == ']') {
+        pos++;
+        return;
+      }
+      int index = 0;
+      while (true) {
+        value(node == null ? null : node.element(index++));
+        skipWhitespace();
+        byte b = peek();
+        pos++;
+        if (b == ']') {
+          return;
+        }
+        if (b != ',') {
+          throw invalid();
+        }
+      }
+    }
+
+    private void string(boolean selected) {
+      int start = pos;
+      skipString();
+      if (!selected) {
+        return;
+      }
+      String value = decodeString(start, pos);
+      String replacement = valueTransformer.apply(value);
+      if (replacement == null || !replacement.equals(value)) {
+        out.write(in, copyFrom, start - copyFrom);
+        writeString(replacement);
+        copyFrom = pos;
+      }
+    }
+
+    private void literal() {
+      switch (in[pos]) {
+        case 't' -> keyword("true");
+        case 'f' -> keyword("false");
+        case 'n' -> keyword("null");
+        default -> number();
+      }
+    }
+
+    private void keyword(String keyword) {
+      for (int i = 0; i < keyword.length(); i++) {
+        if (pos >= in.length || in[pos] != keyword.charAt(i)) {
+          throw invalid();
+        }
+        pos++;
+      }
+    }
+
+    /**
+     * Moves {@code pos} behind the number which starts at {@code pos}, following the JSON grammar
+     * {@code -?(0|[1-9][0-9]*)(\.[0-9]+)?([eE][+-]?[0-9]+)?}.
+     */
+    private void number() {
+      if (pos < in.length && in[pos] == '-') {
+        pos++;
+      }
+      if (pos < in.length && in[pos] == '0') {
+        pos++;
+      } else {
+        digits();
+      }
+      if (pos < in.length && in[pos] == '.') {
+        pos++;
+        digits();
+      }
+      if (pos < in.length && (in[pos] == 'e' || in[pos] == 'E')) {
+        pos++;
+        if (pos < in.length && (in[pos] == '+' || in[pos] == '-')) {
+          pos++;
+        }
+        digits();
+      }
+    }
+
+    private void digits() {
+      int start = pos;
+      while (pos < in.length && in[pos] >= '0' && in[pos] <= '9') {
+        pos++;
+      }
+      if (pos == start) {
+        throw invalid();
+      }
+    }
+
+    /**
+     * Moves {@code pos} behind the closing quote of the string which starts at {@code pos}.
+     */
+    private void skipString() {
+      pos++;
+      while (pos < in.length) {
+        byte b = in[pos++];
+        if (b == '"') {
+          return;
+        }
+        if (b == '\\') {
+          pos++;
+        }
+      }
+      throw invalid();
+    }
+
+    /**
+     * @param start index of the opening quote
+     * @param end   index behind the closing quote
+     * @return the unescaped string
+     */
+    private String decodeString(int start, int end) {
+      int contentStart = start + 1;
+      int contentEnd = end - 1;
+      int escape = contentStart;
+      while (escape < contentEnd && in[escape] != '\\') {
+        escape++;
+      }
+      if (escape == contentEnd) {
+        return new String(in, contentStart, contentEnd - contentStart, StandardCharsets.UTF_8);
+      }
+
+      StringBuilder sb = new StringBuilder(contentEnd - contentStart);
+      int runStart = contentStart;
+      int i = escape;
+      while (i < contentEnd) {
+        if (in[i] != '\\') {
+          i++;
+          continue;
+        }
+        sb.append(new String(in, runStart, i - runStart, StandardCharsets.UTF_8));
+        if (i + 1 >= contentEnd) {
+          throw invalid();
+        }
+        byte escaped = in[i + 1];
+        i += 2;
+        switch (escaped) {
+          case '"' -> sb.append('"');
+          case '\\' -> sb.append('\\');
+          case '/' -> sb.append('/');
+          case 'b' -> sb.append('\b');
+          case 'f' -> sb.append('\f');
+          case 'n' -> sb.append('\n');
+          case 'r' -> sb.append('\r');
+          case 't' -> sb.append('\t');
+          case 'u' -> {
+            if (i + 4 > contentEnd) {
+              throw invalid();
+            }
+            try {
+              sb.append((char) Integer.parseInt(new String(in, i, 4, StandardCharsets.US_ASCII),
+                  16));
+            } catch (NumberFormatException ex) {
+              throw invalid();
+            }
+            i += 4;
+          }
+          default -> throw invalid();
+        }
+        runStart = i;
+      }
+      sb.append(new String(in, runStart, contentEnd - runStart, StandardCharsets.UTF_8));
+      return sb.toString();
+    }
+
+    private void writeString(String value) {
+      if (value == null) {
+        out.writeBytes("null".getBytes(StandardCharsets.US_ASCII));
+        return;
+      }
+      out.write('"');
+      for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+        switch (b) {
+          case '"' -> out.writeBytes(new byte[]{'\\', '"'});
+          case '\\' -> out.writeBytes(new byte[]{'\\', '\\'});
+          case '\n' -> out.writeBytes(new byte[]{'\\', 'n'});
+          case '\r' -> out.writeBytes(new byte[]{'\\', 'r'});
+          case '\t' -> out.writeBytes(new byte[]{'\\', 't'});
+          default -> {
+            if (b >= 0 && b < 0x20) {
+              out.writeBytes(String.format("\\u%04x", b).getBytes(StandardCharsets.US_ASCII));
+            } else {
+              out.write(b);
+            }
+          }
+        }
+      }
+      out.write('"');
+    }
+
+    private void skipWhitespace() {
+      while (pos < in.length
+          && (in[pos] == ' ' || in[pos] == '\n' || in[pos] == '\r' || in[pos] == '\t')) {
+        pos++;
+      }
+    }
+
+    private byte peek() {
+      if (pos >= in.length) {
+        throw invalid();
+      }
+      return in[pos];
+    }
+
+    private IllegalArgumentException invalid() {
+      return new IllegalArgumentException("invalid JSON at position " + pos);
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package de.otto.kafka.messaging.e2ee.fieldlevel;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A (potentially) encrypted string which is decrypted on first access. The plain text is
+ * memoized, so each value is decrypted at most once and values which are never read are never
+ * decrypted.
+ * <p>
+ * The instances are thread-safe. When several threads access an undecrypted value concurrently,
+ * only one of them decrypts it.
+ */
+public final class LazyDecryptedString implements Supplier<String> {
+
+  private final EncryptedString encryptedString;
+  private final String kafkaTopicName;
+  private final FieldLevelDecryptionService decryptionService;
+  private volatile String plainText;
+
+  private LazyDecryptedString(EncryptedString encryptedString, String kafkaTopicName,
+      FieldLevelDecryptionService decryptionService) {
+    this.encryptedString = encryptedString;
+    this.kafkaTopicName = kafkaTopicName;
+    this.decryptionService = decryptionService;
+  }
+
+  /**
+   * Constructor for that class.
+   *
+   * @param encryptedString   the (potentially) encrypted text. It can be <code>null</code>.
+   * @param kafkaTopicName    name of the Kafka Topic the field value is from.
+   * @param decryptionService the service which decrypts the value on first access
+   * @return an instance of <code>LazyDecryptedString</code> or <code>null</code>.
+   */
+  public static LazyDecryptedString of(EncryptedString encryptedString, String kafkaTopicName,
+      FieldLevelDecryptionService decryptionService) {
+    Objects.requireNonNull(kafkaTopicName, "kafkaTopicName");
+    Objects.requireNonNull(decryptionService, "decryptionService");
+    if (encryptedString == null || encryptedString.value() == null) {
+      return null;
+    }
+    return new LazyDecryptedString(encryptedString, kafkaTopicName, decryptionService);
+  }
+
+  /**
+   * decrypts the value on first call.
+   *
+   * @return The plain text
+   */
+  @Override
+  public String get() {
+    String result = plainText;
+    if (result == null) {
+      synchronized (this) {
+        result = plainText;
+        if (result == null) {
+          result = decryptionService.decryptFieldValue(kafkaTopicName, encryptedString);
+          plainText = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return <code>true</code> when the value has already been decrypted
+   */
+  public boolean isDecrypted() {
+    return plainText != null;
+  }
+
+  /**
+   * @return the (potentially) encrypted text
+   */
+  public EncryptedString encryptedString() {
+    return encryptedString;
+  }
+
+  /**
+   * Does not contain the plain text, so it's safe to log.
+   */
+  @Override
+  public String toString() {
+    return "LazyDecryptedString[" + encryptedString + "]";
+  }
+}
@@ -2,6 +2,8 @@ package de.otto.kafka.messaging.e2ee.fieldlevel;
 
 import de.otto.kafka.messaging.e2ee.DecryptionService;
 import de.otto.kafka.messaging.e2ee.EncryptionKeyProvider;
+import java.nio.ByteBuffer;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -68,4 +70,46 @@ public final class SingleTopicFieldLevelDecryptionService {
   public String decrypt(EncryptedString encryptedString) {
     return fieldLevelDecryptionService.decryptFieldValue(kafkaTopicName, encryptedString);
   }
+
+  /**
+   * decrypts the given fields of one message (depending on the content). The keys are looked up
+   * once per key version for all fields.
+   *
+   * @param encryptedFields the (potentially) encrypted text values by field name. Values can be
+   *                        <code>null</code>.
+   * @return The plain text values by field name, in the iteration order of the given map
+   */
+  public Map<String, String> decryptFields(Map<String, String> encryptedFields) {
+    return fieldLevelDecryptionService.decryptFields(kafkaTopicName, encryptedFields);
+  }
+
+  /**
+   * wraps the given text, so it's decrypted on first access only.
+   *
+   * @param encryptedString the (potentially) encrypted text value. Can be <code>null</code>.
+   * @return The lazily decrypted text or <code>null</code>
+   */
+  public LazyDecryptedString decryptLazily(EncryptedString encryptedString) {
+    return fieldLevelDecryptionService.decryptLazily(kafkaTopicName, encryptedString);
+  }
+
+  /**
+   * decrypts the given bytes (depending on the content).
+   *
+   * @param encryptedValue the (potentially) encrypted value. Can be <code>null</code>.
+   * @return The plain bytes or <code>null</code>
+   */
+  public byte[] decryptBinaryFieldValue(byte[] encryptedValue) {
+    return fieldLevelDecryptionService.decryptBinaryFieldValue(kafkaTopicName, encryptedValue);
+  }
+
+  /**
+   * decrypts the remaining bytes of the given buffer (depending on the content).
+   *
+   * @param encryptedValue the (potentially) encrypted value. Can be <code>null</code>.
+   * @return The plain bytes or <code>null</code>
+   */
+  public ByteBuffer decryptBinaryFieldValue(ByteBuffer encryptedValue) {
+    return fieldLevelDecryptionService.decryptBinaryFieldValue(kafkaTopicName, encryptedValue);
+  }
 }
@@ -2,6 +2,8 @@ package de.otto.kafka.messaging.e2ee.fieldlevel;
 
 import de.otto.kafka.messaging.e2ee.EncryptionKeyProvider;
 import de.otto.kafka.messaging.e2ee.EncryptionService;
+import java.nio.ByteBuffer;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -70,4 +72,39 @@ public final class SingleTopicFieldLevelEncryptionService {
     return fieldLevelEncryptionService.encryptFieldValueToEncryptedString(kafkaTopicName,
         plainText);
   }
+
+  /**
+   * encrypts the given fields of one message (depending on the topic related configuration). The
+   * key is looked up once for all fields.
+   *
+   * @param plainFields the plain text values by field name. Values can be <code>null</code>.
+   * @return The encrypted values by field name, in the iteration order of the given map
+   */
+  public Map<String, String> encryptFields(Map<String, String> plainFields) {
+    return fieldLevelEncryptionService.encryptFields(kafkaTopicName, plainFields);
+  }
+
+  /**
+   * encrypts the given bytes (depending on the topic related configuration). The result is a
+   * binary envelope without text encoding.
+   *
+   * @param plainValue the plain value. Can be <code>null</code>.
+   * @return The encrypted bytes, the plain value when the topic is not encrypted or
+   * <code>null</code>
+   */
+  public byte[] encryptBinaryFieldValue(byte[] plainValue) {
+    return fieldLevelEncryptionService.encryptBinaryFieldValue(kafkaTopicName, plainValue);
+  }
+
+  /**
+   * encrypts the remaining bytes of the given buffer (depending on the topic related
+   * configuration).
+   *
+   * @param plainValue the plain value. Can be <code>null</code>.
+   * @return The encrypted bytes, the plain value when the topic is not encrypted or
+   * <code>null</code>
+   */
+  public ByteBuffer encryptBinaryFieldValue(ByteBuffer plainValue) {
+    return fieldLevelEncryptionService.encryptBinaryFieldValue(kafkaTopicName, plainValue);
+  }
 }
@@ -0,0 +1,73 @@
+package de.otto.kafka.messaging.e2ee.kafka;
+
+import de.otto.kafka.messaging.e2ee.EncryptionKeyProvider;
+import de.otto.kafka.messaging.e2ee.KafkaHeaderEncoding;
+import de.otto.kafka.messaging.e2ee.vault.VaultEncryptionKeyProvider;
+import de.otto.kafka.messaging.e2ee.vault.VaultEncryptionKeyProviderConfig;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.utils.Utils;
+
+/**
+ * Reads the {@link E2eeKafkaConfig} properties from a kafka client config map.
+ */
+final class E2eeConfigSupport {
+
+  private E2eeConfigSupport() {
+  }
+
+  static EncryptionKeyProvider encryptionKeyProvider(Map<String, ?> configs) {
+    Object value = configs.get(E2eeKafkaConfig.ENCRYPTION_KEY_PROVIDER_CONFIG);
+    if (value instanceof EncryptionKeyProvider encryptionKeyProvider) {
+      return encryptionKeyProvider;
+    }
+    if (value instanceof VaultEncryptionKeyProviderConfig vaultConfig) {
+      return new VaultEncryptionKeyProvider(vaultConfig);
+    }
+    throw new ConfigException(E2eeKafkaConfig.ENCRYPTION_KEY_PROVIDER_CONFIG, value,
+        "must be an EncryptionKeyProvider or a VaultEncryptionKeyProviderConfig");
+  }
+
+  static <T> T delegate(Map<String, ?> configs, String configName, Class<T> type) {
+    Object value = configs.get(configName);
+    if (value == null) {
+      throw new ConfigException(configName, null, "is required");
+    }
+    if (type.isInstance(value)) {
+      return type.cast(value);
+    }
+    try {
+      Class<?> delegateClass = value instanceof Class<?> clazz
+          ? clazz
+          : Class.forName(value.toString().trim(), true, Utils.getContextOrKafkaClassLoader());
+      return Utils.newInstance(delegateClass, type);
+    } catch (ClassNotFoundException | RuntimeException ex) {
+      throw new ConfigException(configName, value, "cannot create instance: " + ex.getMessage());
+    }
+  }
+
+  static KafkaHeaderEncoding headerEncoding(Map<String, ?> configs) {
+    Object value = configs.get(E2eeKafkaConfig.HEADER_ENCODING_CONFIG);
+    if (value == null) {
+      return KafkaHeaderEncoding.TEXT;
+    }
+    if (value instanceof KafkaHeaderEncoding headerEncoding) {
+      return headerEncoding;
+    }
+    try {
+      return KafkaHeaderEncoding.valueOf(value.toString().trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException ex) {
+      throw new ConfigException(E2eeKafkaConfig.HEADER_ENCODING_CONFIG, value,
+          "must be one of " + Arrays.toString(KafkaHeaderEncoding.values()));
+    }
+  }
+
+  static void rejectKey(boolean isKey) {
+    if (isKey) {
+      throw new ConfigException("The e2ee serializer and deserializer only support record values,"
+          + " because the encryption headers describe the value.");
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package de.otto.kafka.messaging.e2ee.kafka;
+
+import de.otto.kafka.messaging.e2ee.DecryptionService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.kafka.clients.consumer.ConsumerInterceptor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A kafka consumer interceptor which decrypts the values of all records of a poll. Use it with a
+ * {@link org.apache.kafka.common.serialization.ByteArrayDeserializer} for the values, because
+ * interceptors run after the deserializer.
+ * <p>
+ * Configure it with the consumer configs {@code interceptor.classes} and
+ * {@link E2eeKafkaConfig#ENCRYPTION_KEY_PROVIDER_CONFIG}.
+ * <p>
+ * The kafka consumer ignores exceptions of interceptors. So a record which cannot be decrypted is
+ * passed unchanged, including its encryption headers, and an error is logged. Use
+ * {@link DecryptionService#hasSameEncryptionFlag} to detect such records.
+ *
+ * @param <K> type of the record key
+ * @see E2eeRecordDecryptor
+ */
+public final class E2eeConsumerInterceptor<K> implements ConsumerInterceptor<K, byte[]> {
+
+  private static final Logger log = LoggerFactory.getLogger(E2eeConsumerInterceptor.class);
+
+  private E2eeRecordDecryptor recordDecryptor;
+
+  /**
+   * Constructor used by the kafka consumer. The interceptor has to be configured by
+   * {@link #configure(Map)} before it can be used.
+   */
+  public E2eeConsumerInterceptor() {
+  }
+
+  /**
+   * Constructor of that class.
+   *
+   * @param decryptionService the decryption service
+   */
+  public E2eeConsumerInterceptor(DecryptionService decryptionService) {
+    Objects.requireNonNull(decryptionService, "decryptionService is required");
+    this.recordDecryptor = new E2eeRecordDecryptor(decryptionService);
+  }
+
+  @Override
+  public void configure(Map<String, ?> configs) {
+    if (recordDecryptor == null) {
+      recordDecryptor = new E2eeRecordDecryptor(new DecryptionService(
+          E2eeConfigSupport.encryptionKeyProvider(configs)));
+    }
+  }
+
+  @Override
+  public ConsumerRecords<K, byte[]> onConsume(ConsumerRecords<K, byte[]> records) {
+    if (records.isEmpty()) {
+      return records;
+    }
+    Map<TopicPartition, List<ConsumerRecord<K, byte[]>>> result = new HashMap<>();
+    for (TopicPartition partition : records.partitions()) {
+      List<ConsumerRecord<K, byte[]>> partitionRecords = records.records(partition);
+      try {
+        result.put(partition, recordDecryptor.decrypt(partition.topic(), partitionRecords));
+      } catch (RuntimeException ex) {
+        // decrypt record by record, so only the broken records are passed encrypted
+        result.put(partition, decryptEach(partitionRecords));
+      }
+    }
+    return new ConsumerRecords<>(result, records.nextOffsets());
+  }
+
+  private List<ConsumerRecord<K, byte[]>> decryptEach(List<ConsumerRecord<K, byte[]>> records) {
+    List<ConsumerRecord<K, byte[]>> result = new ArrayList<>(records.size());
+    for (ConsumerRecord<K, byte[]> record : records) {
+      try {
+        result.add(recordDecryptor.decrypt(record));
+      } catch (RuntimeException ex) {
+        log.error("Cannot decrypt record of topic {} partition {} offset {}", record.topic(),
+            record.partition(), record.offset(), ex);
+        result.add(record);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public void onCommit(Map<TopicPartition, OffsetAndMetadata> offsets) {
+    // nothing to do
+  }
+
+  @Override
+  public void close() {
+    // nothing to do
+  }
+}
@@ -0,0 +1,89 @@
+package de.otto.kafka.messaging.e2ee.kafka;
+
+import de.otto.kafka.messaging.e2ee.AesEncryptedPayload;
+import de.otto.kafka.messaging.e2ee.DecryptionService;
+import de.otto.kafka.messaging.e2ee.EncryptionKeyProvider;
+import java.util.Objects;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorSupplier;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.apache.kafka.streams.processor.api.RecordMetadata;
+
+/**
+ * A Kafka Streams processor which decrypts the record values using the encryption headers of the
+ * records and deserializes the plain values. Consume the topic with a byte array serde and use
+ * {@link #supplier(EncryptionKeyProvider, Deserializer)} with {@code KStream#processValues}:
+ *
+ * <pre>{@code
+ * builder.stream("some-topic", Consumed.with(Serdes.String(), Serdes.ByteArray()))
+ *     .processValues(E2eeDecryptingProcessor.supplier(encryptionKeyProvider,
+ *         new StringDeserializer()))
+ *     .mapValues(plainText -> ...);
+ * }</pre>
+ * <p>
+ * Each stream task gets its own processor with its own {@link DecryptionService}, so the keys are
+ * cached per task and tasks don't contend on a shared cache. The encryption headers are removed
+ * from the forwarded records.
+ *
+ * @param <K> type of the record key
+ * @param <V> type of the plain value
+ * @see E2eeEncryptingProcessor
+ */
+public final class E2eeDecryptingProcessor<K, V> implements FixedKeyProcessor<K, byte[], V> {
+
+  private final DecryptionService decryptionService;
+  private final Deserializer<V> valueDeserializer;
+  private FixedKeyProcessorContext<K, V> context;
+
+  E2eeDecryptingProcessor(DecryptionService decryptionService,
+      Deserializer<V> valueDeserializer) {
+    this.decryptionService = decryptionService;
+    this.valueDeserializer = valueDeserializer;
+  }
+
+  /**
+   * Creates a supplier which creates a processor with its own key cache per stream task.
+   *
+   * @param encryptionKeyProvider the key provider, shared by all tasks
+   * @param valueDeserializer     the deserializer for the plain value
+   * @param <K>                   type of the record key
+   * @param <V>                   type of the plain value
+   * @return the processor supplier
+   */
+  public static <K, V> FixedKeyProcessorSupplier<K, byte[], V> supplier(
+      EncryptionKeyProvider encryptionKeyProvider, Deserializer<V> valueDeserializer) {
+    Objects.requireNonNull(encryptionKeyProvider, "encryptionKeyProvider is required");
+    Objects.requireNonNull(valueDeserializer, "valueDeserializer is required");
+    return () -> new E2eeDecryptingProcessor<>(new DecryptionService(encryptionKeyProvider),
+        valueDeserializer);
+  }
+
+  @Override
+  public void init(FixedKeyProcessorContext<K, V> context) {
+    this.context = context;
+  }
+
+  @Override
+  public void process(FixedKeyRecord<K, byte[]> record) {
+    String topic = context.recordMetadata()
+        .map(RecordMetadata::topic)
+        .orElseThrow(() -> new IllegalStateException("The topic of the record is unknown"));
+    Headers headers = record.headers();
+    byte[] plainValue = record.value();
+    if (plainValue != null) {
+      AesEncryptedPayload encryptedPayload = E2eeHeaders.payloadOf(plainValue, headers);
+      if (encryptedPayload.isEncrypted()) {
+        plainValue = decryptionService.decryptToByteArray(topic, encryptedPayload);
+        // the headers of the input record are shared, so only the forwarded copy is changed
+        headers = new RecordHeaders(headers.toArray());
+        E2eeHeaders.removeEncryptionHeaders(headers);
+      }
+    }
+    context.forward(record.withHeaders(headers)
+        .withValue(valueDeserializer.deserialize(topic, headers, plainValue)));
+  }
+}
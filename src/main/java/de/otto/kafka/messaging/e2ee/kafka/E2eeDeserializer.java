@@ -0,0 +1,92 @@
+package de.otto.kafka.messaging.e2ee.kafka;
+
+import de.otto.kafka.messaging.e2ee.AesEncryptedPayload;
+import de.otto.kafka.messaging.e2ee.DecryptionService;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * A kafka value deserializer which decrypts the value using the encryption headers of the kafka
+ * record and passes the plain value to a delegate deserializer. Unencrypted values are passed
+ * unchanged.
+ * <p>
+ * Either use the constructor with the {@link DecryptionService} and the delegate or configure the
+ * deserializer via the consumer configs {@link E2eeKafkaConfig#ENCRYPTION_KEY_PROVIDER_CONFIG}
+ * and {@link E2eeKafkaConfig#VALUE_DESERIALIZER_CONFIG}.
+ *
+ * @param <T> type of the value
+ * @see E2eeSerializer
+ */
+public final class E2eeDeserializer<T> implements Deserializer<T> {
+
+  private DecryptionService decryptionService;
+  private Deserializer<T> delegate;
+
+  /**
+   * Constructor used by the kafka consumer. The deserializer has to be configured by
+   * {@link #configure(Map, boolean)} before it can be used.
+   */
+  public E2eeDeserializer() {
+  }
+
+  /**
+   * Constructor of that class.
+   *
+   * @param decryptionService the decryption service
+   * @param delegate          the deserializer for the plain value
+   */
+  public E2eeDeserializer(DecryptionService decryptionService, Deserializer<T> delegate) {
+    Objects.requireNonNull(decryptionService, "decryptionService is required");
+    Objects.requireNonNull(delegate, "delegate is required");
+    this.decryptionService = decryptionService;
+    this.delegate = delegate;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void configure(Map<String, ?> configs, boolean isKey) {
+    E2eeConfigSupport.rejectKey(isKey);
+    if (decryptionService == null) {
+      decryptionService = new DecryptionService(
+          E2eeConfigSupport.encryptionKeyProvider(configs));
+    }
+    if (delegate == null) {
+      delegate = E2eeConfigSupport.delegate(configs, E2eeKafkaConfig.VALUE_DESERIALIZER_CONFIG,
+          Deserializer.class);
+    }
+    delegate.configure(configs, false);
+  }
+
+  /**
+   * Deserializes the value without record headers. Without the encryption headers the value is
+   * treated as unencrypted.
+   *
+   * @param topic topic associated with the data
+   * @param data  serialized bytes; may be null
+   * @return the deserialized value
+   */
+  @Override
+  public T deserialize(String topic, byte[] data) {
+    return delegate.deserialize(topic, data);
+  }
+
+  @Override
+  public T deserialize(String topic, Headers headers, byte[] data) {
+    if (data == null || headers == null) {
+      return delegate.deserialize(topic, headers, data);
+    }
+
+    AesEncryptedPayload encryptedPayload = E2eeHeaders.payloadOf(data, headers);
+    byte[] plainPayload = decryptionService.decryptToByteArray(topic, encryptedPayload);
+    return delegate.deserialize(topic, headers, plainPayload);
+  }
+
+  @Override
+  public void close() {
+    if (delegate != null) {
+      delegate.close();
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package de.otto.kafka.messaging.e2ee.kafka;
+
+import de.otto.kafka.messaging.e2ee.AesEncryptedPayload;
+import de.otto.kafka.messaging.e2ee.EncryptionKeyProvider;
+import de.otto.kafka.messaging.e2ee.EncryptionService;
+import de.otto.kafka.messaging.e2ee.KafkaHeaderEncoding;
+import java.util.Objects;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorSupplier;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+
+/**
+ * A Kafka Streams processor which serializes and encrypts the record values and adds the
+ * encryption headers. Write the result with a byte array serde to the given topic:
+ *
+ * <pre>{@code
+ * stream.processValues(E2eeEncryptingProcessor.supplier(encryptionKeyProvider,
+ *         "some-topic", new StringSerializer()))
+ *     .to("some-topic", Produced.with(Serdes.String(), Serdes.ByteArray()));
+ * }</pre>
+ * <p>
+ * Each stream task gets its own processor with its own {@link EncryptionService}, so the keys are
+ * cached per task and tasks don't contend on a shared cache.
+ *
+ * @param <K> type of the record key
+ * @param <V> type of the plain value
+ * @see E2eeDecryptingProcessor
+ */
+public final class E2eeEncryptingProcessor<K, V> implements FixedKeyProcessor<K, V, byte[]> {
+
+  private final EncryptionService encryptionService;
+  private final String outputTopic;
+  private final Serializer<V> valueSerializer;
+  private final KafkaHeaderEncoding headerEncoding;
+  private FixedKeyProcessorContext<K, byte[]> context;
+
+  E2eeEncryptingProcessor(EncryptionService encryptionService, String outputTopic,
+      Serializer<V> valueSerializer, KafkaHeaderEncoding headerEncoding) {
+    this.encryptionService = encryptionService;
+    this.outputTopic = outputTopic;
+    this.valueSerializer = valueSerializer;
+    this.headerEncoding = headerEncoding;
+  }
+
+  /**
+   * Creates a supplier which creates a processor with its own key cache per stream task.
+   *
+   * @param encryptionKeyProvider the key provider, shared by all tasks
+   * @param outputTopic           the topic the records are written to. Its key is used.
+   * @param valueSerializer       the serializer for the plain value
+   * @param <K>                   type of the record key
+   * @param <V>                   type of the plain value
+   * @return the processor supplier
+   */
+  public static <K, V> FixedKeyProcessorSupplier<K, V, byte[]> supplier(
+      EncryptionKeyProvider encryptionKeyProvider, String outputTopic,
+      Serializer<V> valueSerializer) {
+    return supplier(encryptionKeyProvider, outputTopic, valueSerializer,
+        KafkaHeaderEncoding.TEXT);
+  }
+
+  /**
+   * Creates a supplier which creates a processor with its own key cache per stream task.
+   *
+   * @param encryptionKeyProvider the key provider, shared by all tasks
+   * @param outputTopic           the topic the records are written to. Its key is used.
+   * @param valueSerializer       the serializer for the plain value
+   * @param headerEncoding        the encoding of the encryption headers
+   * @param <K>                   type of the record key
+   * @param <V>                   type of the plain value
+   * @return the processor supplier
+   */
+  public static <K, V> FixedKeyProcessorSupplier<K, V, byte[]> supplier(
+      EncryptionKeyProvider encryptionKeyProvider, String outputTopic,
+      Serializer<V> valueSerializer, KafkaHeaderEncoding headerEncoding) {
+    Objects.requireNonNull(encryptionKeyProvider, "encryptionKeyProvider is required");
+    Objects.requireNonNull(outputTopic, "outputTopic is required");
+    Objects.requireNonNull(valueSerializer, "valueSerializer is required");
+    Objects.requireNonNull(headerEncoding, "headerEncoding is required");
+    return () -> new E2eeEncryptingProcessor<>(new EncryptionService(encryptionKeyProvider),
+        outputTopic, valueSerializer, headerEncoding);
+  }
+
+  @Override
+  public void init(FixedKeyProcessorContext<K, byte[]> context) {
+    this.context = context;
+  }
+
+  @Override
+  public void process(FixedKeyRecord<K, V> record) {
+    Headers headers = record.headers();
+    byte[] plainValue = valueSerializer.serialize(outputTopic, headers, record.value());
+    if (plainValue == null) {
+      // keep tombstones
+      context.forward(record.withValue(null));
+      return;
+    }
+    AesEncryptedPayload encryptedPayload = encryptionService.encryptPayloadWithAes(outputTopic,
+        plainValue);
+    if (encryptedPayload.isEncrypted()) {
+      E2eeHeaders.writeEncryptionHeaders(headers, encryptedPayload, headerEncoding);
+    }
+    context.forward(record.withValue(encryptedPayload.encryptedPayload()));
+  }
+}
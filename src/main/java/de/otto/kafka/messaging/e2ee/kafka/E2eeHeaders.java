@@ -0,0 +1,66 @@
+package de.otto.kafka.messaging.e2ee.kafka;
+
+import de.otto.kafka.messaging.e2ee.AesEncryptedPayload;
+import de.otto.kafka.messaging.e2ee.KafkaEncryptionHelper;
+import de.otto.kafka.messaging.e2ee.KafkaHeaderEncoding;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+/**
+ * Reads and writes the encryption headers of kafka records.
+ */
+final class E2eeHeaders {
+
+  private E2eeHeaders() {
+  }
+
+  /**
+   * Creates the AesEncryptedPayload of a record value. All header encodings are supported.
+   *
+   * @param value   the (potentially) encrypted record value
+   * @param headers the record headers
+   * @return the payload
+   */
+  static AesEncryptedPayload payloadOf(byte[] value, Headers headers) {
+    byte[] compactHeaderValue = headerValue(headers,
+        KafkaEncryptionHelper.KAFKA_CE_HEADER_E2EE_VALUE);
+    if (compactHeaderValue != null) {
+      return KafkaEncryptionHelper.aesEncryptedPayloadOfKafka(value, compactHeaderValue);
+    }
+    return KafkaEncryptionHelper.aesEncryptedPayloadOfKafka(value,
+        headerValue(headers, KafkaEncryptionHelper.KAFKA_CE_HEADER_IV_VALUE),
+        headerValue(headers, KafkaEncryptionHelper.KAFKA_CE_HEADER_CIPHER_VERSION_VALUE),
+        headerValue(headers, KafkaEncryptionHelper.KAFKA_CE_HEADER_CIPHER_NAME_VALUE));
+  }
+
+  /**
+   * Replaces the encryption headers, e.g. of a record which is sent again.
+   *
+   * @param headers          the record headers
+   * @param encryptedPayload the encrypted payload
+   * @param headerEncoding   the encoding of the headers
+   */
+  static void writeEncryptionHeaders(Headers headers, AesEncryptedPayload encryptedPayload,
+      KafkaHeaderEncoding headerEncoding) {
+    removeEncryptionHeaders(headers);
+    KafkaEncryptionHelper.forEachKafkaHeaderForValue(encryptedPayload, headerEncoding,
+        headers::add);
+  }
+
+  /**
+   * Removes all encryption headers, e.g. after the value has been decrypted.
+   *
+   * @param headers the record headers
+   */
+  static void removeEncryptionHeaders(Headers headers) {
+    headers.remove(KafkaEncryptionHelper.KAFKA_CE_HEADER_IV_VALUE);
+    headers.remove(KafkaEncryptionHelper.KAFKA_CE_HEADER_CIPHER_VERSION_VALUE);
+    headers.remove(KafkaEncryptionHelper.KAFKA_CE_HEADER_CIPHER_NAME_VALUE);
+    headers.remove(KafkaEncryptionHelper.KAFKA_CE_HEADER_E2EE_VALUE);
+  }
+
+  private static byte[] headerValue(Headers headers, String headerName) {
+    Header header = headers.lastHeader(headerName);
+    return header == null ? null : header.value();
+  }
+}
@@ -0,0 +1,33 @@
+package de.otto.kafka.messaging.e2ee.kafka;
+
+/**
+ * Names of the kafka client config properties used by {@link E2eeSerializer} and
+ * {@link E2eeDeserializer}.
+ */
+public interface E2eeKafkaConfig {
+
+  /**
+   * The key provider used to encrypt or decrypt the values. The config value must be an instance
+   * of {@link de.otto.kafka.messaging.e2ee.EncryptionKeyProvider} or of
+   * {@link de.otto.kafka.messaging.e2ee.vault.VaultEncryptionKeyProviderConfig}.
+   */
+  String ENCRYPTION_KEY_PROVIDER_CONFIG = "e2ee.encryption.key.provider";
+  /**
+   * The serializer which creates the plain value before it gets encrypted. The config value can be
+   * a {@link org.apache.kafka.common.serialization.Serializer} instance, its class or its class
+   * name.
+   */
+  String VALUE_SERIALIZER_CONFIG = "e2ee.value.serializer";
+  /**
+   * The deserializer which reads the plain value after it has been decrypted. The config value can
+   * be a {@link org.apache.kafka.common.serialization.Deserializer} instance, its class or its
+   * class name.
+   */
+  String VALUE_DESERIALIZER_CONFIG = "e2ee.value.deserializer";
+  /**
+   * The encoding of the encryption headers written by the {@link E2eeSerializer}. The config value
+   * can be a {@link de.otto.kafka.messaging.e2ee.KafkaHeaderEncoding} or its name. Default is
+   * {@code TEXT}. The {@link E2eeDeserializer} detects the encoding automatically.
+   */
+  String HEADER_ENCODING_CONFIG = "e2ee.header.encoding";
+}
@@ -0,0 +1,117 @@
+package de.otto.kafka.messaging.e2ee.kafka;
+
+import de.otto.kafka.messaging.e2ee.AesEncryptedPayload;
+import de.otto.kafka.messaging.e2ee.EncryptionService;
+import de.otto.kafka.messaging.e2ee.KafkaHeaderEncoding;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.kafka.clients.producer.ProducerInterceptor;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A kafka producer interceptor which encrypts the record values and adds the encryption headers.
+ * Use it with a {@link org.apache.kafka.common.serialization.ByteArraySerializer} for the values,
+ * because interceptors run before the serializer.
+ * <p>
+ * Configure it with the producer configs {@code interceptor.classes},
+ * {@link E2eeKafkaConfig#ENCRYPTION_KEY_PROVIDER_CONFIG} and optionally
+ * {@link E2eeKafkaConfig#HEADER_ENCODING_CONFIG}.
+ * <p>
+ * The kafka producer ignores exceptions of interceptors and would send the plain value. So when a
+ * value cannot be encrypted, the value of the record is replaced by a marker object which the
+ * {@code ByteArraySerializer} rejects. That way {@code send()} fails and no plain value is sent.
+ *
+ * @param <K> type of the record key
+ * @see E2eeConsumerInterceptor
+ */
+public final class E2eeProducerInterceptor<K> implements ProducerInterceptor<K, byte[]> {
+
+  private static final Logger log = LoggerFactory.getLogger(E2eeProducerInterceptor.class);
+
+  private EncryptionService encryptionService;
+  private KafkaHeaderEncoding headerEncoding;
+
+  /**
+   * Constructor used by the kafka producer. The interceptor has to be configured by
+   * {@link #configure(Map)} before it can be used.
+   */
+  public E2eeProducerInterceptor() {
+  }
+
+  /**
+   * Constructor of that class.
+   *
+   * @param encryptionService the encryption service
+   * @param headerEncoding    the encoding of the encryption headers
+   */
+  public E2eeProducerInterceptor(EncryptionService encryptionService,
+      KafkaHeaderEncoding headerEncoding) {
+    Objects.requireNonNull(encryptionService, "encryptionService is required");
+    Objects.requireNonNull(headerEncoding, "headerEncoding is required");
+    this.encryptionService = encryptionService;
+    this.headerEncoding = headerEncoding;
+  }
+
+  @Override
+  public void configure(Map<String, ?> configs) {
+    if (encryptionService == null) {
+      encryptionService = new EncryptionService(
+          E2eeConfigSupport.encryptionKeyProvider(configs));
+    }
+    if (headerEncoding == null) {
+      headerEncoding = E2eeConfigSupport.headerEncoding(configs);
+    }
+  }
+
+  @Override
+  public ProducerRecord<K, byte[]> onSend(ProducerRecord<K, byte[]> record) {
+    if (record.value() == null) {
+      // keep tombstones
+      return record;
+    }
+    try {
+      AesEncryptedPayload encryptedPayload = encryptionService.encryptPayloadWithAes(
+          record.topic(), record.value());
+      if (!encryptedPayload.isEncrypted()) {
+        return record;
+      }
+      E2eeHeaders.writeEncryptionHeaders(record.headers(), encryptedPayload, headerEncoding);
+      return new ProducerRecord<>(record.topic(), record.partition(), record.timestamp(),
+          record.key(), encryptedPayload.encryptedPayload(), record.headers());
+    } catch (RuntimeException ex) {
+      log.error("Cannot encrypt record for topic {}. The record will be rejected.",
+          record.topic(), ex);
+      return rejectedRecord(record, ex);
+    }
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private ProducerRecord<K, byte[]> rejectedRecord(ProducerRecord<K, byte[]> record,
+      RuntimeException cause) {
+    // the ByteArraySerializer fails with a ClassCastException for this value
+    return (ProducerRecord) new ProducerRecord<>(record.topic(), record.partition(),
+        record.timestamp(), record.key(), new EncryptionFailed(cause), record.headers());
+  }
+
+  @Override
+  public void onAcknowledgement(RecordMetadata metadata, Exception exception) {
+    // nothing to do
+  }
+
+  @Override
+  public void close() {
+    // nothing to do
+  }
+
+  /**
+   * Value of a record which could not be encrypted.
+   *
+   * @param cause the reason
+   */
+  record EncryptionFailed(RuntimeException cause) {
+
+  }
+}
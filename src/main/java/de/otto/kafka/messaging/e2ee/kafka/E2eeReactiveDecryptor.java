@@ -0,0 +1,133 @@
+package de.otto.kafka.messaging.e2ee.kafka;
+
+import de.otto.kafka.messaging.e2ee.AesEncryptedPayload;
+import de.otto.kafka.messaging.e2ee.DecryptionService;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Decrypts the values of a reactive stream of kafka records, e.g. the records received by a
+ * reactor-kafka {@code KafkaReceiver}. Use it with a
+ * {@link org.apache.kafka.common.serialization.ByteArrayDeserializer} for the values.
+ * <p>
+ * Records whose key is already cached are decrypted on the calling thread. Records which need a
+ * key from the key provider are decrypted on the key load scheduler, so the key provider doesn't
+ * block the event loop. The order of the records of each partition is preserved, but the records
+ * of other partitions flow on while a partition waits for its key.
+ *
+ * <pre>{@code
+ * E2eeReactiveDecryptor decryptor = new E2eeReactiveDecryptor(decryptionService);
+ * decryptor.decrypt(kafkaReceiver.receive(), (record, plainValue) -> {
+ *       // the original ReceiverRecord, e.g. to acknowledge its offset later
+ *       return new DecryptedRecord(record, plainValue);
+ *     })
+ *     .concatMap(this::handle)
+ *     .subscribe();
+ * }</pre>
+ *
+ * @see E2eeRecordDecryptor
+ */
+public final class E2eeReactiveDecryptor {
+
+  /**
+   * The default number of partitions which are decrypted concurrently.
+   */
+  public static final int DEFAULT_CONCURRENCY = 256;
+
+  private final DecryptionService decryptionService;
+  private final Scheduler keyLoadScheduler;
+  private final int concurrency;
+
+  /**
+   * Constructor of that class. The keys are loaded on {@link Schedulers#boundedElastic()}.
+   *
+   * @param decryptionService the decryption service
+   */
+  public E2eeReactiveDecryptor(DecryptionService decryptionService) {
+    this(decryptionService, Schedulers.boundedElastic(), DEFAULT_CONCURRENCY);
+  }
+
+  /**
+   * Constructor of that class.
+   *
+   * @param decryptionService the decryption service
+   * @param keyLoadScheduler  the scheduler for the decryption of records whose key is not cached.
+   *                          It must allow blocking calls.
+   * @param concurrency       the number of partitions which are decrypted concurrently. It must
+   *                          not be lower than the number of partitions of the stream, because
+   *                          the records are grouped by partition.
+   */
+  public E2eeReactiveDecryptor(DecryptionService decryptionService, Scheduler keyLoadScheduler,
+      int concurrency) {
+    this.decryptionService = Objects.requireNonNull(decryptionService,
+        "decryptionService is required");
+    this.keyLoadScheduler = Objects.requireNonNull(keyLoadScheduler,
+        "keyLoadScheduler is required");
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("concurrency must be at least 1");
+    }
+    this.concurrency = concurrency;
+  }
+
+  /**
+   * Decrypts the records. The decrypted records are copies without the encryption headers. The
+   * consumed records are left unchanged.
+   *
+   * @param records the consumed records
+   * @param <K>     type of the record key
+   * @return the records with decrypted values
+   */
+  public <K> Flux<ConsumerRecord<K, byte[]>> decrypt(
+      Publisher<ConsumerRecord<K, byte[]>> records) {
+    return decrypt(records, E2eeRecordDecryptor::withValue);
+  }
+
+  /**
+   * Decrypts the records and maps each record with its plain value, e.g. to keep the original
+   * record for the offset acknowledgement. The records are passed to the mapper unchanged,
+   * including their encryption headers. A record which cannot be decrypted terminates the stream
+   * with an error.
+   *
+   * @param records      the consumed records
+   * @param resultMapper maps a record and its plain value, which is <code>null</code> for
+   *                     tombstones. It must not return <code>null</code>.
+   * @param <R>          type of the records
+   * @param <T>          type of the result
+   * @return the mapped records
+   */
+  public <R extends ConsumerRecord<?, byte[]>, T> Flux<T> decrypt(Publisher<R> records,
+      BiFunction<R, byte[], T> resultMapper) {
+    Objects.requireNonNull(resultMapper, "resultMapper is required");
+    return Flux.from(records)
+        .groupBy(record -> new TopicPartition(record.topic(), record.partition()))
+        .flatMap(partitionRecords -> partitionRecords.concatMap(
+            record -> decrypt(record, resultMapper)), concurrency);
+  }
+
+  private <R extends ConsumerRecord<?, byte[]>, T> Mono<T> decrypt(R record,
+      BiFunction<R, byte[], T> resultMapper) {
+    if (record.value() == null) {
+      return Mono.fromSupplier(() -> resultMapper.apply(record, null));
+    }
+    AesEncryptedPayload encryptedPayload = E2eeHeaders.payloadOf(record.value(),
+        record.headers());
+    if (!encryptedPayload.isEncrypted()) {
+      return Mono.fromSupplier(() -> resultMapper.apply(record, record.value()));
+    }
+    Mono<T> decryptedRecord = Mono.fromSupplier(() -> {
+      byte[] plainValue = decryptionService.decryptToByteArray(record.topic(), encryptedPayload);
+      return resultMapper.apply(record, plainValue);
+    });
+    if (decryptionService.isKeyCached(record.topic(), encryptedPayload)) {
+      return decryptedRecord;
+    }
+    return decryptedRecord.subscribeOn(keyLoadScheduler);
+  }
+}
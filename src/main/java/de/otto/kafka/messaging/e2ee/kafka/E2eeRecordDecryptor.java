@@ -0,0 +1,124 @@
+package de.otto.kafka.messaging.e2ee.kafka;
+
+import de.otto.kafka.messaging.e2ee.AesEncryptedPayload;
+import de.otto.kafka.messaging.e2ee.DecryptionService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+
+/**
+ * Decrypts the values of consumed kafka records, e.g. when the records are consumed with a
+ * {@link org.apache.kafka.common.serialization.ByteArrayDeserializer}. The encryption headers are
+ * removed from the decrypted records, so they won't be decrypted twice.
+ *
+ * @see E2eeConsumerInterceptor
+ */
+public final class E2eeRecordDecryptor {
+
+  private final DecryptionService decryptionService;
+
+  /**
+   * Constructor of that class.
+   *
+   * @param decryptionService the decryption service
+   */
+  public E2eeRecordDecryptor(DecryptionService decryptionService) {
+    this.decryptionService = Objects.requireNonNull(decryptionService,
+        "decryptionService is required");
+  }
+
+  /**
+   * Decrypts all records of a poll. The records of each partition are decrypted in one pass, so
+   * the keys are looked up once per topic and key version.
+   *
+   * @param records the consumed records
+   * @param <K>     type of the record key
+   * @return the records with decrypted values
+   * @throws RuntimeException when a value cannot be decrypted
+   */
+  public <K> ConsumerRecords<K, byte[]> decrypt(ConsumerRecords<K, byte[]> records) {
+    Map<TopicPartition, List<ConsumerRecord<K, byte[]>>> result = new HashMap<>();
+    for (TopicPartition partition : records.partitions()) {
+      result.put(partition, decrypt(partition.topic(), records.records(partition)));
+    }
+    return new ConsumerRecords<>(result, records.nextOffsets());
+  }
+
+  /**
+   * Decrypts the records of a single topic in one pass.
+   *
+   * @param topic   the topic of all records
+   * @param records the consumed records
+   * @param <K>     type of the record key
+   * @return the records with decrypted values in the same order
+   * @throws RuntimeException when a value cannot be decrypted
+   */
+  public <K> List<ConsumerRecord<K, byte[]>> decrypt(String topic,
+      List<ConsumerRecord<K, byte[]>> records) {
+    List<AesEncryptedPayload> encryptedPayloads = new ArrayList<>();
+    List<Integer> encryptedRecordIndexes = new ArrayList<>();
+    for (int index = 0; index < records.size(); index++) {
+      ConsumerRecord<K, byte[]> record = records.get(index);
+      if (record.value() != null) {
+        AesEncryptedPayload encryptedPayload = E2eeHeaders.payloadOf(record.value(),
+            record.headers());
+        if (encryptedPayload.isEncrypted()) {
+          encryptedPayloads.add(encryptedPayload);
+          encryptedRecordIndexes.add(index);
+        }
+      }
+    }
+    if (encryptedPayloads.isEmpty()) {
+      return records;
+    }
+
+    List<byte[]> plainPayloads = decryptionService.decryptToByteArray(topic, encryptedPayloads);
+    List<ConsumerRecord<K, byte[]>> result = new ArrayList<>(records);
+    for (int i = 0; i < plainPayloads.size(); i++) {
+      int recordIndex = encryptedRecordIndexes.get(i);
+      result.set(recordIndex, withValue(records.get(recordIndex), plainPayloads.get(i)));
+    }
+    return result;
+  }
+
+  /**
+   * Decrypts a single record.
+   *
+   * @param record the consumed record
+   * @param <K>    type of the record key
+   * @return the record with decrypted value
+   * @throws RuntimeException when the value cannot be decrypted
+   */
+  public <K> ConsumerRecord<K, byte[]> decrypt(ConsumerRecord<K, byte[]> record) {
+    if (record.value() == null) {
+      return record;
+    }
+    AesEncryptedPayload encryptedPayload = E2eeHeaders.payloadOf(record.value(),
+        record.headers());
+    if (!encryptedPayload.isEncrypted()) {
+      return record;
+    }
+    return withValue(record,
+        decryptionService.decryptToByteArray(record.topic(), encryptedPayload));
+  }
+
+  /**
+   * Creates a copy of the record with the plain value. The encryption headers are only removed
+   * from the headers of the copy, so the consumed record is left unchanged.
+   */
+  static <K> ConsumerRecord<K, byte[]> withValue(ConsumerRecord<K, byte[]> record,
+      byte[] plainValue) {
+    Headers headers = new RecordHeaders(record.headers().toArray());
+    E2eeHeaders.removeEncryptionHeaders(headers);
+    return new ConsumerRecord<>(record.topic(), record.partition(), record.offset(),
+        record.timestamp(), record.timestampType(), record.serializedKeySize(),
+        record.serializedValueSize(), record.key(), plainValue, headers, record.leaderEpoch());
+  }
+}
@@ -0,0 +1,78 @@
+package de.otto.kafka.messaging.e2ee.kafka;
+
+import de.otto.kafka.messaging.e2ee.DecryptionService;
+import de.otto.kafka.messaging.e2ee.EncryptionKeyProvider;
+import de.otto.kafka.messaging.e2ee.EncryptionService;
+import de.otto.kafka.messaging.e2ee.KafkaHeaderEncoding;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * A kafka value serde which encrypts and decrypts the values of a delegate serde, e.g. for Kafka
+ * Streams topologies. The encryption headers are written to and read from the record headers.
+ * <p>
+ * Kafka Streams shares the serde instances between all stream tasks. To cache the keys per
+ * stream task use the {@link E2eeDecryptingProcessor} and {@link E2eeEncryptingProcessor}
+ * instead.
+ *
+ * @param <T> type of the value
+ * @see E2eeSerializer
+ * @see E2eeDeserializer
+ */
+public final class E2eeSerde<T> implements Serde<T> {
+
+  private final E2eeSerializer<T> serializer;
+  private final E2eeDeserializer<T> deserializer;
+
+  /**
+   * Constructor of that class.
+   *
+   * @param encryptionKeyProvider the key provider
+   * @param delegate              the serde for the plain value
+   */
+  public E2eeSerde(EncryptionKeyProvider encryptionKeyProvider, Serde<T> delegate) {
+    this(encryptionKeyProvider, delegate, KafkaHeaderEncoding.TEXT);
+  }
+
+  /**
+   * Constructor of that class.
+   *
+   * @param encryptionKeyProvider the key provider
+   * @param delegate              the serde for the plain value
+   * @param headerEncoding        the encoding of the encryption headers
+   */
+  public E2eeSerde(EncryptionKeyProvider encryptionKeyProvider, Serde<T> delegate,
+      KafkaHeaderEncoding headerEncoding) {
+    Objects.requireNonNull(encryptionKeyProvider, "encryptionKeyProvider is required");
+    Objects.requireNonNull(delegate, "delegate is required");
+    this.serializer = new E2eeSerializer<>(new EncryptionService(encryptionKeyProvider),
+        delegate.serializer(), headerEncoding);
+    this.deserializer = new E2eeDeserializer<>(new DecryptionService(encryptionKeyProvider),
+        delegate.deserializer());
+  }
+
+  @Override
+  public void configure(Map<String, ?> configs, boolean isKey) {
+    serializer.configure(configs, isKey);
+    deserializer.configure(configs, isKey);
+  }
+
+  @Override
+  public Serializer<T> serializer() {
+    return serializer;
+  }
+
+  @Override
+  public Deserializer<T> deserializer() {
+    return deserializer;
+  }
+
+  @Override
+  public void close() {
+    serializer.close();
+    deserializer.close();
+  }
+}
@@ -0,0 +1,121 @@
+package de.otto.kafka.messaging.e2ee.kafka;
+
+import de.otto.kafka.messaging.e2ee.AesEncryptedPayload;
+import de.otto.kafka.messaging.e2ee.EncryptionService;
+import de.otto.kafka.messaging.e2ee.KafkaHeaderEncoding;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * A kafka value serializer which encrypts the output of a delegate serializer. The encryption
+ * headers are written directly into the kafka record headers.
+ * <p>
+ * Either use the constructor with the {@link EncryptionService} and the delegate or configure the
+ * serializer via the producer configs {@link E2eeKafkaConfig#ENCRYPTION_KEY_PROVIDER_CONFIG} and
+ * {@link E2eeKafkaConfig#VALUE_SERIALIZER_CONFIG}. The encoding of the headers can be set via
+ * {@link E2eeKafkaConfig#HEADER_ENCODING_CONFIG}.
+ *
+ * @param <T> type of the value
+ * @see E2eeDeserializer
+ */
+public final class E2eeSerializer<T> implements Serializer<T> {
+
+  private EncryptionService encryptionService;
+  private Serializer<T> delegate;
+  private KafkaHeaderEncoding headerEncoding;
+
+  /**
+   * Constructor used by the kafka producer. The serializer has to be configured by
+   * {@link #configure(Map, boolean)} before it can be used.
+   */
+  public E2eeSerializer() {
+  }
+
+  /**
+   * Constructor of that class.
+   *
+   * @param encryptionService the encryption service
+   * @param delegate          the serializer for the plain value
+   */
+  public E2eeSerializer(EncryptionService encryptionService, Serializer<T> delegate) {
+    this(encryptionService, delegate, KafkaHeaderEncoding.TEXT);
+  }
+
+  /**
+   * Constructor of that class.
+   *
+   * @param encryptionService the encryption service
+   * @param delegate          the serializer for the plain value
+   * @param headerEncoding    the encoding of the encryption headers
+   */
+  public E2eeSerializer(EncryptionService encryptionService, Serializer<T> delegate,
+      KafkaHeaderEncoding headerEncoding) {
+    Objects.requireNonNull(encryptionService, "encryptionService is required");
+    Objects.requireNonNull(delegate, "delegate is required");
+    Objects.requireNonNull(headerEncoding, "headerEncoding is required");
+    this.encryptionService = encryptionService;
+    this.delegate = delegate;
+    this.headerEncoding = headerEncoding;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void configure(Map<String, ?> configs, boolean isKey) {
+    E2eeConfigSupport.rejectKey(isKey);
+    if (encryptionService == null) {
+      encryptionService = new EncryptionService(
+          E2eeConfigSupport.encryptionKeyProvider(configs));
+    }
+    if (delegate == null) {
+      delegate = E2eeConfigSupport.delegate(configs, E2eeKafkaConfig.VALUE_SERIALIZER_CONFIG,
+          Serializer.class);
+    }
+    if (headerEncoding == null) {
+      headerEncoding = E2eeConfigSupport.headerEncoding(configs);
+    }
+    delegate.configure(configs, false);
+  }
+
+  /**
+   * Serializes the value without record headers. This only works for unencrypted topics, because
+   * the encryption headers cannot be written.
+   *
+   * @param topic topic associated with data
+   * @param data  typed data
+   * @return the plain value
+   */
+  @Override
+  public byte[] serialize(String topic, T data) {
+    return serialize(topic, null, data);
+  }
+
+  @Override
+  public byte[] serialize(String topic, Headers headers, T data) {
+    byte[] plainPayload = delegate.serialize(topic, headers, data);
+    if (plainPayload == null) {
+      // keep tombstones
+      return null;
+    }
+
+    AesEncryptedPayload encryptedPayload = encryptionService.encryptPayloadWithAes(topic,
+        plainPayload);
+    if (!encryptedPayload.isEncrypted()) {
+      return encryptedPayload.encryptedPayload();
+    }
+    if (headers == null) {
+      throw new IllegalStateException(
+          "Kafka headers are required to serialize an encrypted value of topic " + topic);
+    }
+    E2eeHeaders.writeEncryptionHeaders(headers, encryptedPayload, headerEncoding);
+    return encryptedPayload.encryptedPayload();
+  }
+
+  @Override
+  public void close() {
+    if (delegate != null) {
+      delegate.close();
+    }
+  }
+}
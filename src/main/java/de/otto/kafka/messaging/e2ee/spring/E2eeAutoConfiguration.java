@@ -0,0 +1,170 @@
+package de.otto.kafka.messaging.e2ee.spring;
+
+import de.otto.kafka.messaging.e2ee.DecryptionService;
+import de.otto.kafka.messaging.e2ee.EncryptionKeyProvider;
+import de.otto.kafka.messaging.e2ee.EncryptionService;
+import de.otto.kafka.messaging.e2ee.kafka.E2eeRecordDecryptor;
+import de.otto.kafka.messaging.e2ee.vault.CachedEncryptionKeyProvider;
+import de.otto.kafka.messaging.e2ee.vault.SecondLevelCacheStorage;
+import de.otto.kafka.messaging.e2ee.vault.VaultCircuitBreaker;
+import de.otto.kafka.messaging.e2ee.vault.VaultEncryptionKeyProvider;
+import de.otto.kafka.messaging.e2ee.vault.VaultEncryptionKeyProviderConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+
+/**
+ * Spring boot auto-configuration of the kafka end-to-end encryption. It creates
+ * <ul>
+ *   <li>a {@link VaultEncryptionKeyProviderConfig} from the {@link E2eeProperties}, when
+ *   {@code kafka.e2ee.vault.address} or a vault agent is set</li>
+ *   <li>a {@link VaultCircuitBreaker}, when {@code kafka.e2ee.vault.circuit-breaker.enabled} is
+ *   <code>true</code></li>
+ *   <li>an {@link EncryptionKeyProvider}, which is wrapped by a
+ *   {@link CachedEncryptionKeyProvider} when there is a {@link SecondLevelCacheStorage} bean</li>
+ *   <li>an {@link EncryptionService}, a {@link DecryptionService} and an
+ *   {@link E2eeRecordDecryptor}</li>
+ * </ul>
+ * Each bean can be replaced by an own bean of the same type.
+ *
+ * @see E2eeKafkaListenerAutoConfiguration
+ */
+@AutoConfiguration
+@EnableConfigurationProperties(E2eeProperties.class)
+@ConditionalOnProperty(prefix = "kafka.e2ee", name = "enabled", matchIfMissing = true)
+public class E2eeAutoConfiguration {
+
+  /**
+   * Constructor used by spring.
+   */
+  public E2eeAutoConfiguration() {
+  }
+
+  /**
+   * Creates the vault config.
+   *
+   * @param properties the properties
+   * @return the vault config
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  @Conditional(OnVaultConfiguredCondition.class)
+  public VaultEncryptionKeyProviderConfig vaultEncryptionKeyProviderConfig(
+      E2eeProperties properties) {
+    return properties.vaultEncryptionKeyProviderConfig();
+  }
+
+  /**
+   * Creates the circuit breaker of the vault access.
+   *
+   * @param properties the properties
+   * @return the circuit breaker
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "kafka.e2ee.vault.circuit-breaker", name = "enabled",
+      havingValue = "true")
+  public VaultCircuitBreaker vaultCircuitBreaker(E2eeProperties properties) {
+    return properties.getVault().getCircuitBreaker().vaultCircuitBreaker();
+  }
+
+  /**
+   * Creates the key provider.
+   *
+   * @param vaultEncryptionKeyProviderConfig the vault config
+   * @param circuitBreaker                   the optional circuit breaker of the vault access
+   * @param cacheStorage                     the optional 2nd-level cache storage
+   * @param properties                       the properties
+   * @return the key provider
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnBean(VaultEncryptionKeyProviderConfig.class)
+  public EncryptionKeyProvider encryptionKeyProvider(
+      VaultEncryptionKeyProviderConfig vaultEncryptionKeyProviderConfig,
+      ObjectProvider<VaultCircuitBreaker> circuitBreaker,
+      ObjectProvider<SecondLevelCacheStorage> cacheStorage, E2eeProperties properties) {
+    EncryptionKeyProvider encryptionKeyProvider = new VaultEncryptionKeyProvider(
+        vaultEncryptionKeyProviderConfig, circuitBreaker.getIfAvailable());
+    SecondLevelCacheStorage secondLevelCacheStorage = cacheStorage.getIfAvailable();
+    if (secondLevelCacheStorage == null) {
+      return encryptionKeyProvider;
+    }
+    return CachedEncryptionKeyProvider.builder()
+        .realEncryptionKeyProvider(encryptionKeyProvider)
+        .cacheStorage(secondLevelCacheStorage)
+        .cachingDuration(properties.getCache().getDuration())
+        .maxCacheSize(properties.getCache().getMaxSize())
+        .build();
+  }
+
+  /**
+   * Creates the encryption service.
+   *
+   * @param encryptionKeyProvider the key provider
+   * @return the encryption service
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnBean(EncryptionKeyProvider.class)
+  public EncryptionService encryptionService(EncryptionKeyProvider encryptionKeyProvider) {
+    return new EncryptionService(encryptionKeyProvider);
+  }
+
+  /**
+   * Creates the decryption service.
+   *
+   * @param encryptionKeyProvider the key provider
+   * @return the decryption service
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnBean(EncryptionKeyProvider.class)
+  public DecryptionService decryptionService(EncryptionKeyProvider encryptionKeyProvider) {
+    return new DecryptionService(encryptionKeyProvider);
+  }
+
+  /**
+   * Creates the record decryptor.
+   *
+   * @param decryptionService the decryption service
+   * @return the record decryptor
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnBean(DecryptionService.class)
+  public E2eeRecordDecryptor e2eeRecordDecryptor(DecryptionService decryptionService) {
+    return new E2eeRecordDecryptor(decryptionService);
+  }
+
+  /**
+   * Matches when a vault address or a local vault agent is configured.
+   */
+  static class OnVaultConfiguredCondition extends AnyNestedCondition {
+
+    OnVaultConfiguredCondition() {
+      super(ConfigurationPhase.REGISTER_BEAN);
+    }
+
+    @ConditionalOnProperty(prefix = "kafka.e2ee.vault", name = "address")
+    static class OnAddress {
+
+    }
+
+    @ConditionalOnProperty(prefix = "kafka.e2ee.vault.agent", name = "unix-socket-path")
+    static class OnAgentUnixSocketPath {
+
+    }
+
+    @ConditionalOnProperty(prefix = "kafka.e2ee.vault.agent", name = "address")
+    static class OnAgentAddress {
+
+    }
+  }
+}
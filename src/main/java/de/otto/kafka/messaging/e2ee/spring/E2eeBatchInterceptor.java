@@ -0,0 +1,117 @@
+package de.otto.kafka.messaging.e2ee.spring;
+
+import de.otto.kafka.messaging.e2ee.kafka.E2eeRecordDecryptor;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.BatchInterceptor;
+
+/**
+ * A spring kafka batch interceptor which decrypts the record values of a whole batch before it
+ * reaches the {@code @KafkaListener} methods. Use it with a
+ * {@link org.apache.kafka.common.serialization.ByteArrayDeserializer} for the values.
+ * <p>
+ * The records of each partition are decrypted in one pass. When a batch contains several
+ * partitions, up to {@code parallelism} partitions are decrypted in parallel. Partitions which
+ * contain values that aren't byte arrays are passed unchanged.
+ * <p>
+ * A batch which cannot be decrypted is passed to the error handler of the listener container.
+ *
+ * @see E2eeRecordInterceptor
+ */
+public final class E2eeBatchInterceptor implements BatchInterceptor<Object, Object>,
+    AutoCloseable {
+
+  private final E2eeRecordDecryptor recordDecryptor;
+  private final ExecutorService executorService;
+
+  /**
+   * Constructor of that class.
+   *
+   * @param recordDecryptor the record decryptor
+   * @param parallelism     the number of partitions which are decrypted in parallel. Use 1 to
+   *                        decrypt on the consumer thread only.
+   */
+  public E2eeBatchInterceptor(E2eeRecordDecryptor recordDecryptor, int parallelism) {
+    this.recordDecryptor = Objects.requireNonNull(recordDecryptor, "recordDecryptor is required");
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be at least 1");
+    }
+    this.executorService = parallelism == 1 ? null : Executors.newFixedThreadPool(parallelism,
+        daemonThreadFactory());
+  }
+
+  @Override
+  public ConsumerRecords<Object, Object> intercept(ConsumerRecords<Object, Object> records,
+      Consumer<Object, Object> consumer) {
+    if (records.isEmpty()) {
+      return records;
+    }
+    Map<TopicPartition, List<ConsumerRecord<Object, Object>>> result = new HashMap<>();
+    if (executorService == null || records.partitions().size() == 1) {
+      for (TopicPartition partition : records.partitions()) {
+        result.put(partition, decrypt(partition, records.records(partition)));
+      }
+      return new ConsumerRecords<>(result, records.nextOffsets());
+    }
+
+    Map<TopicPartition, CompletableFuture<List<ConsumerRecord<Object, Object>>>> futures =
+        new HashMap<>();
+    for (TopicPartition partition : records.partitions()) {
+      List<ConsumerRecord<Object, Object>> partitionRecords = records.records(partition);
+      futures.put(partition, CompletableFuture.supplyAsync(
+          () -> decrypt(partition, partitionRecords), executorService));
+    }
+    try {
+      futures.forEach((partition, future) -> result.put(partition, future.join()));
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw ex;
+    }
+    return new ConsumerRecords<>(result, records.nextOffsets());
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private List<ConsumerRecord<Object, Object>> decrypt(TopicPartition partition,
+      List<ConsumerRecord<Object, Object>> records) {
+    for (ConsumerRecord<Object, Object> record : records) {
+      if (record.value() != null && !(record.value() instanceof byte[])) {
+        return records;
+      }
+    }
+    return (List) recordDecryptor.decrypt(partition.topic(), (List) records);
+  }
+
+  /**
+   * Stops the decryption threads.
+   */
+  @Override
+  public void close() {
+    if (executorService != null) {
+      executorService.shutdown();
+    }
+  }
+
+  private static ThreadFactory daemonThreadFactory() {
+    AtomicInteger threadNumber = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, "e2ee-batch-decryption-"
+          + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
@@ -0,0 +1,61 @@
+package de.otto.kafka.messaging.e2ee.spring;
+
+import de.otto.kafka.messaging.e2ee.kafka.E2eeRecordDecryptor;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.kafka.listener.BatchInterceptor;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+/**
+ * Spring boot auto-configuration of the interceptors which decrypt the records before they reach
+ * the {@code @KafkaListener} methods. Spring boot registers the {@link E2eeRecordInterceptor} and
+ * the {@link E2eeBatchInterceptor} at the kafka listener container factory.
+ * <p>
+ * Set {@code kafka.e2ee.listener.decrypt=false} to decrypt the records yourself.
+ *
+ * @see E2eeAutoConfiguration
+ */
+@AutoConfiguration(after = E2eeAutoConfiguration.class)
+@ConditionalOnClass(RecordInterceptor.class)
+@ConditionalOnBean(E2eeRecordDecryptor.class)
+@ConditionalOnProperty(prefix = "kafka.e2ee.listener", name = "decrypt", matchIfMissing = true)
+public class E2eeKafkaListenerAutoConfiguration {
+
+  /**
+   * Constructor used by spring.
+   */
+  public E2eeKafkaListenerAutoConfiguration() {
+  }
+
+  /**
+   * Creates the record interceptor.
+   *
+   * @param recordDecryptor the record decryptor
+   * @return the record interceptor
+   */
+  @Bean
+  @ConditionalOnMissingBean(RecordInterceptor.class)
+  public RecordInterceptor<Object, Object> e2eeRecordInterceptor(
+      E2eeRecordDecryptor recordDecryptor) {
+    return new E2eeRecordInterceptor(recordDecryptor);
+  }
+
+  /**
+   * Creates the batch interceptor.
+   *
+   * @param recordDecryptor the record decryptor
+   * @param properties      the properties
+   * @return the batch interceptor
+   */
+  @Bean
+  @ConditionalOnMissingBean(BatchInterceptor.class)
+  public BatchInterceptor<Object, Object> e2eeBatchInterceptor(
+      E2eeRecordDecryptor recordDecryptor, E2eeProperties properties) {
+    return new E2eeBatchInterceptor(recordDecryptor,
+        properties.getListener().getBatchParallelism());
+  }
+}
@@ -0,0 +1,697 @@
+package de.otto.kafka.messaging.e2ee.spring;
+
+import de.otto.kafka.messaging.e2ee.vault.MultiTopicVaultEncryptionKeyProviderConfig;
+import de.otto.kafka.messaging.e2ee.vault.MultiTopicVaultEncryptionKeyProviderConfig.KafkaTopicConfigEntry;
+import de.otto.kafka.messaging.e2ee.vault.VaultCircuitBreaker;
+import de.otto.kafka.messaging.e2ee.vault.VaultConnectionConfig;
+import de.otto.kafka.messaging.e2ee.vault.VaultConnectionConfig.VaultAgent;
+import de.otto.kafka.messaging.e2ee.vault.VaultConnectionConfig.VaultAppRole;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * The spring boot properties of the kafka end-to-end encryption, prefix {@code kafka.e2ee}.
+ *
+ * <pre>{@code
+ * kafka:
+ *   e2ee:
+ *     vault:
+ *       address: https://vault.example.com/
+ *       approle:
+ *         path: approle
+ *         roleid: ${VAULT_ROLEID}
+ *         secretid: ${VAULT_SECRETID}
+ *       standby-addresses:
+ *         - https://vault-standby.example.com/
+ *       hedged-reads: true
+ *       circuit-breaker:
+ *         enabled: true
+ *         failure-threshold: 5
+ *     rules:
+ *       - default-rule: true
+ *         encryption-enabled: false
+ *         vault-path-template: galapagos/local/galapagos_%TEAMNAME%/%TOPICNAME%
+ *       - topic-name: some-topic
+ *         team-name: some-team
+ *         encryption-enabled: true
+ *     cache:
+ *       duration: 8h
+ *     listener:
+ *       batch-parallelism: 4
+ * }</pre>
+ * <p>
+ * Instead of the vault address and an auth method, a local vault agent can be configured with
+ * {@code kafka.e2ee.vault.agent.unix-socket-path} or {@code kafka.e2ee.vault.agent.address}.
+ *
+ * @see E2eeAutoConfiguration
+ */
+@ConfigurationProperties(prefix = "kafka.e2ee")
+public class E2eeProperties {
+
+  private boolean enabled = true;
+  private Vault vault = new Vault();
+  private List<Rule> rules = new ArrayList<>();
+  private Cache cache = new Cache();
+  private Listener listener = new Listener();
+
+  /**
+   * Creates the vault config of all rules.
+   *
+   * @return the vault config
+   */
+  public MultiTopicVaultEncryptionKeyProviderConfig vaultEncryptionKeyProviderConfig() {
+    return MultiTopicVaultEncryptionKeyProviderConfig.builder()
+        .vaultConnectionConfig(vault.vaultConnectionConfig())
+        .configEntries(rules.stream()
+            .map(Rule::kafkaTopicConfigEntry)
+            .toList())
+        .build();
+  }
+
+  /**
+   * @return <code>false</code> disables the whole auto-configuration
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * @param enabled <code>false</code> disables the whole auto-configuration
+   */
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * @return the vault connection properties
+   */
+  public Vault getVault() {
+    return vault;
+  }
+
+  /**
+   * @param vault the vault connection properties
+   */
+  public void setVault(Vault vault) {
+    this.vault = vault;
+  }
+
+  /**
+   * @return the topic rules
+   */
+  public List<Rule> getRules() {
+    return rules;
+  }
+
+  /**
+   * @param rules the topic rules
+   */
+  public void setRules(List<Rule> rules) {
+    this.rules = rules;
+  }
+
+  /**
+   * @return the cache properties
+   */
+  public Cache getCache() {
+    return cache;
+  }
+
+  /**
+   * @param cache the cache properties
+   */
+  public void setCache(Cache cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * @return the listener properties
+   */
+  public Listener getListener() {
+    return listener;
+  }
+
+  /**
+   * @param listener the listener properties
+   */
+  public void setListener(Listener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * The vault connection properties.
+   */
+  public static class Vault {
+
+    private String address;
+    private String token;
+    private AppRole approle;
+    private List<String> standbyAddresses = new ArrayList<>();
+    private boolean hedgedReads;
+    private Agent agent;
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    VaultConnectionConfig vaultConnectionConfig() {
+      return VaultConnectionConfig.builder()
+          .address(address)
+          .token(token)
+          .appRole(approle == null ? null : approle.vaultAppRole())
+          .standbyAddresses(standbyAddresses == null ? List.of() : standbyAddresses)
+          .hedgedReads(hedgedReads)
+          .vaultAgent(agent == null ? null : agent.vaultAgent())
+          .build();
+    }
+
+    /**
+     * @return the vault address
+     */
+    public String getAddress() {
+      return address;
+    }
+
+    /**
+     * @param address the vault address
+     */
+    public void setAddress(String address) {
+      this.address = address;
+    }
+
+    /**
+     * @return the vault token
+     */
+    public String getToken() {
+      return token;
+    }
+
+    /**
+     * @param token the vault token
+     */
+    public void setToken(String token) {
+      this.token = token;
+    }
+
+    /**
+     * @return the app role login
+     */
+    public AppRole getApprole() {
+      return approle;
+    }
+
+    /**
+     * @param approle the app role login
+     */
+    public void setApprole(AppRole approle) {
+      this.approle = approle;
+    }
+
+    /**
+     * @return the addresses of additional vault nodes which can serve read requests
+     */
+    public List<String> getStandbyAddresses() {
+      return standbyAddresses;
+    }
+
+    /**
+     * @param standbyAddresses the addresses of additional vault nodes which can serve read
+     *                         requests
+     */
+    public void setStandbyAddresses(List<String> standbyAddresses) {
+      this.standbyAddresses = standbyAddresses;
+    }
+
+    /**
+     * @return <code>true</code> when a standby node is asked when the first node has not answered
+     * in time
+     */
+    public boolean isHedgedReads() {
+      return hedgedReads;
+    }
+
+    /**
+     * @param hedgedReads <code>true</code> when a standby node is asked when the first node has not
+     *                    answered in time
+     */
+    public void setHedgedReads(boolean hedgedReads) {
+      this.hedgedReads = hedgedReads;
+    }
+
+    /**
+     * @return the local vault agent or <code>null</code>
+     */
+    public Agent getAgent() {
+      return agent;
+    }
+
+    /**
+     * @param agent the local vault agent or <code>null</code>
+     */
+    public void setAgent(Agent agent) {
+      this.agent = agent;
+    }
+
+    /**
+     * @return the circuit breaker properties
+     */
+    public CircuitBreaker getCircuitBreaker() {
+      return circuitBreaker;
+    }
+
+    /**
+     * @param circuitBreaker the circuit breaker properties
+     */
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+      this.circuitBreaker = circuitBreaker;
+    }
+  }
+
+  /**
+   * The properties of a local vault agent. Exactly one of the values must be set.
+   */
+  public static class Agent {
+
+    private String unixSocketPath;
+    private String address;
+
+    VaultAgent vaultAgent() {
+      return VaultAgent.builder()
+          .unixSocketPath(unixSocketPath)
+          .address(address)
+          .build();
+    }
+
+    /**
+     * @return the path of the unix domain socket of the vault agent listener
+     */
+    public String getUnixSocketPath() {
+      return unixSocketPath;
+    }
+
+    /**
+     * @param unixSocketPath the path of the unix domain socket of the vault agent listener
+     */
+    public void setUnixSocketPath(String unixSocketPath) {
+      this.unixSocketPath = unixSocketPath;
+    }
+
+    /**
+     * @return the loopback URL of the vault agent listener
+     */
+    public String getAddress() {
+      return address;
+    }
+
+    /**
+     * @param address the loopback URL of the vault agent listener
+     */
+    public void setAddress(String address) {
+      this.address = address;
+    }
+  }
+
+  /**
+   * The properties of the {@link VaultCircuitBreaker}. The defaults are the ones of
+   * {@link VaultCircuitBreaker#builder()}.
+   */
+  public static class CircuitBreaker {
+
+    private boolean enabled;
+    private int failureThreshold = 5;
+    private Duration initialBackoff = Duration.ofSeconds(10);
+    private Duration maxBackoff = Duration.ofMinutes(5);
+
+    VaultCircuitBreaker vaultCircuitBreaker() {
+      return VaultCircuitBreaker.builder()
+          .failureThreshold(failureThreshold)
+          .initialBackoff(initialBackoff)
+          .maxBackoff(maxBackoff)
+          .build();
+    }
+
+    /**
+     * @return <code>true</code> when the vault access is guarded by a circuit breaker
+     */
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    /**
+     * @param enabled <code>true</code> when the vault access is guarded by a circuit breaker
+     */
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    /**
+     * @return the number of consecutive failures which opens the circuit
+     */
+    public int getFailureThreshold() {
+      return failureThreshold;
+    }
+
+    /**
+     * @param failureThreshold the number of consecutive failures which opens the circuit
+     */
+    public void setFailureThreshold(int failureThreshold) {
+      this.failureThreshold = failureThreshold;
+    }
+
+    /**
+     * @return the duration the circuit stays open after it has been opened the first time
+     */
+    public Duration getInitialBackoff() {
+      return initialBackoff;
+    }
+
+    /**
+     * @param initialBackoff the duration the circuit stays open after it has been opened the first
+     *                       time
+     */
+    public void setInitialBackoff(Duration initialBackoff) {
+      this.initialBackoff = initialBackoff;
+    }
+
+    /**
+     * @return the maximum duration the circuit stays open
+     */
+    public Duration getMaxBackoff() {
+      return maxBackoff;
+    }
+
+    /**
+     * @param maxBackoff the maximum duration the circuit stays open
+     */
+    public void setMaxBackoff(Duration maxBackoff) {
+      this.maxBackoff = maxBackoff;
+    }
+  }
+
+  /**
+   * The app role login properties.
+   */
+  public static class AppRole {
+
+    private String path;
+    private String roleid;
+    private String secretid;
+
+    VaultAppRole vaultAppRole() {
+      return VaultAppRole.builder()
+          .path(path)
+          .roleid(roleid)
+          .secretid(secretid)
+          .build();
+    }
+
+    /**
+     * @return the auth path of the app role
+     */
+    public String getPath() {
+      return path;
+    }
+
+    /**
+     * @param path the auth path of the app role
+     */
+    public void setPath(String path) {
+      this.path = path;
+    }
+
+    /**
+     * @return the role id
+     */
+    public String getRoleid() {
+      return roleid;
+    }
+
+    /**
+     * @param roleid the role id
+     */
+    public void setRoleid(String roleid) {
+      this.roleid = roleid;
+    }
+
+    /**
+     * @return the secret id
+     */
+    public String getSecretid() {
+      return secretid;
+    }
+
+    /**
+     * @param secretid the secret id
+     */
+    public void setSecretid(String secretid) {
+      this.secretid = secretid;
+    }
+  }
+
+  /**
+   * A topic rule. See {@link KafkaTopicConfigEntry} for the meaning of the values.
+   */
+  public static class Rule {
+
+    private boolean defaultRule;
+    private Boolean encryptionEnabled;
+    private String topicName;
+    private String topicNamePrefix;
+    private String topicNameGlob;
+    private String topicNameRegex;
+    private String vaultPath;
+    private String vaultPathTemplate;
+    private String teamName;
+    private String encryptionKeyAttributeName;
+
+    KafkaTopicConfigEntry kafkaTopicConfigEntry() {
+      return KafkaTopicConfigEntry.builder()
+          .isDefault(defaultRule)
+          .encryptionEnabled(encryptionEnabled)
+          .kafkaTopicName(topicName)
+          .kafkaTopicNamePrefix(topicNamePrefix)
+          .kafkaTopicNameGlob(topicNameGlob)
+          .kafkaTopicNameRegex(topicNameRegex)
+          .vaultPath(vaultPath)
+          .vaultPathTemplate(vaultPathTemplate)
+          .teamName(teamName)
+          .encryptionKeyAttributeName(encryptionKeyAttributeName)
+          .build();
+    }
+
+    /**
+     * @return <code>true</code> when it's the default rule
+     */
+    public boolean isDefaultRule() {
+      return defaultRule;
+    }
+
+    /**
+     * @param defaultRule <code>true</code> when it's the default rule
+     */
+    public void setDefaultRule(boolean defaultRule) {
+      this.defaultRule = defaultRule;
+    }
+
+    /**
+     * @return <code>true</code> when the encryption is enabled
+     */
+    public Boolean getEncryptionEnabled() {
+      return encryptionEnabled;
+    }
+
+    /**
+     * @param encryptionEnabled <code>true</code> when the encryption is enabled
+     */
+    public void setEncryptionEnabled(Boolean encryptionEnabled) {
+      this.encryptionEnabled = encryptionEnabled;
+    }
+
+    /**
+     * @return the topic name
+     */
+    public String getTopicName() {
+      return topicName;
+    }
+
+    /**
+     * @param topicName the topic name
+     */
+    public void setTopicName(String topicName) {
+      this.topicName = topicName;
+    }
+
+    /**
+     * @return the topic name prefix
+     */
+    public String getTopicNamePrefix() {
+      return topicNamePrefix;
+    }
+
+    /**
+     * @param topicNamePrefix the topic name prefix
+     */
+    public void setTopicNamePrefix(String topicNamePrefix) {
+      this.topicNamePrefix = topicNamePrefix;
+    }
+
+    /**
+     * @return the glob pattern of the topic name
+     */
+    public String getTopicNameGlob() {
+      return topicNameGlob;
+    }
+
+    /**
+     * @param topicNameGlob the glob pattern of the topic name
+     */
+    public void setTopicNameGlob(String topicNameGlob) {
+      this.topicNameGlob = topicNameGlob;
+    }
+
+    /**
+     * @return the regex pattern of the topic name
+     */
+    public String getTopicNameRegex() {
+      return topicNameRegex;
+    }
+
+    /**
+     * @param topicNameRegex the regex pattern of the topic name
+     */
+    public void setTopicNameRegex(String topicNameRegex) {
+      this.topicNameRegex = topicNameRegex;
+    }
+
+    /**
+     * @return the vault path
+     */
+    public String getVaultPath() {
+      return vaultPath;
+    }
+
+    /**
+     * @param vaultPath the vault path
+     */
+    public void setVaultPath(String vaultPath) {
+      this.vaultPath = vaultPath;
+    }
+
+    /**
+     * @return the vault path template
+     */
+    public String getVaultPathTemplate() {
+      return vaultPathTemplate;
+    }
+
+    /**
+     * @param vaultPathTemplate the vault path template
+     */
+    public void setVaultPathTemplate(String vaultPathTemplate) {
+      this.vaultPathTemplate = vaultPathTemplate;
+    }
+
+    /**
+     * @return the team name
+     */
+    public String getTeamName() {
+      return teamName;
+    }
+
+    /**
+     * @param teamName the team name
+     */
+    public void setTeamName(String teamName) {
+      this.teamName = teamName;
+    }
+
+    /**
+     * @return the JSON attribute name of the encryption key within the vault payload
+     */
+    public String getEncryptionKeyAttributeName() {
+      return encryptionKeyAttributeName;
+    }
+
+    /**
+     * @param encryptionKeyAttributeName the JSON attribute name of the encryption key within the
+     *                                   vault payload
+     */
+    public void setEncryptionKeyAttributeName(String encryptionKeyAttributeName) {
+      this.encryptionKeyAttributeName = encryptionKeyAttributeName;
+    }
+  }
+
+  /**
+   * The properties of the 2nd-level cache. It's used when there is a
+   * {@link de.otto.kafka.messaging.e2ee.vault.SecondLevelCacheStorage} bean.
+   */
+  public static class Cache {
+
+    private Duration duration = Duration.ofHours(8);
+    private Integer maxSize;
+
+    /**
+     * @return the cache duration for the encryption keys
+     */
+    public Duration getDuration() {
+      return duration;
+    }
+
+    /**
+     * @param duration the cache duration for the encryption keys
+     */
+    public void setDuration(Duration duration) {
+      this.duration = duration;
+    }
+
+    /**
+     * @return the maximum size (number of characters) of the cache storage
+     */
+    public Integer getMaxSize() {
+      return maxSize;
+    }
+
+    /**
+     * @param maxSize the maximum size (number of characters) of the cache storage
+     */
+    public void setMaxSize(Integer maxSize) {
+      this.maxSize = maxSize;
+    }
+  }
+
+  /**
+   * The properties of the kafka listener decryption.
+   */
+  public static class Listener {
+
+    private boolean decrypt = true;
+    private int batchParallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * @return <code>true</code> when the record and batch interceptors are registered
+     */
+    public boolean isDecrypt() {
+      return decrypt;
+    }
+
+    /**
+     * @param decrypt <code>true</code> when the record and batch interceptors are registered
+     */
+    public void setDecrypt(boolean decrypt) {
+      this.decrypt = decrypt;
+    }
+
+    /**
+     * @return the number of partitions of a batch which are decrypted in parallel
+     */
+    public int getBatchParallelism() {
+      return batchParallelism;
+    }
+
+    /**
+     * @param batchParallelism the number of partitions of a batch which are decrypted in parallel
+     */
+    public void setBatchParallelism(int batchParallelism) {
+      this.batchParallelism = batchParallelism;
+    }
+  }
+}
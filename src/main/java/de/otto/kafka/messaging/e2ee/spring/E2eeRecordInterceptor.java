@@ -0,0 +1,42 @@
+package de.otto.kafka.messaging.e2ee.spring;
+
+import de.otto.kafka.messaging.e2ee.kafka.E2eeRecordDecryptor;
+import java.util.Objects;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+/**
+ * A spring kafka record interceptor which decrypts the record values before they reach the
+ * {@code @KafkaListener} methods. Use it with a
+ * {@link org.apache.kafka.common.serialization.ByteArrayDeserializer} for the values. Records
+ * whose values aren't byte arrays, e.g. because they have been decrypted by an
+ * {@link de.otto.kafka.messaging.e2ee.kafka.E2eeDeserializer}, are passed unchanged.
+ * <p>
+ * A record which cannot be decrypted is passed to the error handler of the listener container.
+ *
+ * @see E2eeBatchInterceptor
+ */
+public final class E2eeRecordInterceptor implements RecordInterceptor<Object, Object> {
+
+  private final E2eeRecordDecryptor recordDecryptor;
+
+  /**
+   * Constructor of that class.
+   *
+   * @param recordDecryptor the record decryptor
+   */
+  public E2eeRecordInterceptor(E2eeRecordDecryptor recordDecryptor) {
+    this.recordDecryptor = Objects.requireNonNull(recordDecryptor, "recordDecryptor is required");
+  }
+
+  @Override
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public ConsumerRecord<Object, Object> intercept(ConsumerRecord<Object, Object> record,
+      Consumer<Object, Object> consumer) {
+    if (!(record.value() instanceof byte[])) {
+      return record;
+    }
+    return (ConsumerRecord) recordDecryptor.decrypt((ConsumerRecord) record);
+  }
+}
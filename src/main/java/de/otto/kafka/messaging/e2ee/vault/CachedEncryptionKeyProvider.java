@@ -13,9 +13,11 @@ import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Predicate;
 import org.slf4j.Logger;
@@ -25,7 +27,7 @@ import org.slf4j.LoggerFactory;
  * This class is intended to be used as a 2nd-Level-Cache for the vault access. Meaning the results
  * of all method calls should be cached with a 1st-Level-Cache.
  */
-public final class CachedEncryptionKeyProvider implements EncryptionKeyProvider {
+public final class CachedEncryptionKeyProvider implements EncryptionKeyProvider, AutoCloseable {
 
   private static final DateTimeFormatter DTF = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mmX");
   private static final Logger log = LoggerFactory.getLogger(CachedEncryptionKeyProvider.class);
@@ -266,6 +268,41 @@ public final class CachedEncryptionKeyProvider implements EncryptionKeyProvider
     return realEncryptionKeyProvider.isEncryptedTopic(kafkaTopicName);
   }
 
+  /**
+   * Removes the 2nd-level cache entries of the given topics, e.g. after their configuration has
+   * been reloaded. The cache entries of all other topics are kept.
+   *
+   * @param topics the names of the affected topics
+   */
+  public void invalidateTopics(Collection<String> topics) {
+    Set<String> affectedTopics = Set.copyOf(topics);
+    lock.lock();
+    try {
+      List<JsonObject> cacheEntries = loadCacheEntries();
+      boolean removed = cacheEntries.removeIf(
+          entry -> affectedTopics.contains(entry.getString(NAME_TOPIC)));
+      if (removed) {
+        updateCache(cacheEntries, null);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Closes the real EncryptionKeyProvider, when it is closeable.
+   */
+  @Override
+  public void close() {
+    if (realEncryptionKeyProvider instanceof AutoCloseable closeable) {
+      try {
+        closeable.close();
+      } catch (Exception ex) {
+        log.warn("Failed to close the real EncryptionKeyProvider", ex);
+      }
+    }
+  }
+
   private void updateCache(List<JsonObject> oldCacheEntries, JsonObject newEntry) {
     if (newEntry != null) {
       oldCacheEntries.add(newEntry);
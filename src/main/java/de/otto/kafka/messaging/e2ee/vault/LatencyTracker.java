@@ -0,0 +1,44 @@
+package de.otto.kafka.messaging.e2ee.vault;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Keeps the latencies of the last vault responses and computes their 95th percentile.
+ */
+final class LatencyTracker {
+
+  private static final int MAX_SAMPLES = 100;
+  private static final int MIN_SAMPLES = 20;
+
+  private final long[] samplesInNanos = new long[MAX_SAMPLES];
+  private final Duration defaultPercentile95;
+  private int nextIndex = 0;
+  private int sampleCount = 0;
+
+  /**
+   * @param defaultPercentile95 the value used as long as there are not enough samples
+   */
+  LatencyTracker(Duration defaultPercentile95) {
+    this.defaultPercentile95 = defaultPercentile95;
+  }
+
+  synchronized void record(long latencyInNanos) {
+    samplesInNanos[nextIndex] = latencyInNanos;
+    nextIndex = (nextIndex + 1) % MAX_SAMPLES;
+    sampleCount = Math.min(sampleCount + 1, MAX_SAMPLES);
+  }
+
+  Duration percentile95() {
+    long[] samples;
+    synchronized (this) {
+      if (sampleCount < MIN_SAMPLES) {
+        return defaultPercentile95;
+      }
+      samples = Arrays.copyOf(samplesInNanos, sampleCount);
+    }
+    Arrays.sort(samples);
+    int index = (int) Math.ceil(samples.length * 0.95) - 1;
+    return Duration.ofNanos(samples[index]);
+  }
+}
@@ -0,0 +1,238 @@
+package de.otto.kafka.messaging.e2ee.vault;
+
+import io.github.jopenlibs.vault.VaultException;
+import io.github.jopenlibs.vault.response.LogicalResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A ReadonlyVaultApi which distributes the read requests over several vault nodes (round-robin).
+ * When a vault node fails (exception or a 5xx / 429 response), the request is repeated on the next
+ * vault node.
+ * <p>
+ * With hedged reads enabled, a second vault node is asked when the first one has not answered
+ * within the 95th percentile of the recent response times. The first successful response wins.
+ * The hedged reads use at most one thread per vault node. Call {@link #close()} to stop them.
+ *
+ * @see VaultConnectionConfig#createReadonlyVault()
+ */
+public final class MultiEndpointVault implements ReadonlyVaultApi, AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(MultiEndpointVault.class);
+  private static final Duration DEFAULT_HEDGING_DELAY = Duration.ofMillis(50);
+  private static final Duration HEDGING_THREAD_KEEP_ALIVE = Duration.ofSeconds(60);
+  private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+  private final List<ReadonlyVaultApi> endpoints;
+  private final AtomicInteger nextEndpoint = new AtomicInteger();
+  private final LatencyTracker latencyTracker;
+  private final ExecutorService hedgingExecutor;
+
+  /**
+   * Constructor of that class.
+   *
+   * @param endpoints   the vault nodes. Must not be empty.
+   * @param hedgedReads <code>true</code> when a second vault node should be asked when the first
+   *                    one has not answered in time
+   */
+  public MultiEndpointVault(List<ReadonlyVaultApi> endpoints, boolean hedgedReads) {
+    this(endpoints, hedgedReads, DEFAULT_HEDGING_DELAY);
+  }
+
+  MultiEndpointVault(List<ReadonlyVaultApi> endpoints, boolean hedgedReads,
+      Duration defaultHedgingDelay) {
+    Objects.requireNonNull(endpoints, "endpoints is required");
+    if (endpoints.isEmpty()) {
+      throw new IllegalArgumentException("endpoints must not be empty");
+    }
+    this.endpoints = List.copyOf(endpoints);
+    this.latencyTracker = new LatencyTracker(defaultHedgingDelay);
+    this.hedgingExecutor = hedgedReads && endpoints.size() > 1
+        ? newHedgingExecutor(endpoints.size())
+        : null;
+  }
+
+  /**
+   * Stops the threads of the hedged reads.
+   */
+  @Override
+  public void close() {
+    if (hedgingExecutor != null) {
+      hedgingExecutor.shutdownNow();
+    }
+  }
+
+  @Override
+  public LogicalResponse read(String path) throws VaultException {
+    return execute(vault -> vault.read(path));
+  }
+
+  @Override
+  public LogicalResponse read(String path, int version) throws VaultException {
+    return execute(vault -> vault.read(path, version));
+  }
+
+  private LogicalResponse execute(VaultCall call) throws VaultException {
+    List<ReadonlyVaultApi> candidates = nextCandidates();
+    if (hedgingExecutor == null) {
+      return executeWithFailover(call, candidates);
+    }
+    return executeHedged(call, candidates);
+  }
+
+  private List<ReadonlyVaultApi> nextCandidates() {
+    int size = endpoints.size();
+    int start = Math.floorMod(nextEndpoint.getAndIncrement(), size);
+    List<ReadonlyVaultApi> candidates = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      candidates.add(endpoints.get((start + i) % size));
+    }
+    return candidates;
+  }
+
+  private LogicalResponse executeWithFailover(VaultCall call, List<ReadonlyVaultApi> candidates)
+      throws VaultException {
+    LogicalResponse lastResponse = null;
+    Exception lastException = null;
+    for (ReadonlyVaultApi candidate : candidates) {
+      try {
+        LogicalResponse response = timed(call, candidate);
+        if (!isFailure(response)) {
+          return response;
+        }
+        log.warn("Vault node responded with status {}. Try next vault node.",
+            response.getRestResponse().getStatus());
+        lastResponse = response;
+      } catch (VaultException | RuntimeException ex) {
+        log.warn("Vault node failed. Try next vault node.", ex);
+        lastException = ex;
+      }
+    }
+    return lastResponseOrThrow(lastResponse, lastException);
+  }
+
+  private LogicalResponse executeHedged(VaultCall call, List<ReadonlyVaultApi> candidates)
+      throws VaultException {
+    ExecutorCompletionService<LogicalResponse> completionService =
+        new ExecutorCompletionService<>(hedgingExecutor);
+    List<Future<LogicalResponse>> futures = new ArrayList<>();
+    LogicalResponse lastResponse = null;
+    Exception lastException = null;
+    int started = 0;
+    int pending = 0;
+
+    try {
+      ReadonlyVaultApi first = candidates.get(started++);
+      futures.add(completionService.submit(() -> timed(call, first)));
+      pending++;
+
+      while (pending > 0) {
+        Future<LogicalResponse> done;
+        if (started == 1 && started < candidates.size()) {
+          Duration hedgingDelay = latencyTracker.percentile95();
+          done = completionService.poll(hedgingDelay.toNanos(), TimeUnit.NANOSECONDS);
+          if (done == null) {
+            log.debug("Vault node has not answered within {}. Send hedged request.", hedgingDelay);
+            ReadonlyVaultApi hedge = candidates.get(started++);
+            futures.add(completionService.submit(() -> timed(call, hedge)));
+            pending++;
+            continue;
+          }
+        } else {
+          done = completionService.take();
+        }
+        pending--;
+
+        try {
+          LogicalResponse response = done.get();
+          if (!isFailure(response)) {
+            return response;
+          }
+          log.warn("Vault node responded with status {}.", response.getRestResponse().getStatus());
+          lastResponse = response;
+        } catch (ExecutionException ex) {
+          log.warn("Vault node failed.", ex.getCause());
+          lastException = ex.getCause() instanceof Exception cause ? cause : ex;
+        }
+
+        if (pending == 0 && started < candidates.size()) {
+          // fail over to the next vault node
+          ReadonlyVaultApi next = candidates.get(started++);
+          futures.add(completionService.submit(() -> timed(call, next)));
+          pending++;
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new VaultException(ex);
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+    }
+
+    return lastResponseOrThrow(lastResponse, lastException);
+  }
+
+  private LogicalResponse timed(VaultCall call, ReadonlyVaultApi vault) throws VaultException {
+    long startTime = System.nanoTime();
+    LogicalResponse response = call.read(vault);
+    if (!isFailure(response)) {
+      latencyTracker.record(System.nanoTime() - startTime);
+    }
+    return response;
+  }
+
+  private static boolean isFailure(LogicalResponse response) {
+    int status = response.getRestResponse().getStatus();
+    return status == 429 || status >= 500;
+  }
+
+  private static LogicalResponse lastResponseOrThrow(LogicalResponse lastResponse,
+      Exception lastException) throws VaultException {
+    if (lastResponse != null) {
+      return lastResponse;
+    }
+    if (lastException instanceof VaultException vaultException) {
+      throw vaultException;
+    }
+    if (lastException instanceof RuntimeException runtimeException) {
+      throw runtimeException;
+    }
+    throw new VaultException(lastException);
+  }
+
+  /**
+   * A read needs at most one thread per vault node. More concurrent reads wait in the queue. Idle
+   * threads are stopped after the keep alive time.
+   */
+  private static ExecutorService newHedgingExecutor(int threads) {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+        HEDGING_THREAD_KEEP_ALIVE.toMillis(), TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+        MultiEndpointVault::newHedgingThread);
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  private static Thread newHedgingThread(Runnable runnable) {
+    Thread thread = new Thread(runnable, "vault-hedged-read-" + THREAD_COUNTER.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  @FunctionalInterface
+  private interface VaultCall {
+
+    LogicalResponse read(ReadonlyVaultApi vault) throws VaultException;
+  }
+}
@@ -1,21 +1,35 @@
 package de.otto.kafka.messaging.e2ee.vault;
 
+import de.otto.kafka.messaging.e2ee.vault.TopicConfigIndex.TopicMatches;
 import io.github.jopenlibs.vault.VaultException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.function.Function;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 /**
  * Encryption key provider that can be configured for more than one topic. Otherwise, each topic
  * needs its own configuration.
+ * <p>
+ * A config entry can match a topic by its exact name, by a glob or regex pattern, by a name prefix
+ * or as default entry. For each setting the first matching entry in that priority order is used:
+ * exact name, pattern (in config order), longest prefix and then default.
+ * <p>
+ * The config entries are compiled into an index (exact topic names, precompiled patterns and a
+ * prefix trie) when the config is created. The resolved settings of each topic are memoized, so
+ * repeated lookups for the same topic do not walk the config entries again.
  */
 public final class MultiTopicVaultEncryptionKeyProviderConfig implements
     VaultEncryptionKeyProviderConfig {
 
   private final VaultConnectionConfig vaultConnectionConfig;
   private final List<KafkaTopicConfigEntry> configEntries;
+  private final TopicConfigIndex topicConfigIndex;
+  private final Map<String, ResolvedTopicConfig> resolvedTopicConfigs;
 
   /**
    * Constructor for that class.
@@ -29,7 +43,9 @@ public final class MultiTopicVaultEncryptionKeyProviderConfig implements
     Objects.requireNonNull(vaultConnectionConfig, "vaultConnectionConfig is required");
     Objects.requireNonNull(configEntries, "configEntries is required");
     this.vaultConnectionConfig = vaultConnectionConfig;
-    this.configEntries = configEntries;
+    this.configEntries = List.copyOf(configEntries);
+    this.topicConfigIndex = new TopicConfigIndex(this.configEntries);
+    this.resolvedTopicConfigs = new ConcurrentHashMap<>();
   }
 
   /**
@@ -50,73 +66,93 @@ public final class MultiTopicVaultEncryptionKeyProviderConfig implements
     }
   }
 
+  @Override
+  public ReadonlyVaultApi createVault() {
+    try {
+      return vaultConnectionConfig.createReadonlyVault();
+    } catch (VaultException e) {
+      throw new VaultRuntimeException(e);
+    }
+  }
+
   @Override
   public boolean isEncryptedTopic(String kafkaTopicName) {
-    return getValueForTopic(kafkaTopicName, KafkaTopicConfigEntry::encryptionEnabled, true);
+    return resolve(kafkaTopicName).encryptionEnabled();
   }
 
   @Override
   public String vaultPath(String kafkaTopicName) {
-    VaultPathExpression pathExpression = getValueForTopic(kafkaTopicName,
-        KafkaTopicConfigEntry::pathExpression, null);
+    ResolvedTopicConfig resolvedTopicConfig = resolve(kafkaTopicName);
+    if (resolvedTopicConfig.vaultPathError() != null) {
+      throw new VaultConfigException(resolvedTopicConfig.vaultPathError());
+    }
+    return resolvedTopicConfig.vaultPath();
+  }
+
+  @Override
+  public String encryptionKeyAttributeName(String kafkaTopicName) {
+    return resolve(kafkaTopicName).encryptionKeyAttributeName();
+  }
+
+  private ResolvedTopicConfig resolve(String kafkaTopicName) {
+    ResolvedTopicConfig resolvedTopicConfig = resolvedTopicConfigs.get(kafkaTopicName);
+    if (resolvedTopicConfig == null) {
+      resolvedTopicConfig = resolvedTopicConfigs.computeIfAbsent(kafkaTopicName,
+          this::resolveUncached);
+    }
+    return resolvedTopicConfig;
+  }
+
+  private ResolvedTopicConfig resolveUncached(String kafkaTopicName) {
+    TopicMatches matches = topicConfigIndex.match(kafkaTopicName);
+    boolean encryptionEnabled = matches.getValue(KafkaTopicConfigEntry::encryptionEnabled, true);
+    String encryptionKeyAttributeName = matches.getValue(
+        KafkaTopicConfigEntry::encryptionKeyAttributeName, DEFAULT_ENCRYPTION_KEY_ATTRIBUTE_NAME);
+
+    VaultPathExpression pathExpression = matches.getValue(KafkaTopicConfigEntry::pathExpression,
+        null);
     if (pathExpression == null) {
-      throw new VaultConfigException("No vault path found for topic name " + kafkaTopicName);
+      return new ResolvedTopicConfig(encryptionEnabled, null,
+          "No vault path found for topic name " + kafkaTopicName, encryptionKeyAttributeName);
     }
     if (pathExpression.vaultPath() != null) {
-      return pathExpression.vaultPath();
+      return new ResolvedTopicConfig(encryptionEnabled, pathExpression.vaultPath(), null,
+          encryptionKeyAttributeName);
     }
 
-    String teamName = getValueForTopic(kafkaTopicName, KafkaTopicConfigEntry::teamName,
-        null);
+    String teamName = matches.getValue(KafkaTopicConfigEntry::teamName, null);
     if (teamName == null) {
       if (pathExpression.vaultPathTemplate().contains("%TEAMNAME%")) {
-        throw new VaultConfigException("No team found for topic name " + kafkaTopicName);
+        return new ResolvedTopicConfig(encryptionEnabled, null,
+            "No team found for topic name " + kafkaTopicName, encryptionKeyAttributeName);
       }
-      return pathExpression.vaultPathTemplate()
-          .replace("%TOPICNAME%", kafkaTopicName);
+      return new ResolvedTopicConfig(encryptionEnabled, pathExpression.vaultPathTemplate()
+          .replace("%TOPICNAME%", kafkaTopicName), null, encryptionKeyAttributeName);
     }
 
-    return pathExpression.vaultPathTemplate()
+    String vaultPath = pathExpression.vaultPathTemplate()
         .replace("%TOPICNAME%", kafkaTopicName)
         .replace("%TEAMNAME%", teamName);
+    return new ResolvedTopicConfig(encryptionEnabled, vaultPath, null, encryptionKeyAttributeName);
   }
 
-  @Override
-  public String encryptionKeyAttributeName(String kafkaTopicName) {
-    return getValueForTopic(kafkaTopicName,
-        KafkaTopicConfigEntry::encryptionKeyAttributeName,
-        DEFAULT_ENCRYPTION_KEY_ATTRIBUTE_NAME);
-  }
-
-  private <T> T getValueForTopic(String topic, Function<KafkaTopicConfigEntry, T> mapping,
-      T defaultValue) {
-    int bestScore = -1;
-    T currentBestValue = defaultValue;
-    for (KafkaTopicConfigEntry configEntry : this.configEntries) {
-      T value = mapping.apply(configEntry);
-      if (value == null) {
-        continue;
-      }
-      if (configEntry.isDefault() && bestScore == -1) {
-        bestScore = 0;
-        currentBestValue = value;
-      }
-      if (configEntry.kafkaTopicName() != null
-          && topic.equals(configEntry.kafkaTopicName())) {
-        // best possible match
-        return value;
-      }
-      if (configEntry.kafkaTopicNamePrefix() != null
-          && topic.startsWith(configEntry.kafkaTopicNamePrefix())) {
-        int score = configEntry.kafkaTopicNamePrefix().length();
-        if (score > bestScore) {
-          bestScore = score;
-          currentBestValue = value;
-        }
-      }
-    }
+  /**
+   * The resolved settings of a topic.
+   *
+   * @param encryptionEnabled          <code>true</code> when the topic is encrypted
+   * @param vaultPath                  the vault path or <code>null</code> when it could not be
+   *                                   resolved
+   * @param vaultPathError             the reason why the vault path could not be resolved or
+   *                                   <code>null</code>
+   * @param encryptionKeyAttributeName JSON attribute name of the encryption key
+   */
+  private record ResolvedTopicConfig(
+      boolean encryptionEnabled,
+      String vaultPath,
+      String vaultPathError,
+      String encryptionKeyAttributeName
+  ) {
 
-    return currentBestValue;
   }
 
   /**
@@ -189,6 +225,9 @@ public final class MultiTopicVaultEncryptionKeyProviderConfig implements
     private final Boolean encryptionEnabled;
     private final String kafkaTopicName;
     private final String kafkaTopicNamePrefix;
+    private final String kafkaTopicNameGlob;
+    private final String kafkaTopicNameRegex;
+    private final Pattern compiledTopicNamePattern;
     private final VaultPathExpression pathExpression;
     private final String teamName;
     private final String encryptionKeyAttributeName;
@@ -215,10 +254,55 @@ public final class MultiTopicVaultEncryptionKeyProviderConfig implements
         String kafkaTopicName, String kafkaTopicNamePrefix,
         String vaultPath, String vaultPathTemplate,
         String teamName, String encryptionKeyAttributeName) {
+      this(isDefault, encryptionEnabled, kafkaTopicName, kafkaTopicNamePrefix, null, null,
+          vaultPath, vaultPathTemplate, teamName, encryptionKeyAttributeName);
+    }
+
+    /**
+     * the constructor. Just use the builder which is easier to use.
+     *
+     * @param isDefault                  <code>true</code> its the default/base config
+     * @param encryptionEnabled          <code>true</code> encryption is enabled.
+     *                                   <code>false</code>
+     *                                   encryption is disabled. <code>null</code> encryption is not
+     *                                   defined using that entry.
+     * @param kafkaTopicName             a topic name
+     * @param kafkaTopicNamePrefix       a topic name prefix
+     * @param kafkaTopicNameGlob         a glob pattern for topic names. <code>*</code> matches any
+     *                                   characters, <code>?</code> a single character and
+     *                                   <code>{a,b}</code> one of the alternatives.
+     * @param kafkaTopicNameRegex        a regular expression for topic names. It must match the
+     *                                   whole topic name.
+     * @param vaultPath                  a vault path
+     * @param vaultPathTemplate          a vault path template. Valid placeholders are
+     *                                   <code>%TEAMNAME%</code> and <code>%TOPICNAME%</code>
+     * @param teamName                   a team name
+     * @param encryptionKeyAttributeName JSON attribute name of the encryption key within the vault
+     *                                   payload
+     * @see #builder()
+     */
+    public KafkaTopicConfigEntry(boolean isDefault, Boolean encryptionEnabled,
+        String kafkaTopicName, String kafkaTopicNamePrefix,
+        String kafkaTopicNameGlob, String kafkaTopicNameRegex,
+        String vaultPath, String vaultPathTemplate,
+        String teamName, String encryptionKeyAttributeName) {
+      if (kafkaTopicNameGlob != null && kafkaTopicNameRegex != null) {
+        throw new VaultConfigException(
+            "Either kafkaTopicNameGlob or kafkaTopicNameRegex can be set, but not both");
+      }
       this.isDefault = isDefault;
       this.encryptionEnabled = encryptionEnabled;
       this.kafkaTopicName = kafkaTopicName;
       this.kafkaTopicNamePrefix = kafkaTopicNamePrefix;
+      this.kafkaTopicNameGlob = kafkaTopicNameGlob;
+      this.kafkaTopicNameRegex = kafkaTopicNameRegex;
+      if (kafkaTopicNameGlob != null) {
+        this.compiledTopicNamePattern = compilePattern(globToRegex(kafkaTopicNameGlob));
+      } else if (kafkaTopicNameRegex != null) {
+        this.compiledTopicNamePattern = compilePattern(kafkaTopicNameRegex);
+      } else {
+        this.compiledTopicNamePattern = null;
+      }
       if (vaultPath == null && vaultPathTemplate == null) {
         this.pathExpression = null;
       } else {
@@ -274,6 +358,31 @@ public final class MultiTopicVaultEncryptionKeyProviderConfig implements
       return kafkaTopicNamePrefix;
     }
 
+    /**
+     * Gets the "kafkaTopicNameGlob" property
+     *
+     * @return a glob pattern for topic names
+     */
+    public String kafkaTopicNameGlob() {
+      return kafkaTopicNameGlob;
+    }
+
+    /**
+     * Gets the "kafkaTopicNameRegex" property
+     *
+     * @return a regular expression for topic names
+     */
+    public String kafkaTopicNameRegex() {
+      return kafkaTopicNameRegex;
+    }
+
+    /**
+     * @return the precompiled glob or regex pattern or <code>null</code>
+     */
+    Pattern compiledTopicNamePattern() {
+      return compiledTopicNamePattern;
+    }
+
     /**
      * Gets the "pathExpression" property
      *
@@ -308,11 +417,59 @@ public final class MultiTopicVaultEncryptionKeyProviderConfig implements
           ", encryptionEnabled=" + encryptionEnabled +
           ", kafkaTopicName='" + kafkaTopicName + '\'' +
           ", kafkaTopicNamePrefix='" + kafkaTopicNamePrefix + '\'' +
+          ", kafkaTopicNameGlob='" + kafkaTopicNameGlob + '\'' +
+          ", kafkaTopicNameRegex='" + kafkaTopicNameRegex + '\'' +
           ", pathExpression='" + pathExpression + '\'' +
           ", teamName='" + teamName + '\'' +
           ", encryptionKeyAttributeName='" + encryptionKeyAttributeName + '\'' +
           '}';
     }
+
+    private static Pattern compilePattern(String regex) {
+      try {
+        return Pattern.compile(regex);
+      } catch (PatternSyntaxException ex) {
+        throw new VaultConfigException("Invalid topic name pattern: " + ex.getMessage());
+      }
+    }
+
+    private static String globToRegex(String glob) {
+      StringBuilder regex = new StringBuilder();
+      StringBuilder literal = new StringBuilder();
+      boolean inAlternatives = false;
+      for (int i = 0; i < glob.length(); i++) {
+        char c = glob.charAt(i);
+        String token = switch (c) {
+          case '*' -> ".*";
+          case '?' -> ".";
+          case '{' -> inAlternatives ? null : "(?:";
+          case '}' -> inAlternatives ? ")" : null;
+          case ',' -> inAlternatives ? "|" : null;
+          default -> null;
+        };
+        if (token == null) {
+          literal.append(c);
+          continue;
+        }
+        if (!literal.isEmpty()) {
+          regex.append(Pattern.quote(literal.toString()));
+          literal.setLength(0);
+        }
+        if (c == '{') {
+          inAlternatives = true;
+        } else if (c == '}') {
+          inAlternatives = false;
+        }
+        regex.append(token);
+      }
+      if (inAlternatives) {
+        throw new VaultConfigException("Invalid topic name glob (missing '}'): " + glob);
+      }
+      if (!literal.isEmpty()) {
+        regex.append(Pattern.quote(literal.toString()));
+      }
+      return regex.toString();
+    }
   }
 
   /**
@@ -324,6 +481,8 @@ public final class MultiTopicVaultEncryptionKeyProviderConfig implements
     private Boolean encryptionEnabled = true;
     private String kafkaTopicName;
     private String kafkaTopicNamePrefix;
+    private String kafkaTopicNameGlob;
+    private String kafkaTopicNameRegex;
     private String vaultPath;
     private String vaultPathTemplate;
     private String teamName;
@@ -382,6 +541,33 @@ public final class MultiTopicVaultEncryptionKeyProviderConfig implements
       return this;
     }
 
+    /**
+     * Sets the "kafkaTopicNameGlob" value. <code>*</code> matches any characters, <code>?</code>
+     * a single character and <code>{a,b}</code> one of the alternatives, e.g.
+     * <code>orders-{eu,us}-*</code>.
+     *
+     * @param kafkaTopicNameGlob the glob pattern of the topic names that should be associated with
+     *                           that config entry
+     * @return the builder
+     */
+    public KafkaTopicConfigEntryBuilder kafkaTopicNameGlob(String kafkaTopicNameGlob) {
+      this.kafkaTopicNameGlob = kafkaTopicNameGlob;
+      return this;
+    }
+
+    /**
+     * Sets the "kafkaTopicNameRegex" value. The regular expression must match the whole topic
+     * name.
+     *
+     * @param kafkaTopicNameRegex the regular expression of the topic names that should be
+     *                            associated with that config entry
+     * @return the builder
+     */
+    public KafkaTopicConfigEntryBuilder kafkaTopicNameRegex(String kafkaTopicNameRegex) {
+      this.kafkaTopicNameRegex = kafkaTopicNameRegex;
+      return this;
+    }
+
     /**
      * Sets the "vaultPath" value.
      *
@@ -437,7 +623,8 @@ public final class MultiTopicVaultEncryptionKeyProviderConfig implements
      */
     public KafkaTopicConfigEntry build() {
       return new KafkaTopicConfigEntry(isDefault, encryptionEnabled, kafkaTopicName,
-          kafkaTopicNamePrefix, vaultPath, vaultPathTemplate, teamName, encryptionKeyAttributeName);
+          kafkaTopicNamePrefix, kafkaTopicNameGlob, kafkaTopicNameRegex, vaultPath,
+          vaultPathTemplate, teamName, encryptionKeyAttributeName);
     }
   }
 
@@ -0,0 +1,242 @@
+package de.otto.kafka.messaging.e2ee.vault;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A VaultEncryptionKeyProviderConfig which can be replaced at runtime, e.g. when a topic has been
+ * added or the encryption of a topic has been switched on. The new config is swapped in
+ * atomically, either by calling {@link #reload(VaultEncryptionKeyProviderConfig)} or by
+ * {@link #watchFile(Path, Function) watching a config file}.
+ * <p>
+ * After a reload, the reload listeners are called with the topics whose settings have changed.
+ * Use them to invalidate the caches of those topics only, so the cached keys of all other topics
+ * survive the reload:
+ *
+ * <pre>{@code
+ * reloadableConfig.addReloadListener(encryptionService::invalidateTopics);
+ * reloadableConfig.addReloadListener(decryptionService::invalidateTopics);
+ * }</pre>
+ * <p>
+ * The vault connection is created once by the {@link VaultEncryptionKeyProvider}, so changes of the
+ * vault connection config are not applied by a reload.
+ */
+public final class ReloadableVaultEncryptionKeyProviderConfig implements
+    VaultEncryptionKeyProviderConfig {
+
+  private static final Logger log = LoggerFactory.getLogger(
+      ReloadableVaultEncryptionKeyProviderConfig.class);
+
+  private final AtomicReference<VaultEncryptionKeyProviderConfig> currentConfig;
+  private final Set<String> observedTopics = ConcurrentHashMap.newKeySet();
+  private final List<Consumer<Set<String>>> reloadListeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * Constructor of that class.
+   *
+   * @param initialConfig the config which is used until the first reload
+   */
+  public ReloadableVaultEncryptionKeyProviderConfig(
+      VaultEncryptionKeyProviderConfig initialConfig) {
+    Objects.requireNonNull(initialConfig, "initialConfig is required");
+    this.currentConfig = new AtomicReference<>(initialConfig);
+  }
+
+  /**
+   * Adds a listener which is called after each reload with the names of the topics whose settings
+   * (encryption flag, vault path or encryption key attribute name) have changed.
+   *
+   * @param reloadListener the listener
+   */
+  public void addReloadListener(Consumer<Set<String>> reloadListener) {
+    reloadListeners.add(Objects.requireNonNull(reloadListener, "reloadListener is required"));
+  }
+
+  /**
+   * Replaces the current config.
+   *
+   * @param newConfig the new config
+   * @return the names of the topics whose settings have changed
+   */
+  public Set<String> reload(VaultEncryptionKeyProviderConfig newConfig) {
+    Objects.requireNonNull(newConfig, "newConfig is required");
+    VaultEncryptionKeyProviderConfig oldConfig = currentConfig.getAndSet(newConfig);
+
+    Set<String> affectedTopics = new HashSet<>();
+    for (String topic : observedTopics) {
+      if (!TopicSettings.of(oldConfig, topic).equals(TopicSettings.of(newConfig, topic))) {
+        affectedTopics.add(topic);
+      }
+    }
+    Set<String> result = Set.copyOf(affectedTopics);
+
+    log.info("Vault encryption key provider config reloaded. Affected topics: {}", result);
+    if (!result.isEmpty()) {
+      for (Consumer<Set<String>> reloadListener : reloadListeners) {
+        try {
+          reloadListener.accept(result);
+        } catch (RuntimeException ex) {
+          log.warn("Reload listener failed", ex);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Watches the given file and reloads the config whenever its content or modification time has
+   * changed. When the new config cannot be loaded, the current config is kept.
+   * <p>
+   * Each change within the directory of the file is checked, because Kubernetes ConfigMap and
+   * Secret volumes are updated by swapping a <code>..data</code> symlink. Then no event names the
+   * file itself.
+   *
+   * @param configFile   the config file
+   * @param configLoader creates a config from the file
+   * @return call {@link Closeable#close()} to stop watching
+   * @throws IOException when the file watcher cannot be registered
+   */
+  public Closeable watchFile(Path configFile,
+      Function<Path, VaultEncryptionKeyProviderConfig> configLoader) throws IOException {
+    Objects.requireNonNull(configFile, "configFile is required");
+    Objects.requireNonNull(configLoader, "configLoader is required");
+    Path absoluteConfigFile = configFile.toAbsolutePath();
+    Path directory = absoluteConfigFile.getParent();
+
+    WatchService watchService = FileSystems.getDefault().newWatchService();
+    directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    AtomicReference<FileState> lastFileState = new AtomicReference<>(
+        FileState.of(absoluteConfigFile));
+
+    Thread watcherThread = new Thread(() -> {
+      try {
+        while (!Thread.currentThread().isInterrupted()) {
+          WatchKey watchKey = watchService.take();
+          watchKey.pollEvents();
+          watchKey.reset();
+          FileState fileState = FileState.of(absoluteConfigFile);
+          // the file may be missing for a moment while the symlinks are swapped
+          if (fileState != null && !fileState.equals(lastFileState.get())) {
+            lastFileState.set(fileState);
+            reloadFromFile(absoluteConfigFile, configLoader);
+          }
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      } catch (ClosedWatchServiceException ex) {
+        // watching has been stopped
+      }
+    }, "vault-config-watcher");
+    watcherThread.setDaemon(true);
+    watcherThread.start();
+
+    return () -> {
+      watcherThread.interrupt();
+      watchService.close();
+    };
+  }
+
+  private void reloadFromFile(Path configFile,
+      Function<Path, VaultEncryptionKeyProviderConfig> configLoader) {
+    try {
+      reload(configLoader.apply(configFile));
+    } catch (RuntimeException ex) {
+      log.warn("Failed to reload vault config from {}. Keep current config.", configFile, ex);
+    }
+  }
+
+  @Override
+  public ReadonlyVaultApi createReadonlyVault() {
+    return currentConfig.get().createReadonlyVault();
+  }
+
+  @Override
+  public ReadonlyVaultApi createVault() {
+    return currentConfig.get().createVault();
+  }
+
+  @Override
+  public boolean isEncryptedTopic(String kafkaTopicName) {
+    observe(kafkaTopicName);
+    return currentConfig.get().isEncryptedTopic(kafkaTopicName);
+  }
+
+  @Override
+  public String vaultPath(String kafkaTopicName) {
+    observe(kafkaTopicName);
+    return currentConfig.get().vaultPath(kafkaTopicName);
+  }
+
+  @Override
+  public String encryptionKeyAttributeName(String kafkaTopicName) {
+    observe(kafkaTopicName);
+    return currentConfig.get().encryptionKeyAttributeName(kafkaTopicName);
+  }
+
+  private void observe(String kafkaTopicName) {
+    // avoid the write lock of add() for already known topics
+    if (!observedTopics.contains(kafkaTopicName)) {
+      observedTopics.add(kafkaTopicName);
+    }
+  }
+
+  /**
+   * Modification time and content hash of the config file (following symlinks).
+   */
+  private record FileState(FileTime lastModifiedTime, String contentHash) {
+
+    static FileState of(Path file) {
+      try {
+        byte[] content = Files.readAllBytes(file);
+        String contentHash = HexFormat.of().formatHex(
+            MessageDigest.getInstance("SHA-256").digest(content));
+        return new FileState(Files.getLastModifiedTime(file), contentHash);
+      } catch (IOException ex) {
+        return null;
+      } catch (NoSuchAlgorithmException ex) {
+        throw new IllegalStateException(ex);
+      }
+    }
+  }
+
+  private record TopicSettings(
+      boolean encryptionEnabled,
+      String vaultPath,
+      String encryptionKeyAttributeName
+  ) {
+
+    static TopicSettings of(VaultEncryptionKeyProviderConfig config, String topic) {
+      String vaultPath;
+      try {
+        vaultPath = config.vaultPath(topic);
+      } catch (RuntimeException ex) {
+        vaultPath = null;
+      }
+      return new TopicSettings(config.isEncryptedTopic(topic), vaultPath,
+          config.encryptionKeyAttributeName(topic));
+    }
+  }
+}
@@ -80,6 +80,15 @@ public final class SingleTopicVaultEncryptionKeyProviderConfig
     }
   }
 
+  @Override
+  public ReadonlyVaultApi createVault() {
+    try {
+      return vaultConnectionConfig.createReadonlyVault();
+    } catch (VaultException e) {
+      throw new VaultRuntimeException(e);
+    }
+  }
+
   @Override
   public boolean isEncryptedTopic(String kafkaTopicName) {
     if (this.kafkaTopicName == null) {
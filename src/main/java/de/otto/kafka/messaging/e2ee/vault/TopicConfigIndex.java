@@ -0,0 +1,165 @@
+package de.otto.kafka.messaging.e2ee.vault;
+
+import de.otto.kafka.messaging.e2ee.vault.MultiTopicVaultEncryptionKeyProviderConfig.KafkaTopicConfigEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Index of the config entries of a {@link MultiTopicVaultEncryptionKeyProviderConfig}. The exact
+ * topic names are kept in a hash map, the glob and regex patterns are precompiled and the topic
+ * name prefixes are kept in a prefix trie, so only the matching config entries have to be
+ * considered for a topic.
+ * <p>
+ * Selection rules for each value (only entries with a non-null value are considered):
+ * <ol>
+ *   <li>the first entry with a matching exact topic name</li>
+ *   <li>the first entry with a matching glob or regex pattern</li>
+ *   <li>the entry with the longest matching topic name prefix. The default entry counts as a
+ *   prefix of length 0. On ties the entry which comes first wins.</li>
+ * </ol>
+ */
+final class TopicConfigIndex {
+
+  private final List<KafkaTopicConfigEntry> configEntries;
+  private final Map<String, List<Integer>> exactMatches = new HashMap<>();
+  private final List<Integer> defaultEntries = new ArrayList<>();
+  private final List<Integer> patternEntries = new ArrayList<>();
+  private final TrieNode prefixTrie = new TrieNode();
+
+  TopicConfigIndex(List<KafkaTopicConfigEntry> configEntries) {
+    this.configEntries = configEntries;
+    for (int index = 0; index < configEntries.size(); index++) {
+      KafkaTopicConfigEntry configEntry = configEntries.get(index);
+      if (configEntry.isDefault()) {
+        defaultEntries.add(index);
+      }
+      if (configEntry.kafkaTopicName() != null) {
+        exactMatches.computeIfAbsent(configEntry.kafkaTopicName(), name -> new ArrayList<>())
+            .add(index);
+      }
+      if (configEntry.compiledTopicNamePattern() != null) {
+        patternEntries.add(index);
+      }
+      if (configEntry.kafkaTopicNamePrefix() != null) {
+        prefixTrie.insert(configEntry.kafkaTopicNamePrefix(), index);
+      }
+    }
+  }
+
+  /**
+   * Collects all config entries which match the given topic.
+   *
+   * @param topic the kafka topic name
+   * @return the matching config entries
+   */
+  TopicMatches match(String topic) {
+    List<Integer> exactIndexes = exactMatches.getOrDefault(topic, List.of());
+
+    // score of each candidate: prefix length or 0 for default entries
+    Map<Integer, Integer> candidateScores = new HashMap<>();
+    for (Integer index : defaultEntries) {
+      candidateScores.put(index, 0);
+    }
+    prefixTrie.collectMatches(topic, (index, score) -> candidateScores.merge(index, score,
+        Math::max));
+
+    List<Candidate> candidates = new ArrayList<>(candidateScores.size());
+    candidateScores.forEach((index, score) ->
+        candidates.add(new Candidate(configEntries.get(index), index, score)));
+    // best score first, on ties the entry which comes first
+    candidates.sort((c1, c2) -> c1.score() != c2.score()
+        ? Integer.compare(c2.score(), c1.score())
+        : Integer.compare(c1.index(), c2.index()));
+
+    List<KafkaTopicConfigEntry> exactEntries = new ArrayList<>(exactIndexes.size());
+    for (Integer index : exactIndexes) {
+      exactEntries.add(configEntries.get(index));
+    }
+    List<KafkaTopicConfigEntry> matchingPatternEntries = new ArrayList<>();
+    for (Integer index : patternEntries) {
+      KafkaTopicConfigEntry configEntry = configEntries.get(index);
+      if (configEntry.compiledTopicNamePattern().matcher(topic).matches()) {
+        matchingPatternEntries.add(configEntry);
+      }
+    }
+    return new TopicMatches(exactEntries, matchingPatternEntries, candidates);
+  }
+
+  /**
+   * The config entries which match a topic.
+   *
+   * @param exactEntries   entries with a matching topic name, in config order
+   * @param patternEntries entries with a matching glob or regex pattern, in config order
+   * @param candidates     default and prefix entries, best match first
+   */
+  record TopicMatches(
+      List<KafkaTopicConfigEntry> exactEntries,
+      List<KafkaTopicConfigEntry> patternEntries,
+      List<Candidate> candidates
+  ) {
+
+    <T> T getValue(Function<KafkaTopicConfigEntry, T> mapping, T defaultValue) {
+      for (KafkaTopicConfigEntry configEntry : exactEntries) {
+        T value = mapping.apply(configEntry);
+        if (value != null) {
+          return value;
+        }
+      }
+      for (KafkaTopicConfigEntry configEntry : patternEntries) {
+        T value = mapping.apply(configEntry);
+        if (value != null) {
+          return value;
+        }
+      }
+      for (Candidate candidate : candidates) {
+        T value = mapping.apply(candidate.configEntry());
+        if (value != null) {
+          return value;
+        }
+      }
+      return defaultValue;
+    }
+  }
+
+  record Candidate(KafkaTopicConfigEntry configEntry, int index, int score) {
+
+  }
+
+  @FunctionalInterface
+  private interface MatchConsumer {
+
+    void accept(int index, int score);
+  }
+
+  private static final class TrieNode {
+
+    private final Map<Character, TrieNode> children = new HashMap<>();
+    private final List<Integer> entryIndexes = new ArrayList<>();
+
+    void insert(String prefix, int index) {
+      TrieNode node = this;
+      for (int i = 0; i < prefix.length(); i++) {
+        node = node.children.computeIfAbsent(prefix.charAt(i), c -> new TrieNode());
+      }
+      node.entryIndexes.add(index);
+    }
+
+    void collectMatches(String topic, MatchConsumer consumer) {
+      TrieNode node = this;
+      int depth = 0;
+      while (node != null) {
+        for (Integer index : node.entryIndexes) {
+          consumer.accept(index, depth);
+        }
+        if (depth == topic.length()) {
+          return;
+        }
+        node = node.children.get(topic.charAt(depth));
+        depth++;
+      }
+    }
+  }
+}
@@ -0,0 +1,420 @@
+package de.otto.kafka.messaging.e2ee.vault;
+
+import de.otto.kafka.messaging.e2ee.vault.VaultConnectionConfig.VaultAgent;
+import io.github.jopenlibs.vault.VaultException;
+import io.github.jopenlibs.vault.api.Logical.logicalOperations;
+import io.github.jopenlibs.vault.response.LogicalResponse;
+import io.github.jopenlibs.vault.rest.RestResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Inet6Address;
+import java.net.InetSocketAddress;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.URI;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A ReadonlyVaultApi which reads the secrets from a local vault agent (e.g. a sidecar with
+ * enabled cache) via a unix domain socket or a loopback TCP connection. The vault agent handles the
+ * authentication, so no login round-trips are needed.
+ * <p>
+ * The connections are kept alive and reused, so a read needs no connection setup.
+ * <p>
+ * Only KV Secrets Engine version 2 is supported. The first path element is used as the mount
+ * point, just like the vault driver does.
+ *
+ * @see VaultConnectionConfig.VaultConnectionConfigBuilder#vaultAgent(VaultAgent)
+ */
+public final class VaultAgentVault implements ReadonlyVaultApi, AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(VaultAgentVault.class);
+  private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+  private static final int MAX_IDLE_CONNECTIONS = 8;
+  private static final byte[] HEADER_END = {'\r', '\n', '\r', '\n'};
+  private static final byte[] CRLF = {'\r', '\n'};
+  private static final ScheduledExecutorService TIMEOUT_SCHEDULER =
+      Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "vault-agent-timeout");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  private final SocketAddress socketAddress;
+  private final String hostHeader;
+  private final String token;
+  private final Duration timeout;
+  private final BlockingQueue<SocketChannel> idleChannels =
+      new ArrayBlockingQueue<>(MAX_IDLE_CONNECTIONS);
+
+  /**
+   * Constructor of that class.
+   *
+   * @param vaultAgent the vault agent configuration
+   * @param token      a token which is sent to the vault agent or <code>null</code> when the vault
+   *                   agent should use its auto-auth token
+   */
+  public VaultAgentVault(VaultAgent vaultAgent, String token) {
+    this(toSocketAddress(vaultAgent), toHostHeader(vaultAgent), token, DEFAULT_TIMEOUT);
+  }
+
+  VaultAgentVault(SocketAddress socketAddress, String hostHeader, String token,
+      Duration timeout) {
+    this.socketAddress = Objects.requireNonNull(socketAddress, "socketAddress is required");
+    this.hostHeader = Objects.requireNonNull(hostHeader, "hostHeader is required");
+    this.token = token;
+    this.timeout = Objects.requireNonNull(timeout, "timeout is required");
+  }
+
+  @Override
+  public LogicalResponse read(String path) throws VaultException {
+    return get(toDataPath(path));
+  }
+
+  @Override
+  public LogicalResponse read(String path, int version) throws VaultException {
+    return get(toDataPath(path) + "?version=" + version);
+  }
+
+  private LogicalResponse get(String requestTarget) throws VaultException {
+    RestResponse restResponse;
+    try {
+      restResponse = exchange(requestTarget);
+    } catch (IOException ex) {
+      throw new VaultException(ex);
+    }
+
+    int status = restResponse.getStatus();
+    // same behaviour as the vault driver: 4xx responses are returned, other errors are thrown
+    if (status != 200 && (status < 400 || status >= 500)) {
+      throw new VaultException("Vault agent responded with HTTP status code: " + status
+          + "\nResponse body: " + new String(restResponse.getBody(), StandardCharsets.UTF_8),
+          status);
+    }
+    return new LogicalResponse(restResponse, 0, logicalOperations.readV2);
+  }
+
+  private RestResponse exchange(String requestTarget) throws IOException, VaultException {
+    byte[] request = createRequest(requestTarget);
+    SocketChannel idleChannel = idleChannels.poll();
+    if (idleChannel != null) {
+      try {
+        return exchange(idleChannel, request);
+      } catch (IOException ex) {
+        // the vault agent may have closed the idle connection in the meantime
+        log.debug("Idle connection to the vault agent failed. Open a new one.", ex);
+      }
+    }
+    return exchange(openChannel(), request);
+  }
+
+  private SocketChannel openChannel() throws IOException {
+    SocketChannel channel = SocketChannel.open(protocolFamily());
+    try {
+      channel.connect(socketAddress);
+    } catch (IOException ex) {
+      channel.close();
+      throw ex;
+    }
+    return channel;
+  }
+
+  private RestResponse exchange(SocketChannel channel, byte[] request)
+      throws IOException, VaultException {
+    // blocking channels have no read timeout, so the channel is closed when the time is up
+    ScheduledFuture<?> timeoutTask = TIMEOUT_SCHEDULER.schedule(() -> closeQuietly(channel),
+        timeout.toMillis(), TimeUnit.MILLISECONDS);
+    boolean keepAlive = false;
+    try {
+      ByteBuffer requestBuffer = ByteBuffer.wrap(request);
+      while (requestBuffer.hasRemaining()) {
+        channel.write(requestBuffer);
+      }
+
+      byte[] response = new byte[8192];
+      int length = 0;
+      int responseEnd = -1;
+      while (responseEnd < 0) {
+        if (length == response.length) {
+          response = Arrays.copyOf(response, response.length * 2);
+        }
+        int read = channel.read(ByteBuffer.wrap(response, length, response.length - length));
+        if (read < 0) {
+          if (length == 0) {
+            throw new EOFException("Connection closed by the vault agent");
+          }
+          break;
+        }
+        length += read;
+        responseEnd = responseEnd(response, length);
+      }
+      if (responseEnd < 0) {
+        // the response is delimited by the end of the connection
+        return parseResponse(Arrays.copyOf(response, length));
+      }
+      RestResponse restResponse = parseResponse(Arrays.copyOf(response, responseEnd));
+      keepAlive = responseEnd == length && isKeepAlive(response, responseEnd);
+      return restResponse;
+    } catch (AsynchronousCloseException ex) {
+      if (timeoutTask.isDone()) {
+        throw new VaultException("Vault agent has not answered in time");
+      }
+      throw ex;
+    } finally {
+      timeoutTask.cancel(false);
+      if (!keepAlive || !channel.isOpen() || !idleChannels.offer(channel)) {
+        closeQuietly(channel);
+      }
+    }
+  }
+
+  private ProtocolFamily protocolFamily() {
+    if (socketAddress instanceof UnixDomainSocketAddress) {
+      return StandardProtocolFamily.UNIX;
+    }
+    InetSocketAddress inetSocketAddress = (InetSocketAddress) socketAddress;
+    return inetSocketAddress.getAddress() instanceof Inet6Address
+        ? StandardProtocolFamily.INET6 : StandardProtocolFamily.INET;
+  }
+
+  /**
+   * Closes the idle connections to the vault agent.
+   */
+  @Override
+  public void close() {
+    SocketChannel channel;
+    while ((channel = idleChannels.poll()) != null) {
+      closeQuietly(channel);
+    }
+  }
+
+  private static void closeQuietly(SocketChannel channel) {
+    try {
+      channel.close();
+    } catch (IOException ex) {
+      log.debug("Failed to close the connection to the vault agent", ex);
+    }
+  }
+
+  private byte[] createRequest(String requestTarget) {
+    StringBuilder request = new StringBuilder()
+        .append("GET ").append(requestTarget).append(" HTTP/1.1\r\n")
+        .append("Host: ").append(hostHeader).append("\r\n")
+        .append("X-Vault-Request: true\r\n");
+    if (token != null) {
+      request.append("X-Vault-Token: ").append(token).append("\r\n");
+    }
+    request.append("\r\n");
+    return request.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @param data   the bytes received so far
+   * @param length number of received bytes
+   * @return the length of the complete response or -1 when the response is incomplete or is
+   * delimited by the end of the connection
+   */
+  static int responseEnd(byte[] data, int length) throws VaultException {
+    int headerEnd = indexOf(data, HEADER_END, 0, length);
+    if (headerEnd < 0) {
+      return -1;
+    }
+    ResponseHead head = ResponseHead.parse(data, headerEnd);
+    int bodyStart = headerEnd + HEADER_END.length;
+    if (head.chunked()) {
+      return chunkedBodyEnd(data, length, bodyStart);
+    }
+    if (head.contentLength() >= 0) {
+      int end = bodyStart + head.contentLength();
+      return end <= length ? end : -1;
+    }
+    return -1;
+  }
+
+  private static boolean isKeepAlive(byte[] response, int length) throws VaultException {
+    ResponseHead head = ResponseHead.parse(response, indexOf(response, HEADER_END, 0, length));
+    return head.http11() && !head.connectionClose();
+  }
+
+  private static int chunkedBodyEnd(byte[] data, int length, int start) {
+    int position = start;
+    while (true) {
+      int lineEnd = indexOf(data, CRLF, position, length);
+      if (lineEnd < 0) {
+        return -1;
+      }
+      int chunkSize = parseChunkSize(data, position, lineEnd);
+      position = lineEnd + 2;
+      if (chunkSize == 0) {
+        // optional trailer fields, terminated by an empty line
+        if (position + 2 <= length && data[position] == '\r' && data[position + 1] == '\n') {
+          return position + 2;
+        }
+        int trailerEnd = indexOf(data, HEADER_END, position, length);
+        return trailerEnd < 0 ? -1 : trailerEnd + HEADER_END.length;
+      }
+      position += chunkSize + 2;
+      if (position > length) {
+        return -1;
+      }
+    }
+  }
+
+  private static int parseChunkSize(byte[] data, int start, int end) {
+    String sizeLine = new String(data, start, end - start, StandardCharsets.ISO_8859_1);
+    int extension = sizeLine.indexOf(';');
+    return Integer.parseInt(
+        (extension < 0 ? sizeLine : sizeLine.substring(0, extension)).trim(), 16);
+  }
+
+  static RestResponse parseResponse(byte[] response) throws VaultException {
+    int headerEnd = indexOf(response, HEADER_END, 0, response.length);
+    if (headerEnd < 0) {
+      throw new VaultException("Incomplete response from vault agent");
+    }
+    ResponseHead head = ResponseHead.parse(response, headerEnd);
+
+    int bodyStart = headerEnd + HEADER_END.length;
+    byte[] body;
+    if (head.chunked()) {
+      body = decodeChunkedBody(response, bodyStart);
+    } else if (head.contentLength() >= 0) {
+      if (bodyStart + head.contentLength() > response.length) {
+        throw new VaultException("Incomplete response body from vault agent");
+      }
+      body = Arrays.copyOfRange(response, bodyStart, bodyStart + head.contentLength());
+    } else {
+      body = Arrays.copyOfRange(response, bodyStart, response.length);
+    }
+    return new RestResponse(head.status(), head.mimeType(), body);
+  }
+
+  private static byte[] decodeChunkedBody(byte[] response, int start) throws VaultException {
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    int position = start;
+    while (true) {
+      int lineEnd = indexOf(response, CRLF, position, response.length);
+      if (lineEnd < 0) {
+        throw new VaultException("Incomplete chunked response from vault agent");
+      }
+      int chunkSize = parseChunkSize(response, position, lineEnd);
+      position = lineEnd + 2;
+      if (chunkSize == 0) {
+        return body.toByteArray();
+      }
+      if (position + chunkSize > response.length) {
+        throw new VaultException("Incomplete chunked response from vault agent");
+      }
+      body.write(response, position, chunkSize);
+      // skip chunk data and the trailing CRLF
+      position += chunkSize + 2;
+    }
+  }
+
+  private static int indexOf(byte[] data, byte[] pattern, int fromIndex, int length) {
+    outer:
+    for (int i = fromIndex; i <= length - pattern.length; i++) {
+      for (int j = 0; j < pattern.length; j++) {
+        if (data[i + j] != pattern[j]) {
+          continue outer;
+        }
+      }
+      return i;
+    }
+    return -1;
+  }
+
+  /**
+   * The status line and the headers of a response which are needed to read it.
+   */
+  private record ResponseHead(
+      int status,
+      boolean http11,
+      String mimeType,
+      int contentLength,
+      boolean chunked,
+      boolean connectionClose
+  ) {
+
+    static ResponseHead parse(byte[] response, int headerEnd) throws VaultException {
+      String[] headerLines = new String(response, 0, headerEnd, StandardCharsets.ISO_8859_1)
+          .split("\r\n");
+      String[] statusLine = headerLines[0].split(" ", 3);
+      if (statusLine.length < 2 || !statusLine[0].startsWith("HTTP/")) {
+        throw new VaultException("Invalid status line from vault agent: " + headerLines[0]);
+      }
+      int status = Integer.parseInt(statusLine[1]);
+
+      String mimeType = null;
+      int contentLength = -1;
+      boolean chunked = false;
+      boolean connectionClose = false;
+      for (int i = 1; i < headerLines.length; i++) {
+        int colon = headerLines[i].indexOf(':');
+        if (colon < 0) {
+          continue;
+        }
+        String name = headerLines[i].substring(0, colon).trim().toLowerCase(Locale.ROOT);
+        String value = headerLines[i].substring(colon + 1).trim();
+        switch (name) {
+          case "content-type" -> mimeType = value;
+          case "content-length" -> contentLength = Integer.parseInt(value);
+          case "transfer-encoding" ->
+              chunked = value.toLowerCase(Locale.ROOT).contains("chunked");
+          case "connection" -> connectionClose = value.equalsIgnoreCase("close");
+          default -> {
+            // not needed
+          }
+        }
+      }
+      return new ResponseHead(status, statusLine[0].equals("HTTP/1.1"), mimeType, contentLength,
+          chunked, connectionClose);
+    }
+  }
+
+  static String toDataPath(String path) {
+    // KV v2: secret/hello -> /v1/secret/data/hello
+    String trimmedPath = path.startsWith("/") ? path.substring(1) : path;
+    int firstSlash = trimmedPath.indexOf('/');
+    if (firstSlash < 0) {
+      return "/v1/" + trimmedPath + "/data";
+    }
+    return "/v1/" + trimmedPath.substring(0, firstSlash) + "/data"
+        + trimmedPath.substring(firstSlash);
+  }
+
+  private static SocketAddress toSocketAddress(VaultAgent vaultAgent) {
+    Objects.requireNonNull(vaultAgent, "vaultAgent is required");
+    if (vaultAgent.unixSocketPath() != null) {
+      return UnixDomainSocketAddress.of(vaultAgent.unixSocketPath());
+    }
+    // the address has been validated by VaultAgent
+    URI uri = URI.create(vaultAgent.address());
+    return new InetSocketAddress(uri.getHost(), uri.getPort() < 0 ? 80 : uri.getPort());
+  }
+
+  private static String toHostHeader(VaultAgent vaultAgent) {
+    if (vaultAgent.unixSocketPath() != null) {
+      return "localhost";
+    }
+    return URI.create(vaultAgent.address()).getAuthority();
+  }
+}
@@ -0,0 +1,220 @@
+package de.otto.kafka.messaging.e2ee.vault;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A circuit breaker for the vault access. After a number of consecutive failures the circuit is
+ * opened and all vault requests fail fast with a {@link VaultCircuitOpenException}. When the
+ * (jittered) backoff has elapsed a single probe request is let through ("half-open"). If the probe
+ * succeeds, the circuit is closed again. Otherwise, the circuit is opened again with an
+ * exponentially increased backoff.
+ *
+ * @see VaultEncryptionKeyProvider#VaultEncryptionKeyProvider(VaultEncryptionKeyProviderConfig,
+ * VaultCircuitBreaker)
+ */
+public final class VaultCircuitBreaker {
+
+  private static final Logger log = LoggerFactory.getLogger(VaultCircuitBreaker.class);
+
+  private final int failureThreshold;
+  private final Duration initialBackoff;
+  private final Duration maxBackoff;
+  private final Clock clock;
+
+  private State state = State.CLOSED;
+  private int consecutiveFailures = 0;
+  private Duration currentBackoff;
+  private Instant openUntil = Instant.MIN;
+
+  /**
+   * Constructor of that class.
+   *
+   * @param failureThreshold number of consecutive failures which opens the circuit
+   * @param initialBackoff   the duration the circuit stays open after it has been opened the first
+   *                         time
+   * @param maxBackoff       the maximum duration the circuit stays open
+   * @param clock            a clock (used in unit tests)
+   * @see #builder()
+   */
+  public VaultCircuitBreaker(int failureThreshold, Duration initialBackoff, Duration maxBackoff,
+      Clock clock) {
+    if (failureThreshold < 1) {
+      throw new IllegalArgumentException("failureThreshold must be at least 1");
+    }
+    this.failureThreshold = failureThreshold;
+    this.initialBackoff = Objects.requireNonNull(initialBackoff, "initialBackoff is required");
+    this.maxBackoff = Objects.requireNonNull(maxBackoff, "maxBackoff is required");
+    this.clock = Objects.requireNonNull(clock, "clock is required");
+    if (maxBackoff.compareTo(initialBackoff) < 0) {
+      throw new IllegalArgumentException("maxBackoff must not be shorter than initialBackoff");
+    }
+    this.currentBackoff = initialBackoff;
+  }
+
+  /**
+   * Returns a builder for that class.
+   *
+   * @return a builder for that class
+   */
+  public static VaultCircuitBreakerBuilder builder() {
+    return new VaultCircuitBreakerBuilder();
+  }
+
+  /**
+   * Must be called before each vault request.
+   *
+   * @throws VaultCircuitOpenException when the circuit is open or when another caller is already
+   *                                   probing the vault
+   */
+  public synchronized void acquirePermission() {
+    if (state == State.CLOSED) {
+      return;
+    }
+    if (state == State.OPEN && !Instant.now(clock).isBefore(openUntil)) {
+      log.info("Vault circuit breaker is half-open. Send a probe request to the vault.");
+      state = State.HALF_OPEN;
+      return;
+    }
+    throw new VaultCircuitOpenException(
+        "Vault circuit breaker is " + state + ". Vault requests are rejected until " + openUntil,
+        openUntil);
+  }
+
+  /**
+   * Must be called after a successful vault request.
+   */
+  public synchronized void onSuccess() {
+    if (state != State.CLOSED) {
+      log.info("Vault circuit breaker is closed again.");
+    }
+    state = State.CLOSED;
+    consecutiveFailures = 0;
+    currentBackoff = initialBackoff;
+  }
+
+  /**
+   * Must be called after a failed vault request.
+   */
+  public synchronized void onFailure() {
+    if (state == State.HALF_OPEN) {
+      // the probe failed
+      Duration doubledBackoff = currentBackoff.multipliedBy(2);
+      currentBackoff = doubledBackoff.compareTo(maxBackoff) > 0 ? maxBackoff : doubledBackoff;
+      open();
+      log.warn("Vault circuit breaker is open again after a failed probe request. Retry at {}",
+          openUntil);
+      return;
+    }
+
+    consecutiveFailures++;
+    if (state == State.CLOSED && consecutiveFailures >= failureThreshold) {
+      open();
+      log.warn("Vault circuit breaker is open after {} consecutive failures. Retry at {}",
+          consecutiveFailures, openUntil);
+    }
+  }
+
+  /**
+   * Checks whether vault requests are currently rejected.
+   *
+   * @return <code>true</code> when the circuit is not closed
+   */
+  public synchronized boolean isOpen() {
+    return state != State.CLOSED;
+  }
+
+  private void open() {
+    // use "equal jitter", so not all instances probe the vault at the same time
+    long backoffMillis = currentBackoff.toMillis();
+    long jitteredBackoffMillis = backoffMillis / 2
+        + ThreadLocalRandom.current().nextLong(backoffMillis / 2 + 1);
+    openUntil = Instant.now(clock).plusMillis(jitteredBackoffMillis);
+    state = State.OPEN;
+  }
+
+  private enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  /**
+   * Builder for VaultCircuitBreaker instances.
+   */
+  public static class VaultCircuitBreakerBuilder {
+
+    private int failureThreshold = 5;
+    private Duration initialBackoff = Duration.ofSeconds(10);
+    private Duration maxBackoff = Duration.ofMinutes(5);
+    private Clock clock;
+
+    /**
+     * The standard constructor.
+     */
+    public VaultCircuitBreakerBuilder() {
+    }
+
+    /**
+     * Sets the number of consecutive failures which opens the circuit. Default value is 5.
+     *
+     * @param failureThreshold number of consecutive failures
+     * @return this
+     */
+    public VaultCircuitBreakerBuilder failureThreshold(int failureThreshold) {
+      this.failureThreshold = failureThreshold;
+      return this;
+    }
+
+    /**
+     * Sets the duration the circuit stays open after it has been opened the first time. Default
+     * value is 10 seconds.
+     *
+     * @param initialBackoff the initial backoff
+     * @return this
+     */
+    public VaultCircuitBreakerBuilder initialBackoff(Duration initialBackoff) {
+      this.initialBackoff = initialBackoff;
+      return this;
+    }
+
+    /**
+     * Sets the maximum duration the circuit stays open. Default value is 5 minutes.
+     *
+     * @param maxBackoff the maximum backoff
+     * @return this
+     */
+    public VaultCircuitBreakerBuilder maxBackoff(Duration maxBackoff) {
+      this.maxBackoff = maxBackoff;
+      return this;
+    }
+
+    /**
+     * Sets the clock.
+     *
+     * @param clock a clock (set that for tests only)
+     * @return this
+     */
+    public VaultCircuitBreakerBuilder clock(Clock clock) {
+      this.clock = clock;
+      return this;
+    }
+
+    /**
+     * Creates the VaultCircuitBreaker.
+     *
+     * @return the built VaultCircuitBreaker
+     */
+    public VaultCircuitBreaker build() {
+      if (clock == null) {
+        clock = Clock.systemDefaultZone();
+      }
+      return new VaultCircuitBreaker(failureThreshold, initialBackoff, maxBackoff, clock);
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package de.otto.kafka.messaging.e2ee.vault;
+
+import de.otto.kafka.messaging.e2ee.EncryptionKeyTemporarilyUnavailable;
+import java.time.Instant;
+
+/**
+ * The vault request was rejected, because the vault circuit breaker is open.
+ *
+ * @see VaultCircuitBreaker
+ */
+public class VaultCircuitOpenException extends VaultRuntimeException implements
+    EncryptionKeyTemporarilyUnavailable {
+
+  private final Instant retryAt;
+
+  /**
+   * Constructs a new exception with the specified detail message.
+   *
+   * @param message the detail message. The detail message is saved for later retrieval by the
+   *                {@link #getMessage()} method.
+   */
+  public VaultCircuitOpenException(String message) {
+    this(message, null);
+  }
+
+  /**
+   * Constructs a new exception with the specified detail message and retry time.
+   *
+   * @param message the detail message. The detail message is saved for later retrieval by the
+   *                {@link #getMessage()} method.
+   * @param retryAt the time at which the circuit breaker lets the next request through. Can be
+   *                <code>null</code>.
+   */
+  public VaultCircuitOpenException(String message, Instant retryAt) {
+    super(message);
+    this.retryAt = retryAt;
+  }
+
+  @Override
+  public Instant retryAt() {
+    return retryAt;
+  }
+}
@@ -2,22 +2,36 @@ package de.otto.kafka.messaging.e2ee.vault;
 
 import io.github.jopenlibs.vault.VaultConfig;
 import io.github.jopenlibs.vault.VaultException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
 import java.util.Objects;
 
 /**
  * Basic vault connection configuration.
  *
- * @param address     the URL of the vault
- * @param token       authentification token or <code>null</code>
- * @param appRole     app role configuration or <code>null</code>
- * @param awsIamLogin AWS IAM login configuration or <code>null</code>
+ * @param address          the URL of the vault
+ * @param token            authentification token or <code>null</code>
+ * @param appRole          app role configuration or <code>null</code>
+ * @param awsIamLogin      AWS IAM login configuration or <code>null</code>
+ * @param standbyAddresses URLs of additional vault nodes (e.g. performance standby nodes) which can
+ *                         serve read requests. Can be empty.
+ * @param hedgedReads      <code>true</code> when a second vault node should be asked when the
+ *                         first one has not answered in time. Requires standby addresses.
+ * @param vaultAgent       local vault agent configuration or <code>null</code>
  */
 public record VaultConnectionConfig(
     String address,
     String token,
     VaultAppRole appRole,
-    VaultAwsIamLogin awsIamLogin
+    VaultAwsIamLogin awsIamLogin,
+    List<String> standbyAddresses,
+    boolean hedgedReads,
+    VaultAgent vaultAgent
 ) {
 
   private static final String DEFAULT_VAULT_URL = "http://localhost:8200";
@@ -25,13 +39,60 @@ public record VaultConnectionConfig(
   /**
    * Constructor with all fields.
    *
-   * @param address     the URL of the vault
-   * @param token       authentification token or <code>null</code>
-   * @param appRole     app role configuration or <code>null</code>
-   * @param awsIamLogin AWS IAM login configuration or <code>null</code>
+   * @param address          the URL of the vault
+   * @param token            authentification token or <code>null</code>
+   * @param appRole          app role configuration or <code>null</code>
+   * @param awsIamLogin      AWS IAM login configuration or <code>null</code>
+   * @param standbyAddresses URLs of additional vault nodes (e.g. performance standby nodes) which
+   *                         can serve read requests. Can be <code>null</code>.
+   * @param hedgedReads      <code>true</code> when a second vault node should be asked when the
+   *                         first one has not answered in time. Requires standby addresses.
+   * @param vaultAgent       local vault agent configuration or <code>null</code>. A token is
+   *                         optional when a vault agent is used.
+   * @see #builder()
+   */
+  public VaultConnectionConfig(String address, String token, VaultAppRole appRole,
+      VaultAwsIamLogin awsIamLogin, List<String> standbyAddresses, boolean hedgedReads,
+      VaultAgent vaultAgent) {
+    List<String> theStandbyAddresses = standbyAddresses == null
+        ? List.of() : List.copyOf(standbyAddresses);
+    if (vaultAgent != null) {
+      validateVaultAgentConfig(appRole, awsIamLogin, theStandbyAddresses);
+    } else {
+      validateAuthMethod(token, appRole, awsIamLogin);
+    }
+    if (hedgedReads && theStandbyAddresses.isEmpty()) {
+      throw new VaultConfigException("Hedged reads require at least one standby address");
+    }
+
+    this.address = Objects.requireNonNullElse(address, DEFAULT_VAULT_URL);
+    this.token = token;
+    this.appRole = appRole;
+    this.awsIamLogin = awsIamLogin;
+    this.standbyAddresses = theStandbyAddresses;
+    this.hedgedReads = hedgedReads;
+    this.vaultAgent = vaultAgent;
+  }
+
+  /**
+   * Constructor for one or more vault nodes.
+   *
+   * @param address          the URL of the vault
+   * @param token            authentification token or <code>null</code>
+   * @param appRole          app role configuration or <code>null</code>
+   * @param awsIamLogin      AWS IAM login configuration or <code>null</code>
+   * @param standbyAddresses URLs of additional vault nodes (e.g. performance standby nodes) which
+   *                         can serve read requests. Can be <code>null</code>.
+   * @param hedgedReads      <code>true</code> when a second vault node should be asked when the
+   *                         first one has not answered in time. Requires standby addresses.
    * @see #builder()
    */
   public VaultConnectionConfig(String address, String token, VaultAppRole appRole,
+      VaultAwsIamLogin awsIamLogin, List<String> standbyAddresses, boolean hedgedReads) {
+    this(address, token, appRole, awsIamLogin, standbyAddresses, hedgedReads, null);
+  }
+
+  private static void validateAuthMethod(String token, VaultAppRole appRole,
       VaultAwsIamLogin awsIamLogin) {
     boolean authMethodSet = appRole != null;
     if (token != null) {
@@ -51,11 +112,31 @@ public record VaultConnectionConfig(
     if (!authMethodSet) {
       throw new VaultConfigException("Neither vault token nor appRole nor awsIamLogin is provided");
     }
+  }
 
-    this.address = Objects.requireNonNullElse(address, DEFAULT_VAULT_URL);
-    this.token = token;
-    this.appRole = appRole;
-    this.awsIamLogin = awsIamLogin;
+  private static void validateVaultAgentConfig(VaultAppRole appRole, VaultAwsIamLogin awsIamLogin,
+      List<String> standbyAddresses) {
+    if (appRole != null || awsIamLogin != null) {
+      throw new VaultConfigException(
+          "The vault agent authenticates itself. Neither appRole nor awsIamLogin must be used.");
+    }
+    if (!standbyAddresses.isEmpty()) {
+      throw new VaultConfigException("Standby addresses must not be used with a vault agent");
+    }
+  }
+
+  /**
+   * Constructor for a single vault node.
+   *
+   * @param address     the URL of the vault
+   * @param token       authentification token or <code>null</code>
+   * @param appRole     app role configuration or <code>null</code>
+   * @param awsIamLogin AWS IAM login configuration or <code>null</code>
+   * @see #builder()
+   */
+  public VaultConnectionConfig(String address, String token, VaultAppRole appRole,
+      VaultAwsIamLogin awsIamLogin) {
+    this(address, token, appRole, awsIamLogin, null, false);
   }
 
   /**
@@ -80,14 +161,49 @@ public record VaultConnectionConfig(
   }
 
   /**
-   * Creates a RenewableVault instance based on the current vault configuration.
+   * Creates a vault API based on the current vault configuration. When a vault agent is
+   * configured, all read requests are sent to the local vault agent. When standby addresses are
+   * configured, the read requests are distributed over all vault nodes.
    *
    * @return the Vault API
    * @throws VaultException on errors related to vault
+   * @see VaultAgentVault
+   * @see MultiEndpointVault
+   */
+  public ReadonlyVaultApi createReadonlyVault() throws VaultException {
+    if (vaultAgent != null) {
+      return new VaultAgentVault(vaultAgent, token);
+    }
+    if (standbyAddresses.isEmpty()) {
+      return createRenewableVault();
+    }
+
+    List<ReadonlyVaultApi> endpoints = new ArrayList<>();
+    endpoints.add(createRenewableVault(address));
+    for (String standbyAddress : standbyAddresses) {
+      endpoints.add(createRenewableVault(standbyAddress));
+    }
+    return new MultiEndpointVault(endpoints, hedgedReads);
+  }
+
+  /**
+   * Creates a RenewableVault instance based on the current vault configuration. The standby
+   * addresses are ignored.
+   *
+   * @return the Vault API
+   * @throws VaultException on errors related to vault
+   * @see #createReadonlyVault()
    */
   public RenewableVault createRenewableVault() throws VaultException {
+    if (vaultAgent != null) {
+      throw new VaultConfigException("A vault agent is configured. Use createReadonlyVault().");
+    }
+    return createRenewableVault(address);
+  }
+
+  private RenewableVault createRenewableVault(String vaultAddress) throws VaultException {
     VaultConfig config = new VaultConfig()
-        .address(address)
+        .address(vaultAddress)
         .token(token)
         // Defaults to "VAULT_OPEN_TIMEOUT" environment variable
         .openTimeout(5)
@@ -111,10 +227,13 @@ public record VaultConnectionConfig(
    */
   public static class VaultConnectionConfigBuilder {
 
+    private final List<String> standbyAddresses = new ArrayList<>();
     private String address;
     private String token;
     private VaultAppRole appRole;
     private VaultAwsIamLogin awsIamLogin;
+    private boolean hedgedReads = false;
+    private VaultAgent vaultAgent;
 
     /**
      * Default constructor
@@ -128,7 +247,20 @@ public record VaultConnectionConfig(
      * @return the VaultConnectionConfig
      */
     public VaultConnectionConfig build() {
-      return new VaultConnectionConfig(address, token, appRole, awsIamLogin);
+      return new VaultConnectionConfig(address, token, appRole, awsIamLogin, standbyAddresses,
+          hedgedReads, vaultAgent);
+    }
+
+    /**
+     * Sets the vaultAgent property. All read requests are sent to the local vault agent, which
+     * handles the authentication. A token is optional in that case.
+     *
+     * @param vaultAgent the local vault agent configuration
+     * @return this builder
+     */
+    public VaultConnectionConfigBuilder vaultAgent(VaultAgent vaultAgent) {
+      this.vaultAgent = vaultAgent;
+      return this;
     }
 
     /**
@@ -142,6 +274,44 @@ public record VaultConnectionConfig(
       return this;
     }
 
+    /**
+     * Adds the URL of another vault node (e.g. a performance standby node) which can serve read
+     * requests. The read requests are distributed over all vault nodes.
+     *
+     * @param standbyAddress the URL of a vault node
+     * @return this builder
+     */
+    public VaultConnectionConfigBuilder standbyAddress(String standbyAddress) {
+      this.standbyAddresses.add(Objects.requireNonNull(standbyAddress, "standbyAddress"));
+      return this;
+    }
+
+    /**
+     * Adds the URLs of other vault nodes (e.g. performance standby nodes) which can serve read
+     * requests. The read requests are distributed over all vault nodes.
+     *
+     * @param standbyAddresses the URLs of the vault nodes
+     * @return this builder
+     * @see #standbyAddress(String)
+     */
+    public VaultConnectionConfigBuilder standbyAddresses(List<String> standbyAddresses) {
+      standbyAddresses.forEach(this::standbyAddress);
+      return this;
+    }
+
+    /**
+     * Sets the hedgedReads property. When <code>true</code> a second vault node is asked when the
+     * first one has not answered within its usual (p95) response time. Default value is
+     * <code>false</code>.
+     *
+     * @param hedgedReads <code>true</code> to enable hedged read requests
+     * @return this builder
+     */
+    public VaultConnectionConfigBuilder hedgedReads(boolean hedgedReads) {
+      this.hedgedReads = hedgedReads;
+      return this;
+    }
+
     /**
      * Sets the token property. Either a token, an appRole or awsIamLogin must be present.
      *
@@ -176,6 +346,127 @@ public record VaultConnectionConfig(
     }
   }
 
+  /**
+   * Local vault agent configuration. Either a unix domain socket path or a loopback address must
+   * be set.
+   *
+   * @param unixSocketPath path of the unix domain socket of the vault agent listener (e.g.
+   *                       <code>/var/run/vault/agent.sock</code>) or <code>null</code>
+   * @param address        the loopback URL of the vault agent listener (e.g.
+   *                       <code>http://127.0.0.1:8100</code>) or <code>null</code>
+   */
+  public record VaultAgent(
+      String unixSocketPath,
+      String address
+  ) {
+
+    /**
+     * Default constructor
+     *
+     * @param unixSocketPath path of the unix domain socket of the vault agent listener or
+     *                       <code>null</code>
+     * @param address        the loopback URL of the vault agent listener or <code>null</code>
+     */
+    public VaultAgent {
+      if ((unixSocketPath == null) == (address == null)) {
+        throw new VaultConfigException(
+            "Exactly one of unixSocketPath or address must be set for the vault agent");
+      }
+      if (address != null) {
+        URI uri;
+        try {
+          uri = new URI(address);
+        } catch (URISyntaxException ex) {
+          throw new VaultConfigException("Invalid vault agent address: " + address);
+        }
+        if (!"http".equals(uri.getScheme())) {
+          throw new VaultConfigException("Only http is supported for the vault agent address");
+        }
+        // the requests are sent unencrypted, so they must not leave the host
+        if (!isLoopbackHost(uri.getHost())) {
+          throw new VaultConfigException(
+              "The vault agent address must be a loopback address: " + address);
+        }
+      }
+    }
+
+    private static boolean isLoopbackHost(String host) {
+      if (host == null) {
+        return false;
+      }
+      if (host.equalsIgnoreCase("localhost")) {
+        return true;
+      }
+      String literal = host.startsWith("[") && host.endsWith("]")
+          ? host.substring(1, host.length() - 1)
+          : host;
+      // only IP literals, so no name is resolved
+      if (!literal.contains(":") && !literal.matches("[0-9.]+")) {
+        return false;
+      }
+      try {
+        return InetAddress.getByName(literal).isLoopbackAddress();
+      } catch (UnknownHostException ex) {
+        return false;
+      }
+    }
+
+    /**
+     * a builder
+     *
+     * @return a new builder instance
+     */
+    public static VaultAgentBuilder builder() {
+      return new VaultAgentBuilder();
+    }
+
+    /**
+     * Builder for VaultAgent
+     */
+    public static class VaultAgentBuilder {
+
+      private String unixSocketPath;
+      private String address;
+
+      /**
+       * Default constructor
+       */
+      public VaultAgentBuilder() {
+      }
+
+      /**
+       * Sets the unixSocketPath property.
+       *
+       * @param unixSocketPath path of the unix domain socket of the vault agent listener
+       * @return this builder
+       */
+      public VaultAgentBuilder unixSocketPath(String unixSocketPath) {
+        this.unixSocketPath = unixSocketPath;
+        return this;
+      }
+
+      /**
+       * Sets the address property.
+       *
+       * @param address the loopback URL of the vault agent listener
+       * @return this builder
+       */
+      public VaultAgentBuilder address(String address) {
+        this.address = address;
+        return this;
+      }
+
+      /**
+       * Creates a vault agent configuration object.
+       *
+       * @return the VaultAgent
+       */
+      public VaultAgent build() {
+        return new VaultAgent(unixSocketPath, address);
+      }
+    }
+  }
+
   /**
    * Vault app role configuration.
    *
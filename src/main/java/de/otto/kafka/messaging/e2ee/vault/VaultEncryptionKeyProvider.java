@@ -4,13 +4,15 @@ import static de.otto.kafka.messaging.e2ee.vault.VaultEncryptionKeyProviderConfi
 
 import de.otto.kafka.messaging.e2ee.EncryptionKeyProvider;
 import io.github.jopenlibs.vault.VaultException;
-import io.github.jopenlibs.vault.json.Json;
 import io.github.jopenlibs.vault.json.JsonObject;
 import io.github.jopenlibs.vault.json.JsonValue;
+import io.github.jopenlibs.vault.response.DataMetadata;
 import io.github.jopenlibs.vault.response.LogicalResponse;
-import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,13 +22,26 @@ import org.slf4j.LoggerFactory;
  * encryption keys. The encryption keys may change over time. Therefor each key version can be
  * accessed via its version. Different topics use different vault paths to store the encryption
  * keys.
+ * <p>
+ * Concurrent reads of the same vault path and version are coalesced. Meaning only one request is
+ * sent to the vault and all callers share its response.
+ * <p>
+ * Optionally, the vault access is guarded by a {@link VaultCircuitBreaker}. While the circuit is
+ * open, the vault is not called and a {@link VaultCircuitOpenException} is thrown, so the caches
+ * can fall back to their (expired) entries.
+ * <p>
+ * Closing the provider closes the vault API when it holds resources, e.g. the threads of the
+ * hedged reads of a {@link MultiEndpointVault}.
  */
-public final class VaultEncryptionKeyProvider implements EncryptionKeyProvider {
+public final class VaultEncryptionKeyProvider implements EncryptionKeyProvider, AutoCloseable {
 
   private static final Logger log = LoggerFactory.getLogger(VaultEncryptionKeyProvider.class);
 
   private final VaultEncryptionKeyProviderConfig config;
-  private ReadonlyVaultApi vault;
+  private final VaultCircuitBreaker circuitBreaker;
+  private final ConcurrentHashMap<VaultReadRequest, CompletableFuture<LogicalResponse>>
+      inFlightReads;
+  private volatile ReadonlyVaultApi vault;
 
   /**
    * Constructor
@@ -34,7 +49,21 @@ public final class VaultEncryptionKeyProvider implements EncryptionKeyProvider {
    * @param config the configuration
    */
   public VaultEncryptionKeyProvider(VaultEncryptionKeyProviderConfig config) {
+    this(config, null);
+  }
+
+  /**
+   * Constructor with a circuit breaker for the vault access.
+   *
+   * @param config         the configuration
+   * @param circuitBreaker the circuit breaker or <code>null</code> when the vault should always be
+   *                       called
+   */
+  public VaultEncryptionKeyProvider(VaultEncryptionKeyProviderConfig config,
+      VaultCircuitBreaker circuitBreaker) {
     this.config = config;
+    this.circuitBreaker = circuitBreaker;
+    this.inFlightReads = new ConcurrentHashMap<>();
     this.vault = null;
   }
 
@@ -47,8 +76,7 @@ public final class VaultEncryptionKeyProvider implements EncryptionKeyProvider {
     LogicalResponse response;
     String path = getPathForTopic(kafkaTopicName);
     try {
-      ReadonlyVaultApi theVault = getOrCreateVault();
-      response = theVault.read(path);
+      response = readCoalesced(new VaultReadRequest(path, null));
       validateResponse(response, () -> "path '" + path + "'");
     } catch (VaultException ex) {
       throw new VaultRuntimeException(ex);
@@ -58,8 +86,9 @@ public final class VaultEncryptionKeyProvider implements EncryptionKeyProvider {
     String usedEncryptionKeyAttributeName = Objects.requireNonNullElse(encryptionKeyAttributeName,
         DEFAULT_ENCRYPTION_KEY_ATTRIBUTE_NAME);
     String key = extractEncryptionKeyFromResponse(response, usedEncryptionKeyAttributeName);
-    OffsetDateTime createdTime = extractCreationTimeFromResponse(response);
-    int version = extractVersionFromResponse(response);
+    DataMetadata metadata = extractMetadataFromResponse(response);
+    OffsetDateTime createdTime = extractCreationTime(metadata);
+    int version = extractVersion(metadata);
 
     if (log.isTraceEnabled()) {
       log.trace("The latest encryption key is {}, version = {}, created at {}", key, version,
@@ -84,8 +113,7 @@ public final class VaultEncryptionKeyProvider implements EncryptionKeyProvider {
     LogicalResponse response;
     String path = getPathForTopic(topic);
     try {
-      ReadonlyVaultApi theVault = getOrCreateVault();
-      response = theVault.read(path, version);
+      response = readCoalesced(new VaultReadRequest(path, version));
       validateResponse(response, () -> "path '" + path + "' and version '" + version + "'");
     } catch (VaultException ex) {
       throw new VaultRuntimeException(ex);
@@ -101,6 +129,94 @@ public final class VaultEncryptionKeyProvider implements EncryptionKeyProvider {
     return config.isEncryptedTopic(kafkaTopicName);
   }
 
+  /**
+   * Closes the vault API, when it has been created and is closeable.
+   */
+  @Override
+  public void close() {
+    ReadonlyVaultApi theVault;
+    synchronized (this) {
+      theVault = vault;
+      vault = null;
+    }
+    if (theVault instanceof AutoCloseable closeable) {
+      try {
+        closeable.close();
+      } catch (Exception ex) {
+        log.warn("Failed to close the vault API", ex);
+      }
+    }
+  }
+
+  /**
+   * Reads the vault secret. When a read of the same path and version is already in flight, the
+   * response of that read is used instead of sending another request to the vault.
+   */
+  private LogicalResponse readCoalesced(VaultReadRequest request) throws VaultException {
+    CompletableFuture<LogicalResponse> newRead = new CompletableFuture<>();
+    CompletableFuture<LogicalResponse> inFlightRead = inFlightReads.putIfAbsent(request, newRead);
+    if (inFlightRead != null) {
+      log.debug("Join in-flight vault read for {}", request);
+      return awaitInFlightRead(inFlightRead);
+    }
+
+    try {
+      LogicalResponse response = readFromVault(request);
+      newRead.complete(response);
+      return response;
+    } catch (VaultException | RuntimeException ex) {
+      newRead.completeExceptionally(ex);
+      throw ex;
+    } finally {
+      inFlightReads.remove(request, newRead);
+    }
+  }
+
+  private LogicalResponse readFromVault(VaultReadRequest request) throws VaultException {
+    if (circuitBreaker == null) {
+      return readFromVaultWithoutCircuitBreaker(request);
+    }
+
+    circuitBreaker.acquirePermission();
+    LogicalResponse response;
+    try {
+      response = readFromVaultWithoutCircuitBreaker(request);
+    } catch (VaultException | RuntimeException ex) {
+      circuitBreaker.onFailure();
+      throw ex;
+    }
+    if (response.getRestResponse().getStatus() >= 500) {
+      circuitBreaker.onFailure();
+    } else {
+      circuitBreaker.onSuccess();
+    }
+    return response;
+  }
+
+  private LogicalResponse readFromVaultWithoutCircuitBreaker(VaultReadRequest request)
+      throws VaultException {
+    ReadonlyVaultApi theVault = getOrCreateVault();
+    if (request.version() == null) {
+      return theVault.read(request.path());
+    }
+    return theVault.read(request.path(), request.version());
+  }
+
+  private LogicalResponse awaitInFlightRead(CompletableFuture<LogicalResponse> inFlightRead)
+      throws VaultException {
+    try {
+      return inFlightRead.join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof VaultException vaultException) {
+        throw vaultException;
+      }
+      if (ex.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw ex;
+    }
+  }
+
   private void validateResponse(LogicalResponse response, Supplier<String> errorMsgSupplier) {
     if (log.isTraceEnabled()) {
       log.trace("status = {} / body = {}", response.getRestResponse().getStatus(),
@@ -134,18 +250,16 @@ public final class VaultEncryptionKeyProvider implements EncryptionKeyProvider {
     return key.asString();
   }
 
-  private int extractVersionFromResponse(LogicalResponse response) {
-    JsonObject metadata = extractMetaDataObjectFromResponse(response);
-    Integer version = metadata.getInt("version");
+  private int extractVersion(DataMetadata metadata) {
+    Long version = metadata.getVersion();
     if (version == null) {
       throw new VaultRuntimeException("Metadata.Version is not valid.");
     }
-    return version;
+    return version.intValue();
   }
 
-  private OffsetDateTime extractCreationTimeFromResponse(LogicalResponse response) {
-    JsonObject metadata = extractMetaDataObjectFromResponse(response);
-    String secretCreatedTime = metadata.getString("created_time");
+  private OffsetDateTime extractCreationTime(DataMetadata metadata) {
+    String secretCreatedTime = metadata.getMetadataMap().get("created_time");
     if (secretCreatedTime == null) {
       throw new VaultRuntimeException("Metadata.CreatedTime is not valid.");
     }
@@ -160,20 +274,16 @@ public final class VaultEncryptionKeyProvider implements EncryptionKeyProvider {
     return dataObject;
   }
 
-  private JsonObject extractMetaDataObjectFromResponse(LogicalResponse response) {
-    String responseText = new String(response.getRestResponse().getBody(),
-        StandardCharsets.UTF_8);
-    JsonObject responseObject = Json.parse(responseText).asObject();
-    JsonValue responseData = responseObject.get("data");
-    JsonValue responseMetaData = responseData.asObject().get("metadata");
-    if (responseMetaData == null) {
+  /**
+   * The metadata has already been parsed by the vault driver together with the data, so the
+   * response body does not need to be parsed again.
+   */
+  private DataMetadata extractMetadataFromResponse(LogicalResponse response) {
+    DataMetadata metadata = response.getDataMetadata();
+    if (metadata == null || metadata.isEmpty()) {
       throw new VaultRuntimeException(
           "Secret is not valid - Missing 'metadata'. KV has not version 2.");
     }
-    JsonObject metadata = responseMetaData.asObject();
-    if (metadata == null) {
-      throw new VaultRuntimeException("Metadata is not valid.");
-    }
     return metadata;
   }
 
@@ -181,10 +291,33 @@ public final class VaultEncryptionKeyProvider implements EncryptionKeyProvider {
     return config.vaultPath(kafkaTopicName);
   }
 
-  private ReadonlyVaultApi getOrCreateVault() throws VaultException {
-    if (vault == null) {
-      this.vault = config.createReadonlyVault();
+  private ReadonlyVaultApi getOrCreateVault() {
+    ReadonlyVaultApi theVault = vault;
+    if (theVault == null) {
+      synchronized (this) {
+        theVault = vault;
+        if (theVault == null) {
+          theVault = config.createVault();
+          this.vault = theVault;
+        }
+      }
+    }
+    return theVault;
+  }
+
+  /**
+   * Key of a vault read.
+   *
+   * @param path    the vault path
+   * @param version the version of the secret or <code>null</code> for the latest version
+   */
+  private record VaultReadRequest(
+      String path,
+      Integer version
+  ) {
+
+    private VaultReadRequest {
+      Objects.requireNonNull(path, "path must not be null");
     }
-    return vault;
   }
 }
@@ -17,6 +17,18 @@ public interface VaultEncryptionKeyProviderConfig {
    */
   ReadonlyVaultApi createReadonlyVault();
 
+  /**
+   * creates the vault API which is used to read the encryption keys. Depending on the connection
+   * config, it distributes the reads over several vault nodes or reads from a local vault agent.
+   * By default, it's the vault API of {@link #createReadonlyVault()}.
+   *
+   * @return a read only vault API
+   * @see VaultConnectionConfig#createReadonlyVault()
+   */
+  default ReadonlyVaultApi createVault() {
+    return createReadonlyVault();
+  }
+
   /**
    * Determines if according to the configuration the topic is encrypted or contains encrypted
    * data.
@@ -2,8 +2,13 @@ package de.otto.kafka.messaging.e2ee;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
 import de.otto.kafka.messaging.e2ee.helper.TestClock;
+import de.otto.kafka.messaging.e2ee.vault.VaultCircuitOpenException;
+import de.otto.kafka.messaging.e2ee.vault.VaultRuntimeException;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import org.junit.jupiter.api.Test;
@@ -30,6 +35,79 @@ class CacheTest {
     assertThat(result3).describedAs("3rd call result").isEqualTo("call-2");
   }
 
+  @Test
+  void shouldUseExpiredValueWhenVaultCircuitIsOpen() {
+    // given: a cache with an expired entry
+    TestClock clock = new TestClock("2023-08-15T15:00Z");
+    Cache<String, String> cache = new Cache<>(Duration.ofHours(1), clock);
+    cache.getOrRetrieve("keyValue", new CacheProvider());
+    clock.setCurrentTime("2023-08-15T16:05Z");
+    // when: cache is called while the vault circuit is open
+    String result = cache.getOrRetrieve("keyValue", key -> {
+      throw new VaultCircuitOpenException("circuit is open");
+    });
+    // then: the expired value should have been returned
+    assertThat(result).isEqualTo("call-1");
+  }
+
+  @Test
+  void shouldExtendExpiredValueUntilRetryTimeWhenVaultCircuitIsOpen() {
+    // given: a cache with an expired entry
+    TestClock clock = new TestClock("2023-08-15T15:00Z");
+    Cache<String, String> cache = new Cache<>(Duration.ofHours(1), clock);
+    CacheProvider cacheProvider = new CacheProvider();
+    cache.getOrRetrieve("keyValue", cacheProvider);
+    clock.setCurrentTime("2023-08-15T16:05Z");
+    AtomicInteger openCircuitCalls = new AtomicInteger();
+    Function<String, String> openCircuit = key -> {
+      openCircuitCalls.incrementAndGet();
+      throw new VaultCircuitOpenException("circuit is open",
+          Instant.parse("2023-08-15T16:10:00Z"));
+    };
+    // when: cache is called several times before the retry time
+    cache.getOrRetrieve("keyValue", openCircuit);
+    clock.setCurrentTime("2023-08-15T16:09Z");
+    String result = cache.getOrRetrieve("keyValue", openCircuit);
+    // then: the vault should have been asked once only
+    assertThat(result).isEqualTo("call-1");
+    assertThat(openCircuitCalls).hasValue(1);
+    // when: the retry time has passed
+    clock.setCurrentTime("2023-08-15T16:11Z");
+    String result2 = cache.getOrRetrieve("keyValue", cacheProvider);
+    // then: the value should have been retrieved again
+    assertThat(result2).isEqualTo("call-2");
+    assertThat(openCircuitCalls).hasValue(1);
+  }
+
+  @Test
+  void shouldNotUseExpiredValueOnOtherVaultErrors() {
+    // given: a cache with an expired entry
+    TestClock clock = new TestClock("2023-08-15T15:00Z");
+    Cache<String, String> cache = new Cache<>(Duration.ofHours(1), clock);
+    cache.getOrRetrieve("keyValue", new CacheProvider());
+    clock.setCurrentTime("2023-08-15T16:05Z");
+    // when: cache is called while the vault fails
+    // then: the exception should be thrown
+    assertThrows(VaultRuntimeException.class, () -> cache.getOrRetrieve("keyValue", key -> {
+      throw new VaultRuntimeException("some vault error");
+    }));
+  }
+
+  @Test
+  void shouldContainOnlyValidEntries() {
+    // given: a cache with one entry
+    TestClock clock = new TestClock("2023-08-15T15:00Z");
+    Cache<String, String> cache = new Cache<>(Duration.ofHours(1), clock);
+    cache.getOrRetrieve("keyValue", new CacheProvider());
+    // then: only the cached key should be contained
+    assertThat(cache.contains("keyValue")).isTrue();
+    assertThat(cache.contains("otherKey")).isFalse();
+    // when: the entry is expired
+    clock.setCurrentTime("2023-08-15T16:05Z");
+    // then: the expired entry should not be contained
+    assertThat(cache.contains("keyValue")).isFalse();
+  }
+
   private static class CacheProvider implements Function<String, String> {
 
     private final AtomicInteger cnt = new AtomicInteger(0);
@@ -8,6 +8,8 @@ import de.otto.kafka.messaging.e2ee.helper.DummyEncryptionKeyProvider;
 import de.otto.kafka.messaging.e2ee.vault.VaultRuntimeException;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 
 class DecryptionServiceTest {
@@ -116,4 +118,86 @@ class DecryptionServiceTest {
     assertThat(decryptionService.hasSameEncryptionFlag("sometopic", unencryptedPayload))
         .isFalse();
   }
-}
\ No newline at end of file
+
+  @Test
+  void shouldRetrieveDecryptionKeyAgainOnlyForInvalidatedTopics() {
+    // given
+    AtomicInteger retrieveCount = new AtomicInteger();
+    EncryptionKeyProvider keyProvider = new DummyEncryptionKeyProvider(
+        "gZvWT1IN0mM5sK3sK0V2Wfzo9Jmk4tUPt7gxRsuN3LY=", "encryption_key", 3) {
+      @Override
+      public String retrieveKeyForDecryption(String topic, int version) {
+        retrieveCount.incrementAndGet();
+        return super.retrieveKeyForDecryption(topic, version);
+      }
+    };
+    DecryptionService decryptionService = new DecryptionService(keyProvider);
+    AesEncryptedPayload encryptedPayload = new AesEncryptedPayload(
+        Base64.getDecoder().decode("6ttHpHYw7eYQ1OnvrhZAFi0PPsUGl9NR18hXFQ=="),
+        "2rW2tDnRdwRg87Ta", 3);
+    decryptionService.decryptToString("topic-a", encryptedPayload);
+    decryptionService.decryptToString("topic-b", encryptedPayload);
+
+    // when
+    decryptionService.invalidateTopics(List.of("topic-a"));
+    String result = decryptionService.decryptToString("topic-a", encryptedPayload);
+    decryptionService.decryptToString("topic-b", encryptedPayload);
+
+    // then
+    assertThat(result).isEqualTo("Hello World!");
+    assertThat(retrieveCount.get()).isEqualTo(3);
+  }
+
+  @Test
+  void shouldDecryptBatchWithOneKeyLookupPerVersion() {
+    // given
+    AtomicInteger retrieveCount = new AtomicInteger();
+    EncryptionKeyProvider keyProvider = new DummyEncryptionKeyProvider(
+        "gZvWT1IN0mM5sK3sK0V2Wfzo9Jmk4tUPt7gxRsuN3LY=", "encryption_key", 3) {
+      @Override
+      public String retrieveKeyForDecryption(String topic, int version) {
+        retrieveCount.incrementAndGet();
+        return super.retrieveKeyForDecryption(topic, version);
+      }
+    };
+    DecryptionService decryptionService = new DecryptionService(keyProvider);
+    AesEncryptedPayload encryptedPayload = new AesEncryptedPayload(
+        Base64.getDecoder().decode("6ttHpHYw7eYQ1OnvrhZAFi0PPsUGl9NR18hXFQ=="),
+        "2rW2tDnRdwRg87Ta", 3);
+    AesEncryptedPayload plainPayload = AesEncryptedPayload.ofUnencryptedPayload(
+        "plain".getBytes(StandardCharsets.UTF_8));
+
+    // when
+    List<byte[]> result = decryptionService.decryptToByteArray("topic-a",
+        List.of(encryptedPayload, plainPayload, encryptedPayload));
+
+    // then
+    assertThat(result.size()).isEqualTo(3);
+    assertThat(new String(result.get(0), StandardCharsets.UTF_8)).isEqualTo("Hello World!");
+    assertThat(new String(result.get(1), StandardCharsets.UTF_8)).isEqualTo("plain");
+    assertThat(new String(result.get(2), StandardCharsets.UTF_8)).isEqualTo("Hello World!");
+    assertThat(retrieveCount.get()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldReportCachedKeys() {
+    // given
+    DecryptionService decryptionService = new DecryptionService(new DummyEncryptionKeyProvider(
+        "gZvWT1IN0mM5sK3sK0V2Wfzo9Jmk4tUPt7gxRsuN3LY=", "encryption_key", 3));
+    AesEncryptedPayload encryptedPayload = new AesEncryptedPayload(
+        Base64.getDecoder().decode("6ttHpHYw7eYQ1OnvrhZAFi0PPsUGl9NR18hXFQ=="),
+        "2rW2tDnRdwRg87Ta", 3);
+    AesEncryptedPayload plainPayload = AesEncryptedPayload.ofUnencryptedPayload(
+        "plain".getBytes(StandardCharsets.UTF_8));
+
+    // when
+    boolean cachedBefore = decryptionService.isKeyCached("topic-a", encryptedPayload);
+    decryptionService.decryptToString("topic-a", encryptedPayload);
+
+    // then
+    assertThat(cachedBefore).isFalse();
+    assertThat(decryptionService.isKeyCached("topic-a", encryptedPayload)).isTrue();
+    assertThat(decryptionService.isKeyCached("topic-b", encryptedPayload)).isFalse();
+    assertThat(decryptionService.isKeyCached("topic-b", plainPayload)).isTrue();
+  }
+}
@@ -7,6 +7,10 @@ import de.otto.kafka.messaging.e2ee.helper.DummyEncryptionKeyProvider;
 import de.otto.kafka.messaging.e2ee.helper.DummyInitializationVectorFactory;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 
 class EncryptionServiceTest {
@@ -51,6 +55,60 @@ class EncryptionServiceTest {
     assertThat(result.encryptionKeyAttributeName()).isEqualTo("aes");
   }
 
+  @Test
+  void shouldShareHeaderValuesOfTheSameKey() {
+    EncryptionKeyProvider keyProvider = new DummyEncryptionKeyProvider(
+        new KeyVersion(3, null, "gZvWT1IN0mM5sK3sK0V2Wfzo9Jmk4tUPt7gxRsuN3LY="));
+    EncryptionService encryptionService = new EncryptionService(keyProvider);
+
+    AesEncryptedPayload result1 = encryptionService.encryptPayloadWithAes("someTopic", "Hello");
+    AesEncryptedPayload result2 = encryptionService.encryptPayloadWithAes("someTopic", "World");
+    Map<String, byte[]> headers1 = new HashMap<>();
+    KafkaEncryptionHelper.forEachKafkaHeaderForValue(result1, KafkaHeaderEncoding.TEXT,
+        headers1::put);
+    Map<String, byte[]> headers2 = new HashMap<>();
+    KafkaEncryptionHelper.forEachKafkaHeaderForValue(result2, KafkaHeaderEncoding.TEXT,
+        headers2::put);
+
+    assertThat(headers1).containsOnlyKeys("ce_e2eeiv", "ce_e2eekeyversion", "ce_e2eekeyname");
+    assertThat(headers1.get("ce_e2eekeyversion"))
+        .isSameAs(headers2.get("ce_e2eekeyversion"))
+        .isEqualTo("3".getBytes(StandardCharsets.UTF_8));
+    assertThat(headers1.get("ce_e2eekeyname"))
+        .isSameAs(headers2.get("ce_e2eekeyname"))
+        .isEqualTo("encryption_key".getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void shouldReturnCopiesOfSharedHeaderValues() {
+    // given
+    EncryptionKeyProvider keyProvider = new DummyEncryptionKeyProvider(
+        new KeyVersion(3, null, "gZvWT1IN0mM5sK3sK0V2Wfzo9Jmk4tUPt7gxRsuN3LY="));
+    EncryptionService encryptionService = new EncryptionService(keyProvider);
+    AesEncryptedPayload result1 = encryptionService.encryptPayloadWithAes("someTopic", "Hello");
+    AesEncryptedPayload result2 = encryptionService.encryptPayloadWithAes("someTopic", "World");
+
+    // when
+    KafkaEncryptionHelper.mapToCipherVersionHeaderValue(result1)[0] = 'x';
+    KafkaEncryptionHelper.mapToCipherNameHeaderValue(result1)[0] = 'x';
+    KafkaEncryptionHelper.mapToCipherNameHeaderValue(result1, KafkaHeaderEncoding.BINARY)[0] = 9;
+    KafkaEncryptionHelper.mapToKafkaHeadersForValue(result1).get("ce_e2eekeyname")[0] = 'x';
+
+    // then
+    assertThat(KafkaEncryptionHelper.mapToCipherVersionHeaderValue(result2))
+        .isEqualTo("3".getBytes(StandardCharsets.UTF_8));
+    assertThat(KafkaEncryptionHelper.mapToCipherNameHeaderValue(result2))
+        .isEqualTo("encryption_key".getBytes(StandardCharsets.UTF_8));
+    assertThat(KafkaEncryptionHelper.mapToCipherNameHeaderValue(result2,
+        KafkaHeaderEncoding.BINARY))
+        .containsExactly(1);
+    Map<String, byte[]> headers = new HashMap<>();
+    KafkaEncryptionHelper.forEachKafkaHeaderForValue(result2, KafkaHeaderEncoding.TEXT,
+        headers::put);
+    assertThat(headers.get("ce_e2eekeyname"))
+        .isEqualTo("encryption_key".getBytes(StandardCharsets.UTF_8));
+  }
+
   @Test
   void shouldNotEncryptMessageWhenNoEncryptionKeyIsProvided() {
     EncryptionKeyProvider keyProvider = new DummyEncryptionKeyProvider(null);
@@ -67,4 +125,58 @@ class EncryptionServiceTest {
         .isEqualTo(
             Base64.getEncoder().encodeToString("Hello World!".getBytes(StandardCharsets.UTF_8)));
   }
-}
\ No newline at end of file
+
+  @Test
+  void shouldRetrieveEncryptionKeyAgainOnlyForInvalidatedTopics() {
+    // given
+    AtomicInteger retrieveCount = new AtomicInteger();
+    EncryptionKeyProvider keyProvider = new DummyEncryptionKeyProvider(
+        "gZvWT1IN0mM5sK3sK0V2Wfzo9Jmk4tUPt7gxRsuN3LY=", "encryption_key", 3) {
+      @Override
+      public KeyVersion retrieveKeyForEncryption(String topic) {
+        retrieveCount.incrementAndGet();
+        return super.retrieveKeyForEncryption(topic);
+      }
+    };
+    EncryptionService encryptionService = new EncryptionService(keyProvider);
+    encryptionService.encryptPayloadWithAes("topic-a", "Hello World!");
+    encryptionService.encryptPayloadWithAes("topic-b", "Hello World!");
+
+    // when
+    encryptionService.invalidateTopics(List.of("topic-a"));
+    encryptionService.encryptPayloadWithAes("topic-a", "Hello World!");
+    encryptionService.encryptPayloadWithAes("topic-b", "Hello World!");
+
+    // then
+    assertThat(retrieveCount.get()).isEqualTo(3);
+  }
+
+  @Test
+  void shouldEncryptPayloadsWithOneKeyLookupAndOwnIvs() {
+    // given
+    AtomicInteger retrieveCount = new AtomicInteger();
+    EncryptionKeyProvider keyProvider = new DummyEncryptionKeyProvider(
+        "gZvWT1IN0mM5sK3sK0V2Wfzo9Jmk4tUPt7gxRsuN3LY=", "encryption_key", 3) {
+      @Override
+      public KeyVersion retrieveKeyForEncryption(String topic) {
+        retrieveCount.incrementAndGet();
+        return super.retrieveKeyForEncryption(topic);
+      }
+    };
+    EncryptionService encryptionService = new EncryptionService(keyProvider);
+    DecryptionService decryptionService = new DecryptionService(keyProvider);
+
+    // when
+    List<AesEncryptedPayload> result = encryptionService.encryptPayloadsWithAes("topic-a",
+        List.of("a".getBytes(StandardCharsets.UTF_8), "b".getBytes(StandardCharsets.UTF_8)));
+
+    // then
+    assertThat(retrieveCount.get()).isEqualTo(1);
+    assertThat(result).hasSize(2);
+    assertThat(result.get(0).initializationVectorBase64())
+        .isNotEqualTo(result.get(1).initializationVectorBase64());
+    assertThat(decryptionService.decryptToString("topic-a", result.get(0))).isEqualTo("a");
+    assertThat(decryptionService.decryptToString("topic-a", result.get(1))).isEqualTo("b");
+    assertThat(result.get(1).encryptionKeyAttributeName()).isEqualTo("encryption_key");
+  }
+}
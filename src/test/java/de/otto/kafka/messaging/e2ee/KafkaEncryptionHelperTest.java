@@ -1,8 +1,11 @@
 package de.otto.kafka.messaging.e2ee;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 
@@ -27,6 +30,22 @@ class KafkaEncryptionHelperTest {
     assertThat(keyVersion).isEqualTo(43);
   }
 
+  @Test
+  void shouldReadRawCloudEventKeyVersion() {
+    // when: raw header values are parsed
+    int keyVersion = KafkaEncryptionHelper.extractCipherVersion(
+        "2147483647".getBytes(StandardCharsets.UTF_8));
+    int negativeKeyVersion = KafkaEncryptionHelper.extractCipherVersion(
+        "-1".getBytes(StandardCharsets.UTF_8));
+    // then: key versions should be correct
+    assertThat(keyVersion).isEqualTo(Integer.MAX_VALUE);
+    assertThat(negativeKeyVersion).isEqualTo(-1);
+    // then: invalid values are rejected
+    assertThatThrownBy(() -> KafkaEncryptionHelper.extractCipherVersion(
+        "2147483648".getBytes(StandardCharsets.UTF_8)))
+        .isInstanceOf(NumberFormatException.class);
+  }
+
   @Test
   void shouldWriteAndReadCloudEventCipherName() {
     // given: a encrypted payload
@@ -118,4 +137,165 @@ class KafkaEncryptionHelperTest {
     assertThat(result.keyVersion()).isEqualTo(43);
     assertThat(result.encryptionKeyAttributeName()).isEqualTo("aes");
   }
-}
\ No newline at end of file
+
+  @Test
+  void shouldWriteAndReadBinaryHeaders() {
+    // given: an encrypted payload with the default cipher name
+    AesEncryptedPayload orgAesEncryptedPayload = AesEncryptedPayload.ofEncryptedPayload(ENCRYPTED,
+        IV_TEXT, 43);
+    // when: headers are written in binary encoding and read back
+    Map<String, byte[]> kafkaHeaders = KafkaEncryptionHelper.mapToKafkaHeadersForValue(
+        orgAesEncryptedPayload, KafkaHeaderEncoding.BINARY);
+    AesEncryptedPayload result = KafkaEncryptionHelper.aesEncryptedPayloadOfKafkaForValue(
+        orgAesEncryptedPayload.encryptedPayload(), kafkaHeaders);
+    // then: header values should be compact
+    assertThat(kafkaHeaders.get("ce_e2eeiv")).isEqualTo(Base64.getDecoder().decode(IV_TEXT));
+    assertThat(kafkaHeaders.get("ce_e2eekeyversion")).containsExactly(0, 0, 0, 43);
+    assertThat(kafkaHeaders.get("ce_e2eekeyname")).containsExactly(1);
+    // then: result should be valid
+    assertThat(result.isEncrypted()).isTrue();
+    assertThat(result.initializationVectorBase64()).isEqualTo(IV_TEXT);
+    assertThat(result.keyVersion()).isEqualTo(43);
+    assertThat(result.encryptionKeyAttributeName()).isEqualTo("encryption_key");
+  }
+
+  @Test
+  void shouldWriteAndReadBinaryHeadersWithUnknownCipherName() {
+    // given: an encrypted payload with a cipher name without id
+    AesEncryptedPayload orgAesEncryptedPayload = AesEncryptedPayload.ofEncryptedPayload(ENCRYPTED,
+        IV_TEXT, 70000, "aes");
+    // when: headers are written in binary encoding and read back
+    Map<String, byte[]> kafkaHeaders = KafkaEncryptionHelper.mapToKafkaHeadersForValue(
+        orgAesEncryptedPayload, KafkaHeaderEncoding.BINARY);
+    AesEncryptedPayload result = KafkaEncryptionHelper.aesEncryptedPayloadOfKafka(
+        orgAesEncryptedPayload.encryptedPayload(), kafkaHeaders.get("ce_e2eeiv"),
+        kafkaHeaders.get("ce_e2eekeyversion"), kafkaHeaders.get("ce_e2eekeyname"));
+    // then: the cipher name should be written inline
+    assertThat(kafkaHeaders.get("ce_e2eekeyname")).containsExactly(0, 'a', 'e', 's');
+    // then: result should be valid
+    assertThat(result.keyVersion()).isEqualTo(70000);
+    assertThat(result.encryptionKeyAttributeName()).isEqualTo("aes");
+  }
+
+  @Test
+  void shouldReadTextHeadersWithRawByteArrays() {
+    // given: text encoded headers
+    AesEncryptedPayload orgAesEncryptedPayload = AesEncryptedPayload.ofEncryptedPayload(ENCRYPTED,
+        IV_TEXT, 43, "aes");
+    Map<String, byte[]> kafkaHeaders = KafkaEncryptionHelper.mapToKafkaHeadersForValue(
+        orgAesEncryptedPayload, KafkaHeaderEncoding.TEXT);
+    // when: the raw header values are read
+    AesEncryptedPayload result = KafkaEncryptionHelper.aesEncryptedPayloadOfKafka(
+        orgAesEncryptedPayload.encryptedPayload(), kafkaHeaders.get("ce_e2eeiv"),
+        kafkaHeaders.get("ce_e2eekeyversion"), kafkaHeaders.get("ce_e2eekeyname"));
+    // then: the text encoding should be detected
+    assertThat(kafkaHeaders.get("ce_e2eekeyversion")).isEqualTo(
+        "43".getBytes(StandardCharsets.UTF_8));
+    assertThat(result.initializationVectorBase64()).isEqualTo(IV_TEXT);
+    assertThat(result.keyVersion()).isEqualTo(43);
+    assertThat(result.encryptionKeyAttributeName()).isEqualTo("aes");
+  }
+
+  @Test
+  void shouldWriteAndReadCompactHeader() {
+    // given: an encrypted payload with the default cipher name
+    AesEncryptedPayload orgAesEncryptedPayload = AesEncryptedPayload.ofEncryptedPayload(ENCRYPTED,
+        IV_TEXT, 43);
+    // when: the compact header is written and read back
+    Map<String, byte[]> kafkaHeaders = KafkaEncryptionHelper.mapToKafkaHeadersForValue(
+        orgAesEncryptedPayload, KafkaHeaderEncoding.COMPACT);
+    AesEncryptedPayload result = KafkaEncryptionHelper.aesEncryptedPayloadOfKafkaForValue(
+        orgAesEncryptedPayload.encryptedPayload(), kafkaHeaders);
+    // then: there should be a single header of 1 + 4 + 1 + 12 + 1 bytes
+    assertThat(kafkaHeaders.keySet()).containsExactly("ce_e2ee");
+    assertThat(kafkaHeaders.get("ce_e2ee")).hasSize(19);
+    // then: result should be valid
+    assertThat(result.isEncrypted()).isTrue();
+    assertThat(result.encryptedPayload()).isEqualTo(ENCRYPTED);
+    assertThat(result.initializationVectorBase64()).isEqualTo(IV_TEXT);
+    assertThat(result.keyVersion()).isEqualTo(43);
+    assertThat(result.encryptionKeyAttributeName()).isEqualTo("encryption_key");
+  }
+
+  @Test
+  void shouldWriteAndReadCompactHeaderWithUnknownCipherName() {
+    // given: an encrypted payload with a cipher name without id
+    AesEncryptedPayload orgAesEncryptedPayload = AesEncryptedPayload.ofEncryptedPayload(ENCRYPTED,
+        IV_TEXT, 43, "aes");
+    // when: the compact header is written and read back
+    byte[] headerValue = KafkaEncryptionHelper.mapToCompactHeaderValue(orgAesEncryptedPayload);
+    AesEncryptedPayload result = KafkaEncryptionHelper.aesEncryptedPayloadOfKafka(
+        orgAesEncryptedPayload.encryptedPayload(), headerValue);
+    // then: result should be valid
+    assertThat(result.initializationVectorBase64()).isEqualTo(IV_TEXT);
+    assertThat(result.keyVersion()).isEqualTo(43);
+    assertThat(result.encryptionKeyAttributeName()).isEqualTo("aes");
+  }
+
+  @Test
+  void shouldRejectInvalidCompactHeader() {
+    assertThatThrownBy(() -> KafkaEncryptionHelper.aesEncryptedPayloadOfKafka(ENCRYPTED,
+        new byte[]{2, 0, 0, 0, 1, 0, 1}))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> KafkaEncryptionHelper.aesEncryptedPayloadOfKafka(ENCRYPTED,
+        new byte[]{1, 0, 0, 0, 1, 12, 1}))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void shouldDecodeInitializationVectorOnFirstUseOnly() {
+    // given: header values with an invalid base64 initialization vector
+    AesEncryptedPayload result = KafkaEncryptionHelper.aesEncryptedPayloadOfKafka(ENCRYPTED,
+        "not base64!".getBytes(StandardCharsets.UTF_8), "43".getBytes(StandardCharsets.UTF_8),
+        "aes".getBytes(StandardCharsets.UTF_8));
+    // then: the encryption flag is available without decoding
+    assertThat(result.isEncrypted()).isTrue();
+    assertThat(result.keyVersion()).isEqualTo(43);
+    // then: decoding fails on first use
+    assertThatThrownBy(result::initializationVector)
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void shouldRejectInvalidBase64InitializationVectorOnCreation() {
+    for (String invalid : List.of("not base64!", "QUJD=", "QUJDR", "QU=D", "QUJD===")) {
+      assertThatThrownBy(() -> new AesEncryptedPayload(ENCRYPTED, invalid, 43))
+          .as(invalid)
+          .isInstanceOf(IllegalArgumentException.class);
+    }
+    for (String valid : List.of("QUJD", "QUI=", "QQ==", "QUI", "QQ")) {
+      assertThat(new AesEncryptedPayload(ENCRYPTED, valid, 43).initializationVector())
+          .as(valid)
+          .isEqualTo(Base64.getDecoder().decode(valid));
+    }
+  }
+
+  @Test
+  void shouldDecodeInitializationVectorFromRawHeaderBytes() {
+    // given: text header values
+    AesEncryptedPayload result = KafkaEncryptionHelper.aesEncryptedPayloadOfKafka(ENCRYPTED,
+        IV_TEXT.getBytes(StandardCharsets.UTF_8), "43".getBytes(StandardCharsets.UTF_8),
+        "aes".getBytes(StandardCharsets.UTF_8));
+    // when: the initialization vector is used twice
+    byte[] iv1 = result.initializationVector();
+    byte[] iv2 = result.initializationVector();
+    // then: it is decoded once
+    assertThat(iv1).isSameAs(iv2).isEqualTo(Base64.getDecoder().decode(IV_TEXT));
+    assertThat(result.initializationVectorBase64()).isEqualTo(IV_TEXT);
+  }
+
+  @Test
+  void shouldCopyInitializationVectorOutOfCompactHeaderOnFirstUse() {
+    // given: a compact header value
+    AesEncryptedPayload orgAesEncryptedPayload = AesEncryptedPayload.ofEncryptedPayload(ENCRYPTED,
+        IV_TEXT, 43);
+    byte[] headerValue = KafkaEncryptionHelper.mapToCompactHeaderValue(orgAesEncryptedPayload);
+    // when: the header value is read
+    AesEncryptedPayload result = KafkaEncryptionHelper.aesEncryptedPayloadOfKafka(ENCRYPTED,
+        headerValue);
+    // then: the initialization vector is a copy of the header part
+    assertThat(result.isEncrypted()).isTrue();
+    assertThat(result.initializationVector()).isEqualTo(Base64.getDecoder().decode(IV_TEXT));
+    assertThat(result.initializationVectorBase64()).isEqualTo(IV_TEXT);
+  }
+}
@@ -0,0 +1,126 @@
+package de.otto.kafka.messaging.e2ee.fieldlevel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.otto.kafka.messaging.e2ee.helper.TestClock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+
+class DecryptedValueCacheTest {
+
+  @Test
+  void shouldEvictLeastRecentlyUsedValue() {
+    // given
+    DecryptedValueCache cache = new DecryptedValueCache(2);
+    cache.put("topic", "encrypted-1", "plain-1");
+    cache.put("topic", "encrypted-2", "plain-2");
+    cache.get("topic", "encrypted-1");
+
+    // when
+    cache.put("topic", "encrypted-3", "plain-3");
+
+    // then
+    assertThat(cache.get("topic", "encrypted-1")).isEqualTo("plain-1");
+    assertThat(cache.get("topic", "encrypted-2")).isNull();
+    assertThat(cache.get("topic", "encrypted-3")).isEqualTo("plain-3");
+    assertThat(cache.stats()).isEqualTo(new DecryptedValueCacheStats(3, 1, 1, 2, 2));
+  }
+
+  @Test
+  void shouldSeparateTopics() {
+    // given
+    DecryptedValueCache cache = new DecryptedValueCache(10);
+    cache.put("topic-1", "encrypted", "plain");
+
+    // when
+    String result = cache.get("topic-2", "encrypted");
+
+    // then
+    assertThat(result).isNull();
+  }
+
+  @Test
+  void shouldExpireValuesAfterTimeToLive() {
+    // given
+    TestClock clock = new TestClock("2026-10-19T10:00:00Z");
+    DecryptedValueCache cache = new DecryptedValueCache(10, Duration.ofMinutes(5), clock);
+    cache.put("topic", "encrypted-1", "plain-1");
+    clock.setCurrentTime("2026-10-19T10:03:00Z");
+    cache.put("topic", "encrypted-2", "plain-2");
+
+    // when
+    clock.setCurrentTime("2026-10-19T10:05:00Z");
+
+    // then
+    assertThat(cache.get("topic", "encrypted-1")).isNull();
+    assertThat(cache.get("topic", "encrypted-2")).isEqualTo("plain-2");
+    assertThat(cache.stats()).isEqualTo(new DecryptedValueCacheStats(1, 1, 1, 1, 10));
+  }
+
+  @Test
+  void shouldStayWithinMaxSizeWhenSegmented() {
+    // given
+    DecryptedValueCache cache = new DecryptedValueCache(1000);
+
+    // when
+    for (int i = 0; i < 5000; i++) {
+      cache.put("topic", "encrypted-" + i, "plain-" + i);
+    }
+
+    // then
+    DecryptedValueCacheStats stats = cache.stats();
+    assertThat(stats.size()).isEqualTo(1000);
+    assertThat(stats.evictionCount()).isEqualTo(4000);
+    assertThat(cache.get("topic", "encrypted-4999")).isEqualTo("plain-4999");
+  }
+
+  @Test
+  void shouldCountConcurrentLookups() throws Exception {
+    // given
+    DecryptedValueCache cache = new DecryptedValueCache(1000);
+    for (int i = 0; i < 100; i++) {
+      cache.put("topic", "encrypted-" + i, "plain-" + i);
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    // when
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    try {
+      for (int thread = 0; thread < 8; thread++) {
+        futures.add(CompletableFuture.runAsync(() -> {
+          for (int i = 0; i < 1000; i++) {
+            assertThat(cache.get("topic", "encrypted-" + i % 100))
+                .isEqualTo("plain-" + i % 100);
+          }
+        }, executor));
+      }
+      CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get();
+    } finally {
+      executor.shutdown();
+    }
+
+    // then
+    assertThat(cache.stats()).isEqualTo(new DecryptedValueCacheStats(8000, 0, 0, 100, 1000));
+  }
+
+  @Test
+  void shouldCalculateHitRatio() {
+    assertThat(new DecryptedValueCacheStats(0, 0, 0, 0, 0).hitRatio()).isZero();
+    assertThat(new DecryptedValueCacheStats(3, 1, 0, 1, 10).hitRatio()).isEqualTo(0.75);
+  }
+
+  @Test
+  void shouldRejectInvalidSize() {
+    assertThatThrownBy(() -> new DecryptedValueCache(0))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new DecryptedValueCache(10, Duration.ZERO, new TestClock(
+        "2026-10-19T10:00:00Z")))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
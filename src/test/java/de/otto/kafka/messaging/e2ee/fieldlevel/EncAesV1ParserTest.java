@@ -0,0 +1,78 @@
+package de.otto.kafka.messaging.e2ee.fieldlevel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.otto.kafka.messaging.e2ee.AesEncryptedPayload;
+import java.util.Base64;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class EncAesV1ParserTest {
+
+  @Test
+  void shouldParseAllParts() {
+    // given
+    String value = "encAesV1.3.y1rGSsCWGnhEMXPr.wpMBv+YxFQqMb2k0cGHhZPSd9KZdHh9xxDOiQg==";
+
+    // when
+    AesEncryptedPayload result = EncAesV1Parser.parse(value);
+
+    // then
+    assertThat(result.keyVersion()).isEqualTo(3);
+    assertThat(result.initializationVector())
+        .isEqualTo(Base64.getDecoder().decode("y1rGSsCWGnhEMXPr"));
+    assertThat(result.encryptedPayload())
+        .isEqualTo(Base64.getDecoder().decode("wpMBv+YxFQqMb2k0cGHhZPSd9KZdHh9xxDOiQg=="));
+    assertThat(result.encryptionKeyAttributeName()).isNull();
+  }
+
+  @Test
+  void shouldDetectPrefix() {
+    assertThat(EncAesV1Parser.isEncAesV1("encAesV1.3.a.b")).isTrue();
+    assertThat(EncAesV1Parser.isEncAesV1("encAesV1")).isFalse();
+    assertThat(EncAesV1Parser.isEncAesV1("encAesV2.3.a.b")).isFalse();
+  }
+
+  @Test
+  void shouldIgnoreTrailingDelimitersLikeSplit() {
+    AesEncryptedPayload result = EncAesV1Parser.parse("encAesV1.3.y1rGSsCWGnhEMXPr.AAAA..");
+
+    assertThat(result.encryptedPayload()).containsExactly(0, 0, 0);
+  }
+
+  @Test
+  void shouldRejectInvalidValues() {
+    assertThatThrownBy(() -> EncAesV1Parser.parse("encAesV1.3.y1rGSsCWGnhEMXPr"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("encrypted string format is invalid");
+    assertThatThrownBy(() -> EncAesV1Parser.parse("encAesV1.3.a.b.c"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("encrypted string format is invalid");
+    assertThatThrownBy(() -> EncAesV1Parser.parse("encAesV1.x.y1rGSsCWGnhEMXPr.AAAA"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("keyVersion must be a number");
+    assertThatThrownBy(() -> EncAesV1Parser.parse("encAesV1.3.y1rGSsCWGnhEMXPr.AA*A"))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> EncAesV1Parser.parse("encAesV1.3.y1rGSsCWGnhEMXPr.AAAAA"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void shouldDecodeBase64LikeJdkDecoder() {
+    Random random = new Random(42);
+    for (int length = 0; length < 40; length++) {
+      // given
+      byte[] bytes = new byte[length];
+      random.nextBytes(bytes);
+      String padded = Base64.getEncoder().encodeToString(bytes);
+      String unpadded = Base64.getEncoder().withoutPadding().encodeToString(bytes);
+
+      // when + then
+      assertThat(EncAesV1Parser.decodeBase64("." + padded + ".", 1, padded.length() + 1))
+          .isEqualTo(bytes);
+      assertThat(EncAesV1Parser.decodeBase64(unpadded, 0, unpadded.length()))
+          .isEqualTo(bytes);
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package de.otto.kafka.messaging.e2ee.fieldlevel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.otto.kafka.messaging.e2ee.AesEncryptedPayload;
+import org.junit.jupiter.api.Test;
+
+class EncAesV2FormatTest {
+
+  private static final byte[] IV = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12};
+
+  @Test
+  void shouldRoundTripAllKeyVersionSizes() {
+    for (int keyVersion : new int[]{0, 1, 127, 128, 16_383, 16_384, Integer.MAX_VALUE}) {
+      // given
+      AesEncryptedPayload payload = new AesEncryptedPayload(new byte[]{42, 43}, IV, keyVersion);
+
+      // when
+      String value = EncAesV2Format.format(payload);
+      AesEncryptedPayload result = EncAesV2Format.parse(value);
+
+      // then
+      assertThat(EncAesV2Format.isEncAesV2(value)).isTrue();
+      assertThat(value).doesNotContain("=", "+", "/");
+      assertThat(result.keyVersion()).isEqualTo(keyVersion);
+      assertThat(result.initializationVector()).isEqualTo(IV);
+      assertThat(result.encryptedPayload()).containsExactly(42, 43);
+    }
+  }
+
+  @Test
+  void shouldUseSingleByteForSmallKeyVersions() {
+    // given
+    AesEncryptedPayload payload = new AesEncryptedPayload(new byte[]{42}, IV, 3);
+
+    // when
+    byte[] envelope = AesEnvelope.encode(payload, new byte[]{7});
+
+    // then
+    assertThat(envelope).hasSize(1 + 1 + 12 + 1);
+    assertThat(envelope[0]).isEqualTo((byte) 7);
+    assertThat(envelope[1]).isEqualTo((byte) 3);
+    assertThat(AesEnvelope.decode(envelope, 1).keyVersion()).isEqualTo(3);
+  }
+
+  @Test
+  void shouldRejectInvalidValues() {
+    assertThat(EncAesV2Format.isEncAesV2("encAesV1.3.a.b")).isFalse();
+    assertThatThrownBy(() -> EncAesV2Format.parse("encAesV2.AwECAw"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("encrypted field format is invalid");
+    assertThatThrownBy(() -> EncAesV2Format.parse("encAesV2.A+/="))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
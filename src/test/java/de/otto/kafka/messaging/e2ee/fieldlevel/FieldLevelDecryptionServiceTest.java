@@ -3,8 +3,12 @@ package de.otto.kafka.messaging.e2ee.fieldlevel;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
+import de.otto.kafka.messaging.e2ee.DecryptionService;
 import de.otto.kafka.messaging.e2ee.EncryptionKeyProvider;
 import de.otto.kafka.messaging.e2ee.helper.DummyEncryptionKeyProvider;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Map;
 import org.junit.jupiter.api.Test;
 
 class FieldLevelDecryptionServiceTest {
@@ -27,6 +31,78 @@ class FieldLevelDecryptionServiceTest {
     assertThat(result).isEqualTo(expectedValue);
   }
 
+  @Test
+  void shouldDecryptEncAesV2String() {
+    EncryptionKeyProvider keyProvider = new DummyEncryptionKeyProvider(
+        "gZvWT1IN0mM5sK3sK0V2Wfzo9Jmk4tUPt7gxRsuN3LY=", "encryption_key", 3);
+    FieldLevelDecryptionService fieldLevelDecryptionService = new FieldLevelDecryptionService(
+        keyProvider);
+
+    // given: the same encrypted value as above in the compact format
+    String encryptedString = "encAesV2.A8taxkrAlhp4RDFz68KTAb_mMRUKjG9pNHBh4WT0nfSmXR4fccQzokI";
+    String topic = "someTopic";
+
+    // when: method is called
+    String result = fieldLevelDecryptionService.decryptFieldValue(topic, encryptedString);
+
+    // then: returned string should be decrypted
+    assertThat(result).isEqualTo("Hello World!");
+  }
+
+  @Test
+  void shouldDecryptRepeatedValuesOnceWhenCacheIsEnabled() {
+    EncryptionKeyProvider keyProvider = new DummyEncryptionKeyProvider(
+        "gZvWT1IN0mM5sK3sK0V2Wfzo9Jmk4tUPt7gxRsuN3LY=", "encryption_key", 3);
+    FieldLevelDecryptionService fieldLevelDecryptionService = new FieldLevelDecryptionService(
+        new DecryptionService(keyProvider), 100);
+
+    // given: the same encrypted string several times
+    String encryptedString = "encAesV1.3.y1rGSsCWGnhEMXPr.wpMBv+YxFQqMb2k0cGHhZPSd9KZdHh9xxDOiQg==";
+    String topic = "someTopic";
+
+    // when: methods are called
+    String result1 = fieldLevelDecryptionService.decryptFieldValue(topic, encryptedString);
+    String result2 = fieldLevelDecryptionService.decryptFieldValue(topic, encryptedString);
+    Map<String, String> result3 = fieldLevelDecryptionService.decryptFields(topic,
+        Map.of("greeting", encryptedString));
+
+    // then: only the first call missed the cache
+    assertThat(result1).isEqualTo("Hello World!");
+    assertThat(result2).isSameAs(result1);
+    assertThat(result3.get("greeting")).isSameAs(result1);
+    DecryptedValueCacheStats stats = fieldLevelDecryptionService.decryptedValueCacheStats();
+    assertThat(stats.hitCount()).isEqualTo(2);
+    assertThat(stats.missCount()).isEqualTo(1);
+    assertThat(stats.size()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldCacheValuesWithTimeToLive() {
+    FieldLevelDecryptionService fieldLevelDecryptionService = new FieldLevelDecryptionService(
+        new DecryptionService(DummyEncryptionKeyProvider.KEY_PROVIDER), 100,
+        Duration.ofMinutes(10));
+    String encryptedString = "encAesV1.3.y1rGSsCWGnhEMXPr.wpMBv+YxFQqMb2k0cGHhZPSd9KZdHh9xxDOiQg==";
+
+    String result1 = fieldLevelDecryptionService.decryptFieldValue("someTopic", encryptedString);
+    String result2 = fieldLevelDecryptionService.decryptFieldValue("someTopic", encryptedString);
+
+    assertThat(result2).isSameAs(result1).isEqualTo("Hello World!");
+    assertThat(fieldLevelDecryptionService.decryptedValueCacheStats())
+        .isEqualTo(new DecryptedValueCacheStats(1, 1, 0, 1, 100));
+    assertThrows(IllegalArgumentException.class, () -> new FieldLevelDecryptionService(
+        new DecryptionService(DummyEncryptionKeyProvider.KEY_PROVIDER), 100, Duration.ZERO));
+  }
+
+  @Test
+  void shouldReportEmptyStatsWhenCacheIsDisabled() {
+    FieldLevelDecryptionService fieldLevelDecryptionService = new FieldLevelDecryptionService(
+        new DummyEncryptionKeyProvider("gZvWT1IN0mM5sK3sK0V2Wfzo9Jmk4tUPt7gxRsuN3LY=",
+            "encryption_key", 3));
+
+    assertThat(fieldLevelDecryptionService.decryptedValueCacheStats())
+        .isEqualTo(new DecryptedValueCacheStats(0, 0, 0, 0, 0));
+  }
+
   @Test
   void shouldReturnInputStringWhenPrefixIsMissing() {
     EncryptionKeyProvider keyProvider = new DummyEncryptionKeyProvider(
@@ -46,6 +122,51 @@ class FieldLevelDecryptionServiceTest {
     assertThat(result).isEqualTo(expectedValue);
   }
 
+  @Test
+  void shouldReturnBinaryValueWhenMarkerIsMissing() {
+    FieldLevelDecryptionService fieldLevelDecryptionService = new FieldLevelDecryptionService(
+        DummyEncryptionKeyProvider.KEY_PROVIDER);
+
+    // given: plain values which start with a part of the marker or are too short
+    byte[] partialMarker = new byte[64];
+    partialMarker[0] = (byte) 0xE2;
+    partialMarker[1] = 0x01;
+    byte[] otherFormatId = new byte[64];
+    System.arraycopy(new byte[]{(byte) 0xE2, (byte) 0xEE, (byte) 0xB1, 0x02}, 0, otherFormatId,
+        0, 4);
+    byte[] tooShort = {(byte) 0xE2, (byte) 0xEE, (byte) 0xB1, 0x01, 3, 1, 2, 3};
+    ByteBuffer buffer = ByteBuffer.wrap(partialMarker);
+
+    // when: methods are called
+    byte[] result1 = fieldLevelDecryptionService.decryptBinaryFieldValue("someTopic",
+        partialMarker);
+    byte[] result2 = fieldLevelDecryptionService.decryptBinaryFieldValue("someTopic",
+        otherFormatId);
+    byte[] result3 = fieldLevelDecryptionService.decryptBinaryFieldValue("someTopic", tooShort);
+    ByteBuffer result4 = fieldLevelDecryptionService.decryptBinaryFieldValue("someTopic", buffer);
+
+    // then: the values are passed through
+    assertThat(result1).isSameAs(partialMarker);
+    assertThat(result2).isSameAs(otherFormatId);
+    assertThat(result3).isSameAs(tooShort);
+    assertThat(result4).isEqualTo(ByteBuffer.wrap(partialMarker));
+  }
+
+  @Test
+  void shouldFailOnPlainBinaryValueWithMarker() {
+    FieldLevelDecryptionService fieldLevelDecryptionService = new FieldLevelDecryptionService(
+        DummyEncryptionKeyProvider.KEY_PROVIDER);
+
+    // given: a plain value which starts with the whole marker by chance
+    byte[] plainValue = new byte[64];
+    System.arraycopy(new byte[]{(byte) 0xE2, (byte) 0xEE, (byte) 0xB1, 0x01, 3}, 0, plainValue,
+        0, 5);
+
+    // when + then: it's not returned as wrong plain bytes
+    assertThrows(IllegalArgumentException.class,
+        () -> fieldLevelDecryptionService.decryptBinaryFieldValue("someTopic", plainValue));
+  }
+
   @Test
   void shouldReturnNullWhenInputIsNull() {
     EncryptionKeyProvider keyProvider = new DummyEncryptionKeyProvider(
@@ -7,6 +7,11 @@ import de.otto.kafka.messaging.e2ee.EncryptionService;
 import de.otto.kafka.messaging.e2ee.InitializationVectorFactory;
 import de.otto.kafka.messaging.e2ee.helper.DummyEncryptionKeyProvider;
 import de.otto.kafka.messaging.e2ee.helper.DummyInitializationVectorFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import org.junit.jupiter.api.Test;
 
 class FieldLevelEncryptionServiceTest {
@@ -34,6 +39,29 @@ class FieldLevelEncryptionServiceTest {
         "encAesV1.4711.JPsMcIDBGACHUveT.Y89d2GZR/Dpg8BXlzAkJB9SqazBGwXJ+4PLoCQ==");
   }
 
+  @Test
+  void shouldEncryptStringInCompactFormat() {
+    EncryptionKeyProvider keyProvider = new DummyEncryptionKeyProvider(
+        "gZvWT1IN0mM5sK3sK0V2Wfzo9Jmk4tUPt7gxRsuN3LY=", "encryption_key", 4711);
+    InitializationVectorFactory initializationVectorFactory = new DummyInitializationVectorFactory(
+        "JPsMcIDBGACHUveT");
+    EncryptionService encryptionService = new EncryptionService(keyProvider,
+        initializationVectorFactory);
+    FieldLevelEncryptionService fieldLevelEncryptionService = new FieldLevelEncryptionService(
+        encryptionService, FieldLevelEncryptionFormat.ENC_AES_V2);
+
+    // given: a string to encode and topic
+    String plainText = "Hello World!";
+    String topic = "someTopic";
+
+    // when: method is called
+    String result = fieldLevelEncryptionService.encryptFieldValueToString(topic, plainText);
+
+    // then: returned string should be the packed envelope of the encAesV1 test above
+    assertThat(result).isEqualTo(
+        "encAesV2.5yQk-wxwgMEYAIdS95Njz13YZlH8OmDwFeXMCQkH1KprMEbBcn7g8ugJ");
+  }
+
   @Test
   void shouldEncryptStringWithRandomIv() {
     EncryptionKeyProvider keyProvider = new DummyEncryptionKeyProvider(
@@ -86,4 +114,106 @@ class FieldLevelEncryptionServiceTest {
     // then: returned string should be null
     assertThat(result).isEqualTo(plainText);
   }
-}
\ No newline at end of file
+
+  @Test
+  void shouldEncryptAndDecryptFieldsOfOneMessage() {
+    EncryptionKeyProvider keyProvider = new DummyEncryptionKeyProvider(
+        "gZvWT1IN0mM5sK3sK0V2Wfzo9Jmk4tUPt7gxRsuN3LY=", "encryption_key", 3);
+    FieldLevelEncryptionService fieldLevelEncryptionService = new FieldLevelEncryptionService(
+        keyProvider);
+    FieldLevelDecryptionService fieldLevelDecryptionService = new FieldLevelDecryptionService(
+        keyProvider);
+
+    // given: some fields of one message
+    Map<String, String> plainFields = new LinkedHashMap<>();
+    plainFields.put("firstName", "John");
+    plainFields.put("middleName", null);
+    plainFields.put("lastName", "Doe");
+
+    // when: the fields are encrypted and decrypted again
+    Map<String, String> encryptedFields = fieldLevelEncryptionService.encryptFields("someTopic",
+        plainFields);
+    Map<String, String> decryptedFields = fieldLevelDecryptionService.decryptFields("someTopic",
+        encryptedFields);
+
+    // then: the encrypted fields should keep their order and null values
+    assertThat(encryptedFields).containsOnlyKeys("firstName", "middleName", "lastName");
+    assertThat(encryptedFields.get("firstName")).startsWith("encAesV1.3.");
+    assertThat(encryptedFields.get("middleName")).isNull();
+    assertThat(encryptedFields.get("lastName")).startsWith("encAesV1.3.");
+    assertThat(decryptedFields).containsExactlyEntriesOf(plainFields);
+  }
+
+  @Test
+  void shouldEncryptBytesToBinaryEnvelope() {
+    EncryptionKeyProvider keyProvider = new DummyEncryptionKeyProvider(
+        "gZvWT1IN0mM5sK3sK0V2Wfzo9Jmk4tUPt7gxRsuN3LY=", "encryption_key", 4711);
+    InitializationVectorFactory initializationVectorFactory = new DummyInitializationVectorFactory(
+        "JPsMcIDBGACHUveT");
+    FieldLevelEncryptionService fieldLevelEncryptionService = new FieldLevelEncryptionService(
+        new EncryptionService(keyProvider, initializationVectorFactory));
+
+    // given: some bytes to encode and topic
+    byte[] plainValue = "Hello World!".getBytes(StandardCharsets.UTF_8);
+    String topic = "someTopic";
+
+    // when: method is called
+    byte[] result = fieldLevelEncryptionService.encryptBinaryFieldValue(topic, plainValue);
+
+    // then: marker, varint key version, raw IV and the ciphertext of the encAesV1 test above
+    ByteBuffer expected = ByteBuffer.allocate(result.length)
+        .put(new byte[]{(byte) 0xE2, (byte) 0xEE, (byte) 0xB1, 0x01, (byte) 0xE7, 0x24})
+        .put(Base64.getDecoder().decode("JPsMcIDBGACHUveT"))
+        .put(Base64.getDecoder().decode("Y89d2GZR/Dpg8BXlzAkJB9SqazBGwXJ+4PLoCQ=="));
+    assertThat(result).isEqualTo(expected.array());
+  }
+
+  @Test
+  void shouldEncryptAndDecryptByteBuffers() {
+    EncryptionKeyProvider keyProvider = new DummyEncryptionKeyProvider(
+        "gZvWT1IN0mM5sK3sK0V2Wfzo9Jmk4tUPt7gxRsuN3LY=", "encryption_key", 3);
+    SingleTopicFieldLevelEncryptionService fieldLevelEncryptionService =
+        new SingleTopicFieldLevelEncryptionService(keyProvider, "someTopic");
+    SingleTopicFieldLevelDecryptionService fieldLevelDecryptionService =
+        new SingleTopicFieldLevelDecryptionService(keyProvider, "someTopic");
+
+    // given: a buffer whose position is not 0
+    ByteBuffer plainValue = ByteBuffer.wrap(new byte[]{9, 1, 2, 3});
+    plainValue.get();
+
+    // when: the buffer is encrypted and decrypted again
+    ByteBuffer encryptedValue = fieldLevelEncryptionService.encryptBinaryFieldValue(plainValue);
+    ByteBuffer decryptedValue = fieldLevelDecryptionService.decryptBinaryFieldValue(
+        encryptedValue);
+
+    // then: only the remaining bytes are encrypted and the positions are not changed
+    assertThat(plainValue.position()).isEqualTo(1);
+    assertThat(encryptedValue.remaining()).isEqualTo(4 + 1 + 12 + 3 + 16);
+    assertThat(encryptedValue.position()).isZero();
+    assertThat(FieldLevelEncryptionService.toByteArray(decryptedValue)).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  void shouldNotEncryptBytesWhenNotNeeded() {
+    EncryptionKeyProvider keyProvider = new DummyEncryptionKeyProvider(null);
+    FieldLevelEncryptionService fieldLevelEncryptionService = new FieldLevelEncryptionService(
+        keyProvider);
+    FieldLevelDecryptionService fieldLevelDecryptionService = new FieldLevelDecryptionService(
+        keyProvider);
+
+    // given: some bytes
+    byte[] plainValue = {1, 2, 3};
+
+    // when: methods are called
+    byte[] encryptedValue = fieldLevelEncryptionService.encryptBinaryFieldValue("someTopic",
+        plainValue);
+    byte[] decryptedValue = fieldLevelDecryptionService.decryptBinaryFieldValue("someTopic",
+        encryptedValue);
+
+    // then: the bytes are passed through
+    assertThat(encryptedValue).isSameAs(plainValue);
+    assertThat(decryptedValue).isSameAs(plainValue);
+    assertThat(fieldLevelEncryptionService.encryptBinaryFieldValue("someTopic", (byte[]) null))
+        .isNull();
+  }
+}
@@ -0,0 +1,199 @@
+package de.otto.kafka.messaging.e2ee.fieldlevel;
+
+import static de.otto.kafka.messaging.e2ee.helper.DummyEncryptionKeyProvider.KEY_PROVIDER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class JsonFieldTransformerTest {
+
+  private static final String JSON = """
+      {
+        "id": 42,
+        "customer": {"name": "Jane Doe", "email": "jane@example.com", "age": 33},
+        "items": [{"sku": "a-1", "iban": "DE1234"}, {"sku": "b-2", "iban": "DE5678"}],
+        "note": "name"
+      }""";
+
+  @Test
+  void shouldEncryptOnlySelectedStringValues() {
+    // given
+    JsonFieldTransformer transformer = new JsonFieldTransformer(
+        List.of("$.customer.name", "$.customer.age", "$.items[*].iban"));
+
+    // when
+    String result = new String(transformer.encryptFields("some-topic",
+        JSON.getBytes(StandardCharsets.UTF_8), new FieldLevelEncryptionService(KEY_PROVIDER)),
+        StandardCharsets.UTF_8);
+
+    // then
+    assertThat(result).doesNotContain("Jane Doe", "DE1234", "DE5678");
+    assertThat(result).contains("\"name\": \"encAesV1.3.", "\"iban\": \"encAesV1.3.");
+    assertThat(result).contains("\"email\": \"jane@example.com\", \"age\": 33}",
+        "\"sku\": \"a-1\"", "\"note\": \"name\"", "\"id\": 42");
+  }
+
+  @Test
+  void shouldApplyWildcardAndIndexPathsToTheSameElement() {
+    // given
+    JsonFieldTransformer transformer = new JsonFieldTransformer(
+        List.of("$.items[*].iban", "$.items[0].sku", "$.matrix[1][*]", "$.matrix[*][0]"));
+    byte[] json = """
+        {"items": [{"sku": "a-1", "iban": "DE1234"}, {"sku": "b-2", "iban": "DE5678"}],
+         "matrix": [["a", "b"], ["c", "d"]]}""".getBytes(StandardCharsets.UTF_8);
+
+    // when
+    String result = new String(transformer.transform(json, value -> "<" + value + ">"),
+        StandardCharsets.UTF_8);
+
+    // then
+    assertThat(result).isEqualTo("""
+        {"items": [{"sku": "<a-1>", "iban": "<DE1234>"}, {"sku": "b-2", "iban": "<DE5678>"}],
+         "matrix": [["<a>", "b"], ["<c>", "<d>"]]}""");
+  }
+
+  @Test
+  void shouldEncryptWildcardFieldsOfElementsWithOwnPath() {
+    // given
+    JsonFieldTransformer transformer = new JsonFieldTransformer(
+        List.of("$.items[*].iban", "$.items[0].sku"));
+
+    // when
+    String result = new String(transformer.encryptFields("some-topic",
+        JSON.getBytes(StandardCharsets.UTF_8), new FieldLevelEncryptionService(KEY_PROVIDER)),
+        StandardCharsets.UTF_8);
+
+    // then
+    assertThat(result).doesNotContain("a-1", "DE1234", "DE5678");
+    assertThat(result).contains("\"sku\": \"b-2\"");
+  }
+
+  @Test
+  void shouldRestoreDocumentOnDecryption() {
+    // given
+    JsonFieldTransformer transformer = new JsonFieldTransformer(
+        List.of("$.customer.name", "$.items[*].iban"));
+    byte[] encrypted = transformer.encryptFields("some-topic",
+        JSON.getBytes(StandardCharsets.UTF_8), new FieldLevelEncryptionService(KEY_PROVIDER));
+
+    // when
+    byte[] decrypted = transformer.decryptFields("some-topic", encrypted,
+        new FieldLevelDecryptionService(KEY_PROVIDER));
+
+    // then
+    assertThat(new String(decrypted, StandardCharsets.UTF_8)).isEqualTo(JSON);
+  }
+
+  @Test
+  void shouldUnescapeAndEscapeSelectedValues() {
+    // given
+    JsonFieldTransformer transformer = new JsonFieldTransformer(List.of("$[1].text"));
+    byte[] json = "[{\"text\":\"x\"},{\"text\":\"a\\\"b\\u00e9\\n\"}]"
+        .getBytes(StandardCharsets.UTF_8);
+
+    // when
+    String result = new String(transformer.transform(json, value -> value + "\\"),
+        StandardCharsets.UTF_8);
+
+    // then
+    assertThat(result).isEqualTo("[{\"text\":\"x\"},{\"text\":\"a\\\"b\u00e9\\n\\\\\"}]");
+  }
+
+  @Test
+  void shouldCopyDocumentWithoutSelectedValuesUnchanged() {
+    // given
+    JsonFieldTransformer transformer = new JsonFieldTransformer(List.of("$.missing"));
+
+    // when
+    byte[] result = transformer.transform(JSON.getBytes(StandardCharsets.UTF_8),
+        value -> "changed");
+
+    // then
+    assertThat(result).isEqualTo(JSON.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void shouldRejectInvalidPaths() {
+    assertThatThrownBy(() -> new JsonFieldTransformer(List.of("customer.name")))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new JsonFieldTransformer(List.of("$.items[x]")))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new JsonFieldTransformer(List.of("$..name")))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void shouldRejectInvalidJson() {
+    // given
+    JsonFieldTransformer transformer = new JsonFieldTransformer(List.of("$.name"));
+
+    // when + then
+    assertThatThrownBy(() -> transformer.transform(
+        "{\"name\": \"unterminated}".getBytes(StandardCharsets.UTF_8), value -> value))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageStartingWith("invalid JSON");
+    assertThatThrownBy(() -> transformer.transform(
+        "{\"name\": 1} trailing".getBytes(StandardCharsets.UTF_8), value -> value))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void shouldRejectTooDeeplyNestedJson() {
+    // given
+    JsonFieldTransformer transformer = new JsonFieldTransformer(List.of("$.name"));
+    byte[] json = "[".repeat(100_000).getBytes(StandardCharsets.UTF_8);
+
+    // when + then
+    assertThatThrownBy(() -> transformer.transform(json, value -> value))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageStartingWith("invalid JSON");
+  }
+
+  @Test
+  void shouldAcceptJsonNestedUpToTheMaximumDepth() {
+    // given
+    JsonFieldTransformer transformer = new JsonFieldTransformer(List.of("$.name"));
+    String json = "[".repeat(JsonFieldTransformer.MAX_NESTING_DEPTH)
+        + "]".repeat(JsonFieldTransformer.MAX_NESTING_DEPTH);
+
+    // when
+    byte[] result = transformer.transform(json.getBytes(StandardCharsets.UTF_8), value -> value);
+
+    // then
+    assertThat(result).isEqualTo(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void shouldRejectInvalidLiterals() {
+    // given
+    JsonFieldTransformer transformer = new JsonFieldTransformer(List.of("$.a"));
+
+    // when + then
+    for (String json : List.of("{\"a\":\"x\",\"b\":nope}", "{\"b\":tru}", "{\"b\":nullx}",
+        "{\"b\":01}", "{\"b\":-}", "{\"b\":1.}", "{\"b\":.5}", "{\"b\":1e}", "{\"b\":+1}",
+        "{\"b\":1-2}")) {
+      assertThatThrownBy(() -> transformer.transform(json.getBytes(StandardCharsets.UTF_8),
+          value -> value))
+          .as(json)
+          .isInstanceOf(IllegalArgumentException.class)
+          .hasMessageStartingWith("invalid JSON");
+    }
+  }
+
+  @Test
+  void shouldAcceptValidLiterals() {
+    // given
+    JsonFieldTransformer transformer = new JsonFieldTransformer(List.of("$.a"));
+    String json = "{\"a\":\"x\",\"b\":[true,false,null,0,-0,42,-1.5,2e10,3.25E-3,1e+2]}";
+
+    // when
+    byte[] result = transformer.transform(json.getBytes(StandardCharsets.UTF_8), value -> "y");
+
+    // then
+    assertThat(new String(result, StandardCharsets.UTF_8))
+        .isEqualTo(json.replace("\"x\"", "\"y\""));
+  }
+}
@@ -0,0 +1,88 @@
+package de.otto.kafka.messaging.e2ee.fieldlevel;
+
+import static de.otto.kafka.messaging.e2ee.helper.DummyEncryptionKeyProvider.KEY_PROVIDER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class LazyDecryptedStringTest {
+
+  private static final EncryptedString ENCRYPTED_STRING = EncryptedString.of(
+      "encAesV1.3.y1rGSsCWGnhEMXPr.wpMBv+YxFQqMb2k0cGHhZPSd9KZdHh9xxDOiQg==");
+
+  private final FieldLevelDecryptionService decryptionService = new FieldLevelDecryptionService(
+      KEY_PROVIDER);
+
+  @Test
+  void shouldDecryptOnFirstAccessAndMemoizeResult() {
+    // given
+    LazyDecryptedString lazyDecryptedString = decryptionService.decryptLazily("someTopic",
+        ENCRYPTED_STRING);
+    assertThat(lazyDecryptedString.isDecrypted()).isFalse();
+
+    // when
+    String first = lazyDecryptedString.get();
+    String second = lazyDecryptedString.get();
+
+    // then
+    assertThat(first).isEqualTo("Hello World!");
+    assertThat(second).isSameAs(first);
+    assertThat(lazyDecryptedString.isDecrypted()).isTrue();
+    assertThat(lazyDecryptedString.encryptedString()).isEqualTo(ENCRYPTED_STRING);
+    assertThat(lazyDecryptedString.toString()).doesNotContain("Hello World!");
+  }
+
+  @Test
+  void shouldNotDecryptUnreadValues() {
+    // given: a broken value
+    EncryptedString brokenValue = EncryptedString.of("encAesV1.3.broken");
+
+    // when
+    LazyDecryptedString lazyDecryptedString = decryptionService.decryptLazily("someTopic",
+        brokenValue);
+
+    // then: only the access fails
+    assertThat(lazyDecryptedString.isDecrypted()).isFalse();
+    assertThatThrownBy(lazyDecryptedString::get)
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void shouldReturnNullWhenInputIsNull() {
+    assertThat(decryptionService.decryptLazily("someTopic", null)).isNull();
+    assertThat(decryptionService.decryptLazily("someTopic", new EncryptedString(null))).isNull();
+  }
+
+  @Test
+  void shouldReturnSameInstanceToConcurrentReaders() throws Exception {
+    // given
+    LazyDecryptedString lazyDecryptedString = new SingleTopicFieldLevelDecryptionService(
+        decryptionService, "someTopic").decryptLazily(ENCRYPTED_STRING);
+    ExecutorService executorService = Executors.newFixedThreadPool(8);
+    List<Callable<String>> readers = new ArrayList<>();
+    for (int i = 0; i < 32; i++) {
+      readers.add(lazyDecryptedString::get);
+    }
+
+    // when
+    List<Future<String>> results;
+    try {
+      results = executorService.invokeAll(readers);
+    } finally {
+      executorService.shutdown();
+    }
+
+    // then
+    String expected = lazyDecryptedString.get();
+    for (Future<String> result : results) {
+      assertThat(result.get()).isSameAs(expected);
+    }
+  }
+}
@@ -7,6 +7,13 @@ import java.util.Objects;
 
 public class DummyEncryptionKeyProvider implements EncryptionKeyProvider {
 
+  /**
+   * Shared key provider of the tests which only need some valid key: key version 3 with the
+   * default key name "encryption_key".
+   */
+  public static final EncryptionKeyProvider KEY_PROVIDER = new DummyEncryptionKeyProvider(
+      "gZvWT1IN0mM5sK3sK0V2Wfzo9Jmk4tUPt7gxRsuN3LY=", "encryption_key", 3);
+
   private final KeyVersion keyVersion;
 
   public DummyEncryptionKeyProvider(String encodedKey, String encryptionKeyAttributeName,
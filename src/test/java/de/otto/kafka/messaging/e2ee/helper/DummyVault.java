@@ -1,6 +1,7 @@
 package de.otto.kafka.messaging.e2ee.helper;
 
 import de.otto.kafka.messaging.e2ee.vault.ReadonlyVaultApi;
+import io.github.jopenlibs.vault.VaultException;
 import io.github.jopenlibs.vault.api.Logical.logicalOperations;
 import io.github.jopenlibs.vault.response.LogicalResponse;
 import io.github.jopenlibs.vault.rest.RestResponse;
@@ -8,17 +9,38 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class DummyVault implements ReadonlyVaultApi {
 
   private final List<DataVersion> vaultData = new ArrayList<>();
+  private final AtomicInteger readCount = new AtomicInteger(0);
+  private CountDownLatch readGate;
+  private boolean throwException = false;
 
   public void setPathValue(String path, String value, int version) {
     this.vaultData.add(new DataVersion(path, value, version));
   }
 
+  /**
+   * All reads will block until the given latch is released.
+   */
+  public void setReadGate(CountDownLatch readGate) {
+    this.readGate = readGate;
+  }
+
+  public void setThrowException(boolean throwException) {
+    this.throwException = throwException;
+  }
+
+  public int getReadCount() {
+    return readCount.get();
+  }
+
   @Override
-  public LogicalResponse read(String path) {
+  public LogicalResponse read(String path) throws VaultException {
+    awaitReadGate();
     DataVersion dataVersion = vaultData.stream()
         .filter(d -> Objects.equals(d.path(), path))
         .findFirst()
@@ -42,7 +64,8 @@ public class DummyVault implements ReadonlyVaultApi {
   }
 
   @Override
-  public LogicalResponse read(String path, int version) {
+  public LogicalResponse read(String path, int version) throws VaultException {
+    awaitReadGate();
     DataVersion dataVersion = vaultData.stream()
         .filter(d -> Objects.equals(d.path(), path))
         .filter(d -> Objects.equals(d.version(), version))
@@ -66,6 +89,21 @@ public class DummyVault implements ReadonlyVaultApi {
         logicalOperations.readV2);
   }
 
+  private void awaitReadGate() throws VaultException {
+    readCount.incrementAndGet();
+    if (readGate != null) {
+      try {
+        readGate.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+    }
+    if (throwException) {
+      throw new VaultException("Some Vault Exception");
+    }
+  }
+
   private record DataVersion(String path, String data, int version) {
 
   }
@@ -0,0 +1,95 @@
+package de.otto.kafka.messaging.e2ee.kafka;
+
+import static de.otto.kafka.messaging.e2ee.helper.DummyEncryptionKeyProvider.KEY_PROVIDER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.otto.kafka.messaging.e2ee.EncryptionService;
+import de.otto.kafka.messaging.e2ee.KafkaEncryptionHelper;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.junit.jupiter.api.Test;
+
+class E2eeConsumerInterceptorTest {
+
+  @Test
+  void shouldDecryptAllRecordsOfPoll() {
+    // given
+    E2eeConsumerInterceptor<String> interceptor = new E2eeConsumerInterceptor<>();
+    interceptor.configure(Map.of(E2eeKafkaConfig.ENCRYPTION_KEY_PROVIDER_CONFIG, KEY_PROVIDER));
+    TopicPartition partition = new TopicPartition("some-topic", 0);
+    Map<TopicPartition, OffsetAndMetadata> nextOffsets = Map.of(partition,
+        new OffsetAndMetadata(3L, Optional.of(7), ""));
+    ConsumerRecords<String, byte[]> records = new ConsumerRecords<>(Map.of(partition, List.of(
+        encryptedRecord(0, "Hello"),
+        plainRecord(1, "plain"),
+        encryptedRecord(2, "World"))), nextOffsets);
+
+    // when
+    ConsumerRecords<String, byte[]> result = interceptor.onConsume(records);
+
+    // then
+    List<ConsumerRecord<String, byte[]>> resultRecords = result.records(partition);
+    assertThat(resultRecords).extracting(ConsumerRecord::offset).containsExactly(0L, 1L, 2L);
+    assertThat(resultRecords).extracting(record -> new String(record.value(),
+        StandardCharsets.UTF_8)).containsExactly("Hello", "plain", "World");
+    assertThat(resultRecords.get(0).headers()
+        .lastHeader(KafkaEncryptionHelper.KAFKA_CE_HEADER_IV_VALUE)).isNull();
+    assertThat(result.nextOffsets()).isEqualTo(nextOffsets);
+  }
+
+  @Test
+  void shouldPassRecordsWhichCannotBeDecrypted() {
+    // given
+    E2eeConsumerInterceptor<String> interceptor = new E2eeConsumerInterceptor<>();
+    interceptor.configure(Map.of(E2eeKafkaConfig.ENCRYPTION_KEY_PROVIDER_CONFIG, KEY_PROVIDER));
+    TopicPartition partition = new TopicPartition("some-topic", 0);
+    ConsumerRecord<String, byte[]> brokenRecord = encryptedRecord(1, "broken");
+    brokenRecord.value()[0]++;
+    ConsumerRecords<String, byte[]> records = new ConsumerRecords<>(Map.of(partition, List.of(
+        encryptedRecord(0, "Hello"),
+        brokenRecord,
+        encryptedRecord(2, "World"))), Map.of());
+
+    // when
+    ConsumerRecords<String, byte[]> result = interceptor.onConsume(records);
+
+    // then
+    List<ConsumerRecord<String, byte[]>> resultRecords = result.records(partition);
+    assertThat(new String(resultRecords.get(0).value(), StandardCharsets.UTF_8))
+        .isEqualTo("Hello");
+    assertThat(resultRecords.get(1)).isSameAs(brokenRecord);
+    assertThat(brokenRecord.headers().lastHeader(KafkaEncryptionHelper.KAFKA_CE_HEADER_IV_VALUE))
+        .isNotNull();
+    assertThat(new String(resultRecords.get(2).value(), StandardCharsets.UTF_8))
+        .isEqualTo("World");
+  }
+
+  private static ConsumerRecord<String, byte[]> encryptedRecord(long offset, String value) {
+    E2eeSerializer<byte[]> serializer = new E2eeSerializer<>(new EncryptionService(KEY_PROVIDER),
+        new ByteArraySerializer());
+    Headers headers = new RecordHeaders();
+    byte[] encryptedValue = serializer.serialize("some-topic", headers,
+        value.getBytes(StandardCharsets.UTF_8));
+    return record(offset, encryptedValue, headers);
+  }
+
+  private static ConsumerRecord<String, byte[]> plainRecord(long offset, String value) {
+    return record(offset, value.getBytes(StandardCharsets.UTF_8), new RecordHeaders());
+  }
+
+  private static ConsumerRecord<String, byte[]> record(long offset, byte[] value,
+      Headers headers) {
+    return new ConsumerRecord<>("some-topic", 0, offset, 0L, TimestampType.CREATE_TIME, 0,
+        value.length, "key", value, headers, Optional.empty());
+  }
+}
@@ -0,0 +1,57 @@
+package de.otto.kafka.messaging.e2ee.kafka;
+
+import static de.otto.kafka.messaging.e2ee.helper.DummyEncryptionKeyProvider.KEY_PROVIDER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.otto.kafka.messaging.e2ee.EncryptionService;
+import de.otto.kafka.messaging.e2ee.KafkaEncryptionHelper;
+import java.nio.charset.StandardCharsets;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.test.TestRecord;
+import org.junit.jupiter.api.Test;
+
+class E2eeDecryptingProcessorTest {
+
+  @Test
+  void shouldDecryptValuesAndRemoveHeaders() {
+    // given
+    StreamsBuilder builder = new StreamsBuilder();
+    builder.stream("encrypted-topic", Consumed.with(Serdes.String(), Serdes.ByteArray()))
+        .processValues(E2eeDecryptingProcessor.<String, String>supplier(KEY_PROVIDER,
+            new StringDeserializer()))
+        .to("plain-topic", Produced.with(Serdes.String(), Serdes.String()));
+    Headers headers = new RecordHeaders();
+    byte[] encrypted = new E2eeSerializer<>(new EncryptionService(KEY_PROVIDER),
+        new StringSerializer()).serialize("encrypted-topic", headers, "Hello World!");
+
+    try (TopologyTestDriver driver = new TopologyTestDriver(builder.build(),
+        E2eeEncryptingProcessorTest.streamsConfig())) {
+      TestInputTopic<String, byte[]> input = driver.createInputTopic("encrypted-topic",
+          new StringSerializer(), new ByteArraySerializer());
+      TestOutputTopic<String, String> output = driver.createOutputTopic("plain-topic",
+          new StringDeserializer(), new StringDeserializer());
+
+      // when
+      input.pipeInput(new TestRecord<>("some-key", encrypted, headers));
+      input.pipeInput("other-key", "plain".getBytes(StandardCharsets.UTF_8));
+
+      // then
+      TestRecord<String, String> decrypted = output.readRecord();
+      assertThat(decrypted.value()).isEqualTo("Hello World!");
+      assertThat(decrypted.headers().lastHeader(KafkaEncryptionHelper.KAFKA_CE_HEADER_IV_VALUE))
+          .isNull();
+      assertThat(output.readRecord().value()).isEqualTo("plain");
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package de.otto.kafka.messaging.e2ee.kafka;
+
+import static de.otto.kafka.messaging.e2ee.helper.DummyEncryptionKeyProvider.KEY_PROVIDER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.otto.kafka.messaging.e2ee.DecryptionService;
+import de.otto.kafka.messaging.e2ee.EncryptionService;
+import de.otto.kafka.messaging.e2ee.KafkaEncryptionHelper;
+import de.otto.kafka.messaging.e2ee.KafkaHeaderEncoding;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+
+class E2eeDeserializerTest {
+
+  @Test
+  void shouldDecryptValueEncryptedBySerializer() {
+    // given
+    E2eeSerializer<String> serializer = new E2eeSerializer<>(new EncryptionService(KEY_PROVIDER),
+        new StringSerializer());
+    E2eeDeserializer<String> deserializer = new E2eeDeserializer<>(
+        new DecryptionService(KEY_PROVIDER), new StringDeserializer());
+    Headers headers = new RecordHeaders();
+    byte[] encryptedValue = serializer.serialize("some-topic", headers, "Hello World!");
+
+    // when
+    String result = deserializer.deserialize("some-topic", headers, encryptedValue);
+
+    // then
+    assertThat(result).isEqualTo("Hello World!");
+  }
+
+  @Test
+  void shouldDecryptValueWithBinaryHeaders() {
+    // given
+    E2eeSerializer<String> serializer = new E2eeSerializer<>(new EncryptionService(KEY_PROVIDER),
+        new StringSerializer(), KafkaHeaderEncoding.BINARY);
+    E2eeDeserializer<String> deserializer = new E2eeDeserializer<>(
+        new DecryptionService(KEY_PROVIDER), new StringDeserializer());
+    Headers headers = new RecordHeaders();
+    byte[] encryptedValue = serializer.serialize("some-topic", headers, "Hello World!");
+
+    // when
+    String result = deserializer.deserialize("some-topic", headers, encryptedValue);
+
+    // then
+    assertThat(headers.lastHeader(KafkaEncryptionHelper.KAFKA_CE_HEADER_IV_VALUE).value())
+        .hasSize(12);
+    assertThat(result).isEqualTo("Hello World!");
+  }
+
+  @Test
+  void shouldDecryptValueWithCompactHeader() {
+    // given
+    E2eeSerializer<String> serializer = new E2eeSerializer<>(new EncryptionService(KEY_PROVIDER),
+        new StringSerializer(), KafkaHeaderEncoding.COMPACT);
+    E2eeDeserializer<String> deserializer = new E2eeDeserializer<>(
+        new DecryptionService(KEY_PROVIDER), new StringDeserializer());
+    Headers headers = new RecordHeaders();
+    byte[] encryptedValue = serializer.serialize("some-topic", headers, "Hello World!");
+
+    // when
+    String result = deserializer.deserialize("some-topic", headers, encryptedValue);
+
+    // then
+    assertThat(headers.toArray()).hasSize(1);
+    assertThat(headers.lastHeader(KafkaEncryptionHelper.KAFKA_CE_HEADER_E2EE_VALUE)).isNotNull();
+    assertThat(result).isEqualTo("Hello World!");
+  }
+
+  @Test
+  void shouldPassUnencryptedValue() {
+    // given
+    E2eeDeserializer<String> deserializer = new E2eeDeserializer<>(
+        new DecryptionService(KEY_PROVIDER), new StringDeserializer());
+
+    // when
+    String result = deserializer.deserialize("some-topic", new RecordHeaders(),
+        "Hello World!".getBytes(StandardCharsets.UTF_8));
+
+    // then
+    assertThat(result).isEqualTo("Hello World!");
+  }
+
+  @Test
+  void shouldPassTombstone() {
+    // given
+    E2eeDeserializer<String> deserializer = new E2eeDeserializer<>(
+        new DecryptionService(KEY_PROVIDER), new StringDeserializer());
+
+    // when
+    String result = deserializer.deserialize("some-topic", new RecordHeaders(), (byte[]) null);
+
+    // then
+    assertThat(result).isNull();
+  }
+
+  @Test
+  void shouldBeConfiguredFromConsumerConfigs() {
+    // given
+    E2eeSerializer<String> serializer = new E2eeSerializer<>(new EncryptionService(KEY_PROVIDER),
+        new StringSerializer());
+    Headers headers = new RecordHeaders();
+    byte[] encryptedValue = serializer.serialize("some-topic", headers, "Hello World!");
+    E2eeDeserializer<String> deserializer = new E2eeDeserializer<>();
+    deserializer.configure(Map.of(
+        E2eeKafkaConfig.ENCRYPTION_KEY_PROVIDER_CONFIG, KEY_PROVIDER,
+        E2eeKafkaConfig.VALUE_DESERIALIZER_CONFIG, new StringDeserializer()), false);
+
+    // when
+    String result = deserializer.deserialize("some-topic", headers, encryptedValue);
+
+    // then
+    assertThat(result).isEqualTo("Hello World!");
+  }
+}
@@ -0,0 +1,63 @@
+package de.otto.kafka.messaging.e2ee.kafka;
+
+import static de.otto.kafka.messaging.e2ee.helper.DummyEncryptionKeyProvider.KEY_PROVIDER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.otto.kafka.messaging.e2ee.DecryptionService;
+import de.otto.kafka.messaging.e2ee.KafkaEncryptionHelper;
+import java.util.Properties;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.test.TestRecord;
+import org.junit.jupiter.api.Test;
+
+class E2eeEncryptingProcessorTest {
+
+  @Test
+  void shouldEncryptValuesAndWriteHeaders() {
+    // given
+    StreamsBuilder builder = new StreamsBuilder();
+    builder.stream("plain-topic", Consumed.with(Serdes.String(), Serdes.String()))
+        .processValues(E2eeEncryptingProcessor.<String, String>supplier(KEY_PROVIDER,
+            "encrypted-topic", new StringSerializer()))
+        .to("encrypted-topic", Produced.with(Serdes.String(), Serdes.ByteArray()));
+
+    try (TopologyTestDriver driver = new TopologyTestDriver(builder.build(), streamsConfig())) {
+      TestInputTopic<String, String> input = driver.createInputTopic("plain-topic",
+          new StringSerializer(), new StringSerializer());
+      TestOutputTopic<String, byte[]> output = driver.createOutputTopic("encrypted-topic",
+          new StringDeserializer(), new ByteArrayDeserializer());
+
+      // when
+      input.pipeInput("some-key", "Hello World!");
+      input.pipeInput("other-key", (String) null);
+
+      // then
+      TestRecord<String, byte[]> encrypted = output.readRecord();
+      assertThat(encrypted.headers().lastHeader(KafkaEncryptionHelper.KAFKA_CE_HEADER_IV_VALUE))
+          .isNotNull();
+      String plainText = new DecryptionService(KEY_PROVIDER).decryptToString("encrypted-topic",
+          E2eeHeaders.payloadOf(encrypted.value(), encrypted.headers()));
+      assertThat(plainText).isEqualTo("Hello World!");
+      TestRecord<String, byte[]> tombstone = output.readRecord();
+      assertThat(tombstone.key()).isEqualTo("other-key");
+      assertThat(tombstone.value()).isNull();
+    }
+  }
+
+  static Properties streamsConfig() {
+    Properties config = new Properties();
+    config.put(StreamsConfig.APPLICATION_ID_CONFIG, "e2ee-test");
+    config.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+    return config;
+  }
+}
@@ -0,0 +1,76 @@
+package de.otto.kafka.messaging.e2ee.kafka;
+
+import static de.otto.kafka.messaging.e2ee.helper.DummyEncryptionKeyProvider.KEY_PROVIDER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.otto.kafka.messaging.e2ee.EncryptionKeyProvider;
+import de.otto.kafka.messaging.e2ee.EncryptionService;
+import de.otto.kafka.messaging.e2ee.KafkaEncryptionHelper;
+import de.otto.kafka.messaging.e2ee.KafkaHeaderEncoding;
+import de.otto.kafka.messaging.e2ee.helper.DummyEncryptionKeyProvider;
+import de.otto.kafka.messaging.e2ee.vault.VaultRuntimeException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.junit.jupiter.api.Test;
+
+class E2eeProducerInterceptorTest {
+
+  @Test
+  void shouldEncryptValueAndAddHeaders() {
+    // given
+    E2eeProducerInterceptor<String> interceptor = new E2eeProducerInterceptor<>();
+    interceptor.configure(Map.of(E2eeKafkaConfig.ENCRYPTION_KEY_PROVIDER_CONFIG, KEY_PROVIDER));
+    byte[] plainValue = "Hello World!".getBytes(StandardCharsets.UTF_8);
+
+    // when
+    ProducerRecord<String, byte[]> result = interceptor.onSend(
+        new ProducerRecord<>("some-topic", 1, "some-key", plainValue));
+
+    // then
+    assertThat(result.topic()).isEqualTo("some-topic");
+    assertThat(result.partition()).isEqualTo(1);
+    assertThat(result.key()).isEqualTo("some-key");
+    assertThat(result.value()).isNotEqualTo(plainValue);
+    assertThat(result.headers().lastHeader(KafkaEncryptionHelper.KAFKA_CE_HEADER_IV_VALUE))
+        .isNotNull();
+  }
+
+  @Test
+  void shouldKeepTombstones() {
+    // given
+    E2eeProducerInterceptor<String> interceptor = new E2eeProducerInterceptor<>(
+        new EncryptionService(KEY_PROVIDER), KafkaHeaderEncoding.COMPACT);
+    ProducerRecord<String, byte[]> tombstone = new ProducerRecord<>("some-topic", "key", null);
+
+    // when
+    ProducerRecord<String, byte[]> result = interceptor.onSend(tombstone);
+
+    // then
+    assertThat(result).isSameAs(tombstone);
+  }
+
+  @Test
+  void shouldRejectRecordWhenEncryptionFails() {
+    // given
+    EncryptionKeyProvider failingKeyProvider = new DummyEncryptionKeyProvider(
+        "gZvWT1IN0mM5sK3sK0V2Wfzo9Jmk4tUPt7gxRsuN3LY=", "encryption_key", 3) {
+      @Override
+      public KeyVersion retrieveKeyForEncryption(String topic) {
+        throw new VaultRuntimeException("vault is down");
+      }
+    };
+    E2eeProducerInterceptor<String> interceptor = new E2eeProducerInterceptor<>(
+        new EncryptionService(failingKeyProvider), KafkaHeaderEncoding.TEXT);
+
+    // when
+    ProducerRecord<String, byte[]> result = interceptor.onSend(new ProducerRecord<>("some-topic",
+        "key", "Hello World!".getBytes(StandardCharsets.UTF_8)));
+
+    // then: the value serializer of the producer rejects the record
+    assertThatThrownBy(() -> new ByteArraySerializer().serialize(result.topic(), result.value()))
+        .isInstanceOf(ClassCastException.class);
+  }
+}
@@ -0,0 +1,126 @@
+package de.otto.kafka.messaging.e2ee.kafka;
+
+import static de.otto.kafka.messaging.e2ee.helper.DummyEncryptionKeyProvider.KEY_PROVIDER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.otto.kafka.messaging.e2ee.DecryptionService;
+import de.otto.kafka.messaging.e2ee.EncryptionKeyProvider;
+import de.otto.kafka.messaging.e2ee.EncryptionService;
+import de.otto.kafka.messaging.e2ee.helper.DummyEncryptionKeyProvider;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+class E2eeReactiveDecryptorTest {
+
+  @Test
+  void shouldDecryptRecordsAndKeepOrderPerPartition() {
+    // given
+    E2eeReactiveDecryptor decryptor = new E2eeReactiveDecryptor(
+        new DecryptionService(KEY_PROVIDER));
+    Flux<ConsumerRecord<String, byte[]>> records = Flux.just(
+        encryptedRecord("topic-a", 0, 0L, "a0"),
+        encryptedRecord("topic-b", 0, 0L, "b0"),
+        encryptedRecord("topic-a", 0, 1L, "a1"),
+        new ConsumerRecord<>("topic-b", 0, 1L, "key", null),
+        encryptedRecord("topic-a", 0, 2L, "a2"));
+
+    // when
+    List<ConsumerRecord<String, byte[]>> result = decryptor.decrypt(records)
+        .collectList()
+        .block(Duration.ofSeconds(5));
+
+    // then
+    assertThat(result).hasSize(5);
+    assertThat(result).filteredOn(record -> record.topic().equals("topic-a"))
+        .extracting(record -> new String(record.value(), StandardCharsets.UTF_8))
+        .containsExactly("a0", "a1", "a2");
+    assertThat(result).filteredOn(record -> record.topic().equals("topic-b"))
+        .extracting(ConsumerRecord::offset)
+        .containsExactly(0L, 1L);
+    assertThat(result.get(0).headers().toArray()).isEmpty();
+  }
+
+  @Test
+  void shouldNotChangeHeadersOfConsumedRecords() {
+    // given
+    E2eeReactiveDecryptor decryptor = new E2eeReactiveDecryptor(
+        new DecryptionService(KEY_PROVIDER));
+    ConsumerRecord<String, byte[]> record = encryptedRecord("topic-a", 0, 0L, "a0");
+    int headerCount = record.headers().toArray().length;
+
+    // when
+    ConsumerRecord<String, byte[]> result = decryptor.decrypt(Flux.just(record))
+        .blockLast(Duration.ofSeconds(5));
+    Integer mappedHeaderCount = decryptor.decrypt(Flux.just(record),
+            (consumedRecord, plainValue) -> consumedRecord.headers().toArray().length)
+        .blockLast(Duration.ofSeconds(5));
+
+    // then
+    assertThat(result.headers().toArray()).isEmpty();
+    assertThat(headerCount).isPositive();
+    assertThat(record.headers().toArray()).hasSize(headerCount);
+    assertThat(mappedHeaderCount).isEqualTo(headerCount);
+  }
+
+  @Test
+  void shouldPassOtherPartitionsWhileKeyIsLoaded() throws InterruptedException {
+    // given: a key provider which blocks for topic-a until a record of topic-b has been emitted
+    CountDownLatch otherPartitionEmitted = new CountDownLatch(1);
+    EncryptionKeyProvider slowKeyProvider = new DummyEncryptionKeyProvider(
+        KEY_PROVIDER.retrieveKeyForEncryption("any")) {
+      @Override
+      public String retrieveKeyForDecryption(String topic, int version,
+          String encryptionKeyAttributeName) {
+        if (topic.equals("topic-a")) {
+          try {
+            otherPartitionEmitted.await(5, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        return super.retrieveKeyForDecryption(topic, version, encryptionKeyAttributeName);
+      }
+    };
+    E2eeReactiveDecryptor decryptor = new E2eeReactiveDecryptor(
+        new DecryptionService(slowKeyProvider), Schedulers.boundedElastic(), 2);
+
+    // when
+    List<String> result = decryptor.decrypt(
+            Flux.just(encryptedRecord("topic-a", 0, 0L, "a0"),
+                encryptedRecord("topic-b", 0, 0L, "b0")),
+            (record, plainValue) -> new String(plainValue, StandardCharsets.UTF_8))
+        .doOnNext(value -> {
+          if (value.equals("b0")) {
+            otherPartitionEmitted.countDown();
+          }
+        })
+        .collectList()
+        .block(Duration.ofSeconds(10));
+
+    // then
+    assertThat(result).containsExactly("b0", "a0");
+  }
+
+  private static ConsumerRecord<String, byte[]> encryptedRecord(String topic, int partition,
+      long offset, String value) {
+    E2eeSerializer<byte[]> serializer = new E2eeSerializer<>(new EncryptionService(KEY_PROVIDER),
+        new ByteArraySerializer());
+    Headers headers = new RecordHeaders();
+    byte[] encryptedValue = serializer.serialize(topic, headers,
+        value.getBytes(StandardCharsets.UTF_8));
+    return new ConsumerRecord<>(topic, partition, offset, 0L, TimestampType.CREATE_TIME, 0,
+        encryptedValue.length, "key", encryptedValue, headers, Optional.empty());
+  }
+}
@@ -0,0 +1,109 @@
+package de.otto.kafka.messaging.e2ee.kafka;
+
+import static de.otto.kafka.messaging.e2ee.helper.DummyEncryptionKeyProvider.KEY_PROVIDER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.otto.kafka.messaging.e2ee.DecryptionService;
+import de.otto.kafka.messaging.e2ee.EncryptionService;
+import de.otto.kafka.messaging.e2ee.KafkaHeaderEncoding;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.junit.jupiter.api.Test;
+
+class E2eeRecordDecryptorTest {
+
+  private final E2eeRecordDecryptor recordDecryptor = new E2eeRecordDecryptor(
+      new DecryptionService(KEY_PROVIDER));
+
+  @Test
+  void shouldDecryptRecordsOfAllPartitions() {
+    // given
+    TopicPartition partitionA = new TopicPartition("topic-a", 0);
+    TopicPartition partitionB = new TopicPartition("topic-b", 3);
+    Map<TopicPartition, OffsetAndMetadata> nextOffsets = Map.of(
+        partitionA, new OffsetAndMetadata(1L, Optional.of(2), ""),
+        partitionB, new OffsetAndMetadata(1L, Optional.empty(), ""));
+    ConsumerRecords<String, byte[]> records = new ConsumerRecords<>(Map.of(
+        partitionA, List.of(encryptedRecord("topic-a", 0, "a", KafkaHeaderEncoding.TEXT)),
+        partitionB, List.of(encryptedRecord("topic-b", 3, "b", KafkaHeaderEncoding.COMPACT))),
+        nextOffsets);
+
+    // when
+    ConsumerRecords<String, byte[]> result = recordDecryptor.decrypt(records);
+
+    // then
+    assertThat(result.count()).isEqualTo(2);
+    assertThat(result.records(partitionA).get(0).value())
+        .isEqualTo("a".getBytes(StandardCharsets.UTF_8));
+    assertThat(result.records(partitionB).get(0).value())
+        .isEqualTo("b".getBytes(StandardCharsets.UTF_8));
+    assertThat(result.records(partitionB).get(0).headers().toArray()).isEmpty();
+    assertThat(result.nextOffsets()).isEqualTo(nextOffsets);
+  }
+
+  @Test
+  void shouldNotChangeHeadersOfConsumedRecord() {
+    // given
+    ConsumerRecord<String, byte[]> record = encryptedRecord("topic-a", 0, "a",
+        KafkaHeaderEncoding.TEXT);
+    Header[] consumedHeaders = record.headers().toArray();
+
+    // when
+    ConsumerRecord<String, byte[]> result = recordDecryptor.decrypt(record);
+
+    // then
+    assertThat(result.headers().toArray()).isEmpty();
+    assertThat(record.headers().toArray()).isNotEmpty().containsExactly(consumedHeaders);
+  }
+
+  @Test
+  void shouldKeepUnencryptedRecordsAndTombstones() {
+    // given
+    ConsumerRecord<String, byte[]> tombstone = new ConsumerRecord<>("topic-a", 0, 0L, "key",
+        null);
+    ConsumerRecord<String, byte[]> plainRecord = new ConsumerRecord<>("topic-a", 0, 1L, "key",
+        "plain".getBytes(StandardCharsets.UTF_8));
+
+    // when
+    List<ConsumerRecord<String, byte[]>> result = recordDecryptor.decrypt("topic-a",
+        List.of(tombstone, plainRecord));
+
+    // then
+    assertThat(result).containsExactly(tombstone, plainRecord);
+  }
+
+  @Test
+  void shouldFailWhenRecordCannotBeDecrypted() {
+    // given
+    ConsumerRecord<String, byte[]> brokenRecord = encryptedRecord("topic-a", 0, "a",
+        KafkaHeaderEncoding.BINARY);
+    brokenRecord.value()[0]++;
+
+    // when + then
+    assertThatThrownBy(() -> recordDecryptor.decrypt(brokenRecord))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static ConsumerRecord<String, byte[]> encryptedRecord(String topic, int partition,
+      String value, KafkaHeaderEncoding headerEncoding) {
+    E2eeSerializer<byte[]> serializer = new E2eeSerializer<>(new EncryptionService(KEY_PROVIDER),
+        new ByteArraySerializer(), headerEncoding);
+    Headers headers = new RecordHeaders();
+    byte[] encryptedValue = serializer.serialize(topic, headers,
+        value.getBytes(StandardCharsets.UTF_8));
+    return new ConsumerRecord<>(topic, partition, 0L, 0L, TimestampType.CREATE_TIME, 0,
+        encryptedValue.length, "key", encryptedValue, headers, Optional.empty());
+  }
+}
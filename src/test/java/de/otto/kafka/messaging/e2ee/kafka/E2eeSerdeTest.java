@@ -0,0 +1,28 @@
+package de.otto.kafka.messaging.e2ee.kafka;
+
+import static de.otto.kafka.messaging.e2ee.helper.DummyEncryptionKeyProvider.KEY_PROVIDER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.otto.kafka.messaging.e2ee.KafkaEncryptionHelper;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Serdes;
+import org.junit.jupiter.api.Test;
+
+class E2eeSerdeTest {
+
+  @Test
+  void shouldEncryptAndDecryptValue() {
+    // given
+    E2eeSerde<String> serde = new E2eeSerde<>(KEY_PROVIDER, Serdes.String());
+    Headers headers = new RecordHeaders();
+
+    // when
+    byte[] encrypted = serde.serializer().serialize("some-topic", headers, "Hello World!");
+    String decrypted = serde.deserializer().deserialize("some-topic", headers, encrypted);
+
+    // then
+    assertThat(headers.lastHeader(KafkaEncryptionHelper.KAFKA_CE_HEADER_IV_VALUE)).isNotNull();
+    assertThat(decrypted).isEqualTo("Hello World!");
+  }
+}
@@ -0,0 +1,138 @@
+package de.otto.kafka.messaging.e2ee.kafka;
+
+import static de.otto.kafka.messaging.e2ee.helper.DummyEncryptionKeyProvider.KEY_PROVIDER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.otto.kafka.messaging.e2ee.EncryptionService;
+import de.otto.kafka.messaging.e2ee.KafkaEncryptionHelper;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+
+class E2eeSerializerTest {
+
+  @Test
+  void shouldEncryptValueAndWriteHeaders() {
+    // given
+    E2eeSerializer<String> serializer = new E2eeSerializer<>(new EncryptionService(KEY_PROVIDER),
+        new StringSerializer());
+    Headers headers = new RecordHeaders();
+
+    // when
+    byte[] result = serializer.serialize("some-topic", headers, "Hello World!");
+
+    // then
+    assertThat(result).isNotEqualTo("Hello World!".getBytes(StandardCharsets.UTF_8));
+    assertThat(headers.lastHeader(KafkaEncryptionHelper.KAFKA_CE_HEADER_IV_VALUE)).isNotNull();
+    assertThat(headers.lastHeader(KafkaEncryptionHelper.KAFKA_CE_HEADER_CIPHER_VERSION_VALUE)
+        .value()).isEqualTo("3".getBytes(StandardCharsets.UTF_8));
+    assertThat(headers.lastHeader(KafkaEncryptionHelper.KAFKA_CE_HEADER_CIPHER_NAME_VALUE)
+        .value()).isEqualTo("encryption_key".getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void shouldReplaceHeadersWhenRecordIsSerializedAgain() {
+    // given
+    E2eeSerializer<String> serializer = new E2eeSerializer<>(new EncryptionService(KEY_PROVIDER),
+        new StringSerializer());
+    Headers headers = new RecordHeaders();
+    serializer.serialize("some-topic", headers, "Hello World!");
+
+    // when
+    serializer.serialize("some-topic", headers, "Hello World!");
+
+    // then
+    assertThat(headers.headers(KafkaEncryptionHelper.KAFKA_CE_HEADER_IV_VALUE)).hasSize(1);
+  }
+
+  @Test
+  void shouldKeepTombstones() {
+    // given
+    E2eeSerializer<String> serializer = new E2eeSerializer<>(new EncryptionService(KEY_PROVIDER),
+        new StringSerializer());
+    Headers headers = new RecordHeaders();
+
+    // when
+    byte[] result = serializer.serialize("some-topic", headers, null);
+
+    // then
+    assertThat(result).isNull();
+    assertThat(headers.toArray()).isEmpty();
+  }
+
+  @Test
+  void shouldFailWithoutHeadersForEncryptedTopic() {
+    // given
+    E2eeSerializer<String> serializer = new E2eeSerializer<>(new EncryptionService(KEY_PROVIDER),
+        new StringSerializer());
+
+    // when + then
+    assertThatThrownBy(() -> serializer.serialize("some-topic", "Hello World!"))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void shouldBeConfiguredFromProducerConfigs() {
+    // given
+    E2eeSerializer<String> serializer = new E2eeSerializer<>();
+    serializer.configure(Map.of(
+        E2eeKafkaConfig.ENCRYPTION_KEY_PROVIDER_CONFIG, KEY_PROVIDER,
+        E2eeKafkaConfig.VALUE_SERIALIZER_CONFIG, StringSerializer.class.getName()), false);
+    Headers headers = new RecordHeaders();
+
+    // when
+    byte[] result = serializer.serialize("some-topic", headers, "Hello World!");
+
+    // then
+    assertThat(result).isNotNull();
+    assertThat(headers.lastHeader(KafkaEncryptionHelper.KAFKA_CE_HEADER_IV_VALUE)).isNotNull();
+  }
+
+  @Test
+  void shouldWriteBinaryHeadersWhenConfigured() {
+    // given
+    E2eeSerializer<String> serializer = new E2eeSerializer<>();
+    serializer.configure(Map.of(
+        E2eeKafkaConfig.ENCRYPTION_KEY_PROVIDER_CONFIG, KEY_PROVIDER,
+        E2eeKafkaConfig.VALUE_SERIALIZER_CONFIG, StringSerializer.class,
+        E2eeKafkaConfig.HEADER_ENCODING_CONFIG, "binary"), false);
+    Headers headers = new RecordHeaders();
+
+    // when
+    serializer.serialize("some-topic", headers, "Hello World!");
+
+    // then
+    assertThat(headers.lastHeader(KafkaEncryptionHelper.KAFKA_CE_HEADER_CIPHER_VERSION_VALUE)
+        .value()).containsExactly(0, 0, 0, 3);
+    assertThat(headers.lastHeader(KafkaEncryptionHelper.KAFKA_CE_HEADER_CIPHER_NAME_VALUE)
+        .value()).containsExactly(1);
+  }
+
+  @Test
+  void shouldRejectKeySerialization() {
+    // given
+    E2eeSerializer<String> serializer = new E2eeSerializer<>(new EncryptionService(KEY_PROVIDER),
+        new StringSerializer());
+
+    // when + then
+    assertThatThrownBy(() -> serializer.configure(Map.of(), true))
+        .isInstanceOf(ConfigException.class);
+  }
+
+  @Test
+  void shouldRejectMissingKeyProvider() {
+    // given
+    E2eeSerializer<String> serializer = new E2eeSerializer<>();
+
+    // when + then
+    assertThatThrownBy(() -> serializer.configure(Map.of(
+        E2eeKafkaConfig.VALUE_SERIALIZER_CONFIG, StringSerializer.class), false))
+        .isInstanceOf(ConfigException.class)
+        .hasMessageContaining(E2eeKafkaConfig.ENCRYPTION_KEY_PROVIDER_CONFIG);
+  }
+}
@@ -0,0 +1,131 @@
+package de.otto.kafka.messaging.e2ee.spring;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.otto.kafka.messaging.e2ee.DecryptionService;
+import de.otto.kafka.messaging.e2ee.EncryptionKeyProvider;
+import de.otto.kafka.messaging.e2ee.EncryptionService;
+import de.otto.kafka.messaging.e2ee.helper.DummyEncryptionKeyProvider;
+import de.otto.kafka.messaging.e2ee.vault.CachedEncryptionKeyProvider;
+import de.otto.kafka.messaging.e2ee.vault.SecondLevelCacheStorage;
+import de.otto.kafka.messaging.e2ee.vault.VaultCircuitBreaker;
+import de.otto.kafka.messaging.e2ee.vault.VaultConnectionConfig;
+import de.otto.kafka.messaging.e2ee.vault.VaultEncryptionKeyProvider;
+import de.otto.kafka.messaging.e2ee.vault.VaultEncryptionKeyProviderConfig;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.kafka.listener.BatchInterceptor;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+class E2eeAutoConfigurationTest {
+
+  private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+      .withConfiguration(AutoConfigurations.of(E2eeAutoConfiguration.class,
+          E2eeKafkaListenerAutoConfiguration.class));
+
+  @Test
+  void shouldCreateBeansFromProperties() {
+    contextRunner
+        .withPropertyValues(
+            "kafka.e2ee.vault.address=http://localhost:8200",
+            "kafka.e2ee.vault.token=some-token",
+            "kafka.e2ee.rules[0].default-rule=true",
+            "kafka.e2ee.rules[0].encryption-enabled=false",
+            "kafka.e2ee.rules[0].vault-path-template=galapagos/local/%TEAMNAME%/%TOPICNAME%",
+            "kafka.e2ee.rules[1].topic-name=some-topic",
+            "kafka.e2ee.rules[1].team-name=some-team",
+            "kafka.e2ee.rules[1].encryption-enabled=true")
+        .run(context -> {
+          VaultEncryptionKeyProviderConfig config = context.getBean(
+              VaultEncryptionKeyProviderConfig.class);
+          assertThat(config.isEncryptedTopic("some-topic")).isTrue();
+          assertThat(config.isEncryptedTopic("other-topic")).isFalse();
+          assertThat(config.vaultPath("some-topic"))
+              .isEqualTo("galapagos/local/some-team/some-topic");
+          assertThat(context.getBean(EncryptionKeyProvider.class))
+              .isInstanceOf(VaultEncryptionKeyProvider.class);
+          assertThat(context).hasSingleBean(EncryptionService.class);
+          assertThat(context).hasSingleBean(DecryptionService.class);
+          assertThat(context).hasSingleBean(RecordInterceptor.class);
+          assertThat(context).hasSingleBean(BatchInterceptor.class);
+        });
+  }
+
+  @Test
+  void shouldMapVaultConnectionProperties() {
+    contextRunner
+        .withPropertyValues(
+            "kafka.e2ee.vault.address=http://localhost:8200",
+            "kafka.e2ee.vault.token=some-token",
+            "kafka.e2ee.vault.standby-addresses[0]=http://localhost:8201",
+            "kafka.e2ee.vault.hedged-reads=true",
+            "kafka.e2ee.vault.circuit-breaker.enabled=true",
+            "kafka.e2ee.vault.circuit-breaker.failure-threshold=3")
+        .run(context -> {
+          VaultConnectionConfig connectionConfig = context.getBean(E2eeProperties.class)
+              .getVault().vaultConnectionConfig();
+          assertThat(connectionConfig.standbyAddresses()).isEqualTo(List.of(
+              "http://localhost:8201"));
+          assertThat(connectionConfig.hedgedReads()).isTrue();
+          assertThat(context).hasSingleBean(VaultCircuitBreaker.class);
+          assertThat(context.getBean(EncryptionKeyProvider.class))
+              .isInstanceOf(VaultEncryptionKeyProvider.class);
+        });
+  }
+
+  @Test
+  void shouldCreateVaultConfigForVaultAgent() {
+    contextRunner
+        .withPropertyValues("kafka.e2ee.vault.agent.address=http://127.0.0.1:8100")
+        .run(context -> {
+          assertThat(context).hasSingleBean(VaultEncryptionKeyProviderConfig.class);
+          assertThat(context).doesNotHaveBean(VaultCircuitBreaker.class);
+          VaultConnectionConfig connectionConfig = context.getBean(E2eeProperties.class)
+              .getVault().vaultConnectionConfig();
+          assertThat(connectionConfig.vaultAgent())
+              .isEqualTo(new VaultConnectionConfig.VaultAgent(null, "http://127.0.0.1:8100"));
+        });
+  }
+
+  @Test
+  void shouldWrapKeyProviderWhenCacheStorageExists() {
+    contextRunner
+        .withPropertyValues("kafka.e2ee.vault.address=http://localhost:8200",
+            "kafka.e2ee.vault.token=some-token")
+        .withBean(SecondLevelCacheStorage.class, () -> new SecondLevelCacheStorage() {
+          @Override
+          public void storeEntry(String payload) {
+          }
+
+          @Override
+          public String retrieveEntry() {
+            return null;
+          }
+        })
+        .run(context -> assertThat(context.getBean(EncryptionKeyProvider.class))
+            .isInstanceOf(CachedEncryptionKeyProvider.class));
+  }
+
+  @Test
+  void shouldUseOwnKeyProviderAndSkipInterceptorsWhenDisabled() {
+    contextRunner
+        .withPropertyValues("kafka.e2ee.listener.decrypt=false")
+        .withBean(EncryptionKeyProvider.class, () -> DummyEncryptionKeyProvider.KEY_PROVIDER)
+        .run(context -> {
+          assertThat(context).doesNotHaveBean(VaultEncryptionKeyProviderConfig.class);
+          assertThat(context).hasSingleBean(DecryptionService.class);
+          assertThat(context).doesNotHaveBean(RecordInterceptor.class);
+          assertThat(context).doesNotHaveBean(BatchInterceptor.class);
+        });
+  }
+
+  @Test
+  void shouldCreateNothingWithoutKeyProvider() {
+    contextRunner.run(context -> {
+      assertThat(context).doesNotHaveBean(EncryptionService.class);
+      assertThat(context).doesNotHaveBean(RecordInterceptor.class);
+    });
+  }
+}
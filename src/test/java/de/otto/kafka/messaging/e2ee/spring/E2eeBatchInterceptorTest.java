@@ -0,0 +1,92 @@
+package de.otto.kafka.messaging.e2ee.spring;
+
+import static de.otto.kafka.messaging.e2ee.helper.DummyEncryptionKeyProvider.KEY_PROVIDER;
+import static de.otto.kafka.messaging.e2ee.spring.E2eeRecordInterceptorTest.encryptedRecord;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.otto.kafka.messaging.e2ee.DecryptionService;
+import de.otto.kafka.messaging.e2ee.kafka.E2eeRecordDecryptor;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+class E2eeBatchInterceptorTest {
+
+  private final E2eeRecordDecryptor recordDecryptor = new E2eeRecordDecryptor(
+      new DecryptionService(KEY_PROVIDER));
+
+  @Test
+  void shouldDecryptPartitionsInParallel() {
+    // given
+    Map<TopicPartition, List<ConsumerRecord<Object, Object>>> recordsByPartition = new HashMap<>();
+    Map<TopicPartition, OffsetAndMetadata> nextOffsets = new HashMap<>();
+    for (int partition = 0; partition < 8; partition++) {
+      recordsByPartition.put(new TopicPartition("some-topic", partition),
+          List.of(encryptedRecord("some-topic", partition, "value-" + partition)));
+      nextOffsets.put(new TopicPartition("some-topic", partition),
+          new OffsetAndMetadata(1L, Optional.of(3), ""));
+    }
+
+    // when
+    ConsumerRecords<Object, Object> result;
+    try (E2eeBatchInterceptor interceptor = new E2eeBatchInterceptor(recordDecryptor, 4)) {
+      result = interceptor.intercept(new ConsumerRecords<>(recordsByPartition, nextOffsets),
+          null);
+    }
+
+    // then
+    assertThat(result.count()).isEqualTo(8);
+    assertThat(result.nextOffsets()).isEqualTo(nextOffsets);
+    for (int partition = 0; partition < 8; partition++) {
+      assertThat(result.records(new TopicPartition("some-topic", partition)).get(0).value())
+          .isEqualTo(("value-" + partition).getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  void shouldDecryptOnConsumerThreadWithParallelismOfOne() {
+    // given
+    TopicPartition partition = new TopicPartition("some-topic", 0);
+    Map<TopicPartition, OffsetAndMetadata> nextOffsets = Map.of(partition,
+        new OffsetAndMetadata(2L, Optional.of(5), ""));
+    ConsumerRecords<Object, Object> records = new ConsumerRecords<>(Map.of(partition,
+        List.of(encryptedRecord("some-topic", 0, "a"), encryptedRecord("some-topic", 0, "b"))),
+        nextOffsets);
+
+    // when
+    ConsumerRecords<Object, Object> result;
+    try (E2eeBatchInterceptor interceptor = new E2eeBatchInterceptor(recordDecryptor, 1)) {
+      result = interceptor.intercept(records, null);
+    }
+
+    // then
+    assertThat(result.records(partition)).extracting(ConsumerRecord::value)
+        .containsExactly("a".getBytes(StandardCharsets.UTF_8),
+            "b".getBytes(StandardCharsets.UTF_8));
+    assertThat(result.nextOffsets()).isEqualTo(nextOffsets);
+  }
+
+  @Test
+  void shouldPassExceptionOfBrokenRecord() {
+    // given
+    ConsumerRecord<Object, Object> brokenRecord = encryptedRecord("some-topic", 1, "b");
+    ((byte[]) brokenRecord.value())[0]++;
+    ConsumerRecords<Object, Object> records = new ConsumerRecords<>(Map.of(
+        new TopicPartition("some-topic", 0), List.of(encryptedRecord("some-topic", 0, "a")),
+        new TopicPartition("some-topic", 1), List.of(brokenRecord)), Map.of());
+
+    // when + then
+    try (E2eeBatchInterceptor interceptor = new E2eeBatchInterceptor(recordDecryptor, 2)) {
+      assertThatThrownBy(() -> interceptor.intercept(records, null))
+          .isInstanceOf(IllegalArgumentException.class);
+    }
+  }
+}
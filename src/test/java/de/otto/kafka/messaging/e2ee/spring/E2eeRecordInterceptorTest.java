@@ -0,0 +1,60 @@
+package de.otto.kafka.messaging.e2ee.spring;
+
+import static de.otto.kafka.messaging.e2ee.helper.DummyEncryptionKeyProvider.KEY_PROVIDER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.otto.kafka.messaging.e2ee.DecryptionService;
+import de.otto.kafka.messaging.e2ee.EncryptionService;
+import de.otto.kafka.messaging.e2ee.kafka.E2eeRecordDecryptor;
+import de.otto.kafka.messaging.e2ee.kafka.E2eeSerializer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.junit.jupiter.api.Test;
+
+class E2eeRecordInterceptorTest {
+
+  private final E2eeRecordInterceptor interceptor = new E2eeRecordInterceptor(
+      new E2eeRecordDecryptor(new DecryptionService(KEY_PROVIDER)));
+
+  @Test
+  void shouldDecryptByteArrayValue() {
+    // given
+    ConsumerRecord<Object, Object> record = encryptedRecord("some-topic", 0, "Hello World!");
+
+    // when
+    ConsumerRecord<Object, Object> result = interceptor.intercept(record, null);
+
+    // then
+    assertThat(result.value()).isEqualTo("Hello World!".getBytes(StandardCharsets.UTF_8));
+    assertThat(result.headers().toArray()).isEmpty();
+  }
+
+  @Test
+  void shouldPassRecordsWithOtherValueTypes() {
+    // given
+    ConsumerRecord<Object, Object> record = new ConsumerRecord<>("some-topic", 0, 0L, "key",
+        "already deserialized");
+
+    // when
+    ConsumerRecord<Object, Object> result = interceptor.intercept(record, null);
+
+    // then
+    assertThat(result).isSameAs(record);
+  }
+
+  static ConsumerRecord<Object, Object> encryptedRecord(String topic, int partition,
+      String value) {
+    E2eeSerializer<byte[]> serializer = new E2eeSerializer<>(new EncryptionService(KEY_PROVIDER),
+        new ByteArraySerializer());
+    Headers headers = new RecordHeaders();
+    byte[] encryptedValue = serializer.serialize(topic, headers,
+        value.getBytes(StandardCharsets.UTF_8));
+    return new ConsumerRecord<>(topic, partition, 0L, 0L, TimestampType.CREATE_TIME, 0,
+        encryptedValue.length, "key", encryptedValue, headers, Optional.empty());
+  }
+}
@@ -7,6 +7,7 @@ import de.otto.kafka.messaging.e2ee.helper.CacheStorageMock;
 import de.otto.kafka.messaging.e2ee.helper.EncryptionKeyProviderMock;
 import de.otto.kafka.messaging.e2ee.helper.TestClock;
 import java.time.Duration;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -397,4 +398,17 @@ class CachedEncryptionKeyProviderTest {
     assertThat(cacheStorage.retrieveEntry())
         .isEqualTo(expectedCacheEntryPayload);
   }
-}
\ No newline at end of file
+
+  @Test
+  void shouldRemoveCacheEntriesOfInvalidatedTopicsOnly() {
+    // given: cache entries for two topics
+    cacheStorage.storeEntry("{\"entries\":["
+        + "{\"topic\":\"someTopic\",\"version\":3,\"encodedKey\":\"someSecret1\"},"
+        + "{\"topic\":\"otherTopic\",\"version\":2,\"encodedKey\":\"someSecret2\"}]}");
+    // when: one topic is invalidated
+    cachedEncryptionKeyProvider.invalidateTopics(List.of(TOPIC));
+    // then: only the entry of the other topic is left
+    assertThat(cacheStorage.retrieveEntry()).isEqualTo("{\"entries\":["
+        + "{\"topic\":\"otherTopic\",\"version\":2,\"encodedKey\":\"someSecret2\"}]}");
+  }
+}
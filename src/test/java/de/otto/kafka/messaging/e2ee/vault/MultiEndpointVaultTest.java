@@ -0,0 +1,107 @@
+package de.otto.kafka.messaging.e2ee.vault;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.otto.kafka.messaging.e2ee.helper.DummyVault;
+import io.github.jopenlibs.vault.VaultException;
+import io.github.jopenlibs.vault.response.LogicalResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.jupiter.api.Test;
+
+class MultiEndpointVaultTest {
+
+  @Test
+  void shouldDistributeReadsOverAllVaultNodes() throws VaultException {
+    // given
+    DummyVault vault1 = new DummyVault();
+    DummyVault vault2 = new DummyVault();
+    MultiEndpointVault multiEndpointVault = new MultiEndpointVault(List.of(vault1, vault2), false);
+
+    // when
+    for (int i = 0; i < 4; i++) {
+      multiEndpointVault.read("some/path");
+    }
+
+    // then
+    assertThat(vault1.getReadCount()).isEqualTo(2);
+    assertThat(vault2.getReadCount()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldFailOverToNextVaultNode() throws VaultException {
+    // given
+    DummyVault failingVault = new DummyVault();
+    failingVault.setThrowException(true);
+    DummyVault vault = new DummyVault();
+    vault.setPathValue("some/path", "{\"key\": \"value\"}", 3);
+    MultiEndpointVault multiEndpointVault =
+        new MultiEndpointVault(List.of(failingVault, vault), false);
+
+    // when
+    LogicalResponse result1 = multiEndpointVault.read("some/path", 3);
+    LogicalResponse result2 = multiEndpointVault.read("some/path", 3);
+
+    // then
+    assertThat(result1.getData()).containsEntry("key", "value");
+    assertThat(result2.getData()).containsEntry("key", "value");
+    assertThat(failingVault.getReadCount()).isEqualTo(1);
+    assertThat(vault.getReadCount()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldThrowExceptionWhenAllVaultNodesFail() {
+    // given
+    DummyVault failingVault1 = new DummyVault();
+    failingVault1.setThrowException(true);
+    DummyVault failingVault2 = new DummyVault();
+    failingVault2.setThrowException(true);
+    MultiEndpointVault multiEndpointVault =
+        new MultiEndpointVault(List.of(failingVault1, failingVault2), true);
+
+    // when + then
+    assertThatThrownBy(() -> multiEndpointVault.read("some/path"))
+        .isInstanceOf(VaultException.class);
+    assertThat(failingVault1.getReadCount()).isEqualTo(1);
+    assertThat(failingVault2.getReadCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldUseHedgedRequestWhenVaultNodeIsSlow() throws VaultException {
+    // given
+    CountDownLatch neverReleased = new CountDownLatch(1);
+    DummyVault slowVault = new DummyVault();
+    slowVault.setReadGate(neverReleased);
+    DummyVault vault = new DummyVault();
+    vault.setPathValue("some/path", "{\"key\": \"value\"}", 1);
+    MultiEndpointVault multiEndpointVault =
+        new MultiEndpointVault(List.of(slowVault, vault), true, Duration.ofMillis(20));
+
+    // when
+    LogicalResponse result = multiEndpointVault.read("some/path");
+
+    // then
+    assertThat(result.getData()).containsEntry("key", "value");
+    assertThat(slowVault.getReadCount()).isEqualTo(1);
+    assertThat(vault.getReadCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldStopHedgedReadsOnClose() throws VaultException {
+    // given
+    DummyVault vault1 = new DummyVault();
+    DummyVault vault2 = new DummyVault();
+    MultiEndpointVault multiEndpointVault = new MultiEndpointVault(List.of(vault1, vault2), true);
+    multiEndpointVault.read("some/path");
+
+    // when
+    multiEndpointVault.close();
+
+    // then
+    assertThatThrownBy(() -> multiEndpointVault.read("some/path"))
+        .isInstanceOf(RejectedExecutionException.class);
+  }
+}
@@ -143,4 +143,130 @@ class MultiTopicVaultEncryptionKeyProviderConfigTest {
         .isEqualTo("my_secret");
   }
 
-}
\ No newline at end of file
+
+  @Test
+  void shouldPreferLongestPrefixOverDefaultAndFirstEntryOnTies() {
+    MultiTopicVaultEncryptionKeyProviderConfig config = MultiTopicVaultEncryptionKeyProviderConfig.builder()
+        .vaultConnectionConfig(VaultConnectionConfig.builder()
+            .token("dev-token")
+            .build())
+        .configEntry(KafkaTopicConfigEntry.builder()
+            .isDefault(true)
+            .vaultPathTemplate("galapagos/default/%TOPICNAME%")
+            .build())
+        .configEntry(KafkaTopicConfigEntry.builder()
+            .kafkaTopicNamePrefix("team.")
+            .vaultPath("galapagos/team-first")
+            .build())
+        .configEntry(KafkaTopicConfigEntry.builder()
+            .kafkaTopicNamePrefix("team.")
+            .vaultPath("galapagos/team-second")
+            .encryptionKeyAttributeName("aes")
+            .build())
+        .configEntry(KafkaTopicConfigEntry.builder()
+            .kafkaTopicNamePrefix("team.orders")
+            .encryptionEnabled(false)
+            .build())
+        .configEntry(KafkaTopicConfigEntry.builder()
+            .kafkaTopicName("team.orders.special")
+            .vaultPath("galapagos/special")
+            .build())
+        .build();
+
+    assertThat(config.vaultPath("other")).isEqualTo("galapagos/default/other");
+    assertThat(config.vaultPath("team.payments")).isEqualTo("galapagos/team-first");
+    assertThat(config.encryptionKeyAttributeName("team.payments")).isEqualTo("aes");
+    assertThat(config.isEncryptedTopic("team.payments")).isTrue();
+    assertThat(config.isEncryptedTopic("team.orders.v1")).isFalse();
+    assertThat(config.vaultPath("team.orders.v1")).isEqualTo("galapagos/team-first");
+    assertThat(config.vaultPath("team.orders.special")).isEqualTo("galapagos/special");
+    assertThat(config.isEncryptedTopic("team.orders.special")).isTrue();
+  }
+
+  @Test
+  void shouldResolveTopicsOfLargeConfigRepeatedly() {
+    var builder = MultiTopicVaultEncryptionKeyProviderConfig.builder()
+        .vaultConnectionConfig(VaultConnectionConfig.builder()
+            .token("dev-token")
+            .build())
+        .configEntry(KafkaTopicConfigEntry.builder()
+            .isDefault(true)
+            .vaultPathTemplate("galapagos/%TEAMNAME%/%TOPICNAME%")
+            .build());
+    for (int i = 0; i < 300; i++) {
+      builder.configEntry(KafkaTopicConfigEntry.builder()
+          .kafkaTopicNamePrefix("prefix-" + i + ".")
+          .teamName("team-" + i)
+          .build());
+    }
+    MultiTopicVaultEncryptionKeyProviderConfig config = builder.build();
+
+    for (int round = 0; round < 2; round++) {
+      assertThat(config.vaultPath("prefix-42.topic")).isEqualTo("galapagos/team-42/prefix-42.topic");
+      assertThat(config.vaultPath("prefix-299.topic"))
+          .isEqualTo("galapagos/team-299/prefix-299.topic");
+      assertThrows(VaultConfigException.class, () -> config.vaultPath("unknown"));
+    }
+  }
+
+  @Test
+  void shouldMatchGlobAndRegexPatternsWithDefinedPriority() {
+    MultiTopicVaultEncryptionKeyProviderConfig config = MultiTopicVaultEncryptionKeyProviderConfig.builder()
+        .vaultConnectionConfig(VaultConnectionConfig.builder()
+            .token("dev-token")
+            .build())
+        .configEntry(KafkaTopicConfigEntry.builder()
+            .isDefault(true)
+            .encryptionEnabled(false)
+            .vaultPath("galapagos/default")
+            .build())
+        .configEntry(KafkaTopicConfigEntry.builder()
+            .kafkaTopicNamePrefix("orders-")
+            .vaultPath("galapagos/orders-prefix")
+            .build())
+        .configEntry(KafkaTopicConfigEntry.builder()
+            .kafkaTopicNameGlob("orders-{eu,us}-*")
+            .vaultPathTemplate("galapagos/orders/%TOPICNAME%")
+            .build())
+        .configEntry(KafkaTopicConfigEntry.builder()
+            .kafkaTopicNameRegex("orders-[a-z]{2}-prod")
+            .vaultPath("galapagos/orders-prod")
+            .encryptionKeyAttributeName("aes")
+            .build())
+        .configEntry(KafkaTopicConfigEntry.builder()
+            .kafkaTopicName("orders-eu-legacy")
+            .vaultPath("galapagos/legacy")
+            .build())
+        .build();
+
+    // glob comes first in config order
+    assertThat(config.vaultPath("orders-eu-prod")).isEqualTo("galapagos/orders/orders-eu-prod");
+    // regex provides the attribute name which the glob entry does not define
+    assertThat(config.encryptionKeyAttributeName("orders-eu-prod")).isEqualTo("aes");
+    // regex only
+    assertThat(config.vaultPath("orders-ap-prod")).isEqualTo("galapagos/orders-prod");
+    // pattern wins over prefix
+    assertThat(config.isEncryptedTopic("orders-us-test")).isTrue();
+    assertThat(config.vaultPath("orders-us-test")).isEqualTo("galapagos/orders/orders-us-test");
+    // exact name wins over pattern
+    assertThat(config.vaultPath("orders-eu-legacy")).isEqualTo("galapagos/legacy");
+    // no pattern matches
+    assertThat(config.vaultPath("orders-xyz")).isEqualTo("galapagos/orders-prefix");
+    assertThat(config.vaultPath("orders.eu-test")).isEqualTo("galapagos/default");
+    assertThat(config.isEncryptedTopic("orders.eu-test")).isFalse();
+  }
+
+  @Test
+  void shouldRejectInvalidTopicNamePatterns() {
+    assertThrows(VaultConfigException.class, () -> KafkaTopicConfigEntry.builder()
+        .kafkaTopicNameRegex("orders-[")
+        .build());
+    assertThrows(VaultConfigException.class, () -> KafkaTopicConfigEntry.builder()
+        .kafkaTopicNameGlob("orders-{eu,us")
+        .build());
+    assertThrows(VaultConfigException.class, () -> KafkaTopicConfigEntry.builder()
+        .kafkaTopicNameGlob("orders-*")
+        .kafkaTopicNameRegex("orders-.*")
+        .build());
+  }
+}
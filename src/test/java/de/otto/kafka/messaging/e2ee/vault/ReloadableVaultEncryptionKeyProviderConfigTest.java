@@ -0,0 +1,146 @@
+package de.otto.kafka.messaging.e2ee.vault;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.otto.kafka.messaging.e2ee.vault.MultiTopicVaultEncryptionKeyProviderConfig.KafkaTopicConfigEntry;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReloadableVaultEncryptionKeyProviderConfigTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void shouldNotifyListenersAboutAffectedTopicsOnly() {
+    // given
+    ReloadableVaultEncryptionKeyProviderConfig config =
+        new ReloadableVaultEncryptionKeyProviderConfig(createConfig(List.of("topic-a")));
+    List<Set<String>> notifications = new ArrayList<>();
+    config.addReloadListener(notifications::add);
+    assertThat(config.isEncryptedTopic("topic-a")).isTrue();
+    assertThat(config.isEncryptedTopic("topic-b")).isFalse();
+    assertThat(config.vaultPath("topic-c")).isEqualTo("galapagos/default");
+
+    // when
+    Set<String> result = config.reload(createConfig(List.of("topic-a", "topic-b")));
+
+    // then
+    assertThat(result).containsExactly("topic-b");
+    assertThat(notifications).containsExactly(Set.of("topic-b"));
+    assertThat(config.isEncryptedTopic("topic-b")).isTrue();
+    assertThat(config.vaultPath("topic-b")).isEqualTo("galapagos/topic-b");
+  }
+
+  @Test
+  void shouldNotNotifyListenersWhenNothingHasChanged() {
+    // given
+    ReloadableVaultEncryptionKeyProviderConfig config =
+        new ReloadableVaultEncryptionKeyProviderConfig(createConfig(List.of("topic-a")));
+    List<Set<String>> notifications = new ArrayList<>();
+    config.addReloadListener(notifications::add);
+    config.isEncryptedTopic("topic-a");
+
+    // when
+    Set<String> result = config.reload(createConfig(List.of("topic-a")));
+
+    // then
+    assertThat(result).isEmpty();
+    assertThat(notifications).isEmpty();
+  }
+
+  @Test
+  void shouldReloadConfigWhenWatchedFileChanges() throws Exception {
+    // given
+    Path configFile = tempDir.resolve("encrypted-topics.txt");
+    Files.writeString(configFile, "topic-a");
+    ReloadableVaultEncryptionKeyProviderConfig config =
+        new ReloadableVaultEncryptionKeyProviderConfig(loadConfig(configFile));
+    List<Set<String>> notifications = new CopyOnWriteArrayList<>();
+    config.addReloadListener(notifications::add);
+    assertThat(config.isEncryptedTopic("topic-b")).isFalse();
+
+    try (Closeable ignored = config.watchFile(configFile, this::loadConfig)) {
+      // when
+      Files.writeString(configFile, "topic-a\ntopic-b");
+
+      // then
+      long deadline = System.currentTimeMillis() + 30_000;
+      while (notifications.isEmpty() && System.currentTimeMillis() < deadline) {
+        Thread.sleep(50);
+      }
+      assertThat(notifications).containsExactly(Set.of("topic-b"));
+      assertThat(config.isEncryptedTopic("topic-b")).isTrue();
+    }
+  }
+
+  @Test
+  void shouldReloadConfigWhenKubernetesVolumeSwapsDataSymlink() throws Exception {
+    // given: the layout of a kubernetes ConfigMap volume
+    Path version1 = Files.createDirectory(tempDir.resolve("..2024_01_01_v1"));
+    Files.writeString(version1.resolve("encrypted-topics.txt"), "topic-a");
+    Files.createSymbolicLink(tempDir.resolve("..data"), version1.getFileName());
+    Path configFile = Files.createSymbolicLink(tempDir.resolve("encrypted-topics.txt"),
+        Path.of("..data", "encrypted-topics.txt"));
+    ReloadableVaultEncryptionKeyProviderConfig config =
+        new ReloadableVaultEncryptionKeyProviderConfig(loadConfig(configFile));
+    List<Set<String>> notifications = new CopyOnWriteArrayList<>();
+    config.addReloadListener(notifications::add);
+    assertThat(config.isEncryptedTopic("topic-b")).isFalse();
+
+    try (Closeable ignored = config.watchFile(configFile, this::loadConfig)) {
+      // when: the volume is updated like kubelet does it
+      Path version2 = Files.createDirectory(tempDir.resolve("..2024_01_02_v2"));
+      Files.writeString(version2.resolve("encrypted-topics.txt"), "topic-a\ntopic-b");
+      Path newDataLink = Files.createSymbolicLink(tempDir.resolve("..data_tmp"),
+          version2.getFileName());
+      Files.move(newDataLink, tempDir.resolve("..data"), StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+
+      // then
+      long deadline = System.currentTimeMillis() + 30_000;
+      while (notifications.isEmpty() && System.currentTimeMillis() < deadline) {
+        Thread.sleep(50);
+      }
+      assertThat(notifications).containsExactly(Set.of("topic-b"));
+      assertThat(config.isEncryptedTopic("topic-b")).isTrue();
+    }
+  }
+
+  private VaultEncryptionKeyProviderConfig loadConfig(Path configFile) {
+    try {
+      return createConfig(Files.readAllLines(configFile));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static VaultEncryptionKeyProviderConfig createConfig(List<String> encryptedTopics) {
+    var builder = MultiTopicVaultEncryptionKeyProviderConfig.builder()
+        .vaultConnectionConfig(VaultConnectionConfig.builder()
+            .token("dev-token")
+            .build())
+        .configEntry(KafkaTopicConfigEntry.builder()
+            .isDefault(true)
+            .encryptionEnabled(false)
+            .vaultPath("galapagos/default")
+            .build());
+    for (String topic : encryptedTopics) {
+      builder.configEntry(KafkaTopicConfigEntry.builder()
+          .kafkaTopicName(topic)
+          .vaultPath("galapagos/" + topic)
+          .build());
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,106 @@
+package de.otto.kafka.messaging.e2ee.vault;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.otto.kafka.messaging.e2ee.EncryptionKeyProvider.KeyVersion;
+import de.otto.kafka.messaging.e2ee.testfixtures.FakeVaultServer;
+import de.otto.kafka.messaging.e2ee.vault.VaultConnectionConfig.VaultAppRole;
+import io.github.jopenlibs.vault.VaultException;
+import io.github.jopenlibs.vault.response.LogicalResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RenewableVaultTest {
+
+  private FakeVaultServer fakeVaultServer;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    fakeVaultServer = FakeVaultServer.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    fakeVaultServer.close();
+  }
+
+  @Test
+  void shouldReadLatestAndSpecificVersionWithToken() throws VaultException {
+    // given
+    fakeVaultServer.addToken("some-token");
+    fakeVaultServer.putSecret("secret/some-topic", Map.of("encryption_key", "key-1"));
+    fakeVaultServer.putSecret("secret/some-topic", Map.of("encryption_key", "key-2"));
+    RenewableVault vault = VaultConnectionConfig.builder()
+        .address(fakeVaultServer.getAddress())
+        .token("some-token")
+        .build()
+        .createRenewableVault();
+
+    // when
+    LogicalResponse latest = vault.read("secret/some-topic");
+    LogicalResponse first = vault.read("secret/some-topic", 1);
+
+    // then
+    assertThat(latest.getData()).containsEntry("encryption_key", "key-2");
+    assertThat(latest.getDataMetadata().getVersion()).isEqualTo(2L);
+    assertThat(first.getData()).containsEntry("encryption_key", "key-1");
+    assertThat(fakeVaultServer.getSecretReadCount()).isEqualTo(2);
+    assertThat(fakeVaultServer.getLoginCount()).isZero();
+  }
+
+  @Test
+  void shouldLoginAgainWhenAuthLeaseHasExpired() throws VaultException {
+    // given
+    fakeVaultServer.addAppRole("approle", "some-roleid", "some-secretid");
+    fakeVaultServer.setAuthLeaseDuration(Duration.ZERO);
+    fakeVaultServer.putSecret("secret/some-topic", Map.of("encryption_key", "key-1"));
+    RenewableVault vault = VaultConnectionConfig.builder()
+        .address(fakeVaultServer.getAddress())
+        .appRole(VaultAppRole.builder()
+            .path("approle")
+            .roleid("some-roleid")
+            .secretid("some-secretid")
+            .build())
+        .build()
+        .createRenewableVault();
+
+    // when
+    LogicalResponse response1 = vault.read("secret/some-topic");
+    LogicalResponse response2 = vault.read("secret/some-topic");
+
+    // then
+    assertThat(response1.getData()).containsEntry("encryption_key", "key-1");
+    assertThat(response2.getData()).containsEntry("encryption_key", "key-1");
+    assertThat(fakeVaultServer.getLoginCount()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldRetrieveKeysEndToEnd() {
+    // given
+    fakeVaultServer.addToken("some-token");
+    fakeVaultServer.putSecret("secret/some-topic", Map.of("encryption_key", "key-1"));
+    fakeVaultServer.putSecret("secret/some-topic", Map.of("encryption_key", "key-2"));
+    VaultEncryptionKeyProvider keyProvider = new VaultEncryptionKeyProvider(
+        SingleTopicVaultEncryptionKeyProviderConfig.builder()
+            .isEncryptedTopic(true)
+            .vaultPath("secret/some-topic")
+            .vaultConnectionConfig(VaultConnectionConfig.builder()
+                .address(fakeVaultServer.getAddress())
+                .token("some-token")
+                .build())
+            .build());
+
+    // when
+    KeyVersion keyForEncryption = keyProvider.retrieveKeyForEncryption("some-topic");
+    String keyForDecryption = keyProvider.retrieveKeyForDecryption("some-topic", 1);
+
+    // then
+    assertThat(keyForEncryption.version()).isEqualTo(2);
+    assertThat(keyForEncryption.encodedKey()).isEqualTo("key-2");
+    assertThat(keyForDecryption).isEqualTo("key-1");
+  }
+}
@@ -3,6 +3,7 @@ package de.otto.kafka.messaging.e2ee.vault;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import de.otto.kafka.messaging.e2ee.vault.VaultConnectionConfig.VaultAppRole;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
 class SingleTopicVaultEncryptionKeyProviderConfigTest {
@@ -62,4 +63,23 @@ class SingleTopicVaultEncryptionKeyProviderConfigTest {
     assertThat(config.encryptionKeyAttributeName("some-topic"))
         .isEqualTo("my_secret");
   }
-}
\ No newline at end of file
+
+  @Test
+  void shouldKeepRenewableVaultAndCreateMultiEndpointVaultSeparately() {
+    SingleTopicVaultEncryptionKeyProviderConfig config = SingleTopicVaultEncryptionKeyProviderConfig.builder()
+        .isEncryptedTopic(true)
+        .vaultConnectionConfig(VaultConnectionConfig.builder()
+            .address("http://the-vault-address")
+            .standbyAddresses(List.of("http://standby-1"))
+            .token("dev-token")
+            .build())
+        .vaultPath("galapagos/some-topic")
+        .build();
+
+    RenewableVault readonlyVault = config.createReadonlyVault();
+    ReadonlyVaultApi vault = config.createVault();
+
+    assertThat(readonlyVault).isNotNull();
+    assertThat(vault).isInstanceOf(MultiEndpointVault.class);
+  }
+}
@@ -0,0 +1,203 @@
+package de.otto.kafka.messaging.e2ee.vault;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.otto.kafka.messaging.e2ee.vault.VaultConnectionConfig.VaultAgent;
+import io.github.jopenlibs.vault.VaultException;
+import io.github.jopenlibs.vault.response.LogicalResponse;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class VaultAgentVaultTest {
+
+  private static final String SECRET_JSON = """
+      {"data":{"data":{"encryption_key":"some-key"},"metadata":{"created_time":"2023-09-19T15:00Z","version":3}}}""";
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void shouldReadSecretViaUnixDomainSocket() throws Exception {
+    // given
+    Path socketPath = tempDir.resolve("agent.sock");
+    try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+      server.bind(UnixDomainSocketAddress.of(socketPath));
+      CompletableFuture<String> request = serveOnce(server, "HTTP/1.1 200 OK\r\n"
+          + "Content-Type: application/json\r\n"
+          + "Transfer-Encoding: chunked\r\n\r\n"
+          + chunked(SECRET_JSON));
+      VaultAgentVault vault = new VaultAgentVault(VaultAgent.builder()
+          .unixSocketPath(socketPath.toString())
+          .build(), null);
+
+      // when
+      LogicalResponse response = vault.read("galapagos/local/team/topic", 3);
+
+      // then
+      assertThat(response.getRestResponse().getStatus()).isEqualTo(200);
+      assertThat(response.getData()).containsEntry("encryption_key", "some-key");
+      assertThat(response.getDataMetadata().getVersion()).isEqualTo(3L);
+      String requestText = request.get(5, TimeUnit.SECONDS);
+      assertThat(requestText).startsWith(
+          "GET /v1/galapagos/data/local/team/topic?version=3 HTTP/1.1\r\n");
+      assertThat(requestText).contains("X-Vault-Request: true\r\n");
+      assertThat(requestText).doesNotContain("X-Vault-Token");
+    } finally {
+      Files.deleteIfExists(socketPath);
+    }
+  }
+
+  @Test
+  void shouldReadSecretViaLoopback() throws Exception {
+    // given
+    try (ServerSocketChannel server = ServerSocketChannel.open()) {
+      server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+      int port = ((InetSocketAddress) server.getLocalAddress()).getPort();
+      CompletableFuture<String> request = serveOnce(server, "HTTP/1.1 200 OK\r\n"
+          + "Content-Type: application/json\r\n"
+          + "Content-Length: " + SECRET_JSON.length() + "\r\n\r\n"
+          + SECRET_JSON);
+      VaultAgentVault vault = new VaultAgentVault(VaultAgent.builder()
+          .address("http://127.0.0.1:" + port)
+          .build(), "some-token");
+
+      // when
+      LogicalResponse response = vault.read("galapagos/local/team/topic");
+
+      // then
+      assertThat(response.getData()).containsEntry("encryption_key", "some-key");
+      String requestText = request.get(5, TimeUnit.SECONDS);
+      assertThat(requestText).startsWith("GET /v1/galapagos/data/local/team/topic HTTP/1.1\r\n");
+      assertThat(requestText).contains("X-Vault-Token: some-token\r\n");
+    }
+  }
+
+  @Test
+  void shouldReuseConnectionForSeveralReads() throws Exception {
+    // given: a server which answers two requests on a single connection
+    try (ServerSocketChannel server = ServerSocketChannel.open()) {
+      server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+      String response = "HTTP/1.1 200 OK\r\n"
+          + "Content-Type: application/json\r\n"
+          + "Content-Length: " + SECRET_JSON.length() + "\r\n\r\n"
+          + SECRET_JSON;
+      CompletableFuture<Integer> servedRequests = CompletableFuture.supplyAsync(() -> {
+        try (SocketChannel client = server.accept()) {
+          int requests = 0;
+          while (requests < 2 && readRequest(client) != null) {
+            client.write(ByteBuffer.wrap(response.getBytes(StandardCharsets.UTF_8)));
+            requests++;
+          }
+          return requests;
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      });
+      try (VaultAgentVault vault = new VaultAgentVault(server.getLocalAddress(), "localhost",
+          null, Duration.ofSeconds(5))) {
+
+        // when
+        LogicalResponse response1 = vault.read("galapagos/local/team/topic");
+        LogicalResponse response2 = vault.read("galapagos/local/team/topic", 3);
+
+        // then
+        assertThat(response1.getData()).containsEntry("encryption_key", "some-key");
+        assertThat(response2.getData()).containsEntry("encryption_key", "some-key");
+        assertThat(servedRequests.get(5, TimeUnit.SECONDS)).isEqualTo(2);
+      }
+    }
+  }
+
+  @Test
+  void shouldRejectRemoteAgentAddress() {
+    assertThatThrownBy(() -> VaultAgent.builder().address("http://vault.example.com:8200").build())
+        .isInstanceOf(VaultConfigException.class)
+        .hasMessageContaining("loopback");
+    assertThatThrownBy(() -> VaultAgent.builder().address("http://10.0.0.1:8200").build())
+        .isInstanceOf(VaultConfigException.class);
+    assertThatThrownBy(() -> VaultAgent.builder().address("https://127.0.0.1:8200").build())
+        .isInstanceOf(VaultConfigException.class);
+    assertThat(VaultAgent.builder().address("http://localhost:8200").build()).isNotNull();
+    assertThat(VaultAgent.builder().address("http://[::1]:8200").build()).isNotNull();
+  }
+
+  @Test
+  void shouldThrowExceptionOnServerError() throws Exception {
+    // given
+    try (ServerSocketChannel server = ServerSocketChannel.open()) {
+      server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+      serveOnce(server, "HTTP/1.1 503 Service Unavailable\r\nContent-Length: 0\r\n\r\n");
+      VaultAgentVault vault = new VaultAgentVault(server.getLocalAddress(), "localhost", null,
+          Duration.ofSeconds(5));
+
+      // when + then
+      assertThatThrownBy(() -> vault.read("secret/hello"))
+          .isInstanceOf(VaultException.class)
+          .hasMessageContaining("503");
+    }
+  }
+
+  @Test
+  void shouldInsertDataPathElementForKvVersion2() {
+    assertThat(VaultAgentVault.toDataPath("secret/hello")).isEqualTo("/v1/secret/data/hello");
+    assertThat(VaultAgentVault.toDataPath("/secret/a/b")).isEqualTo("/v1/secret/data/a/b");
+    assertThat(VaultAgentVault.toDataPath("secret")).isEqualTo("/v1/secret/data");
+  }
+
+  private static CompletableFuture<String> serveOnce(ServerSocketChannel server,
+      String response) {
+    return CompletableFuture.supplyAsync(() -> {
+      try (SocketChannel client = server.accept()) {
+        StringBuilder request = new StringBuilder();
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        while (!request.toString().contains("\r\n\r\n")) {
+          buffer.clear();
+          if (client.read(buffer) < 0) {
+            break;
+          }
+          request.append(new String(buffer.array(), 0, buffer.position(),
+              StandardCharsets.UTF_8));
+        }
+        client.write(ByteBuffer.wrap(response.getBytes(StandardCharsets.UTF_8)));
+        return request.toString();
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+  }
+
+  private static String readRequest(SocketChannel client) throws IOException {
+    StringBuilder request = new StringBuilder();
+    ByteBuffer buffer = ByteBuffer.allocate(1);
+    while (!request.toString().endsWith("\r\n\r\n")) {
+      buffer.clear();
+      if (client.read(buffer) < 0) {
+        return null;
+      }
+      request.append((char) buffer.get(0));
+    }
+    return request.toString();
+  }
+
+  private static String chunked(String body) {
+    int half = body.length() / 2;
+    return Integer.toHexString(half) + "\r\n" + body.substring(0, half) + "\r\n"
+        + Integer.toHexString(body.length() - half) + "\r\n" + body.substring(half) + "\r\n"
+        + "0\r\n\r\n";
+  }
+}
@@ -0,0 +1,102 @@
+package de.otto.kafka.messaging.e2ee.vault;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import de.otto.kafka.messaging.e2ee.helper.TestClock;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class VaultCircuitBreakerTest {
+
+  private TestClock testClock;
+  private VaultCircuitBreaker circuitBreaker;
+
+  @BeforeEach
+  void setup() {
+    testClock = new TestClock("2023-08-01T17:45:00Z");
+    circuitBreaker = VaultCircuitBreaker.builder()
+        .failureThreshold(3)
+        .initialBackoff(Duration.ofSeconds(10))
+        .maxBackoff(Duration.ofSeconds(30))
+        .clock(testClock)
+        .build();
+  }
+
+  @Test
+  void shouldOpenAfterConsecutiveFailures() {
+    // when: less failures than the threshold occurred
+    circuitBreaker.onFailure();
+    circuitBreaker.onFailure();
+    // then: the circuit should be closed
+    assertThat(circuitBreaker.isOpen()).isFalse();
+    assertDoesNotThrow(() -> circuitBreaker.acquirePermission());
+    // when: the threshold is reached
+    circuitBreaker.onFailure();
+    // then: the circuit should be open
+    assertThat(circuitBreaker.isOpen()).isTrue();
+    assertThrows(VaultCircuitOpenException.class, () -> circuitBreaker.acquirePermission());
+  }
+
+  @Test
+  void shouldResetFailureCountOnSuccess() {
+    // given: some failures followed by a success
+    circuitBreaker.onFailure();
+    circuitBreaker.onFailure();
+    circuitBreaker.onSuccess();
+    // when: another failure occurs
+    circuitBreaker.onFailure();
+    // then: the circuit should still be closed
+    assertThat(circuitBreaker.isOpen()).isFalse();
+  }
+
+  @Test
+  void shouldLetOneProbeThroughWhenBackoffHasElapsed() {
+    // given: an open circuit
+    openCircuit();
+    // when: the (jittered) backoff has not elapsed yet
+    testClock.setCurrentTime("2023-08-01T17:45:04Z");
+    // then: requests should be rejected
+    assertThrows(VaultCircuitOpenException.class, () -> circuitBreaker.acquirePermission());
+    // when: the backoff has elapsed
+    testClock.setCurrentTime("2023-08-01T17:45:10Z");
+    // then: exactly one probe should be let through
+    assertDoesNotThrow(() -> circuitBreaker.acquirePermission());
+    assertThrows(VaultCircuitOpenException.class, () -> circuitBreaker.acquirePermission());
+    // when: the probe succeeds
+    circuitBreaker.onSuccess();
+    // then: the circuit should be closed
+    assertThat(circuitBreaker.isOpen()).isFalse();
+    assertDoesNotThrow(() -> circuitBreaker.acquirePermission());
+  }
+
+  @Test
+  void shouldIncreaseBackoffWhenProbeFails() {
+    // given: an open circuit
+    openCircuit();
+    testClock.setCurrentTime("2023-08-01T17:45:10Z");
+    circuitBreaker.acquirePermission();
+    // when: the probe fails
+    circuitBreaker.onFailure();
+    // then: the circuit should be open for at least half of the doubled backoff
+    testClock.setCurrentTime("2023-08-01T17:45:19Z");
+    assertThrows(VaultCircuitOpenException.class, () -> circuitBreaker.acquirePermission());
+    // then: the circuit should be half-open after the doubled backoff
+    testClock.setCurrentTime("2023-08-01T17:45:30Z");
+    assertDoesNotThrow(() -> circuitBreaker.acquirePermission());
+    // when: the probe fails again
+    circuitBreaker.onFailure();
+    // then: the backoff should be limited by the max backoff
+    testClock.setCurrentTime("2023-08-01T17:46:00Z");
+    assertDoesNotThrow(() -> circuitBreaker.acquirePermission());
+  }
+
+  private void openCircuit() {
+    circuitBreaker.onFailure();
+    circuitBreaker.onFailure();
+    circuitBreaker.onFailure();
+    assertThat(circuitBreaker.isOpen()).isTrue();
+  }
+}
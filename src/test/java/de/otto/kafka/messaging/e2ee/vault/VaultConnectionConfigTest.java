@@ -1,9 +1,13 @@
 package de.otto.kafka.messaging.e2ee.vault;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import de.otto.kafka.messaging.e2ee.vault.VaultConnectionConfig.VaultAgent;
 import de.otto.kafka.messaging.e2ee.vault.VaultConnectionConfig.VaultAppRole;
 import de.otto.kafka.messaging.e2ee.vault.VaultConnectionConfig.VaultAwsIamLogin;
+import io.github.jopenlibs.vault.VaultException;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
 class VaultConnectionConfigTest {
@@ -91,4 +95,81 @@ class VaultConnectionConfigTest {
     assertThat(awsIamLoginResult.iamRequestHeadersBase64()).isEqualTo("c29tZS1yZXF1ZXN0LWhlYWRlcnM=");
     assertThat(awsIamLoginResult.awsAuthMount()).isEqualTo("some-awsAuthMount");
   }
-}
\ No newline at end of file
+
+  @Test
+  void shouldCreateMultiEndpointVaultWhenStandbyAddressesAreConfigured() throws VaultException {
+    // given
+    VaultConnectionConfig config = VaultConnectionConfig.builder()
+        .address("http://the-vault-address")
+        .standbyAddresses(List.of("http://standby-1", "http://standby-2"))
+        .hedgedReads(true)
+        .token("some-token")
+        .build();
+
+    // when
+    ReadonlyVaultApi result = config.createReadonlyVault();
+
+    // then
+    assertThat(config.standbyAddresses()).containsExactly("http://standby-1", "http://standby-2");
+    assertThat(config.hedgedReads()).isTrue();
+    assertThat(result).isInstanceOf(MultiEndpointVault.class);
+  }
+
+  @Test
+  void shouldCreateRenewableVaultForSingleAddress() throws VaultException {
+    // given
+    VaultConnectionConfig config = VaultConnectionConfig.builder()
+        .address("http://the-vault-address")
+        .token("some-token")
+        .build();
+
+    // when
+    ReadonlyVaultApi result = config.createReadonlyVault();
+
+    // then
+    assertThat(config.standbyAddresses()).isEmpty();
+    assertThat(result).isInstanceOf(RenewableVault.class);
+  }
+
+  @Test
+  void shouldRejectHedgedReadsWithoutStandbyAddresses() {
+    assertThatThrownBy(() -> VaultConnectionConfig.builder()
+        .token("some-token")
+        .hedgedReads(true)
+        .build())
+        .isInstanceOf(VaultConfigException.class);
+  }
+
+  @Test
+  void shouldCreateVaultAgentConfigWithoutToken() throws VaultException {
+    // given
+    VaultConnectionConfig config = VaultConnectionConfig.builder()
+        .vaultAgent(VaultAgent.builder()
+            .unixSocketPath("/var/run/vault/agent.sock")
+            .build())
+        .build();
+
+    // when
+    ReadonlyVaultApi result = config.createReadonlyVault();
+
+    // then
+    assertThat(config.vaultAgent().unixSocketPath()).isEqualTo("/var/run/vault/agent.sock");
+    assertThat(config.token()).isNull();
+    assertThat(result).isInstanceOf(VaultAgentVault.class);
+  }
+
+  @Test
+  void shouldRejectVaultAgentWithAppRole() {
+    assertThatThrownBy(() -> VaultConnectionConfig.builder()
+        .vaultAgent(VaultAgent.builder()
+            .address("http://127.0.0.1:8100")
+            .build())
+        .appRole(VaultAppRole.builder()
+            .path("some-path")
+            .roleid("some-roleid")
+            .secretid("some-secretid")
+            .build())
+        .build())
+        .isInstanceOf(VaultConfigException.class);
+  }
+}
@@ -5,6 +5,12 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import de.otto.kafka.messaging.e2ee.EncryptionKeyProvider.KeyVersion;
 import de.otto.kafka.messaging.e2ee.helper.DummyVaultEncryptionKeyProviderConfig;
+import de.otto.kafka.messaging.e2ee.helper.TestClock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 
 class VaultEncryptionKeyProviderTest {
@@ -81,4 +87,87 @@ class VaultEncryptionKeyProviderTest {
     assertThat(result).isEqualTo("someEncodedKey");
   }
 
-}
\ No newline at end of file
+  @Test
+  void shouldShareOneVaultResponseForConcurrentReadsOfSameKeyVersion() throws Exception {
+    // given: a test setup with the correct encryption key
+    DummyVaultEncryptionKeyProviderConfig config = new DummyVaultEncryptionKeyProviderConfig();
+    config.getDummyVault()
+        .setPathValue("/galaogos_someTopic", "{\"encryption_key\": \"someEncodedKey\"}", 3);
+    // given: a vault that blocks all reads until the gate is released
+    CountDownLatch readGate = new CountDownLatch(1);
+    config.getDummyVault().setReadGate(readGate);
+    VaultEncryptionKeyProvider encryptionKeyProvider = new VaultEncryptionKeyProvider(config);
+    // when: the same key version is requested concurrently
+    List<FutureTask<String>> tasks = new ArrayList<>();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      FutureTask<String> task = new FutureTask<>(
+          () -> encryptionKeyProvider.retrieveKeyForDecryption("someTopic", 3));
+      Thread thread = new Thread(task);
+      tasks.add(task);
+      threads.add(thread);
+      thread.start();
+    }
+    awaitAllWaiting(threads);
+    readGate.countDown();
+    // then: all callers should get the key
+    for (FutureTask<String> task : tasks) {
+      assertThat(task.get(5, TimeUnit.SECONDS)).isEqualTo("someEncodedKey");
+    }
+    // then: the vault should have been called only once
+    assertThat(config.getDummyVault().getReadCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldNotShareVaultResponseForDifferentKeyVersions() {
+    // given: a test setup with two key versions
+    DummyVaultEncryptionKeyProviderConfig config = new DummyVaultEncryptionKeyProviderConfig();
+    config.getDummyVault()
+        .setPathValue("/galaogos_someTopic", "{\"encryption_key\": \"someEncodedKey\"}", 3);
+    config.getDummyVault()
+        .setPathValue("/galaogos_someTopic", "{\"encryption_key\": \"someOtherKey\"}", 4);
+    VaultEncryptionKeyProvider encryptionKeyProvider = new VaultEncryptionKeyProvider(config);
+    // when: methods are called one after the other
+    String result3 = encryptionKeyProvider.retrieveKeyForDecryption("someTopic", 3);
+    String result4 = encryptionKeyProvider.retrieveKeyForDecryption("someTopic", 4);
+    String result3Again = encryptionKeyProvider.retrieveKeyForDecryption("someTopic", 3);
+    // then: each call should have reached the vault
+    assertThat(result3).isEqualTo("someEncodedKey");
+    assertThat(result4).isEqualTo("someOtherKey");
+    assertThat(result3Again).isEqualTo("someEncodedKey");
+    assertThat(config.getDummyVault().getReadCount()).isEqualTo(3);
+  }
+
+  @Test
+  void shouldFailFastWhenCircuitBreakerIsOpen() {
+    // given: a vault which is not available
+    DummyVaultEncryptionKeyProviderConfig config = new DummyVaultEncryptionKeyProviderConfig();
+    config.getDummyVault().setThrowException(true);
+    // given: a circuit breaker which opens after two failures
+    VaultCircuitBreaker circuitBreaker = VaultCircuitBreaker.builder()
+        .failureThreshold(2)
+        .clock(new TestClock("2023-08-01T17:45Z"))
+        .build();
+    VaultEncryptionKeyProvider encryptionKeyProvider = new VaultEncryptionKeyProvider(config,
+        circuitBreaker);
+    // when: the vault is called until the circuit is open
+    assertThrows(VaultRuntimeException.class,
+        () -> encryptionKeyProvider.retrieveKeyForDecryption("someTopic", 3));
+    assertThrows(VaultRuntimeException.class,
+        () -> encryptionKeyProvider.retrieveKeyForDecryption("someTopic", 3));
+    // then: further calls should fail fast without calling the vault
+    assertThrows(VaultCircuitOpenException.class,
+        () -> encryptionKeyProvider.retrieveKeyForEncryption("someTopic"));
+    assertThat(config.getDummyVault().getReadCount()).isEqualTo(2);
+  }
+
+  private static void awaitAllWaiting(List<Thread> threads) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (!threads.stream().allMatch(thread -> thread.getState() == Thread.State.WAITING)) {
+      if (System.currentTimeMillis() > deadline) {
+        throw new IllegalStateException("threads are not waiting");
+      }
+      Thread.sleep(5);
+    }
+  }
+}
@@ -0,0 +1,450 @@
+package de.otto.kafka.messaging.e2ee.testfixtures;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.jopenlibs.vault.json.Json;
+import io.github.jopenlibs.vault.json.JsonObject;
+import io.github.jopenlibs.vault.json.JsonValue;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An in-process HTTP server which behaves like a vault with a KV Secrets Engine version 2. It can
+ * be used to test (or load test) the vault access including the HTTP layer, timeouts and the
+ * renewal of auth tokens without a real vault.
+ * <p>
+ * Supported endpoints:
+ * <ul>
+ *   <li><code>GET /v1/{mount}/data/{path}[?version=N]</code> - KV v2 read</li>
+ *   <li><code>POST /v1/auth/{mount}/login</code> - AppRole and AWS IAM login</li>
+ *   <li><code>POST /v1/auth/token/renew-self</code> - token renewal</li>
+ * </ul>
+ * Latency, errors and request counters can be configured and inspected at runtime.
+ *
+ * <pre>{@code
+ * try (FakeVaultServer vault = FakeVaultServer.start()) {
+ *   vault.addToken("some-token");
+ *   vault.putSecret("secret/some-topic", Map.of("encryption_key", "..."));
+ *   vault.setLatency(Duration.ofMillis(5));
+ *
+ *   VaultConnectionConfig config = VaultConnectionConfig.builder()
+ *       .address(vault.getAddress())
+ *       .token("some-token")
+ *       .build();
+ * }
+ * }</pre>
+ */
+public final class FakeVaultServer implements AutoCloseable {
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final Map<String, List<SecretVersion>> secrets = new ConcurrentHashMap<>();
+  private final Set<String> validTokens = ConcurrentHashMap.newKeySet();
+  private final Map<String, AppRoleCredentials> appRoles = new ConcurrentHashMap<>();
+  private final Map<String, String> awsIamRoles = new ConcurrentHashMap<>();
+  private final AtomicInteger requestCount = new AtomicInteger();
+  private final AtomicInteger secretReadCount = new AtomicInteger();
+  private final AtomicInteger loginCount = new AtomicInteger();
+  private final AtomicInteger renewCount = new AtomicInteger();
+  private final AtomicInteger remainingFailures = new AtomicInteger();
+  private volatile Duration latency = Duration.ZERO;
+  private volatile Duration authLeaseDuration = Duration.ofHours(1);
+  private volatile double errorRate = 0.0;
+  private volatile int errorStatusCode = 503;
+
+  private FakeVaultServer(HttpServer server, int threads) {
+    this.server = server;
+    this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "fake-vault-server");
+      thread.setDaemon(true);
+      return thread;
+    });
+    server.setExecutor(executor);
+    server.createContext("/v1/", this::handle);
+    server.start();
+  }
+
+  /**
+   * Starts a server on a random loopback port.
+   *
+   * @return the started server
+   * @throws IOException when the server could not be started
+   */
+  public static FakeVaultServer start() throws IOException {
+    return start(16);
+  }
+
+  /**
+   * Starts a server on a random loopback port.
+   *
+   * @param threads number of threads which handle the requests
+   * @return the started server
+   * @throws IOException when the server could not be started
+   */
+  public static FakeVaultServer start(int threads) throws IOException {
+    HttpServer server = HttpServer.create(
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    return new FakeVaultServer(server, threads);
+  }
+
+  /**
+   * Returns the URL of the server.
+   *
+   * @return the URL, e.g. <code>http://127.0.0.1:54321</code>
+   */
+  public String getAddress() {
+    return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+  }
+
+  /**
+   * Adds a new version of a secret.
+   *
+   * @param path the secret path including the mount, e.g. <code>secret/some-topic</code>
+   * @param data the secret data
+   * @return the version of the added secret
+   */
+  public int putSecret(String path, Map<String, String> data) {
+    Objects.requireNonNull(path, "path is required");
+    Objects.requireNonNull(data, "data is required");
+    List<SecretVersion> versions = secrets.computeIfAbsent(normalize(path),
+        p -> new ArrayList<>());
+    synchronized (versions) {
+      int version = versions.size() + 1;
+      versions.add(new SecretVersion(version, Map.copyOf(data), Instant.now()));
+      return version;
+    }
+  }
+
+  /**
+   * Adds a token which is accepted by the server.
+   *
+   * @param token the token
+   */
+  public void addToken(String token) {
+    validTokens.add(Objects.requireNonNull(token, "token is required"));
+  }
+
+  /**
+   * Registers an app role.
+   *
+   * @param mount    the auth mount, e.g. <code>approle</code>
+   * @param roleId   the role id
+   * @param secretId the secret id
+   */
+  public void addAppRole(String mount, String roleId, String secretId) {
+    appRoles.put(mount, new AppRoleCredentials(roleId, secretId));
+  }
+
+  /**
+   * Registers an AWS IAM role. The signed request itself is not validated.
+   *
+   * @param mount the auth mount, e.g. <code>aws</code>
+   * @param role  the role name
+   */
+  public void addAwsIamRole(String mount, String role) {
+    awsIamRoles.put(mount, role);
+  }
+
+  /**
+   * Sets the lease duration of the tokens issued by logins and renewals. Default is 1 hour.
+   *
+   * @param authLeaseDuration the lease duration
+   */
+  public void setAuthLeaseDuration(Duration authLeaseDuration) {
+    this.authLeaseDuration = Objects.requireNonNull(authLeaseDuration);
+  }
+
+  /**
+   * Sets a delay which is added to every request. Default is no delay.
+   *
+   * @param latency the delay
+   */
+  public void setLatency(Duration latency) {
+    this.latency = Objects.requireNonNull(latency);
+  }
+
+  /**
+   * The next requests fail with the given HTTP status code.
+   *
+   * @param count      number of requests which will fail
+   * @param statusCode the HTTP status code, e.g. 503
+   */
+  public void failNextRequests(int count, int statusCode) {
+    this.errorStatusCode = statusCode;
+    this.remainingFailures.set(count);
+  }
+
+  /**
+   * Lets the given fraction of all requests fail with the given HTTP status code.
+   *
+   * @param errorRate  between 0.0 (no errors) and 1.0 (all requests fail)
+   * @param statusCode the HTTP status code, e.g. 503
+   */
+  public void setErrorRate(double errorRate, int statusCode) {
+    this.errorStatusCode = statusCode;
+    this.errorRate = errorRate;
+  }
+
+  /**
+   * @return number of all requests
+   */
+  public int getRequestCount() {
+    return requestCount.get();
+  }
+
+  /**
+   * @return number of KV read requests
+   */
+  public int getSecretReadCount() {
+    return secretReadCount.get();
+  }
+
+  /**
+   * @return number of login requests
+   */
+  public int getLoginCount() {
+    return loginCount.get();
+  }
+
+  /**
+   * @return number of token renewal requests
+   */
+  public int getRenewCount() {
+    return renewCount.get();
+  }
+
+  /**
+   * Sets all request counters to zero.
+   */
+  public void resetCounters() {
+    requestCount.set(0);
+    secretReadCount.set(0);
+    loginCount.set(0);
+    renewCount.set(0);
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      requestCount.incrementAndGet();
+      sleepLatency();
+      if (shouldFail()) {
+        sendErrors(exchange, errorStatusCode, "injected error");
+        return;
+      }
+
+      String path = exchange.getRequestURI().getPath().substring("/v1/".length());
+      if (path.startsWith("auth/")) {
+        handleAuth(exchange, path.substring("auth/".length()));
+      } else if ("GET".equals(exchange.getRequestMethod())) {
+        handleRead(exchange, path);
+      } else {
+        sendErrors(exchange, 405, "unsupported operation");
+      }
+    }
+  }
+
+  private void handleAuth(HttpExchange exchange, String authPath) throws IOException {
+    if (!"POST".equals(exchange.getRequestMethod()) && !"PUT".equals(
+        exchange.getRequestMethod())) {
+      sendErrors(exchange, 405, "unsupported operation");
+      return;
+    }
+
+    if ("token/renew-self".equals(authPath)) {
+      renewCount.incrementAndGet();
+      String token = exchange.getRequestHeaders().getFirst("X-Vault-Token");
+      if (token == null || !validTokens.contains(token)) {
+        sendErrors(exchange, 403, "permission denied");
+        return;
+      }
+      sendAuth(exchange, token);
+      return;
+    }
+
+    if (!authPath.endsWith("/login")) {
+      sendErrors(exchange, 404, "unsupported path");
+      return;
+    }
+    loginCount.incrementAndGet();
+    String mount = authPath.substring(0, authPath.length() - "/login".length());
+    JsonObject body = readJsonBody(exchange);
+
+    AppRoleCredentials appRole = appRoles.get(mount);
+    String awsIamRole = awsIamRoles.get(mount);
+    boolean loginValid = appRole != null
+        ? appRole.roleId().equals(body.getString("role_id", null))
+        && appRole.secretId().equals(body.getString("secret_id", null))
+        : awsIamRole != null && awsIamRole.equals(body.getString("role", null));
+    if (!loginValid) {
+      sendErrors(exchange, 400, "invalid credentials");
+      return;
+    }
+
+    String token = "fake-token-" + UUID.randomUUID();
+    validTokens.add(token);
+    sendAuth(exchange, token);
+  }
+
+  private void handleRead(HttpExchange exchange, String path) throws IOException {
+    secretReadCount.incrementAndGet();
+    String token = exchange.getRequestHeaders().getFirst("X-Vault-Token");
+    if (token == null || !validTokens.contains(token)) {
+      sendErrors(exchange, 403, "permission denied");
+      return;
+    }
+
+    // KV v2: {mount}/data/{path}
+    String[] parts = path.split("/", 3);
+    if (parts.length < 3 || !"data".equals(parts[1])) {
+      sendErrors(exchange, 404, "unsupported path");
+      return;
+    }
+    List<SecretVersion> versions = secrets.get(parts[0] + "/" + parts[2]);
+    SecretVersion secret = versions == null ? null
+        : findVersion(versions, requestedVersion(exchange.getRequestURI().getQuery()));
+    if (secret == null) {
+      send(exchange, 404, Json.object().add("errors", Json.array()).toString());
+      return;
+    }
+
+    JsonObject data = Json.object();
+    secret.data().forEach(data::add);
+    JsonObject metadata = Json.object()
+        .add("created_time", secret.createdTime().toString())
+        .add("deletion_time", "")
+        .add("destroyed", false)
+        .add("version", secret.version());
+    send(exchange, 200, Json.object()
+        .add("request_id", UUID.randomUUID().toString())
+        .add("lease_id", "")
+        .add("renewable", false)
+        .add("lease_duration", 0)
+        .add("data", Json.object()
+            .add("data", data)
+            .add("metadata", metadata))
+        .toString());
+  }
+
+  private static SecretVersion findVersion(List<SecretVersion> versions, Integer version) {
+    synchronized (versions) {
+      if (versions.isEmpty()) {
+        return null;
+      }
+      if (version == null || version == 0) {
+        return versions.get(versions.size() - 1);
+      }
+      if (version < 1 || version > versions.size()) {
+        return null;
+      }
+      return versions.get(version - 1);
+    }
+  }
+
+  private static Integer requestedVersion(String query) {
+    if (query == null) {
+      return null;
+    }
+    for (String parameter : query.split("&")) {
+      if (parameter.startsWith("version=")) {
+        return Integer.parseInt(parameter.substring("version=".length()));
+      }
+    }
+    return null;
+  }
+
+  private void sendAuth(HttpExchange exchange, String token) throws IOException {
+    send(exchange, 200, Json.object()
+        .add("request_id", UUID.randomUUID().toString())
+        .add("lease_id", "")
+        .add("renewable", false)
+        .add("lease_duration", 0)
+        .add("auth", Json.object()
+            .add("client_token", token)
+            .add("accessor", UUID.randomUUID().toString())
+            .add("policies", Json.array("default"))
+            .add("metadata", Json.object())
+            .add("lease_duration", authLeaseDuration.toSeconds())
+            .add("renewable", true))
+        .toString());
+  }
+
+  private static void sendErrors(HttpExchange exchange, int status, String message)
+      throws IOException {
+    send(exchange, status, Json.object().add("errors", Json.array(message)).toString());
+  }
+
+  private static void send(HttpExchange exchange, int status, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private static JsonObject readJsonBody(HttpExchange exchange) throws IOException {
+    try (InputStream in = exchange.getRequestBody()) {
+      String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+      if (body.isBlank()) {
+        return Json.object();
+      }
+      JsonValue value = Json.parse(body);
+      return value.isObject() ? value.asObject() : Json.object();
+    }
+  }
+
+  private boolean shouldFail() {
+    if (remainingFailures.getAndUpdate(count -> count > 0 ? count - 1 : 0) > 0) {
+      return true;
+    }
+    double rate = errorRate;
+    return rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate;
+  }
+
+  private void sleepLatency() {
+    Duration currentLatency = latency;
+    if (currentLatency.isZero()) {
+      return;
+    }
+    try {
+      Thread.sleep(currentLatency.toMillis(), currentLatency.toNanosPart() % 1_000_000);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static String normalize(String path) {
+    return path.startsWith("/") ? path.substring(1) : path;
+  }
+
+  private record SecretVersion(int version, Map<String, String> data, Instant createdTime) {
+
+  }
+
+  private record AppRoleCredentials(String roleId, String secretId) {
+
+  }
+}